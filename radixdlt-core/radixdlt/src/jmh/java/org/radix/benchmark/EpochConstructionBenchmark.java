@@ -0,0 +1,231 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package org.radix.benchmark;
+
+import static com.radixdlt.atom.TxAction.*;
+
+import com.radixdlt.application.system.construction.CreateSystemConstructorV2;
+import com.radixdlt.application.system.construction.NextEpochConstructorV3;
+import com.radixdlt.application.system.scrypt.EpochUpdateConstraintScrypt;
+import com.radixdlt.application.system.scrypt.RoundUpdateConstraintScrypt;
+import com.radixdlt.application.system.scrypt.SystemConstraintScrypt;
+import com.radixdlt.application.tokens.Amount;
+import com.radixdlt.application.tokens.construction.CreateMutableTokenConstructor;
+import com.radixdlt.application.tokens.construction.MintTokenConstructor;
+import com.radixdlt.application.tokens.construction.StakeTokensConstructorV3;
+import com.radixdlt.application.tokens.scrypt.StakingConstraintScryptV4;
+import com.radixdlt.application.tokens.scrypt.TokensConstraintScryptV3;
+import com.radixdlt.application.validators.construction.UpdateAllowDelegationFlagConstructor;
+import com.radixdlt.application.validators.scrypt.ValidatorConstraintScryptV2;
+import com.radixdlt.application.validators.scrypt.ValidatorRegisterConstraintScrypt;
+import com.radixdlt.application.validators.scrypt.ValidatorUpdateOwnerConstraintScrypt;
+import com.radixdlt.application.validators.scrypt.ValidatorUpdateRakeConstraintScrypt;
+import com.radixdlt.atom.REConstructor;
+import com.radixdlt.atom.TxBuilderException;
+import com.radixdlt.atom.TxnConstructionRequest;
+import com.radixdlt.atomos.CMAtomOS;
+import com.radixdlt.constraintmachine.ConstraintMachine;
+import com.radixdlt.constraintmachine.PermissionLevel;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.engine.RadixEngine;
+import com.radixdlt.engine.RadixEngineException;
+import com.radixdlt.engine.parser.REParser;
+import com.radixdlt.identifiers.REAddr;
+import com.radixdlt.store.InMemoryEngineStore;
+import com.radixdlt.utils.PrivateKeys;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH driven benchmark for the construction of the epoch change system transaction with a large
+ * number of pending stakes (100 validators with 1000 delegators each, i.e. 100k prepared stakes).
+ *
+ * <p>Note that the build system has been set up to make it easier to run these performance tests
+ * under gradle. Using gradle, it should be possible to execute:
+ *
+ * <pre>
+ *    $ gradle clean jmh
+ * </pre>
+ *
+ * from the RadixCode/radixdlt directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class EpochConstructionBenchmark {
+  private static final int VALIDATORS = 100;
+  private static final int DELEGATORS = 1000;
+  private static final int MINTS_PER_TXN = 100;
+
+  private RadixEngine<Void> engine;
+
+  @Setup(Level.Trial)
+  public void setup() throws TxBuilderException, RadixEngineException {
+    var cmAtomOS = new CMAtomOS();
+    cmAtomOS.load(new SystemConstraintScrypt());
+    cmAtomOS.load(new RoundUpdateConstraintScrypt(10));
+    cmAtomOS.load(
+        new EpochUpdateConstraintScrypt(10, Amount.ofTokens(10).toSubunits(), 9800, 1, 10));
+    cmAtomOS.load(new StakingConstraintScryptV4(Amount.ofTokens(1).toSubunits()));
+    cmAtomOS.load(new TokensConstraintScryptV3(Set.of(), Pattern.compile("[a-z0-9]+")));
+    cmAtomOS.load(new ValidatorConstraintScryptV2());
+    cmAtomOS.load(new ValidatorUpdateRakeConstraintScrypt(2));
+    cmAtomOS.load(new ValidatorRegisterConstraintScrypt());
+    cmAtomOS.load(new ValidatorUpdateOwnerConstraintScrypt());
+    var cm =
+        new ConstraintMachine(
+            cmAtomOS.getProcedures(),
+            cmAtomOS.buildSubstateDeserialization(),
+            cmAtomOS.buildVirtualSubstateDeserialization());
+    var constructors =
+        REConstructor.newBuilder()
+            .put(
+                NextEpoch.class,
+                new NextEpochConstructorV3(Amount.ofTokens(10).toSubunits(), 9800, 1, 10))
+            .put(CreateSystem.class, new CreateSystemConstructorV2())
+            .put(
+                CreateMutableToken.class,
+                new CreateMutableTokenConstructor(SystemConstraintScrypt.MAX_SYMBOL_LENGTH))
+            .put(MintToken.class, new MintTokenConstructor())
+            .put(StakeTokens.class, new StakeTokensConstructorV3(Amount.ofTokens(1).toSubunits()))
+            .put(UpdateAllowDelegationFlag.class, new UpdateAllowDelegationFlagConstructor())
+            .build();
+    this.engine =
+        new RadixEngine<>(
+            new REParser(cmAtomOS.buildSubstateDeserialization()),
+            cmAtomOS.buildSubstateSerialization(),
+            constructors,
+            cm,
+            new InMemoryEngineStore<>());
+
+    var genesis =
+        engine
+            .construct(
+                TxnConstructionRequest.create()
+                    .action(new CreateSystem(0))
+                    .action(
+                        new CreateMutableToken(
+                            REAddr.ofNativeToken(), "xrd", "xrd", "", "", "", null)))
+            .buildWithoutSignature();
+    engine.execute(List.of(genesis), null, PermissionLevel.SYSTEM);
+
+    var validators =
+        IntStream.rangeClosed(1, VALIDATORS).mapToObj(PrivateKeys::ofNumeric).toList();
+    for (var validator : validators) {
+      var allowDelegation =
+          engine
+              .construct(new UpdateAllowDelegationFlag(validator.getPublicKey(), true))
+              .signAndBuild(validator::sign);
+      engine.execute(List.of(allowDelegation));
+    }
+
+    var delegators =
+        IntStream.rangeClosed(VALIDATORS + 1, VALIDATORS + DELEGATORS)
+            .mapToObj(PrivateKeys::ofNumeric)
+            .toList();
+    var nativeToken = REAddr.ofNativeToken();
+    var amountPerDelegator = Amount.ofTokens(VALIDATORS).toSubunits();
+    for (int i = 0; i < delegators.size(); i += MINTS_PER_TXN) {
+      var mints = TxnConstructionRequest.create();
+      delegators.subList(i, Math.min(i + MINTS_PER_TXN, delegators.size())).stream()
+          .map(ECKeyPair::getPublicKey)
+          .map(REAddr::ofPubKeyAccount)
+          .forEach(addr -> mints.action(new MintToken(nativeToken, addr, amountPerDelegator)));
+      engine.execute(
+          List.of(engine.construct(mints).buildWithoutSignature()), null, PermissionLevel.SYSTEM);
+    }
+
+    var stakeAmount = Amount.ofTokens(1).toSubunits();
+    for (var delegator : delegators) {
+      var accountAddr = REAddr.ofPubKeyAccount(delegator.getPublicKey());
+      var stakes = TxnConstructionRequest.create();
+      validators.forEach(
+          validator ->
+              stakes.action(new StakeTokens(accountAddr, validator.getPublicKey(), stakeAmount)));
+      engine.execute(List.of(engine.construct(stakes).signAndBuild(delegator::sign)));
+    }
+  }
+
+  @Benchmark
+  public void constructNextEpoch(Blackhole bh) throws TxBuilderException {
+    bh.consume(engine.construct(new NextEpoch(1)).buildWithoutSignature());
+  }
+}
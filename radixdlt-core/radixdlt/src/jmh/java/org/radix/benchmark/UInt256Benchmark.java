@@ -65,15 +65,20 @@
 package org.radix.benchmark;
 
 import com.google.common.math.BigIntegerMath;
+import com.radixdlt.utils.MutableUInt256;
 import com.radixdlt.utils.UInt256;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 
@@ -116,6 +121,26 @@ public class UInt256Benchmark {
     return UInt256.from(bi.toByteArray());
   }
 
+  private static final int ACCUMULATE_COUNT = 1000;
+
+  // Amounts as found in substates
+  private static final UInt256[] AMOUNTS = randomAmounts(ACCUMULATE_COUNT);
+
+  private static UInt256[] randomAmounts(int count) {
+    var random = new Random(1234L);
+    var amounts = new UInt256[count];
+    for (int i = 0; i < count; i++) {
+      amounts[i] = UInt256.from(new BigInteger(UInt256.SIZE - 64, random).toByteArray());
+    }
+    return amounts;
+  }
+
+  /** Per thread accumulator for the mutable variants. */
+  @State(Scope.Thread)
+  public static class Accumulator {
+    final MutableUInt256 value = MutableUInt256.zero();
+  }
+
   @Benchmark
   public void addLargeLargeInt256(Blackhole bh) {
     bh.consume(UI_LARGE_VALUE1.add(UI_LARGE_VALUE2));
@@ -165,4 +190,39 @@ public class UInt256Benchmark {
   public void sqrtLargeBigInt(Blackhole bh) {
     bh.consume(BigIntegerMath.sqrt(BI_LARGE_VALUE1, RoundingMode.FLOOR));
   }
+
+  @Benchmark
+  public void addLargeLargeMutable256(Accumulator acc, Blackhole bh) {
+    bh.consume(acc.value.set(UI_LARGE_VALUE1).add(UI_LARGE_VALUE2));
+  }
+
+  @Benchmark
+  public void subLargeLargeMutable256(Accumulator acc, Blackhole bh) {
+    bh.consume(acc.value.set(UI_LARGE_VALUE1).subtract(UI_LARGE_VALUE2));
+  }
+
+  @Benchmark
+  public void mulLargeSmallMutable256(Accumulator acc, Blackhole bh) {
+    bh.consume(acc.value.set(UI_LARGE_VALUE1).multiply(UI_SMALL_VALUE));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ACCUMULATE_COUNT)
+  public void accumulateInt256(Blackhole bh) {
+    var sum = UInt256.ZERO;
+    for (var amount : AMOUNTS) {
+      sum = sum.add(amount);
+    }
+    bh.consume(sum);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ACCUMULATE_COUNT)
+  public void accumulateMutable256(Accumulator acc, Blackhole bh) {
+    var sum = acc.value.set(UInt256.ZERO);
+    for (var amount : AMOUNTS) {
+      sum.add(amount);
+    }
+    bh.consume(sum.toUInt256());
+  }
 }
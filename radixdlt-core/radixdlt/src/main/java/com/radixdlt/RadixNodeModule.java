@@ -66,6 +66,7 @@ package com.radixdlt;
 
 import static com.radixdlt.statecomputer.substatehash.BerkeleySubstateAccumulatorHashStore.UPDATE_EPOCH_HASH_FILE_ENABLE_PROPERTY_NAME;
 import static com.radixdlt.statecomputer.substatehash.BerkeleySubstateAccumulatorHashStore.VERIFY_EPOCH_HASH_ENABLE_PROPERTY_NAME;
+import static com.radixdlt.statecomputer.substatetree.BerkeleySubstateTreeStore.SUBSTATE_TREE_ENABLE_PROPERTY_NAME;
 import static org.apache.logging.log4j.util.Strings.isNotBlank;
 
 import com.google.inject.AbstractModule;
@@ -73,6 +74,7 @@ import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.radixdlt.api.ApiModule;
 import com.radixdlt.atom.Txn;
+import com.radixdlt.counters.EventLoopMetrics;
 import com.radixdlt.engine.RadixEngineException;
 import com.radixdlt.environment.rx.RxEnvironmentModule;
 import com.radixdlt.hotstuff.bft.PacemakerMaxExponent;
@@ -95,6 +97,7 @@ import com.radixdlt.networks.Addressing;
 import com.radixdlt.networks.Network;
 import com.radixdlt.networks.NetworkId;
 import com.radixdlt.properties.RuntimeProperties;
+import com.radixdlt.statecomputer.MempoolRevalidationModule;
 import com.radixdlt.statecomputer.RadixEngineModule;
 import com.radixdlt.statecomputer.RadixEngineStateComputerModule;
 import com.radixdlt.statecomputer.checkpoint.Genesis;
@@ -108,9 +111,12 @@ import com.radixdlt.statecomputer.forks.modules.ReleasenetForksModule;
 import com.radixdlt.statecomputer.forks.modules.StokenetForksModule;
 import com.radixdlt.statecomputer.forks.modules.testing.TestingForksLoader;
 import com.radixdlt.statecomputer.substatehash.SubstateAccumulatorHashModule;
+import com.radixdlt.statecomputer.substatetree.SubstateTreeModule;
 import com.radixdlt.store.DatabasePropertiesModule;
 import com.radixdlt.store.PersistenceModule;
 import com.radixdlt.sync.SyncConfig;
+import com.radixdlt.sync.snapshot.StateSnapshotConfig;
+import com.radixdlt.sync.snapshot.StateSnapshotModule;
 import com.radixdlt.utils.Bytes;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -125,6 +131,13 @@ import org.radix.utils.IOUtils;
 
 /** Module which manages everything in a single node */
 public final class RadixNodeModule extends AbstractModule {
+  /**
+   * Runs the node as a read-only replica: committed transactions are only ingested through ledger
+   * sync, the consensus and mempool runners are never started and the API only serves reads and
+   * transaction construction.
+   */
+  public static final String READ_ONLY_REPLICA_ENABLE_PROPERTY_NAME =
+      "node.read_only_replica.enable";
 
   private static final Map<Integer, AbstractModule> FORKS_MODULE_BY_NETWORK_ID =
       Map.of(
@@ -245,7 +258,11 @@ public final class RadixNodeModule extends AbstractModule {
 
     // Mempool configuration
     var mempoolMaxSize = properties.get("mempool.maxSize", 10000);
-    install(MempoolConfig.asModule(mempoolMaxSize, 5, 60000, 60000, 100));
+    var mempoolRelayInventory = properties.get("mempool.relay.inventory.enable", false);
+    var mempoolTxnTtlMs = properties.get("mempool.txnTtlMs", 3_600_000L);
+    install(
+        MempoolConfig.asModule(
+            mempoolMaxSize, 5, 60000, 60000, 100, mempoolRelayInventory, mempoolTxnTtlMs));
 
     // Sync configuration
     final long syncPatience = properties.get("sync.patience", 5000L);
@@ -255,6 +272,9 @@ public final class RadixNodeModule extends AbstractModule {
     install(new SystemModule());
 
     install(new RxEnvironmentModule());
+    if (properties.get("metrics.event_loops.enable", false)) {
+      bind(EventLoopMetrics.class).toInstance(new EventLoopMetrics(true));
+    }
 
     install(new EventLoggerModule());
     install(new DispatcherModule());
@@ -304,6 +324,7 @@ public final class RadixNodeModule extends AbstractModule {
       install(new ForkOverwritesFromPropertiesModule());
     }
     install(new RadixEngineStateComputerModule());
+    install(new MempoolRevalidationModule());
     install(new RadixEngineModule());
     install(new RadixEngineStoreModule());
 
@@ -311,8 +332,17 @@ public final class RadixNodeModule extends AbstractModule {
     install(new RadixEngineCheckpointModule());
 
     // Storage
+    var readOnlyReplica = properties.get(READ_ONLY_REPLICA_ENABLE_PROPERTY_NAME, false);
+    if (readOnlyReplica) {
+      log.info("Running as a read-only replica");
+    }
     install(new DatabasePropertiesModule());
-    install(new PersistenceModule());
+    install(
+        new PersistenceModule(
+            properties.get("db.safety_state.async_writes", true),
+            readOnlyReplica,
+            properties.get("db.additional_stores.async_indexing", false),
+            properties.get("db.bulk_load.min_versions_behind", 10_000L)));
     install(new ConsensusRecoveryModule());
     install(new LedgerRecoveryModule());
 
@@ -320,7 +350,10 @@ public final class RadixNodeModule extends AbstractModule {
     install(new SystemInfoModule());
 
     // Network
-    install(new MessagingModule());
+    install(
+        new MessagingModule(
+            properties.get("consensus.preverification.threads", 2),
+            properties.get("consensus.preverification.buffer_size", 10_000)));
     install(new MessageCentralModule(properties));
     install(new HostIpModule(properties));
     install(new P2PModule(properties));
@@ -330,9 +363,10 @@ public final class RadixNodeModule extends AbstractModule {
     // API
     var bindAddress = properties.get("api.bind.address", DEFAULT_BIND_ADDRESS);
     var port = properties.get("api.port", DEFAULT_CORE_PORT);
-    var enableTransactions = properties.get("api.transactions.enable", false);
+    // Serving transactions is the main purpose of a replica, so it is always enabled there
+    var enableTransactions = readOnlyReplica || properties.get("api.transactions.enable", false);
     var enableSign = properties.get("api.sign.enable", false);
-    install(new ApiModule(bindAddress, port, enableTransactions, enableSign));
+    install(new ApiModule(bindAddress, port, enableTransactions, enableSign, readOnlyReplica));
 
     // Substate Hash Accumulator
     boolean isUpdateEpochHashFileEnabled =
@@ -346,5 +380,27 @@ public final class RadixNodeModule extends AbstractModule {
       log.info("Enabling Substate Hash Accumulator Module.");
       install(substateAccumulatorHashModule);
     }
+
+    // Sparse Merkle tree over substates, for state proofs
+    if (properties.get(SUBSTATE_TREE_ENABLE_PROPERTY_NAME, false)) {
+      log.info("Enabling Substate Tree Module.");
+      install(new SubstateTreeModule());
+    }
+
+    // State snapshots at epoch boundaries, for bootstrapping nodes which are far behind
+    var serveSnapshots = properties.get(StateSnapshotModule.SERVE_ENABLE_PROPERTY_NAME, false);
+    var bootstrapFromSnapshot =
+        properties.get(StateSnapshotModule.BOOTSTRAP_ENABLE_PROPERTY_NAME, false);
+    if (serveSnapshots || bootstrapFromSnapshot) {
+      log.info("Enabling State Snapshot Module.");
+      install(
+          new StateSnapshotModule(
+              new StateSnapshotConfig(
+                  serveSnapshots,
+                  properties.get(StateSnapshotModule.INTERVAL_EPOCHS_PROPERTY_NAME, 100L),
+                  properties.get(StateSnapshotModule.RETAINED_PROPERTY_NAME, 2),
+                  bootstrapFromSnapshot,
+                  properties.get(StateSnapshotModule.MIN_EPOCHS_BEHIND_PROPERTY_NAME, 10L))));
+    }
   }
 }
@@ -89,12 +89,23 @@ public final class ApiModule extends AbstractModule {
   private final String bindAddress;
   private final boolean enableTransactions;
   private final boolean enableSign;
+  private final boolean readOnlyReplica;
 
   public ApiModule(String bindAddress, int port, boolean enableTransactions, boolean enableSign) {
+    this(bindAddress, port, enableTransactions, enableSign, false);
+  }
+
+  public ApiModule(
+      String bindAddress,
+      int port,
+      boolean enableTransactions,
+      boolean enableSign,
+      boolean readOnlyReplica) {
     this.bindAddress = bindAddress;
     this.port = port;
     this.enableTransactions = enableTransactions;
     this.enableSign = enableSign;
+    this.readOnlyReplica = readOnlyReplica;
   }
 
   @Override
@@ -102,7 +113,7 @@ public final class ApiModule extends AbstractModule {
     MapBinder.newMapBinder(binder(), String.class, HttpHandler.class);
     bind(EngineStatusService.class).in(Scopes.SINGLETON);
     install(new SystemApiModule());
-    install(new CoreApiModule(enableTransactions, enableSign));
+    install(new CoreApiModule(enableTransactions, enableSign, readOnlyReplica));
   }
 
   private static void fallbackHandler(HttpServerExchange exchange) {
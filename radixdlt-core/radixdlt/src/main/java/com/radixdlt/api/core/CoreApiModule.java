@@ -96,10 +96,20 @@ import io.undertow.server.HttpHandler;
 public class CoreApiModule extends AbstractModule {
   private final boolean transactionsEnable;
   private final boolean signEnable;
+  private final boolean readOnlyReplica;
 
   public CoreApiModule(boolean transactionsEnable, boolean signEnable) {
+    this(transactionsEnable, signEnable, false);
+  }
+
+  /**
+   * @param readOnlyReplica whether the node is a read-only replica, in which case endpoints which
+   *     depend on the mempool or on the node key are not served
+   */
+  public CoreApiModule(boolean transactionsEnable, boolean signEnable, boolean readOnlyReplica) {
     this.transactionsEnable = transactionsEnable;
     this.signEnable = signEnable;
+    this.readOnlyReplica = readOnlyReplica;
   }
 
   @Override
@@ -107,10 +117,12 @@ public class CoreApiModule extends AbstractModule {
     var routeBinder = MapBinder.newMapBinder(binder(), HandlerRoute.class, HttpHandler.class);
 
     routeBinder.addBinding(HandlerRoute.post("/entity")).to(EntityHandler.class);
-    routeBinder.addBinding(HandlerRoute.post("/mempool")).to(MempoolHandler.class);
-    routeBinder
-        .addBinding(HandlerRoute.post("/mempool/transaction"))
-        .to(MempoolTransactionHandler.class);
+    if (!readOnlyReplica) {
+      routeBinder.addBinding(HandlerRoute.post("/mempool")).to(MempoolHandler.class);
+      routeBinder
+          .addBinding(HandlerRoute.post("/mempool/transaction"))
+          .to(MempoolTransactionHandler.class);
+    }
     routeBinder
         .addBinding(HandlerRoute.post("/network/configuration"))
         .to(NetworkConfigurationHandler.class);
@@ -127,6 +139,8 @@ public class CoreApiModule extends AbstractModule {
       Multibinder.newSetBinder(binder(), BerkeleyAdditionalStore.class)
           .addBinding()
           .to(BerkeleyRecoverableProcessedTxnStore.class);
+      // Singleton so that all requests share the cache of rendered transactions
+      bind(TransactionsHandler.class).in(Scopes.SINGLETON);
       routeBinder.addBinding(HandlerRoute.post("/transactions")).to(TransactionsHandler.class);
     }
     routeBinder
@@ -144,14 +158,17 @@ public class CoreApiModule extends AbstractModule {
     routeBinder
         .addBinding(HandlerRoute.post("/construction/hash"))
         .to(ConstructionHashHandler.class);
-    routeBinder
-        .addBinding(HandlerRoute.post("/construction/submit"))
-        .to(ConstructionSubmitHandler.class);
+    if (!readOnlyReplica) {
+      // Replicas have no mempool, signed transactions must be submitted to a full node
+      routeBinder
+          .addBinding(HandlerRoute.post("/construction/submit"))
+          .to(ConstructionSubmitHandler.class);
+    }
     routeBinder.addBinding(HandlerRoute.post("/key/list")).to(KeyListHandler.class);
     routeBinder
         .addBinding(HandlerRoute.post("/olympia-end-state"))
         .to(OlympiaEndStateHandler.class);
-    if (signEnable) {
+    if (signEnable && !readOnlyReplica) {
       routeBinder.addBinding(HandlerRoute.post("/key/sign")).to(KeySignHandler.class);
       routeBinder.addBinding(HandlerRoute.post("/key/vote")).to(VoteHandler.class);
       routeBinder.addBinding(HandlerRoute.post("/key/withdraw-vote")).to(WithdrawVoteHandler.class);
@@ -124,7 +124,9 @@ public abstract class CoreJsonRpcHandler<T, U> implements HttpHandler {
 
     exchange.setStatusCode(200);
     objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-    exchange.getResponseSender().send(objectMapper.writeValueAsString(response));
+    // Serialize straight into the (blocking) response stream rather than building the whole
+    // response as a String first, responses such as /transactions can be large
+    objectMapper.writeValue(exchange.getOutputStream(), response);
   }
 
   public UnexpectedError handleParseException(Exception e) {
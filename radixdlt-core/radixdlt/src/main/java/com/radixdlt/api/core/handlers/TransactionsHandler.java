@@ -64,6 +64,8 @@
 
 package com.radixdlt.api.core.handlers;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.radixdlt.api.core.CoreJsonRpcHandler;
@@ -73,6 +75,7 @@ import com.radixdlt.api.core.openapitools.model.CommittedTransaction;
 import com.radixdlt.api.core.openapitools.model.CommittedTransactionMetadata;
 import com.radixdlt.api.core.openapitools.model.CommittedTransactionsRequest;
 import com.radixdlt.api.core.openapitools.model.CommittedTransactionsResponse;
+import com.radixdlt.api.core.openapitools.model.InternalServerError;
 import com.radixdlt.api.core.openapitools.model.OperationGroup;
 import com.radixdlt.api.core.openapitools.model.StateIdentifier;
 import com.radixdlt.api.core.reconstruction.BerkeleyRecoverableProcessedTxnStore;
@@ -91,14 +94,21 @@ import com.radixdlt.ledger.LedgerAccumulator;
 import com.radixdlt.statecomputer.LedgerAndBFTProof;
 import com.radixdlt.store.berkeley.BerkeleyLedgerEntryStore;
 import com.radixdlt.utils.Bytes;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class TransactionsHandler
     extends CoreJsonRpcHandler<CommittedTransactionsRequest, CommittedTransactionsResponse> {
+  // Committed transactions never change, so rendered ones can be reused without invalidation
+  private static final int RENDERED_TRANSACTIONS_CACHE_SIZE = 4096;
+
   private final Provider<RadixEngine<LedgerAndBFTProof>> radixEngineProvider;
   private final BerkeleyRecoverableProcessedTxnStore txnStore;
   private final BerkeleyLedgerEntryStore ledgerEntryStore;
   private final LedgerAccumulator ledgerAccumulator;
   private final CoreModelMapper coreModelMapper;
+  private final Cache<Long, CommittedTransaction> renderedTransactions =
+      CacheBuilder.newBuilder().maximumSize(RENDERED_TRANSACTIONS_CACHE_SIZE).build();
 
   @Inject
   TransactionsHandler(
@@ -181,11 +191,37 @@ public final class TransactionsHandler
         .transactionIdentifier(transactionIdentifier);
   }
 
+  // Renders the given number of transactions after the accumulator state, or as many as there are
+  private List<CommittedTransaction> render(AccumulatorState startState, long count) {
+    var stateVersion = startState.getStateVersion();
+    var recoverable = txnStore.get(stateVersion, count);
+    var txns = ledgerEntryStore.getCommittedTxns(stateVersion, recoverable.size());
+    var rendered = new ArrayList<CommittedTransaction>(txns.size());
+    var accumulatorState = startState;
+    for (int i = 0; i < txns.size(); i++) {
+      var txn = txns.get(i);
+      accumulatorState = ledgerAccumulator.accumulate(accumulatorState, txn.getId().asHashCode());
+      var committedTransaction = construct(txn, recoverable.get(i), accumulatorState);
+      renderedTransactions.put(accumulatorState.getStateVersion(), committedTransaction);
+      rendered.add(committedTransaction);
+    }
+    return rendered;
+  }
+
   @Override
   public CommittedTransactionsResponse handleRequest(CommittedTransactionsRequest request)
       throws CoreApiException {
     coreModelMapper.verifyNetwork(request.getNetworkIdentifier());
 
+    // Rather than serve an index which has stopped following the ledger
+    if (!ledgerEntryStore.isAdditionalStoreAvailable(txnStore)) {
+      throw CoreApiException.unavailable(
+          new InternalServerError()
+              .exception("TransactionIndexUnavailable")
+              .cause("The transaction index is failing to keep up with the ledger")
+              .type(InternalServerError.class.getSimpleName()));
+    }
+
     var stateIdentifier = coreModelMapper.partialStateIdentifier(request.getStateIdentifier());
     long stateVersion = stateIdentifier.getFirst();
     var accumulator = stateIdentifier.getSecond();
@@ -205,17 +241,36 @@ public final class TransactionsHandler
     }
 
     var limit = coreModelMapper.limit(request.getLimit());
-    var recoverable = txnStore.get(stateVersion, limit);
-    var accumulatorState = new AccumulatorState(stateVersion, currentAccumulator);
     var response = new CommittedTransactionsResponse();
-    var txns = ledgerEntryStore.getCommittedTxns(stateVersion, recoverable.size());
-    for (int i = 0; i < txns.size(); i++) {
-      var txn = txns.get(i);
-      var recoveryInfo = recoverable.get(i);
-      var nextAccumulatorState =
-          ledgerAccumulator.accumulate(accumulatorState, txn.getId().asHashCode());
-      accumulatorState = nextAccumulatorState;
-      response.addTransactionsItem(construct(txn, recoveryInfo, nextAccumulatorState));
+    var end = stateVersion + limit;
+    var version = stateVersion;
+    while (version < end) {
+      var cached = renderedTransactions.getIfPresent(version + 1);
+      if (cached != null) {
+        response.addTransactionsItem(cached);
+        version++;
+        continue;
+      }
+
+      // Only the run of transactions which aren't cached is read and recovered
+      var missing = 1;
+      while (version + missing < end
+          && renderedTransactions.getIfPresent(version + missing + 1) == null) {
+        missing++;
+      }
+      var accumulatorHash =
+          version == stateVersion
+              ? currentAccumulator
+              : txnStore
+                  .getAccumulator(version)
+                  .orElseThrow(() -> new IllegalStateException("Missing accumulator"));
+      var rendered = render(new AccumulatorState(version, accumulatorHash), missing);
+      rendered.forEach(response::addTransactionsItem);
+      if (rendered.size() < missing) {
+        // Reached the end of the ledger
+        break;
+      }
+      version += missing;
     }
 
     return response.stateIdentifier(
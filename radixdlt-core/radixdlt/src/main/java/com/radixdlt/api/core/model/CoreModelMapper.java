@@ -1020,6 +1020,10 @@ public final class CoreModelMapper {
     return new SubstateIdentifier().identifier(Bytes.toHexString(substateId.asBytes()));
   }
 
+  public SubstateId substateId(SubstateIdentifier substateIdentifier) throws CoreApiException {
+    return SubstateId.fromBytes(bytes(substateIdentifier.getIdentifier()));
+  }
+
   public Substate substate(SubstateId substateId, boolean bootUp) {
     return new Substate()
         .substateIdentifier(substateIdentifier(substateId))
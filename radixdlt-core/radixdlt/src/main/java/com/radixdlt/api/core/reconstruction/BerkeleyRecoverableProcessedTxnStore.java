@@ -104,6 +104,9 @@ import java.util.function.Function;
 /**
  * Stores recovery information per transaction. This allows the Transaction API to return
  * transaction info with full state updates.
+ *
+ * <p>Everything is derived from the processed transaction itself rather than the {@code mapper}, so
+ * the store can be indexed asynchronously.
  */
 public final class BerkeleyRecoverableProcessedTxnStore implements BerkeleyAdditionalStore {
   private static final String RECOVERABLE_TRANSACTIONS_DB_NAME = "radix.recoverable_txns";
@@ -66,24 +66,35 @@ package com.radixdlt.api.system;
 
 import com.google.inject.Inject;
 import com.radixdlt.api.system.openapitools.model.SystemMetricsResponse;
+import com.radixdlt.counters.EventLoopMetrics;
 import com.radixdlt.counters.SystemCounters;
 
 public final class MetricsHandler extends SystemGetJsonHandler<SystemMetricsResponse> {
   private final SystemCounters systemCounters;
+  private final EventLoopMetrics eventLoopMetrics;
   private final SystemModelMapper systemModelMapper;
 
   @Inject
-  MetricsHandler(SystemModelMapper systemModelMapper, SystemCounters systemCounters) {
+  MetricsHandler(
+      SystemModelMapper systemModelMapper,
+      SystemCounters systemCounters,
+      EventLoopMetrics eventLoopMetrics) {
     this.systemModelMapper = systemModelMapper;
     this.systemCounters = systemCounters;
+    this.eventLoopMetrics = eventLoopMetrics;
   }
 
   @Override
   public SystemMetricsResponse handleRequest() {
-    return new SystemMetricsResponse()
-        .bft(systemModelMapper.bftMetrics(systemCounters))
-        .mempool(systemModelMapper.mempoolMetrics(systemCounters))
-        .sync(systemModelMapper.syncMetrics(systemCounters))
-        .networking(systemModelMapper.networkingMetrics(systemCounters));
+    var response =
+        new SystemMetricsResponse()
+            .bft(systemModelMapper.bftMetrics(systemCounters))
+            .mempool(systemModelMapper.mempoolMetrics(systemCounters))
+            .sync(systemModelMapper.syncMetrics(systemCounters))
+            .networking(systemModelMapper.networkingMetrics(systemCounters));
+    if (eventLoopMetrics.isEnabled()) {
+      response.eventLoops(systemModelMapper.eventLoopMetrics(eventLoopMetrics));
+    }
+    return response;
   }
 }
@@ -73,6 +73,7 @@ import com.radixdlt.api.system.openapitools.model.BFTMetrics;
 import com.radixdlt.api.system.openapitools.model.BFTPacemakerMetrics;
 import com.radixdlt.api.system.openapitools.model.BFTSyncMetrics;
 import com.radixdlt.api.system.openapitools.model.BFTVertexStoreMetrics;
+import com.radixdlt.api.system.openapitools.model.EventLoopEventMetrics;
 import com.radixdlt.api.system.openapitools.model.MempoolMetrics;
 import com.radixdlt.api.system.openapitools.model.NetworkingConfiguration;
 import com.radixdlt.api.system.openapitools.model.NetworkingInboundMetrics;
@@ -82,6 +83,7 @@ import com.radixdlt.api.system.openapitools.model.Peer;
 import com.radixdlt.api.system.openapitools.model.PeerChannel;
 import com.radixdlt.api.system.openapitools.model.SyncConfiguration;
 import com.radixdlt.api.system.openapitools.model.SyncMetrics;
+import com.radixdlt.counters.EventLoopMetrics;
 import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.crypto.ECPublicKey;
 import com.radixdlt.network.p2p.P2PConfig;
@@ -93,6 +95,8 @@ import com.radixdlt.networks.Addressing;
 import com.radixdlt.sync.SyncConfig;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public final class SystemModelMapper {
   private final Addressing addressing;
@@ -181,6 +185,21 @@ public final class SystemModelMapper {
         .remoteRequestsReceived(counters.get(SYNC_REMOTE_REQUESTS_RECEIVED));
   }
 
+  public List<EventLoopEventMetrics> eventLoopMetrics(EventLoopMetrics metrics) {
+    return metrics.snapshot().stream().map(this::eventLoopEventMetrics).toList();
+  }
+
+  public EventLoopEventMetrics eventLoopEventMetrics(EventLoopMetrics.Snapshot snapshot) {
+    return new EventLoopEventMetrics()
+        .runner(snapshot.runner())
+        .event(snapshot.event())
+        .queueDepth(snapshot.queueDepth())
+        .processed(snapshot.processed())
+        .waitTimeMicros(TimeUnit.NANOSECONDS.toMicros(snapshot.waitNanos()))
+        .handlerTimeMicros(TimeUnit.NANOSECONDS.toMicros(snapshot.handlerNanos()))
+        .maxHandlerTimeMicros(TimeUnit.NANOSECONDS.toMicros(snapshot.maxHandlerNanos()));
+  }
+
   public BFTVertexStoreMetrics bftVertexStoreMetrics(SystemCounters counters) {
     return new BFTVertexStoreMetrics()
         .forks(counters.get(BFT_VERTEX_STORE_FORKS))
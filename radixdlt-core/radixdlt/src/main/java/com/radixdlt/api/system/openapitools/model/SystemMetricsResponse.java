@@ -17,6 +17,8 @@ import java.util.Objects;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
+import java.util.ArrayList;
+import java.util.List;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 
@@ -27,7 +29,8 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
   SystemMetricsResponse.JSON_PROPERTY_BFT,
   SystemMetricsResponse.JSON_PROPERTY_SYNC,
   SystemMetricsResponse.JSON_PROPERTY_MEMPOOL,
-  SystemMetricsResponse.JSON_PROPERTY_NETWORKING
+  SystemMetricsResponse.JSON_PROPERTY_NETWORKING,
+  SystemMetricsResponse.JSON_PROPERTY_EVENT_LOOPS
 })
 @javax.annotation.processing.Generated(value = "org.openapitools.codegen.languages.JavaClientCodegen", date = "2022-01-20T22:11:26.095756951+01:00[Europe/Warsaw]")
 public class SystemMetricsResponse {
@@ -43,6 +46,9 @@ public class SystemMetricsResponse {
   public static final String JSON_PROPERTY_NETWORKING = "networking";
   private NetworkingMetrics networking;
 
+  public static final String JSON_PROPERTY_EVENT_LOOPS = "event_loops";
+  private List<EventLoopEventMetrics> eventLoops = null;
+
   public SystemMetricsResponse bft(BFTMetrics bft) {
     this.bft = bft;
     return this;
@@ -147,6 +153,40 @@ public class SystemMetricsResponse {
   }
 
 
+  public SystemMetricsResponse eventLoops(List<EventLoopEventMetrics> eventLoops) {
+    this.eventLoops = eventLoops;
+    return this;
+  }
+
+  public SystemMetricsResponse addEventLoopsItem(EventLoopEventMetrics eventLoopsItem) {
+    if (this.eventLoops == null) {
+      this.eventLoops = new ArrayList<>();
+    }
+    this.eventLoops.add(eventLoopsItem);
+    return this;
+  }
+
+   /**
+   * Get eventLoops
+   * @return eventLoops
+  **/
+  @javax.annotation.Nullable
+  @ApiModelProperty(value = "")
+  @JsonProperty(JSON_PROPERTY_EVENT_LOOPS)
+  @JsonInclude(value = JsonInclude.Include.USE_DEFAULTS)
+
+  public List<EventLoopEventMetrics> getEventLoops() {
+    return eventLoops;
+  }
+
+
+  @JsonProperty(JSON_PROPERTY_EVENT_LOOPS)
+  @JsonInclude(value = JsonInclude.Include.USE_DEFAULTS)
+  public void setEventLoops(List<EventLoopEventMetrics> eventLoops) {
+    this.eventLoops = eventLoops;
+  }
+
+
   /**
    * Return true if this SystemMetricsResponse object is equal to o.
    */
@@ -162,12 +202,13 @@ public class SystemMetricsResponse {
     return Objects.equals(this.bft, systemMetricsResponse.bft) &&
         Objects.equals(this.sync, systemMetricsResponse.sync) &&
         Objects.equals(this.mempool, systemMetricsResponse.mempool) &&
-        Objects.equals(this.networking, systemMetricsResponse.networking);
+        Objects.equals(this.networking, systemMetricsResponse.networking) &&
+        Objects.equals(this.eventLoops, systemMetricsResponse.eventLoops);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(bft, sync, mempool, networking);
+    return Objects.hash(bft, sync, mempool, networking, eventLoops);
   }
 
   @Override
@@ -178,6 +219,7 @@ public class SystemMetricsResponse {
     sb.append("    sync: ").append(toIndentedString(sync)).append("\n");
     sb.append("    mempool: ").append(toIndentedString(mempool)).append("\n");
     sb.append("    networking: ").append(toIndentedString(networking)).append("\n");
+    sb.append("    eventLoops: ").append(toIndentedString(eventLoops)).append("\n");
     sb.append("}");
     return sb.toString();
   }
@@ -72,8 +72,11 @@ import com.google.inject.Inject;
 import com.radixdlt.api.service.EngineStatusService;
 import com.radixdlt.api.system.health.HealthInfoService;
 import com.radixdlt.constraintmachine.REEvent.ValidatorBFTDataEvent;
+import com.radixdlt.counters.EventLoopMetrics;
+import com.radixdlt.counters.LatencyHistogram;
 import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.counters.SystemCounters.LatencyType;
 import com.radixdlt.hotstuff.bft.BFTNode;
 import com.radixdlt.hotstuff.bft.BFTValidatorSet;
 import com.radixdlt.hotstuff.bft.Self;
@@ -85,7 +88,9 @@ import com.radixdlt.statecomputer.forks.CurrentForkView;
 import com.radixdlt.systeminfo.InMemorySystemInfo;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Function;
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
@@ -100,6 +105,7 @@ public class PrometheusService {
   private static final Logger log = LogManager.getLogger();
 
   private static final List<CounterType> EXPORT_LIST = List.of(CounterType.values());
+  private static final List<LatencyType> LATENCY_EXPORT_LIST = List.of(LatencyType.values());
 
   public static final String USAGE = "Usage";
   private static final List<JmxMetric> JMX_METRICS =
@@ -125,8 +131,16 @@ public class PrometheusService {
       COUNTER_PREFIX + "radix_engine_cur_epoch_completed_proposals";
   private static final String MISSED_PROPOSALS =
       COUNTER_PREFIX + "radix_engine_cur_epoch_missed_proposals";
+  private static final String LATENCY_PREFIX = "info_latency_";
+  private static final String EVENT_LOOP_PREFIX = "info_event_loop_";
+
+  // The parts of the exposition which are the same on every scrape are only rendered once
+  private static final Map<CounterType, String> RENDERED_COUNTERS = renderCounters();
+  private static final Map<LatencyType, RenderedHistogram> RENDERED_HISTOGRAMS =
+      renderHistograms();
 
   private final SystemCounters systemCounters;
+  private final EventLoopMetrics eventLoopMetrics;
   private final HealthInfoService healthInfoService;
   private final Addressing addressing;
   private final InMemorySystemInfo inMemorySystemInfo;
@@ -135,11 +149,13 @@ public class PrometheusService {
   private final PeersView peersView;
   private final CurrentForkView currentForkView;
   private final EngineStatusService engineStatusService;
+  private volatile int lastMetricsLength = 1024;
 
   @Inject
   public PrometheusService(
       RuntimeProperties properties,
       SystemCounters systemCounters,
+      EventLoopMetrics eventLoopMetrics,
       PeersView peersView,
       HealthInfoService healthInfoService,
       InMemorySystemInfo inMemorySystemInfo,
@@ -150,6 +166,7 @@ public class PrometheusService {
     boolean enableTransactions = properties.get("api.transactions.enable", false);
     this.endpointStatuses = Map.of("transactions", enableTransactions);
     this.systemCounters = systemCounters;
+    this.eventLoopMetrics = eventLoopMetrics;
     this.peersView = peersView;
     this.healthInfoService = healthInfoService;
     this.inMemorySystemInfo = inMemorySystemInfo;
@@ -160,12 +177,16 @@ public class PrometheusService {
   }
 
   public String getMetrics() {
-    var builder = new StringBuilder();
+    var builder = new StringBuilder(lastMetricsLength + lastMetricsLength / 8);
 
     exportCounters(builder);
+    exportLatencies(builder);
+    exportEventLoops(builder);
     exportSystemInfo(builder);
 
-    return builder.append('\n').toString();
+    var metrics = builder.append('\n').toString();
+    lastMetricsLength = metrics.length();
+    return metrics;
   }
 
   private void exportSystemInfo(StringBuilder builder) {
@@ -279,11 +300,137 @@ public class PrometheusService {
   }
 
   private void generateCounterEntry(CounterType counterType, StringBuilder builder) {
-    var name = COUNTER_PREFIX + counterType.jsonPath().replace('.', '_');
-
     long value = systemCounters.get(counterType);
 
-    appendCounter(builder, name, value);
+    builder.append(RENDERED_COUNTERS.get(counterType)).append((double) value).append('\n');
+  }
+
+  private void exportLatencies(StringBuilder builder) {
+    LATENCY_EXPORT_LIST.forEach(
+        latencyType ->
+            RENDERED_HISTOGRAMS
+                .get(latencyType)
+                .append(builder, systemCounters.getLatency(latencyType)));
+  }
+
+  private void exportEventLoops(StringBuilder builder) {
+    if (!eventLoopMetrics.isEnabled()) {
+      return;
+    }
+
+    var snapshots = eventLoopMetrics.snapshot();
+    appendEventLoopFamily(
+        builder,
+        snapshots,
+        "queue_depth",
+        "gauge",
+        "Events waiting for the thread of a module runner",
+        EventLoopMetrics.Snapshot::queueDepth);
+    appendEventLoopFamily(
+        builder,
+        snapshots,
+        "processed_total",
+        COUNTER,
+        "Events handled by a module runner",
+        EventLoopMetrics.Snapshot::processed);
+    appendEventLoopFamily(
+        builder,
+        snapshots,
+        "wait_seconds_total",
+        COUNTER,
+        "Time events spent waiting for the thread of a module runner",
+        s -> s.waitNanos() / 1e9);
+    appendEventLoopFamily(
+        builder,
+        snapshots,
+        "handler_seconds_total",
+        COUNTER,
+        "Time a module runner spent handling events",
+        s -> s.handlerNanos() / 1e9);
+    appendEventLoopFamily(
+        builder,
+        snapshots,
+        "handler_max_seconds",
+        "gauge",
+        "Longest time a module runner spent handling a single event",
+        s -> s.maxHandlerNanos() / 1e9);
+  }
+
+  private static void appendEventLoopFamily(
+      StringBuilder builder,
+      List<EventLoopMetrics.Snapshot> snapshots,
+      String suffix,
+      String type,
+      String help,
+      Function<EventLoopMetrics.Snapshot, Number> value) {
+    var name = EVENT_LOOP_PREFIX + suffix;
+    builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    for (var snapshot : snapshots) {
+      builder
+          .append(name)
+          .append("{runner=\"")
+          .append(snapshot.runner())
+          .append("\",event=\"")
+          .append(snapshot.event())
+          .append("\"} ")
+          .append(value.apply(snapshot).doubleValue())
+          .append('\n');
+    }
+  }
+
+  private static Map<CounterType, String> renderCounters() {
+    var rendered = new EnumMap<CounterType, String>(CounterType.class);
+    for (var counterType : EXPORT_LIST) {
+      var name = COUNTER_PREFIX + counterType.jsonPath().replace('.', '_');
+      var builder = new StringBuilder();
+      appendCounterExtended(builder, name, name, name, "");
+      // Drop the trailing line break, so that only the value is left to append
+      rendered.put(counterType, builder.substring(0, builder.length() - 1));
+    }
+    return rendered;
+  }
+
+  private static Map<LatencyType, RenderedHistogram> renderHistograms() {
+    var rendered = new EnumMap<LatencyType, RenderedHistogram>(LatencyType.class);
+    LATENCY_EXPORT_LIST.forEach(
+        latencyType -> rendered.put(latencyType, RenderedHistogram.render(latencyType)));
+    return rendered;
+  }
+
+  /** The names, help text and bucket labels of a latency histogram, in seconds. */
+  private record RenderedHistogram(
+      String header, List<String> bucketPrefixes, String sumPrefix, String countPrefix) {
+    static RenderedHistogram render(LatencyType latencyType) {
+      var name = LATENCY_PREFIX + latencyType.jsonPath().replace('.', '_') + "_seconds";
+      var header =
+          "# HELP "
+              + name
+              + ' '
+              + latencyType.description()
+              + "\n# TYPE "
+              + name
+              + " histogram\n";
+      var bucketPrefixes = new ArrayList<String>();
+      for (var bound : LatencyHistogram.bucketBoundsNanos()) {
+        var seconds = BigDecimal.valueOf(bound, 9).stripTrailingZeros().toPlainString();
+        bucketPrefixes.add(name + "_bucket{le=\"" + seconds + "\"} ");
+      }
+      bucketPrefixes.add(name + "_bucket{le=\"+Inf\"} ");
+      return new RenderedHistogram(
+          header, List.copyOf(bucketPrefixes), name + "_sum ", name + "_count ");
+    }
+
+    void append(StringBuilder builder, LatencyHistogram.Snapshot snapshot) {
+      builder.append(header);
+      var cumulativeCount = 0L;
+      for (int i = 0; i < bucketPrefixes.size(); i++) {
+        cumulativeCount += snapshot.bucketCounts()[i];
+        builder.append(bucketPrefixes.get(i)).append(cumulativeCount).append('\n');
+      }
+      builder.append(sumPrefix).append(snapshot.sumNanos() / 1e9).append('\n');
+      builder.append(countPrefix).append(cumulativeCount).append('\n');
+    }
   }
 
   private static void appendCounter(StringBuilder builder, String name, Number value) {
@@ -0,0 +1,181 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.counters;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue depth, queue wait time and handler time of the events processed by each module runner,
+ * broken down by event class. Shows which events are keeping a runner's single thread busy.
+ *
+ * <p>Collecting the metrics costs two clock reads and an allocation per event, so they are
+ * disabled unless the node is configured otherwise. While disabled, runners subscribe their
+ * processors exactly as they would without any metrics.
+ */
+@Singleton
+public final class EventLoopMetrics {
+  private final boolean enabled;
+  private final ConcurrentMap<Key, EventStats> stats = new ConcurrentHashMap<>();
+
+  @Inject
+  public EventLoopMetrics() {
+    this(false);
+  }
+
+  public EventLoopMetrics(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** The statistics of one event class on one runner, created on first use. */
+  public EventStats stats(String runner, String event) {
+    return stats.computeIfAbsent(new Key(runner, event), k -> new EventStats());
+  }
+
+  /** The current values of all statistics, ordered by runner and then event. */
+  public List<Snapshot> snapshot() {
+    return stats.entrySet().stream()
+        .map(e -> e.getValue().snapshot(e.getKey()))
+        .sorted(Comparator.comparing(Snapshot::runner).thenComparing(Snapshot::event))
+        .toList();
+  }
+
+  private record Key(String runner, String event) {
+    private Key {
+      Objects.requireNonNull(runner);
+      Objects.requireNonNull(event);
+    }
+  }
+
+  /**
+   * The counters of one event class on one runner. Events are enqueued by any thread, but only
+   * ever dequeued and handled on the runner's thread.
+   */
+  public static final class EventStats {
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong handlerNanos = new AtomicLong();
+    private final AtomicLong maxHandlerNanos = new AtomicLong();
+
+    private EventStats() {}
+
+    public void enqueued() {
+      queued.incrementAndGet();
+    }
+
+    public void dequeued(long waitNanos) {
+      queued.decrementAndGet();
+      this.waitNanos.addAndGet(Math.max(waitNanos, 0L));
+    }
+
+    public void handled(long handlerNanos) {
+      processed.incrementAndGet();
+      this.handlerNanos.addAndGet(handlerNanos);
+      if (handlerNanos > maxHandlerNanos.get()) {
+        maxHandlerNanos.set(handlerNanos);
+      }
+    }
+
+    private Snapshot snapshot(Key key) {
+      return new Snapshot(
+          key.runner(),
+          key.event(),
+          queued.get(),
+          processed.get(),
+          waitNanos.get(),
+          handlerNanos.get(),
+          maxHandlerNanos.get());
+    }
+  }
+
+  /**
+   * The statistics of one event class on one runner at one point in time.
+   *
+   * @param queueDepth the number of events waiting for the runner's thread
+   * @param processed the number of events handled so far
+   * @param waitNanos the total time handled events spent waiting for the runner's thread
+   * @param handlerNanos the total time spent handling events
+   * @param maxHandlerNanos the longest time spent handling a single event
+   */
+  public record Snapshot(
+      String runner,
+      String event,
+      long queueDepth,
+      long processed,
+      long waitNanos,
+      long handlerNanos,
+      long maxHandlerNanos) {}
+}
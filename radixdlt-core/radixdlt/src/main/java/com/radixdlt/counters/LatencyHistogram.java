@@ -0,0 +1,148 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.counters;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies with fixed, roughly exponential buckets. Recording is lock-free and
+ * allocation free, so it can be done on the consensus hot path.
+ *
+ * <p>The buckets are fixed rather than adjusting to the recorded values, as a Prometheus histogram
+ * needs the same buckets on every scrape.
+ */
+public final class LatencyHistogram {
+  private static final long[] BUCKET_BOUNDS_NANOS = {
+    50_000L,
+    100_000L,
+    250_000L,
+    500_000L,
+    1_000_000L,
+    2_500_000L,
+    5_000_000L,
+    10_000_000L,
+    25_000_000L,
+    50_000_000L,
+    100_000_000L,
+    250_000_000L,
+    500_000_000L,
+    1_000_000_000L,
+    2_500_000_000L,
+    5_000_000_000L,
+    10_000_000_000L
+  };
+
+  // One more than the bounds, for values above the last one
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_NANOS.length + 1);
+  private final AtomicLong sumNanos = new AtomicLong();
+
+  /** The upper bounds of all but the last bucket, which has no upper bound. */
+  public static long[] bucketBoundsNanos() {
+    return BUCKET_BOUNDS_NANOS.clone();
+  }
+
+  public void record(long nanos) {
+    var value = Math.max(nanos, 0L);
+    var index = Arrays.binarySearch(BUCKET_BOUNDS_NANOS, value);
+    // A value equal to a bound belongs to its bucket, as bounds are inclusive
+    buckets.incrementAndGet(index >= 0 ? index : -index - 1);
+    sumNanos.addAndGet(value);
+  }
+
+  /**
+   * Reads the current values. Values recorded while reading may be only partly included, which
+   * only ever makes the snapshot lag slightly behind.
+   */
+  public Snapshot snapshot() {
+    var counts = new long[buckets.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets.get(i);
+    }
+    return new Snapshot(counts, sumNanos.get());
+  }
+
+  /**
+   * The values of a histogram at one point in time.
+   *
+   * @param bucketCounts the number of values in each bucket, see {@link #bucketBoundsNanos()}
+   * @param sumNanos the sum of all values
+   */
+  public record Snapshot(long[] bucketCounts, long sumNanos) {
+    public long count() {
+      return Arrays.stream(bucketCounts).sum();
+    }
+
+    /** The number of values at or below the upper bound of the given bucket. */
+    public long cumulativeCount(int bucket) {
+      var count = 0L;
+      for (int i = 0; i <= bucket; i++) {
+        count += bucketCounts[i];
+      }
+      return count;
+    }
+  }
+}
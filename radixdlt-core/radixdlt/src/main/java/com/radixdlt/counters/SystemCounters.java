@@ -88,6 +88,11 @@ public interface SystemCounters {
     BFT_PACEMAKER_PROPOSALS_SENT("bft.pacemaker.proposals_sent"),
     BFT_PACEMAKER_TIMED_OUT_ROUNDS("bft.pacemaker.timed_out_rounds"),
 
+    /** Number of inbound proposals and votes dropped as the verification buffer was full. */
+    BFT_PREVERIFICATION_DROPPED("bft.preverification.dropped"),
+    /** Number of inbound proposals and votes dropped for having invalid signatures. */
+    BFT_PREVERIFICATION_REJECTED("bft.preverification.rejected"),
+
     BFT_SYNC_REQUESTS_SENT("bft.sync.requests_sent"),
     BFT_SYNC_REQUESTS_RECEIVED("bft.sync.requests_received"),
     BFT_SYNC_REQUEST_TIMEOUTS("bft.sync.request_timeouts"),
@@ -119,6 +124,7 @@ public interface SystemCounters {
     COUNT_BDB_LEDGER_DELETES("count.bdb.ledger.deletes"),
     COUNT_BDB_LEDGER_PROOFS_ADDED("count.bdb.ledger.proofs.added"),
     COUNT_BDB_LEDGER_PROOFS_REMOVED("count.bdb.ledger.proofs.removed"),
+    COUNT_BDB_LEDGER_BULK_LOAD_COMMITS("count.bdb.ledger.bulk_load_commits"),
 
     COUNT_BDB_ADDRESS_BOOK_TOTAL("count.bdb.address_book.total"),
     COUNT_BDB_ADDRESS_BOOK_BYTES_READ("count.bdb.address_book.bytes.read"),
@@ -163,11 +169,20 @@ public interface SystemCounters {
 
     PERSISTENCE_VERTEX_STORE_SAVES("persistence.vertex_store_saves"),
     PERSISTENCE_SAFETY_STORE_SAVES("persistence.safety_store_saves"),
+    PERSISTENCE_SAFETY_STORE_COALESCED("persistence.safety_store_coalesced"),
 
     PERSISTENCE_ATOM_LOG_WRITE_BYTES("persistence.atom_log.write_bytes"),
     PERSISTENCE_ATOM_LOG_WRITE_COMPRESSED("persistence.atom_log.write_compressed"),
 
+    PERSISTENCE_INDEXER_STATE_VERSION("persistence.indexer.state_version"),
+    PERSISTENCE_INDEXER_LAG("persistence.indexer.lag"),
+    PERSISTENCE_INDEXER_BATCHES("persistence.indexer.batches"),
+    PERSISTENCE_INDEXER_FAILURES("persistence.indexer.failures"),
+    PERSISTENCE_INDEXER_REPLAYED_TXNS("persistence.indexer.replayed_txns"),
+
     EPOCH_MANAGER_QUEUED_CONSENSUS_EVENTS("epoch_manager.queued_consensus_events"),
+    EPOCH_MANAGER_PREPARED_EPOCHS_USED("epoch_manager.prepared_epochs_used"),
+    EPOCH_MANAGER_LAST_SWITCH_MICROS("epoch_manager.last_switch_micros"),
 
     STARTUP_TIME_MS("startup.time_ms"),
 
@@ -176,17 +191,36 @@ public interface SystemCounters {
     LEDGER_STATE_VERSION("ledger.state_version"),
     LEDGER_SYNC_COMMANDS_PROCESSED("ledger.sync_commands_processed"),
     LEDGER_BFT_COMMANDS_PROCESSED("ledger.bft_commands_processed"),
+    LEDGER_SPECULATIONS_STARTED("ledger.speculations.started"),
+    LEDGER_SPECULATIONS_SKIPPED("ledger.speculations.skipped"),
+    LEDGER_SPECULATIONS_USED("ledger.speculations.used"),
+    LEDGER_SPECULATIONS_DISCARDED("ledger.speculations.discarded"),
 
     SYNC_INVALID_RESPONSES_RECEIVED("sync.invalid_responses_received"),
     SYNC_VALID_RESPONSES_RECEIVED("sync.valid_responses_received"),
     SYNC_REMOTE_REQUESTS_RECEIVED("sync.remote_requests_received"),
     SYNC_CURRENT_STATE_VERSION("sync.current_state_version"),
     SYNC_TARGET_STATE_VERSION("sync.target_state_version"),
+    SYNC_SNAPSHOT_CHUNKS_SERVED("sync.snapshot.chunks_served"),
+    SYNC_SNAPSHOT_CHUNKS_RECEIVED("sync.snapshot.chunks_received"),
+    SYNC_SNAPSHOT_INVALID_RESPONSES_RECEIVED("sync.snapshot.invalid_responses_received"),
+    SYNC_SNAPSHOTS_SKIPPED("sync.snapshot.snapshots_skipped"),
 
     MEMPOOL_CURRENT_SIZE("mempool.current_size"),
+    MEMPOOL_CURRENT_BYTES("mempool.current_bytes"),
+    MEMPOOL_AGE_P50_MS("mempool.age.p50_ms"),
+    MEMPOOL_AGE_P99_MS("mempool.age.p99_ms"),
+    MEMPOOL_AGE_MAX_MS("mempool.age.max_ms"),
+    MEMPOOL_CONFLICT_EVICTED_TXNS("mempool.conflict_evicted_txns"),
+    MEMPOOL_EXPIRED_TXNS("mempool.expired_txns"),
+    MEMPOOL_REVALIDATED_TXNS("mempool.revalidation.checked_txns"),
+    MEMPOOL_REVALIDATION_EVICTED_TXNS("mempool.revalidation.evicted_txns"),
     MEMPOOL_RELAYS_SENT("mempool.relays_sent"),
     MEMPOOL_ADD_SUCCESS("mempool.add_success"),
     MEMPOOL_ADD_FAILURE("mempool.add_failure"),
+    MEMPOOL_INVENTORY_ANNOUNCED_TXNS("mempool.inventory.announced_txns"),
+    MEMPOOL_INVENTORY_REQUESTED_TXNS("mempool.inventory.requested_txns"),
+    MEMPOOL_INVENTORY_DUPLICATE_TXNS("mempool.inventory.duplicate_txns"),
 
     RADIX_ENGINE_INVALID_PROPOSED_COMMANDS("radix_engine.invalid_proposed_commands"),
     RADIX_ENGINE_USER_TRANSACTIONS("radix_engine.user_transactions"),
@@ -205,6 +239,10 @@ public interface SystemCounters {
     MESSAGES_OUTBOUND_SENT("messages.outbound.sent"),
 
     NETWORKING_TCP_DROPPED_MESSAGES("networking.tcp.dropped_messages"),
+    NETWORKING_TCP_OUTBOUND_DEFERRED("networking.tcp.outbound_deferred"),
+    NETWORKING_TCP_OUTBOUND_DROPPED_NORMAL_PRIORITY(
+        "networking.tcp.outbound_dropped_normal_priority"),
+    NETWORKING_TCP_OUTBOUND_DROPPED_LOW_PRIORITY("networking.tcp.outbound_dropped_low_priority"),
     NETWORKING_BYTES_SENT("networking.bytes_sent"),
     NETWORKING_BYTES_RECEIVED("networking.bytes_received"),
     NETWORKING_P2P_ACTIVE_INBOUND_CHANNELS("networking.p2p.active_inbound_channels"),
@@ -227,6 +265,41 @@ public interface SystemCounters {
     }
   }
 
+  /** Stages of consensus and ledger commit whose latency is recorded in a histogram. */
+  enum LatencyType {
+    BFT_PROPOSAL_PROCESSING(
+        "bft.proposal_processing", "Time to process a received proposal, including its vote"),
+    BFT_PROPOSAL_VERIFICATION(
+        "bft.proposal_verification", "Time to verify the signatures of a received proposal"),
+    BFT_VOTE_VERIFICATION("bft.vote_verification", "Time to verify the signatures of a vote"),
+    BFT_PROPOSAL_TO_VOTE(
+        "bft.proposal_to_vote", "Time from processing a proposal to sending a vote for it"),
+    BFT_QUORUM_FORMATION(
+        "bft.quorum_formation", "Time from the first vote of a view to forming a quorum"),
+    LEDGER_PREPARE("ledger.prepare", "Time to execute the transactions of a vertex"),
+    LEDGER_PREPARE_SPECULATIVE(
+        "ledger.prepare_speculative",
+        "Time to execute the transactions of a proposal speculatively, if not given up"),
+    LEDGER_COMMIT("ledger.commit", "Time to commit transactions to the ledger"),
+    BDB_LEDGER_WRITE("bdb.ledger.write", "Time of a ledger database transaction");
+
+    private final String jsonPath;
+    private final String description;
+
+    LatencyType(String jsonPath, String description) {
+      this.jsonPath = jsonPath;
+      this.description = description;
+    }
+
+    public String jsonPath() {
+      return jsonPath;
+    }
+
+    public String description() {
+      return description;
+    }
+  }
+
   /**
    * Increments the specified counter, returning the new value.
    *
@@ -267,6 +340,22 @@ public interface SystemCounters {
    */
   void setAll(Map<CounterType, Long> newValues);
 
+  /**
+   * Records the time taken by one occurrence of a stage.
+   *
+   * @param latencyType The stage
+   * @param nanos The time taken, in nanoseconds
+   */
+  void recordLatency(LatencyType latencyType, long nanos);
+
+  /**
+   * Returns the current latency histogram of a stage.
+   *
+   * @param latencyType The stage
+   * @return The recorded latencies
+   */
+  LatencyHistogram.Snapshot getLatency(LatencyType latencyType);
+
   /**
    * Returns the current values as a map.
    *
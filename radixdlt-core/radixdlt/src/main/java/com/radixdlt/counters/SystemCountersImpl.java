@@ -76,6 +76,8 @@ public final class SystemCountersImpl implements SystemCounters {
   private static final List<CounterType> COUNTER_LIST = List.of(CounterType.values());
 
   private final EnumMap<CounterType, AtomicLong> counters = new EnumMap<>(CounterType.class);
+  private final EnumMap<LatencyType, LatencyHistogram> latencies =
+      new EnumMap<>(LatencyType.class);
   private final String since;
 
   public SystemCountersImpl() {
@@ -97,6 +99,10 @@ public final class SystemCountersImpl implements SystemCounters {
           }
         });
 
+    for (var latencyType : LatencyType.values()) {
+      latencies.put(latencyType, new LatencyHistogram());
+    }
+
     since = Instant.ofEpochMilli(startTime).toString();
   }
 
@@ -131,6 +137,16 @@ public final class SystemCountersImpl implements SystemCounters {
     }
   }
 
+  @Override
+  public void recordLatency(LatencyType latencyType, long nanos) {
+    latencies.get(latencyType).record(nanos);
+  }
+
+  @Override
+  public LatencyHistogram.Snapshot getLatency(LatencyType latencyType) {
+    return latencies.get(latencyType).snapshot();
+  }
+
   @Override
   public Map<String, Object> toMap() {
     var output = Maps.<String, Object>newTreeMap();
@@ -67,12 +67,14 @@ package com.radixdlt.environment.rx;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 
 import com.google.common.collect.ImmutableList;
+import com.radixdlt.counters.EventLoopMetrics;
 import com.radixdlt.environment.EventDispatcher;
 import com.radixdlt.environment.EventProcessor;
 import com.radixdlt.environment.RemoteEventProcessor;
 import com.radixdlt.environment.StartProcessor;
 import com.radixdlt.modules.ModuleRunner;
 import com.radixdlt.utils.ThreadFactories;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Scheduler;
@@ -102,9 +104,31 @@ public final class ModuleRunnerImpl implements ModuleRunner {
   private final List<Subscription<?>> subscriptions;
   private final ImmutableList<Consumer<ScheduledExecutorService>> onStart;
 
-  private record Subscription<T>(Observable<T> o, EventProcessor<T> p) {
+  /**
+   * A processor subscribed to a stream of events. The events are handed over to the runner's thread
+   * through a bounded buffer, so a busy runner holds back a backpressure aware stream, such as
+   * one with a stage of its own ahead of the runner, rather than letting events pile up.
+   */
+  private record Subscription<T>(Flowable<T> f, EventProcessor<T> p) {
+    /** Measures the time each event waits for the runner's thread and then spends in p. */
+    static <T> Subscription<?> measured(
+        EventLoopMetrics.EventStats stats, Flowable<T> f, EventProcessor<T> p) {
+      return new Subscription<Enqueued<T>>(
+          f.map(
+              event -> {
+                stats.enqueued();
+                return new Enqueued<>(event, System.nanoTime());
+              }),
+          enqueued -> {
+            var start = System.nanoTime();
+            stats.dequeued(start - enqueued.enqueuedAt());
+            p.process(enqueued.event());
+            stats.handled(System.nanoTime() - start);
+          });
+    }
+
     Disposable subscribe(Scheduler s) {
-      return o.observeOn(s)
+      return f.observeOn(s)
           .subscribe(
               p::process,
               e -> {
@@ -119,6 +143,8 @@ public final class ModuleRunnerImpl implements ModuleRunner {
     }
   }
 
+  private record Enqueued<T>(T event, long enqueuedAt) {}
+
   private ModuleRunnerImpl(
       String threadName,
       Set<StartProcessor> startProcessors, // TODO: combine with onStart
@@ -131,30 +157,44 @@ public final class ModuleRunnerImpl implements ModuleRunner {
   }
 
   public static class Builder {
+    private final String runnerName;
+    private final EventLoopMetrics metrics;
     private final HashSet<StartProcessor> startProcessors = new HashSet<>();
     private final ImmutableList.Builder<Subscription<?>> subscriptionsBuilder =
         ImmutableList.builder();
     private final ImmutableList.Builder<Consumer<ScheduledExecutorService>> onStartBuilder =
         new ImmutableList.Builder<>();
 
+    private Builder(String runnerName, EventLoopMetrics metrics) {
+      this.runnerName = runnerName;
+      this.metrics = metrics;
+    }
+
     public Builder add(StartProcessor startProcessor) {
       startProcessors.add(startProcessor);
       return this;
     }
 
-    public <T> Builder add(Observable<T> o, EventProcessor<T> p) {
-      subscriptionsBuilder.add(new Subscription<>(o, p));
-      return this;
+    /**
+     * Subscribes a processor to a stream of events.
+     *
+     * @param event the name of the events, which labels their metrics
+     */
+    public <T> Builder add(String event, Observable<T> o, EventProcessor<T> p) {
+      return add(event, o.toFlowable(BackpressureStrategy.BUFFER), p);
     }
 
-    public <T> Builder add(Flowable<T> o, EventProcessor<T> p) {
-      subscriptionsBuilder.add(new Subscription<>(o.toObservable(), p));
+    public <T> Builder add(String event, Flowable<T> f, EventProcessor<T> p) {
+      if (metrics.isEnabled()) {
+        subscriptionsBuilder.add(Subscription.measured(metrics.stats(runnerName, event), f, p));
+      } else {
+        subscriptionsBuilder.add(new Subscription<>(f, p));
+      }
       return this;
     }
 
-    public <T> Builder add(Flowable<RemoteEvent<T>> o, RemoteEventProcessor<T> p) {
-      subscriptionsBuilder.add(new Subscription<>(o.toObservable(), p::process));
-      return this;
+    public <T> Builder add(String event, Flowable<RemoteEvent<T>> f, RemoteEventProcessor<T> p) {
+      return add(event, f, (EventProcessor<RemoteEvent<T>>) p::process);
     }
 
     public <T> Builder scheduleWithFixedDelay(
@@ -185,8 +225,9 @@ public final class ModuleRunnerImpl implements ModuleRunner {
     }
   }
 
-  public static Builder builder() {
-    return new Builder();
+  /** A builder for a runner which records the metrics of its events, if they are enabled. */
+  public static Builder builder(String runnerName, EventLoopMetrics metrics) {
+    return new Builder(runnerName, metrics);
   }
 
   @Override
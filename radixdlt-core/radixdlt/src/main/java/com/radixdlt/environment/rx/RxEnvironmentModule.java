@@ -71,6 +71,7 @@ import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoMap;
 import com.google.inject.multibindings.StringMapKey;
+import com.radixdlt.counters.EventLoopMetrics;
 import com.radixdlt.environment.Environment;
 import com.radixdlt.environment.EventDispatcher;
 import com.radixdlt.environment.EventProcessorOnRunner;
@@ -95,10 +96,13 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /** Environment utilizing RxJava */
 public final class RxEnvironmentModule extends AbstractModule {
+  private static final Pattern PACKAGE_PREFIX = Pattern.compile("\\b[a-z]\\w*\\.");
+
   @Override
   public void configure() {
     ScheduledExecutorService ses =
@@ -143,9 +147,10 @@ public final class RxEnvironmentModule extends AbstractModule {
       Set<RemoteEventProcessorOnRunner<?>> remoteProcessors,
       RxRemoteEnvironment rxRemoteEnvironment,
       Set<ScheduledEventProducerOnRunner<?>> scheduledEventProducers,
-      Set<StartProcessorOnRunner> startProcessors) {
+      Set<StartProcessorOnRunner> startProcessors,
+      EventLoopMetrics eventLoopMetrics) {
     final var runnerName = Runners.CONSENSUS;
-    final var builder = ModuleRunnerImpl.builder();
+    final var builder = ModuleRunnerImpl.builder(runnerName, eventLoopMetrics);
     addProcessorsOnRunner(processors, rxEnvironment, runnerName, builder);
     addRemoteProcessorsOnRunner(remoteProcessors, rxRemoteEnvironment, runnerName, builder);
     addScheduledEventProducersOnRunner(scheduledEventProducers, runnerName, builder);
@@ -157,9 +162,12 @@ public final class RxEnvironmentModule extends AbstractModule {
   @StringMapKey(Runners.SYSTEM_INFO)
   @Singleton
   public ModuleRunner systemInfoRunner(
-      @Self String name, Set<EventProcessorOnRunner<?>> processors, RxEnvironment rxEnvironment) {
+      @Self String name,
+      Set<EventProcessorOnRunner<?>> processors,
+      RxEnvironment rxEnvironment,
+      EventLoopMetrics eventLoopMetrics) {
     final var runnerName = Runners.SYSTEM_INFO;
-    final var builder = ModuleRunnerImpl.builder();
+    final var builder = ModuleRunnerImpl.builder(runnerName, eventLoopMetrics);
     addProcessorsOnRunner(processors, rxEnvironment, runnerName, builder);
     return builder.build("SystemInfo " + name);
   }
@@ -173,9 +181,10 @@ public final class RxEnvironmentModule extends AbstractModule {
       RxEnvironment rxEnvironment,
       Set<RemoteEventProcessorOnRunner<?>> remoteProcessors,
       RxRemoteEnvironment rxRemoteEnvironment,
-      Set<ScheduledEventProducerOnRunner<?>> scheduledEventProducers) {
+      Set<ScheduledEventProducerOnRunner<?>> scheduledEventProducers,
+      EventLoopMetrics eventLoopMetrics) {
     final var runnerName = Runners.MEMPOOL;
-    final var builder = ModuleRunnerImpl.builder();
+    final var builder = ModuleRunnerImpl.builder(runnerName, eventLoopMetrics);
     addProcessorsOnRunner(processors, rxEnvironment, runnerName, builder);
     addRemoteProcessorsOnRunner(remoteProcessors, rxRemoteEnvironment, runnerName, builder);
     addScheduledEventProducersOnRunner(scheduledEventProducers, runnerName, builder);
@@ -191,10 +200,11 @@ public final class RxEnvironmentModule extends AbstractModule {
       RxEnvironment rxEnvironment,
       Set<RemoteEventProcessorOnRunner<?>> remoteProcessors,
       RxRemoteEnvironment rxRemoteEnvironment,
-      Set<ScheduledEventProducerOnRunner<?>> scheduledEventProducers) {
+      Set<ScheduledEventProducerOnRunner<?>> scheduledEventProducers,
+      EventLoopMetrics eventLoopMetrics) {
 
     final var runnerName = Runners.SYNC;
-    final var builder = ModuleRunnerImpl.builder();
+    final var builder = ModuleRunnerImpl.builder(runnerName, eventLoopMetrics);
     addProcessorsOnRunner(processors, rxEnvironment, runnerName, builder);
     addRemoteProcessorsOnRunner(remoteProcessors, rxRemoteEnvironment, runnerName, builder);
     addScheduledEventProducersOnRunner(scheduledEventProducers, runnerName, builder);
@@ -210,9 +220,10 @@ public final class RxEnvironmentModule extends AbstractModule {
       RxEnvironment rxEnvironment,
       Set<RemoteEventProcessorOnRunner<?>> remoteProcessors,
       RxRemoteEnvironment rxRemoteEnvironment,
-      Set<ScheduledEventProducerOnRunner<?>> scheduledEventProducers) {
+      Set<ScheduledEventProducerOnRunner<?>> scheduledEventProducers,
+      EventLoopMetrics eventLoopMetrics) {
     final var runnerName = Runners.P2P_NETWORK;
-    final var builder = ModuleRunnerImpl.builder();
+    final var builder = ModuleRunnerImpl.builder(runnerName, eventLoopMetrics);
     addProcessorsOnRunner(processors, rxEnvironment, runnerName, builder);
     addRemoteProcessorsOnRunner(remoteProcessors, rxRemoteEnvironment, runnerName, builder);
     addScheduledEventProducersOnRunner(scheduledEventProducers, runnerName, builder);
@@ -238,7 +249,8 @@ public final class RxEnvironmentModule extends AbstractModule {
       events = rxEnvironment.remoteEvents(eventClass);
     }
 
-    processor.getProcessor(eventClass).ifPresent(p -> builder.add(events, p));
+    final var eventName = "RemoteEvent<" + eventClass.getSimpleName() + ">";
+    processor.getProcessor(eventClass).ifPresent(p -> builder.add(eventName, events, p));
   }
 
   private static <T> void addToBuilder(
@@ -246,6 +258,7 @@ public final class RxEnvironmentModule extends AbstractModule {
       RxEnvironment rxEnvironment,
       EventProcessorOnRunner<?> processor,
       ModuleRunnerImpl.Builder builder) {
+    final var eventName = simpleName(typeLiteral);
     if (processor.getRateLimitDelayMs() > 0) {
       final Flowable<T> events =
           rxEnvironment
@@ -256,10 +269,10 @@ public final class RxEnvironmentModule extends AbstractModule {
                   e ->
                       Flowable.timer(processor.getRateLimitDelayMs(), TimeUnit.MILLISECONDS)
                           .map(l -> e));
-      processor.getProcessor(typeLiteral).ifPresent(p -> builder.add(events, p));
+      processor.getProcessor(typeLiteral).ifPresent(p -> builder.add(eventName, events, p));
     } else {
       final Observable<T> events = rxEnvironment.getObservable(typeLiteral);
-      processor.getProcessor(typeLiteral).ifPresent(p -> builder.add(events, p));
+      processor.getProcessor(typeLiteral).ifPresent(p -> builder.add(eventName, events, p));
     }
   }
 
@@ -268,6 +281,7 @@ public final class RxEnvironmentModule extends AbstractModule {
       RxEnvironment rxEnvironment,
       EventProcessorOnRunner<?> processor,
       ModuleRunnerImpl.Builder builder) {
+    final var eventName = eventClass.getSimpleName();
     if (processor.getRateLimitDelayMs() > 0) {
       final Flowable<T> events =
           rxEnvironment
@@ -278,13 +292,18 @@ public final class RxEnvironmentModule extends AbstractModule {
                   e ->
                       Flowable.timer(processor.getRateLimitDelayMs(), TimeUnit.MILLISECONDS)
                           .map(l -> e));
-      processor.getProcessor(eventClass).ifPresent(p -> builder.add(events, p));
+      processor.getProcessor(eventClass).ifPresent(p -> builder.add(eventName, events, p));
     } else {
       final Observable<T> events = rxEnvironment.getObservable(eventClass);
-      processor.getProcessor(eventClass).ifPresent(p -> builder.add(events, p));
+      processor.getProcessor(eventClass).ifPresent(p -> builder.add(eventName, events, p));
     }
   }
 
+  /** The type without package names, e.g. {@code Epoched<ScheduledLocalTimeout>}. */
+  private static String simpleName(TypeLiteral<?> typeLiteral) {
+    return PACKAGE_PREFIX.matcher(typeLiteral.toString()).replaceAll("");
+  }
+
   @SuppressWarnings("unchecked")
   private void addScheduledEventProducersOnRunner(
       Set<ScheduledEventProducerOnRunner<?>> allScheduledEventProducers,
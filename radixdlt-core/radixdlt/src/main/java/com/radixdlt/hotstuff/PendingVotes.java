@@ -157,15 +157,15 @@ public final class PendingVotes {
       return VoteProcessingResult.rejected(VoteRejectedReason.DUPLICATE_VOTE);
     }
 
-    return processVoteForQC(vote, validatorSet)
+    return processVoteForQC(vote, voteDataHash, validatorSet)
         .<VoteProcessingResult>map(VoteProcessingResult::qcQuorum)
         .or(() -> processVoteForTC(vote, validatorSet).map(VoteProcessingResult::tcQuorum))
         .orElseGet(VoteProcessingResult::accepted);
   }
 
-  private Optional<QuorumCertificate> processVoteForQC(Vote vote, BFTValidatorSet validatorSet) {
+  private Optional<QuorumCertificate> processVoteForQC(
+      Vote vote, HashCode voteDataHash, BFTValidatorSet validatorSet) {
     final VoteData voteData = vote.getVoteData();
-    final HashCode voteDataHash = this.hasher.hash(voteData);
     final BFTNode node = vote.getAuthor();
 
     final ValidationState validationState =
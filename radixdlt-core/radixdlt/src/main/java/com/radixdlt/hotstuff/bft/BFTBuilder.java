@@ -64,6 +64,7 @@
 
 package com.radixdlt.hotstuff.bft;
 
+import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.crypto.Hasher;
 import com.radixdlt.environment.EventDispatcher;
 import com.radixdlt.environment.RemoteEventDispatcher;
@@ -94,6 +95,7 @@ public final class BFTBuilder {
   private ViewUpdate viewUpdate;
   private RemoteEventDispatcher<Vote> voteDispatcher;
   private SafetyRules safetyRules;
+  private SystemCounters systemCounters;
 
   private BFTBuilder() {
     // Just making this inaccessible
@@ -123,6 +125,11 @@ public final class BFTBuilder {
     return this;
   }
 
+  public BFTBuilder systemCounters(SystemCounters systemCounters) {
+    this.systemCounters = systemCounters;
+    return this;
+  }
+
   public BFTBuilder hasher(Hasher hasher) {
     this.hasher = hasher;
     return this;
@@ -182,10 +189,12 @@ public final class BFTBuilder {
             safetyRules,
             validatorSet,
             pendingVotes,
-            viewUpdate);
+            viewUpdate,
+            systemCounters);
 
     BFTEventPreprocessor preprocessor = new BFTEventPreprocessor(reducer, bftSyncer, viewUpdate);
 
-    return new BFTEventVerifier(validatorSet, preprocessor, hasher, verifier, safetyRules);
+    return new BFTEventVerifier(
+        validatorSet, preprocessor, hasher, verifier, safetyRules, systemCounters);
   }
 }
@@ -64,6 +64,8 @@
 
 package com.radixdlt.hotstuff.bft;
 
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.LatencyType;
 import com.radixdlt.crypto.Hasher;
 import com.radixdlt.environment.EventDispatcher;
 import com.radixdlt.environment.RemoteEventDispatcher;
@@ -98,6 +100,7 @@ public final class BFTEventReducer implements BFTEventProcessor {
   private final SafetyRules safetyRules;
   private final BFTValidatorSet validatorSet;
   private final PendingVotes pendingVotes;
+  private final SystemCounters systemCounters;
 
   private BFTInsertUpdate latestInsertUpdate;
   private ViewUpdate latestViewUpdate;
@@ -110,6 +113,13 @@ public final class BFTEventReducer implements BFTEventProcessor {
 
   private boolean isViewTimedOut = false;
 
+  // For latency metrics: when the proposal of a view was processed, and when the first vote
+  // of the current view was accepted
+  private View proposalView;
+  private long proposalProcessedAt;
+  private boolean hasAcceptedVote = false;
+  private long firstVoteAcceptedAt;
+
   public BFTEventReducer(
       BFTNode self,
       Pacemaker pacemaker,
@@ -121,7 +131,8 @@ public final class BFTEventReducer implements BFTEventProcessor {
       SafetyRules safetyRules,
       BFTValidatorSet validatorSet,
       PendingVotes pendingVotes,
-      ViewUpdate initialViewUpdate) {
+      ViewUpdate initialViewUpdate,
+      SystemCounters systemCounters) {
     this.self = Objects.requireNonNull(self);
     this.pacemaker = Objects.requireNonNull(pacemaker);
     this.vertexStore = Objects.requireNonNull(vertexStore);
@@ -134,6 +145,7 @@ public final class BFTEventReducer implements BFTEventProcessor {
     this.validatorSet = Objects.requireNonNull(validatorSet);
     this.pendingVotes = Objects.requireNonNull(pendingVotes);
     this.latestViewUpdate = Objects.requireNonNull(initialViewUpdate);
+    this.systemCounters = Objects.requireNonNull(systemCounters);
   }
 
   @Override
@@ -160,6 +172,7 @@ public final class BFTEventReducer implements BFTEventProcessor {
   public void processViewUpdate(ViewUpdate viewUpdate) {
     this.hasReachedQuorum = false;
     this.isViewTimedOut = false;
+    this.hasAcceptedVote = false;
     this.latestViewUpdate = viewUpdate;
     this.pacemaker.processViewUpdate(viewUpdate);
     this.tryVote();
@@ -194,7 +207,13 @@ public final class BFTEventReducer implements BFTEventProcessor {
             update.getInserted().getTimeOfExecution(),
             this.latestViewUpdate.getHighQC());
     maybeVote.ifPresentOrElse(
-        vote -> this.voteDispatcher.dispatch(nextLeader, vote),
+        vote -> {
+          this.voteDispatcher.dispatch(nextLeader, vote);
+          if (this.proposalView != null && this.proposalView.equals(update.getHeader().getView())) {
+            systemCounters.recordLatency(
+                LatencyType.BFT_PROPOSAL_TO_VOTE, System.nanoTime() - this.proposalProcessedAt);
+          }
+        },
         () -> this.noVoteDispatcher.dispatch(NoVote.create(update.getInserted().getVertex())));
   }
 
@@ -231,12 +250,21 @@ public final class BFTEventReducer implements BFTEventProcessor {
       return;
     }
 
+    var receivedAt = System.nanoTime();
     switch (this.pendingVotes.insertVote(vote, this.validatorSet)) {
-      case VoteAccepted ignored -> log.trace("Vote has been processed but didn't form a quorum");
+      case VoteAccepted ignored -> {
+        log.trace("Vote has been processed but didn't form a quorum");
+        if (!this.hasAcceptedVote) {
+          this.hasAcceptedVote = true;
+          this.firstVoteAcceptedAt = receivedAt;
+        }
+      }
       case VoteRejected voteRejected -> log.trace(
           "Vote has been rejected because of: {}", voteRejected.getReason());
       case QuorumReached quorumReached -> {
         this.hasReachedQuorum = true;
+        var formationTime = this.hasAcceptedVote ? System.nanoTime() - firstVoteAcceptedAt : 0L;
+        systemCounters.recordLatency(LatencyType.BFT_QUORUM_FORMATION, formationTime);
         viewQuorumReachedEventDispatcher.dispatch(
             new ViewQuorumReached(quorumReached.getViewVotingResult(), vote.getAuthor()));
       }
@@ -255,6 +283,9 @@ public final class BFTEventReducer implements BFTEventProcessor {
       return;
     }
 
+    this.proposalView = proposedVertexView;
+    this.proposalProcessedAt = System.nanoTime();
+
     // TODO: Move insertion and maybe check into BFTSync
     var proposedVertex =
         new VerifiedVertex(proposal.getVertex(), this.hasher.hash(proposal.getVertex()));
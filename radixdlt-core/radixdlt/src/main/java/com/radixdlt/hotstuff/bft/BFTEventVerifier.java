@@ -67,6 +67,8 @@ package com.radixdlt.hotstuff.bft;
 import com.google.common.hash.HashCode;
 import com.radixdlt.SecurityCritical;
 import com.radixdlt.SecurityCritical.SecurityKind;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.LatencyType;
 import com.radixdlt.crypto.ECDSASignature;
 import com.radixdlt.crypto.Hasher;
 import com.radixdlt.hotstuff.BFTEventProcessor;
@@ -92,18 +94,21 @@ public final class BFTEventVerifier implements BFTEventProcessor {
   private final Hasher hasher;
   private final HashVerifier verifier;
   private final SafetyRules safetyRules;
+  private final SystemCounters systemCounters;
 
   public BFTEventVerifier(
       BFTValidatorSet validatorSet,
       BFTEventProcessor forwardTo,
       Hasher hasher,
       HashVerifier verifier,
-      SafetyRules safetyRules) {
+      SafetyRules safetyRules,
+      SystemCounters systemCounters) {
     this.validatorSet = Objects.requireNonNull(validatorSet);
     this.hasher = Objects.requireNonNull(hasher);
     this.verifier = Objects.requireNonNull(verifier);
     this.forwardTo = Objects.requireNonNull(forwardTo);
     this.safetyRules = Objects.requireNonNull(safetyRules);
+    this.systemCounters = Objects.requireNonNull(systemCounters);
   }
 
   @Override
@@ -121,6 +126,7 @@ public final class BFTEventVerifier implements BFTEventProcessor {
     validAuthor(vote)
         .ifPresent(
             node -> {
+              var start = System.nanoTime();
               boolean verifiedVoteData =
                   verifyHashSignature(node, vote.getHashOfData(hasher), vote.getSignature(), vote);
               if (!verifiedVoteData) {
@@ -145,6 +151,8 @@ public final class BFTEventVerifier implements BFTEventProcessor {
                 log.warn("Ignoring a vote {} with invalid high QC", vote);
                 return;
               }
+              systemCounters.recordLatency(
+                  LatencyType.BFT_VOTE_VERIFICATION, System.nanoTime() - start);
 
               forwardTo.processVote(vote);
             });
@@ -155,6 +163,7 @@ public final class BFTEventVerifier implements BFTEventProcessor {
     validAuthor(proposal)
         .ifPresent(
             node -> {
+              var start = System.nanoTime();
               if (!verifyObjectSignature(
                   node, proposal.getVertex(), proposal.getSignature(), proposal)) {
                 log.warn("Ignoring a proposal {} with invalid signature", proposal);
@@ -165,8 +174,12 @@ public final class BFTEventVerifier implements BFTEventProcessor {
                 log.warn("Ignoring a proposal {} with invalid high QC", proposal);
                 return;
               }
+              var verified = System.nanoTime();
+              systemCounters.recordLatency(LatencyType.BFT_PROPOSAL_VERIFICATION, verified - start);
 
               forwardTo.processProposal(proposal);
+              systemCounters.recordLatency(
+                  LatencyType.BFT_PROPOSAL_PROCESSING, System.nanoTime() - start);
             });
   }
 
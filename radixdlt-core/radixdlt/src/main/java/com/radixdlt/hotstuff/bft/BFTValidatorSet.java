@@ -87,6 +87,11 @@ public final class BFTValidatorSet {
   // of 2^256 this should never overflow
   private final transient UInt256 totalPower;
 
+  // Validators are also indexed by their position in the set, so that per validator state can be
+  // kept in arrays. Powers are kept as longs as well when the total power fits in a long.
+  private final transient ImmutableMap<BFTNode, Integer> indices;
+  private final transient long[] longPowers;
+
   private BFTValidatorSet(Collection<BFTValidator> validators) {
     this(validators.stream());
   }
@@ -101,6 +106,22 @@ public final class BFTValidatorSet {
             .map(BFTValidator::getPower)
             .reduce(UInt256::add)
             .orElse(UInt256.ZERO);
+
+    final var indicesBuilder = ImmutableMap.<BFTNode, Integer>builder();
+    final var nodes = this.validators.keySet().asList();
+    for (int i = 0; i < nodes.size(); i++) {
+      indicesBuilder.put(nodes.get(i), i);
+    }
+    this.indices = indicesBuilder.build();
+
+    if (this.totalPower.compareTo(UInt256.from(Long.MAX_VALUE)) <= 0) {
+      this.longPowers =
+          this.validators.values().stream()
+              .mapToLong(v -> v.getPower().getLow().getLow())
+              .toArray();
+    } else {
+      this.longPowers = null;
+    }
   }
 
   /**
@@ -146,6 +167,27 @@ public final class BFTValidatorSet {
     return containsNode(BFTNode.create(publicKey));
   }
 
+  /**
+   * Returns the index of the given node in this set, or -1 if the node is not a validator. Indices
+   * range from 0 to the number of validators, exclusive.
+   */
+  public int indexOf(BFTNode node) {
+    final var index = indices.get(node);
+    return index == null ? -1 : index;
+  }
+
+  public BFTValidator validatorAt(int index) {
+    return validators.values().asList().get(index);
+  }
+
+  boolean hasLongPowers() {
+    return longPowers != null;
+  }
+
+  long longPowerAt(int index) {
+    return longPowers[index];
+  }
+
   public UInt256 getPower(BFTNode node) {
     return validators.get(node).getPower();
   }
@@ -0,0 +1,256 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.hotstuff.bft;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.radixdlt.SecurityCritical;
+import com.radixdlt.SecurityCritical.SecurityKind;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.crypto.ECDSASignature;
+import com.radixdlt.crypto.Hasher;
+import com.radixdlt.environment.rx.RemoteEvent;
+import com.radixdlt.hotstuff.ConsensusEvent;
+import com.radixdlt.hotstuff.HashVerifier;
+import com.radixdlt.hotstuff.HighQC;
+import com.radixdlt.hotstuff.Proposal;
+import com.radixdlt.hotstuff.QuorumCertificate;
+import com.radixdlt.hotstuff.TimeoutCertificate;
+import com.radixdlt.hotstuff.Vote;
+import com.radixdlt.hotstuff.liveness.VoteTimeout;
+import com.radixdlt.utils.ThreadFactories;
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A stage ahead of the consensus runner which verifies the signatures of inbound proposals and
+ * votes, including those of the certificates they carry, on a pool of threads.
+ *
+ * <p>Signatures only depend on the contents of a message, so they can be checked before it is
+ * known which epoch or validator set the message belongs to. The verified signatures are put into
+ * the {@link com.radixdlt.hotstuff.VerifiedSignatureCache} behind the given verifier, so the
+ * {@link BFTEventVerifier} on the consensus thread finds them there and only checks what depends
+ * on consensus state. Messages with an invalid signature would be rejected there anyway, so they
+ * are dropped here already.
+ *
+ * <p>Inbound messages wait in a bounded buffer, which drops the oldest message when full. The
+ * stage only takes more messages from it when the consensus runner has asked for them, so a busy
+ * consensus thread slows verification down rather than piling up verified messages.
+ */
+@SecurityCritical({SecurityKind.SIG_VERIFY})
+public final class ConsensusEventPreVerifier {
+  private static final Logger log = LogManager.getLogger();
+  private static final int VERIFIED_CERTIFICATES_CACHE_SIZE = 1000;
+
+  private final Hasher hasher;
+  private final HashVerifier verifier;
+  private final SystemCounters counters;
+  private final int parallelism;
+  private final int bufferSize;
+  private final Scheduler scheduler;
+  private final Cache<HashCode, Boolean> verifiedCertificates =
+      CacheBuilder.newBuilder().maximumSize(VERIFIED_CERTIFICATES_CACHE_SIZE).build();
+
+  public ConsensusEventPreVerifier(
+      Hasher hasher,
+      HashVerifier verifier,
+      SystemCounters counters,
+      int parallelism,
+      int bufferSize) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Invalid parallelism " + parallelism);
+    }
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("Invalid buffer size " + bufferSize);
+    }
+    this.hasher = Objects.requireNonNull(hasher);
+    this.verifier = Objects.requireNonNull(verifier);
+    this.counters = Objects.requireNonNull(counters);
+    this.parallelism = parallelism;
+    this.bufferSize = bufferSize;
+    this.scheduler =
+        Schedulers.from(
+            Executors.newFixedThreadPool(
+                parallelism, ThreadFactories.daemonThreads("ConsensusVerifier %d")));
+  }
+
+  /**
+   * Passes on the events with valid signatures in the order they arrived in, so that messages from
+   * the same peer reach consensus in the order they were sent. Up to {@code parallelism} events
+   * are verified at once, a verified event waits for those before it.
+   */
+  public <T extends ConsensusEvent> Flowable<RemoteEvent<T>> verify(
+      Flowable<RemoteEvent<T>> events) {
+    return events
+        .onBackpressureBuffer(
+            bufferSize,
+            () -> counters.increment(CounterType.BFT_PREVERIFICATION_DROPPED),
+            BackpressureOverflowStrategy.DROP_OLDEST)
+        .concatMapEager(
+            e ->
+                Maybe.fromCallable(() -> hasValidSignatures(e.getEvent()) ? e : null)
+                    .subscribeOn(scheduler)
+                    .toFlowable(),
+            parallelism,
+            1);
+  }
+
+  boolean hasValidSignatures(ConsensusEvent event) {
+    final boolean valid;
+    if (event instanceof Vote vote) {
+      valid = hasValidSignatures(vote);
+    } else if (event instanceof Proposal proposal) {
+      valid = hasValidSignatures(proposal);
+    } else {
+      valid = true;
+    }
+
+    if (!valid) {
+      counters.increment(CounterType.BFT_PREVERIFICATION_REJECTED);
+      log.warn("Ignoring {} with invalid signatures", event);
+    }
+    return valid;
+  }
+
+  private boolean hasValidSignatures(Vote vote) {
+    var author = vote.getAuthor();
+    return verify(author, vote.getHashOfData(hasher), vote.getSignature())
+        && vote.getTimeoutSignature()
+            .map(signature -> verify(author, hasher.hash(VoteTimeout.of(vote)), signature))
+            .orElse(true)
+        && hasValidSignatures(vote.highQC());
+  }
+
+  private boolean hasValidSignatures(Proposal proposal) {
+    return verify(
+            proposal.getAuthor(), hasher.hash(proposal.getVertex()), proposal.getSignature())
+        && hasValidSignatures(proposal.highQC());
+  }
+
+  private boolean hasValidSignatures(HighQC highQC) {
+    return hasValidSignatures(highQC.highestQC())
+        && hasValidSignatures(highQC.highestCommittedQC())
+        && highQC.highestTC().map(this::hasValidSignatures).orElse(true);
+  }
+
+  private boolean hasValidSignatures(QuorumCertificate qc) {
+    var qcHash = hasher.hash(qc);
+    if (verifiedCertificates.getIfPresent(qcHash) != null || isGenesisQc(qc)) {
+      return true;
+    }
+
+    var voteData = qc.getVoteData();
+    var valid =
+        qc.getTimestampedSignatures().getSignatures().entrySet().stream()
+            .allMatch(
+                e ->
+                    verify(
+                        e.getKey(),
+                        Vote.getHashOfData(hasher, voteData, e.getValue().timestamp()),
+                        e.getValue().signature()));
+    if (valid) {
+      verifiedCertificates.put(qcHash, Boolean.TRUE);
+    }
+    return valid;
+  }
+
+  // Same as in SafetyRules, which does not check the signatures of a genesis QC either
+  private static boolean isGenesisQc(QuorumCertificate qc) {
+    return qc.getProposed().getView().isGenesis()
+        && qc.getCommitted()
+            .map(
+                committed -> qc.getProposed().equals(committed) && qc.getParent().equals(committed))
+            .orElse(false);
+  }
+
+  private boolean hasValidSignatures(TimeoutCertificate tc) {
+    var tcHash = hasher.hash(tc);
+    if (verifiedCertificates.getIfPresent(tcHash) != null) {
+      return true;
+    }
+
+    var voteTimeoutHash = hasher.hash(new VoteTimeout(tc.getView(), tc.getEpoch()));
+    var valid =
+        tc.getTimestampedSignatures().getSignatures().entrySet().stream()
+            .allMatch(e -> verify(e.getKey(), voteTimeoutHash, e.getValue().signature()));
+    if (valid) {
+      verifiedCertificates.put(tcHash, Boolean.TRUE);
+    }
+    return valid;
+  }
+
+  private boolean verify(BFTNode author, HashCode hash, ECDSASignature signature) {
+    return verifier.verify(author.getKey(), hash, signature);
+  }
+}
@@ -70,21 +70,30 @@ import com.radixdlt.crypto.ECDSASignature;
 import com.radixdlt.hotstuff.TimestampedECDSASignature;
 import com.radixdlt.hotstuff.TimestampedECDSASignatures;
 import com.radixdlt.utils.UInt256;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Objects;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
  * Keeps track of current validation state for a thing that needs multiple correct signatures for a
  * quorum.
+ *
+ * <p>Signatures are kept by validator index, and are only collected into a {@link
+ * TimestampedECDSASignatures} once asked for. Signed power is summed in a {@code long} whenever
+ * the total power of the validator set fits in one.
  */
 @NotThreadSafe
 public final class ValidationState {
 
   private final BFTValidatorSet validatorSet;
-  private final Map<BFTNode, TimestampedECDSASignature> signedNodes;
+  private final BitSet signed;
+  private final long[] timestamps;
+  private final ECDSASignature[] signatures;
+  private final transient boolean longPowers;
+  private transient long signedLongPower;
   private transient UInt256 signedPower;
+  private final transient long longThreshold;
   private final transient UInt256 threshold;
 
   /**
@@ -98,9 +107,15 @@ public final class ValidationState {
 
   private ValidationState(BFTValidatorSet validatorSet) {
     this.validatorSet = Objects.requireNonNull(validatorSet);
-    this.signedNodes = new HashMap<>();
+    final var numValidators = validatorSet.getValidators().size();
+    this.signed = new BitSet(numValidators);
+    this.timestamps = new long[numValidators];
+    this.signatures = new ECDSASignature[numValidators];
+    this.longPowers = validatorSet.hasLongPowers();
+    this.signedLongPower = 0L;
     this.signedPower = UInt256.ZERO;
     this.threshold = threshold(validatorSet.getTotalPower());
+    this.longThreshold = this.longPowers ? this.threshold.getLow().getLow() : 0L;
   }
 
   /**
@@ -109,13 +124,16 @@ public final class ValidationState {
    * @param node the node who's signature is to be removed
    */
   public void removeSignature(BFTNode node) {
-    if (this.validatorSet.containsNode(node)) {
-      this.signedNodes.computeIfPresent(
-          node,
-          (k, v) -> {
-            this.signedPower = this.signedPower.subtract(this.validatorSet.getPower(node));
-            return null;
-          });
+    final int index = this.validatorSet.indexOf(node);
+    if (index >= 0 && this.signed.get(index)) {
+      this.signed.clear(index);
+      this.timestamps[index] = 0L;
+      this.signatures[index] = null;
+      if (this.longPowers) {
+        this.signedLongPower -= this.validatorSet.longPowerAt(index);
+      } else {
+        this.signedPower = this.signedPower.subtract(this.validatorSet.getPower(node));
+      }
     }
   }
 
@@ -129,14 +147,16 @@ public final class ValidationState {
    * @return whether the key was added or not
    */
   public boolean addSignature(BFTNode node, long timestamp, ECDSASignature signature) {
-    if (validatorSet.containsNode(node) && !this.signedNodes.containsKey(node)) {
-      this.signedNodes.computeIfAbsent(
-          node,
-          k -> {
-            UInt256 weight = this.validatorSet.getPower(node);
-            this.signedPower = this.signedPower.add(weight);
-            return TimestampedECDSASignature.from(timestamp, signature);
-          });
+    final int index = this.validatorSet.indexOf(node);
+    if (index >= 0 && !this.signed.get(index)) {
+      this.signed.set(index);
+      this.timestamps[index] = timestamp;
+      this.signatures[index] = signature;
+      if (this.longPowers) {
+        this.signedLongPower += this.validatorSet.longPowerAt(index);
+      } else {
+        this.signedPower = this.signedPower.add(this.validatorSet.getPower(node));
+      }
       return true;
     }
     return false;
@@ -148,7 +168,7 @@ public final class ValidationState {
    * @return {@code true} if we have not accumulated any signatures, {@code false} otherwise.
    */
   public boolean isEmpty() {
-    return this.signedNodes.isEmpty();
+    return this.signed.isEmpty();
   }
 
   /**
@@ -157,7 +177,9 @@ public final class ValidationState {
    * @return {@code true} if we have enough valid signatures to form a quorum,
    */
   public boolean complete() {
-    return signedPower.compareTo(threshold) >= 0;
+    return this.longPowers
+        ? signedLongPower >= longThreshold
+        : signedPower.compareTo(threshold) >= 0;
   }
 
   /**
@@ -166,7 +188,17 @@ public final class ValidationState {
    * @return an {@link ECDSASignatures} object for our current set of valid signatures
    */
   public TimestampedECDSASignatures signatures() {
-    return new TimestampedECDSASignatures(ImmutableMap.copyOf(this.signedNodes));
+    return new TimestampedECDSASignatures(signedNodes());
+  }
+
+  private ImmutableMap<BFTNode, TimestampedECDSASignature> signedNodes() {
+    final var builder = ImmutableMap.<BFTNode, TimestampedECDSASignature>builder();
+    for (int i = this.signed.nextSetBit(0); i >= 0; i = this.signed.nextSetBit(i + 1)) {
+      builder.put(
+          this.validatorSet.validatorAt(i).getNode(),
+          TimestampedECDSASignature.from(this.timestamps[i], this.signatures[i]));
+    }
+    return builder.build();
   }
 
   @VisibleForTesting
@@ -183,7 +215,8 @@ public final class ValidationState {
 
   @Override
   public int hashCode() {
-    return Objects.hash(validatorSet, signedNodes);
+    return Objects.hash(
+        validatorSet, signed, Arrays.hashCode(timestamps), Arrays.hashCode(signatures));
   }
 
   @Override
@@ -194,7 +227,9 @@ public final class ValidationState {
     if (obj instanceof ValidationState) {
       ValidationState that = (ValidationState) obj;
       return Objects.equals(this.validatorSet, that.validatorSet)
-          && Objects.equals(this.signedNodes, that.signedNodes);
+          && Objects.equals(this.signed, that.signed)
+          && Arrays.equals(this.timestamps, that.timestamps)
+          && Arrays.equals(this.signatures, that.signatures);
     }
     return false;
   }
@@ -203,6 +238,6 @@ public final class ValidationState {
   public String toString() {
     return String.format(
         "%s[validatorSet=%s, signedNodes=%s]",
-        getClass().getSimpleName(), validatorSet, signedNodes);
+        getClass().getSimpleName(), validatorSet, signedNodes());
   }
 }
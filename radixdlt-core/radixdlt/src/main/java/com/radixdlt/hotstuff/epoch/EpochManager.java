@@ -84,7 +84,9 @@ import com.radixdlt.hotstuff.bft.*;
 import com.radixdlt.hotstuff.liveness.PacemakerFactory;
 import com.radixdlt.hotstuff.liveness.PacemakerStateFactory;
 import com.radixdlt.hotstuff.liveness.PacemakerTimeoutCalculator;
+import com.radixdlt.hotstuff.liveness.ProposerElection;
 import com.radixdlt.hotstuff.liveness.ScheduledLocalTimeout;
+import com.radixdlt.hotstuff.liveness.WeightedRotatingLeaders;
 import com.radixdlt.hotstuff.safety.PersistentSafetyStateStore;
 import com.radixdlt.hotstuff.safety.SafetyRules;
 import com.radixdlt.hotstuff.safety.SafetyState;
@@ -99,6 +101,7 @@ import com.radixdlt.sync.messages.remote.LedgerStatusUpdate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.inject.Inject;
@@ -127,6 +130,7 @@ public final class EpochManager {
 
   private EpochChange currentEpoch;
   private List<ConsensusEvent> queuedEventsForNextEpoch;
+  private PreparedEpoch preparedNextEpoch;
 
   private EventProcessor<VertexRequestTimeout> syncTimeoutProcessor;
   private EventProcessor<LedgerUpdate> syncLedgerUpdateProcessor;
@@ -202,9 +206,57 @@ public final class EpochManager {
     this.queuedEventsForNextEpoch = new ArrayList<>();
   }
 
+  /**
+   * The consensus components of an epoch which only depend on its validator set. They are built
+   * as soon as a vertex ending the previous epoch is inserted, ahead of the epoch change.
+   */
+  private record PreparedEpoch(
+      long epoch,
+      BFTValidatorSet validatorSet,
+      ProposerElection proposerElection,
+      SafetyRules safetyRules) {}
+
+  private void prepareNextEpoch(BFTValidatorSet validatorSet) {
+    final var nextEpoch = this.currentEpoch() + 1;
+    if (!validatorSet.containsNode(self)
+        || (this.preparedNextEpoch != null
+            && this.preparedNextEpoch.epoch() == nextEpoch
+            && this.preparedNextEpoch.validatorSet().equals(validatorSet))) {
+      return;
+    }
+
+    final var proposerElection = new WeightedRotatingLeaders(validatorSet);
+    // Every epoch starts from a genesis QC, so its first two leaders are needed straight away
+    proposerElection.getProposer(View.genesis().next());
+    proposerElection.getProposer(View.genesis().next().next());
+
+    final var safetyRules =
+        new SafetyRules(
+            self,
+            SafetyState.initialState(),
+            persistentSafetyStateStore,
+            hasher,
+            signer,
+            hashVerifier,
+            validatorSet);
+
+    this.preparedNextEpoch =
+        new PreparedEpoch(nextEpoch, validatorSet, proposerElection, safetyRules);
+  }
+
+  private Optional<PreparedEpoch> takePreparedEpoch(BFTValidatorSet validatorSet) {
+    final var prepared =
+        Optional.ofNullable(this.preparedNextEpoch)
+            .filter(p -> p.epoch() == this.currentEpoch() && p.validatorSet().equals(validatorSet));
+    this.preparedNextEpoch = null;
+    prepared.ifPresent(p -> counters.increment(CounterType.EPOCH_MANAGER_PREPARED_EPOCHS_USED));
+    return prepared;
+  }
+
   private void updateEpochState() {
     var config = this.currentEpoch.getBFTConfiguration();
     var validatorSet = config.getValidatorSet();
+    final var preparedEpoch = takePreparedEpoch(validatorSet);
 
     if (!validatorSet.containsNode(self) || this.currentEpoch.isShutdown()) {
       this.bftRebuildProcessors = Set.of();
@@ -222,7 +274,10 @@ public final class EpochManager {
 
     // Config
     final var bftConfiguration = this.currentEpoch.getBFTConfiguration();
-    final var proposerElection = bftConfiguration.getProposerElection();
+    final var proposerElection =
+        preparedEpoch
+            .map(PreparedEpoch::proposerElection)
+            .orElseGet(bftConfiguration::getProposerElection);
     final var highQC = bftConfiguration.getVertexStoreState().getHighQC();
     final var view = highQC.highestQC().getView().next();
     final var leader = proposerElection.getProposer(view);
@@ -236,14 +291,18 @@ public final class EpochManager {
 
     // Consensus Drivers
     final var safetyRules =
-        new SafetyRules(
-            self,
-            SafetyState.initialState(),
-            persistentSafetyStateStore,
-            hasher,
-            signer,
-            hashVerifier,
-            validatorSet);
+        preparedEpoch
+            .map(PreparedEpoch::safetyRules)
+            .orElseGet(
+                () ->
+                    new SafetyRules(
+                        self,
+                        SafetyState.initialState(),
+                        persistentSafetyStateStore,
+                        hasher,
+                        signer,
+                        hashVerifier,
+                        validatorSet));
     final var pacemaker =
         pacemakerFactory.create(
             validatorSet,
@@ -321,6 +380,7 @@ public final class EpochManager {
       }
     }
 
+    final var switchStart = System.nanoTime();
     final var queuedEventsForNewEpoch = queuedEventsForNextEpoch;
     queuedEventsForNextEpoch = new ArrayList<>(256);
 
@@ -329,6 +389,8 @@ public final class EpochManager {
     this.bftEventProcessor.start();
 
     this.processCachedConsensusEventsAtStartOfEpoch(queuedEventsForNewEpoch);
+    counters.set(
+        CounterType.EPOCH_MANAGER_LAST_SWITCH_MICROS, (System.nanoTime() - switchStart) / 1000);
   }
 
   public void processConsensusEvent(ConsensusEvent consensusEvent) {
@@ -401,6 +463,7 @@ public final class EpochManager {
 
   public void processBFTUpdate(BFTInsertUpdate update) {
     bftUpdateProcessors.forEach(p -> p.process(update));
+    update.getInserted().getLedgerHeader().getNextValidatorSet().ifPresent(this::prepareNextEpoch);
   }
 
   public EventProcessor<BFTRebuildUpdate> bftRebuildUpdateEventProcessor() {
@@ -70,13 +70,10 @@ import com.radixdlt.hotstuff.bft.BFTValidatorSet;
 import com.radixdlt.hotstuff.bft.View;
 import com.radixdlt.utils.KeyComparator;
 import com.radixdlt.utils.UInt256;
-import com.radixdlt.utils.UInt256s;
 import com.radixdlt.utils.UInt384;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.TreeMap;
 
 /**
  * Rotates leaders with those having more power being proposed more often in proportion to the
@@ -86,149 +83,259 @@ import java.util.Map.Entry;
  * computing the leader for an arbitrary view can be quite expensive.
  *
  * <p>We resolve this by keeping a cache of some given size of the previous views closest to the
- * highest view calculated.
+ * highest view calculated, plus a checkpoint of the weight state every {@value
+ * #CHECKPOINT_INTERVAL} views. The leader of a view before the cache window is replayed from the
+ * closest checkpoint instead of from genesis. Weights are kept in {@code long}s while the total
+ * power is small enough for them to fit, and in {@link UInt384}s otherwise.
  *
  * <p>This class stateful and is NOT thread-safe.
  */
 public final class WeightedRotatingLeaders implements ProposerElection {
   private static final int DEFAULT_CACHE_SIZE = 10;
+  private static final int CHECKPOINT_INTERVAL = 256;
+  private static final int MAX_CHECKPOINTS = 256;
+  // Weights stay within a small multiple of the total power, this leaves plenty of headroom
+  private static final UInt256 MAX_PRIMITIVE_TOTAL_POWER = UInt256.from(1L << 52);
   private static final UInt384 POW_2_256 = UInt384.from(UInt256.MAX_VALUE).increment();
 
-  private final BFTValidatorSet validatorSet;
-  private final Comparator<Entry<BFTValidator, UInt384>> weightsComparator;
-  private final CachingNextLeaderComputer nextLeaderComputer;
+  // Ordered so that the first of two equally heavy validators is the leader
+  private final BFTValidator[] validators;
+  private final int[] cache;
+  private final TreeMap<Long, Weights> checkpoints = new TreeMap<>();
+  private Weights weights;
+  private long curView;
 
   public WeightedRotatingLeaders(BFTValidatorSet validatorSet) {
     this(validatorSet, DEFAULT_CACHE_SIZE);
   }
 
   public WeightedRotatingLeaders(BFTValidatorSet validatorSet, int cacheSize) {
-    this.validatorSet = validatorSet;
-    this.weightsComparator =
-        Comparator.comparing(Entry<BFTValidator, UInt384>::getValue)
-            .thenComparing(v -> v.getKey().getNode().getKey(), KeyComparator.instance().reversed());
-    this.nextLeaderComputer =
-        new CachingNextLeaderComputer(validatorSet, weightsComparator, cacheSize);
+    this.validators =
+        validatorSet.getValidators().stream()
+            .sorted(Comparator.comparing(v -> v.getNode().getKey(), KeyComparator.instance()))
+            .toArray(BFTValidator[]::new);
+    this.cache = new int[cacheSize];
+
+    if (validatorSet.getTotalPower().compareTo(MAX_PRIMITIVE_TOTAL_POWER) <= 0) {
+      this.weights = LongWeights.initial(validators);
+    } else {
+      this.weights = WideWeights.initial(validators);
+    }
+    this.curView = 0;
+    this.cache[0] = weights.heaviest();
+    this.checkpoints.put(0L, weights.copy());
+  }
+
+  /**
+   * The weight state of one view. The leader of the view is the heaviest validator, after which
+   * the total power is taken from the leader and each validator gains its own power.
+   */
+  private interface Weights {
+    int heaviest();
+
+    /** Moves to the next view, leaving the weights unchanged if they overflow. */
+    void advance();
+
+    Weights copy();
   }
 
-  private static class CachingNextLeaderComputer {
-    private final BFTValidatorSet validatorSet;
-    private final Comparator<Entry<BFTValidator, UInt384>> weightsComparator;
-    private final Map<BFTValidator, UInt384> weights;
-    private final BFTValidator[] cache;
-    private final Long lcm;
-    private View curView;
-
-    private CachingNextLeaderComputer(
-        BFTValidatorSet validatorSet,
-        Comparator<Entry<BFTValidator, UInt384>> weightsComparator,
-        int cacheSize) {
-      this.validatorSet = validatorSet;
-      this.weightsComparator = weightsComparator;
-      this.weights = new HashMap<>();
-      this.cache = new BFTValidator[cacheSize];
-
-      UInt256[] powerArray =
-          validatorSet.getValidators().stream().map(BFTValidator::getPower).toArray(UInt256[]::new);
-      // after cappedLCM is executed, the following invariant will be true:
-      // (lcm > 0 && lcm < 2^63 -1 ) || lcm == null
-      // This is due to use of 2^63 - 1 cap and also the invariant from ValidatorSet
-      // that powerArray will always be non-zero
-      UInt256 lcm256 = UInt256s.cappedLCM(UInt256.from(Long.MAX_VALUE), powerArray);
-      this.lcm = lcm256 == null ? null : lcm256.getLow().getLow();
-
-      this.resetToView(View.of(0));
-    }
-
-    private BFTValidator computeHeaviest() {
-      final Entry<BFTValidator, UInt384> max =
-          weights.entrySet().stream()
-              .max(weightsComparator)
-              .orElseThrow(() -> new IllegalStateException("Weights cannot be empty"));
-      return max.getKey();
-    }
-
-    private void computeNext() {
-      // Reset current leader by subtracting total power
-      final int curIndex = (int) (this.curView.number() % cache.length);
-      final BFTValidator curLeader = cache[curIndex];
-      weights.merge(curLeader, UInt384.from(validatorSet.getTotalPower()), UInt384::subtract);
-
-      // Add weights relative to each validator's power
-      for (BFTValidator validator : validatorSet.getValidators()) {
-        weights.merge(validator, UInt384.from(validator.getPower()), UInt384::add);
+  private static final class LongWeights implements Weights {
+    private final long[] powers;
+    private final long totalPower;
+    private long[] weights;
+    private long[] next;
+    private int heaviest;
+
+    private LongWeights(long[] powers, long totalPower, long[] weights, int heaviest) {
+      this.powers = powers;
+      this.totalPower = totalPower;
+      this.weights = weights;
+      this.next = new long[weights.length];
+      this.heaviest = heaviest;
+    }
+
+    // Same as the wide weights with 2^256 subtracted from each, which doesn't change the order
+    private static LongWeights initial(BFTValidator[] validators) {
+      var powers = new long[validators.length];
+      var weights = new long[validators.length];
+      var totalPower = 0L;
+      for (int i = 0; i < validators.length; i++) {
+        powers[i] = validators[i].getPower().getLow().getLow();
+        weights[i] = -powers[i];
+        totalPower += powers[i];
       }
+      return new LongWeights(powers, totalPower, weights, heaviest(weights));
+    }
 
-      // Compute next leader by getting heaviest validator
-      this.curView = this.curView.next();
-      int index = (int) (this.curView.number() % cache.length);
-      cache[index] = computeHeaviest();
+    private static int heaviest(long[] weights) {
+      var heaviest = 0;
+      for (int i = 1; i < weights.length; i++) {
+        if (weights[i] > weights[heaviest]) {
+          heaviest = i;
+        }
+      }
+      return heaviest;
     }
 
-    private BFTValidator checkCacheForProposer(View view) {
-      if (view.compareTo(curView) <= 0 && view.number() > curView.number() - cache.length) {
-        final int index = (int) (view.number() % cache.length);
-        return cache[index];
+    @Override
+    public int heaviest() {
+      return heaviest;
+    }
+
+    @Override
+    public void advance() {
+      for (int i = 0; i < weights.length; i++) {
+        var weight = i == heaviest ? Math.subtractExact(weights[i], totalPower) : weights[i];
+        next[i] = Math.addExact(weight, powers[i]);
       }
+      var previous = weights;
+      this.weights = next;
+      this.next = previous;
+      this.heaviest = heaviest(weights);
+    }
+
+    @Override
+    public LongWeights copy() {
+      return new LongWeights(powers, totalPower, weights.clone(), heaviest);
+    }
+
+    @Override
+    public String toString() {
+      return Arrays.toString(weights);
+    }
+  }
+
+  private static final class WideWeights implements Weights {
+    private final UInt256[] powers;
+    private final UInt384 totalPower;
+    private final UInt384[] weights;
+    private int heaviest;
 
-      return null;
+    private WideWeights(UInt256[] powers, UInt384 totalPower, UInt384[] weights) {
+      this.powers = powers;
+      this.totalPower = totalPower;
+      this.weights = weights;
+      this.heaviest = heaviest(weights);
     }
 
-    private void computeToView(View view) {
-      while (view.compareTo(curView) > 0) {
-        computeNext();
+    private static WideWeights initial(BFTValidator[] validators) {
+      var powers = new UInt256[validators.length];
+      var weights = new UInt384[validators.length];
+      var totalPower = UInt384.ZERO;
+      for (int i = 0; i < validators.length; i++) {
+        powers[i] = validators[i].getPower();
+        weights[i] = POW_2_256.subtract(powers[i]);
+        totalPower = totalPower.add(powers[i]);
       }
+      return new WideWeights(powers, totalPower, weights);
     }
 
-    private BFTValidator resetToView(View view) {
-      // reset if view isn't in cache
-      if (curView == null || view.number() < curView.number() - cache.length) {
-        if (lcm == null || lcm > view.number()) {
-          curView = View.genesis();
-        } else {
-          long multipleOfLCM = view.number() / lcm;
-          curView = View.of(multipleOfLCM * lcm);
-        }
+    private static WideWeights from(LongWeights longWeights) {
+      var powers = new UInt256[longWeights.powers.length];
+      var weights = new UInt384[longWeights.weights.length];
+      for (int i = 0; i < weights.length; i++) {
+        powers[i] = UInt256.from(longWeights.powers[i]);
+        var weight = longWeights.weights[i];
+        weights[i] =
+            weight >= 0
+                ? POW_2_256.add(UInt384.from(weight))
+                : POW_2_256.subtract(UInt384.from(-weight));
+      }
+      return new WideWeights(powers, UInt384.from(longWeights.totalPower), weights);
+    }
 
-        for (BFTValidator validator : validatorSet.getValidators()) {
-          weights.put(validator, POW_2_256.subtract(validator.getPower()));
+    private static int heaviest(UInt384[] weights) {
+      var heaviest = 0;
+      for (int i = 1; i < weights.length; i++) {
+        if (weights[i].compareTo(weights[heaviest]) > 0) {
+          heaviest = i;
         }
-        cache[0] = computeHeaviest();
       }
+      return heaviest;
+    }
 
-      // compute to view
-      computeToView(view);
+    @Override
+    public int heaviest() {
+      return heaviest;
+    }
+
+    @Override
+    public void advance() {
+      weights[heaviest] = weights[heaviest].subtract(totalPower);
+      for (int i = 0; i < weights.length; i++) {
+        weights[i] = weights[i].add(powers[i]);
+      }
+      this.heaviest = heaviest(weights);
+    }
 
-      // guaranteed to return non-null;
-      return cache[(int) (view.number() % cache.length)];
+    @Override
+    public WideWeights copy() {
+      return new WideWeights(powers, totalPower, weights.clone());
     }
 
     @Override
     public String toString() {
-      return String.format("%s %s %s", this.curView, Arrays.toString(this.cache), this.weights);
+      return Arrays.toString(weights);
     }
   }
 
+  private static Weights advance(Weights weights) {
+    try {
+      weights.advance();
+      return weights;
+    } catch (ArithmeticException e) {
+      // Only long weights can overflow, continue with the same state in wide weights
+      var wideWeights = WideWeights.from((LongWeights) weights);
+      wideWeights.advance();
+      return wideWeights;
+    }
+  }
+
+  private void computeNext() {
+    this.weights = advance(this.weights);
+    this.curView++;
+    this.cache[(int) (curView % cache.length)] = weights.heaviest();
+
+    if (curView % CHECKPOINT_INTERVAL == 0) {
+      if (checkpoints.size() >= MAX_CHECKPOINTS) {
+        // The genesis checkpoint is kept so any view can still be replayed
+        checkpoints.remove(checkpoints.higherKey(0L));
+      }
+      checkpoints.put(curView, weights.copy());
+    }
+  }
+
+  private int replayFromCheckpoint(long view) {
+    var checkpoint = checkpoints.floorEntry(view);
+    var replayedView = checkpoint.getKey();
+    var replayedWeights = checkpoint.getValue().copy();
+    while (replayedView < view) {
+      replayedWeights = advance(replayedWeights);
+      replayedView++;
+    }
+    return replayedWeights.heaviest();
+  }
+
   @Override
   public BFTNode getProposer(View view) {
-    nextLeaderComputer.computeToView(view);
+    final long number = view.number();
+    while (number > curView) {
+      computeNext();
+    }
 
-    // validator will only be null if the view supplied is before the cache
-    // window
-    BFTValidator validator = nextLeaderComputer.checkCacheForProposer(view);
-    if (validator != null) {
+    if (number > curView - cache.length) {
       // dynamic program cache successful
-      return validator.getNode();
+      return validators[cache[(int) (number % cache.length)]].getNode();
     } else {
-      // cache doesn't have value, do the expensive operation
-      CachingNextLeaderComputer computer =
-          new CachingNextLeaderComputer(validatorSet, weightsComparator, 1);
-      return computer.resetToView(view).getNode();
+      // cache doesn't have value, replay from the closest checkpoint before the view
+      return validators[replayFromCheckpoint(number)].getNode();
     }
   }
 
   @Override
   public String toString() {
-    return String.format("%s %s", this.getClass().getSimpleName(), this.nextLeaderComputer);
+    return String.format(
+        "%s %s %s %s",
+        this.getClass().getSimpleName(), this.curView, Arrays.toString(this.cache), this.weights);
   }
 }
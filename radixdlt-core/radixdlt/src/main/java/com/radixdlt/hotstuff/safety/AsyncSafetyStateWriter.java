@@ -0,0 +1,225 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.hotstuff.safety;
+
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.utils.Pair;
+import com.radixdlt.utils.ThreadFactories;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Persists safety state on a dedicated writer thread so that the consensus thread does not wait
+ * for the disk sync on every vote. States which are superseded before the writer gets to them are
+ * coalesced, only the latest state is written.
+ *
+ * <p>Callers must not release anything which depends on a committed state (e.g. a vote) until
+ * {@link #onDurable(Runnable)} fires, see {@link DurableVoteDispatcher}.
+ */
+public final class AsyncSafetyStateWriter implements PersistentSafetyStateStore {
+  private static final Logger logger = LogManager.getLogger();
+
+  private final PersistentSafetyStateStore delegate;
+  private final SystemCounters systemCounters;
+  private final ExecutorService executor;
+
+  private final Object lock = new Object();
+  private final ArrayDeque<Pair<Long, Runnable>> awaitingDurability = new ArrayDeque<>();
+  private SafetyState pendingState;
+  private long submittedVersion;
+  private long durableVersion;
+  private boolean writeScheduled;
+  private RuntimeException failure;
+
+  public AsyncSafetyStateWriter(
+      PersistentSafetyStateStore delegate, SystemCounters systemCounters) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.systemCounters = Objects.requireNonNull(systemCounters);
+    this.executor =
+        Executors.newSingleThreadExecutor(ThreadFactories.daemonThreads("SafetyStateWriter"));
+  }
+
+  @Override
+  public void commitState(SafetyState safetyState) {
+    synchronized (lock) {
+      checkNotFailed();
+      if (pendingState != null) {
+        systemCounters.increment(CounterType.PERSISTENCE_SAFETY_STORE_COALESCED);
+      }
+      pendingState = safetyState;
+      submittedVersion++;
+      if (!writeScheduled) {
+        writeScheduled = true;
+        executor.execute(this::writePending);
+      }
+    }
+  }
+
+  @Override
+  public void onDurable(Runnable action) {
+    synchronized (lock) {
+      if (failure != null) {
+        return;
+      }
+      if (durableVersion < submittedVersion) {
+        awaitingDurability.add(Pair.of(submittedVersion, action));
+        return;
+      }
+    }
+    action.run();
+  }
+
+  @Override
+  public Optional<SafetyState> get() {
+    flush();
+    return delegate.get();
+  }
+
+  @Override
+  public void close() {
+    try {
+      flush();
+    } finally {
+      executor.shutdown();
+      delegate.close();
+    }
+  }
+
+  private void flush() {
+    synchronized (lock) {
+      try {
+        while (failure == null && durableVersion < submittedVersion) {
+          lock.wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while flushing safety state", e);
+      }
+      checkNotFailed();
+    }
+  }
+
+  private void checkNotFailed() {
+    if (failure != null) {
+      throw new IllegalStateException("Safety state writer has failed", failure);
+    }
+  }
+
+  private void writePending() {
+    while (true) {
+      final SafetyState state;
+      final long version;
+      synchronized (lock) {
+        state = pendingState;
+        version = submittedVersion;
+        pendingState = null;
+        if (state == null) {
+          writeScheduled = false;
+          return;
+        }
+      }
+
+      try {
+        delegate.commitState(state);
+      } catch (RuntimeException e) {
+        // Nothing which depends on this state may ever be released
+        logger.error("Unable to persist safety state {}", state, e);
+        synchronized (lock) {
+          failure = e;
+          writeScheduled = false;
+          awaitingDurability.clear();
+          lock.notifyAll();
+        }
+        return;
+      }
+
+      final List<Runnable> ready = new ArrayList<>();
+      synchronized (lock) {
+        durableVersion = version;
+        while (!awaitingDurability.isEmpty() && awaitingDurability.peek().getFirst() <= version) {
+          ready.add(awaitingDurability.poll().getSecond());
+        }
+        lock.notifyAll();
+      }
+      ready.forEach(this::runSafely);
+    }
+  }
+
+  private void runSafely(Runnable action) {
+    try {
+      action.run();
+    } catch (RuntimeException e) {
+      logger.warn("Error while running action after safety state became durable", e);
+    }
+  }
+}
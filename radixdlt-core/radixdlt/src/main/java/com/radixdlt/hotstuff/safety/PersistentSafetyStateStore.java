@@ -70,6 +70,16 @@ import java.util.Optional;
 public interface PersistentSafetyStateStore {
   void commitState(SafetyState safetyState);
 
+  /**
+   * Runs the given action once every state passed to {@link #commitState(SafetyState)} so far has
+   * been durably persisted. Synchronous implementations run the action immediately.
+   *
+   * @param action the action to run
+   */
+  default void onDurable(Runnable action) {
+    action.run();
+  }
+
   void close();
 
   Optional<SafetyState> get();
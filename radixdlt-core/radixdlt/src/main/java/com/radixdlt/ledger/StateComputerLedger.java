@@ -64,17 +64,25 @@
 
 package com.radixdlt.ledger;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
 import com.google.inject.Inject;
 import com.radixdlt.atom.Txn;
 import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.counters.SystemCounters.LatencyType;
+import com.radixdlt.crypto.Hasher;
 import com.radixdlt.environment.EventProcessor;
 import com.radixdlt.environment.RemoteEventProcessor;
+import com.radixdlt.hotstuff.HashVerifier;
 import com.radixdlt.hotstuff.Ledger;
 import com.radixdlt.hotstuff.LedgerHeader;
 import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.hotstuff.Proposal;
+import com.radixdlt.hotstuff.ProposalSpeculator;
 import com.radixdlt.hotstuff.bft.BFTCommittedUpdate;
 import com.radixdlt.hotstuff.bft.BFTNode;
 import com.radixdlt.hotstuff.bft.BFTValidatorSet;
@@ -85,6 +93,7 @@ import com.radixdlt.hotstuff.bft.View;
 import com.radixdlt.hotstuff.liveness.NextTxnsGenerator;
 import com.radixdlt.mempool.MempoolAdd;
 import com.radixdlt.store.LastProof;
+import com.radixdlt.utils.ThreadFactories;
 import com.radixdlt.utils.TimeSupplier;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -92,9 +101,35 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-
-/** Synchronizes execution */
-public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Synchronizes execution.
+ *
+ * <p>Proposals received from other nodes may be executed speculatively, before consensus has
+ * verified them, once they pass the cheap checks of their signature and leader. The result is only
+ * used if consensus then prepares the same vertex while the committed state is still the one it was
+ * executed against, and discarded otherwise. Consensus never waits for the speculation of another
+ * vertex, which gives up as soon as consensus needs the lock.
+ *
+ * <p>The signature of a proposal is checked before it is executed speculatively, so that nothing
+ * is executed for a forged proposal. Consensus checks the same signature concurrently, which means
+ * a speculated vertex is ready one signature check plus its execution after the proposal arrived,
+ * rather than whichever of the two takes longer.
+ */
+public final class StateComputerLedger implements Ledger, NextTxnsGenerator, ProposalSpeculator {
+  private static final int MAX_PREPARED_VERTICES = 64;
+  private static final int MAX_SPECULATIONS = 16;
+  // Bounds the work of finding the leader of the view of an unverified proposal
+  private static final long MAX_SPECULATED_VIEW_GAP = 100;
 
   public interface PreparedTxn {
     Txn txn();
@@ -138,6 +173,32 @@ public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
 
     StateComputerResult prepare(List<PreparedTxn> previous, VerifiedVertex vertex, long timestamp);
 
+    /**
+     * Whether the node is the leader of the view in the current epoch. Only decides whether a
+     * proposal is worth executing speculatively, consensus checks the leader itself.
+     */
+    default boolean isLeader(BFTNode node, View view) {
+      return false;
+    }
+
+    /**
+     * Prepares the vertex of a proposal which hasn't been verified yet. Same as {@link #prepare},
+     * except that no events are dispatched until {@link #speculationUsed} is called with the
+     * result.
+     *
+     * @throws CancellationException once {@code cancelled} is true
+     */
+    default StateComputerResult prepareSpeculatively(
+        List<PreparedTxn> previous,
+        VerifiedVertex vertex,
+        long timestamp,
+        BooleanSupplier cancelled) {
+      throw new CancellationException("Speculative execution is not supported");
+    }
+
+    /** Dispatches the events held back when the vertex was prepared speculatively. */
+    default void speculationUsed(PreparedVertex vertex) {}
+
     void commit(
         VerifiedTxnsAndProof verifiedTxnsAndProof, VerifiedVertexStoreState vertexStoreState);
   }
@@ -149,6 +210,18 @@ public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
   private final LedgerAccumulatorVerifier verifier;
   private final Object lock = new Object();
   private final TimeSupplier timeSupplier;
+  private final Hasher hasher;
+  private final HashVerifier hashVerifier;
+  // The recently prepared vertices, from which the parents of a speculated vertex are taken
+  private final Cache<HashCode, PreparedVertex> preparedVertices =
+      CacheBuilder.newBuilder().maximumSize(MAX_PREPARED_VERTICES).build();
+  private final Cache<HashCode, CompletableFuture<Speculation>> speculations =
+      CacheBuilder.newBuilder().maximumSize(MAX_SPECULATIONS).build();
+  private final AtomicBoolean speculating = new AtomicBoolean();
+  // Consensus work waiting for the lock, which makes a running speculation give up
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final ExecutorService speculationExecutor =
+      Executors.newSingleThreadExecutor(ThreadFactories.daemonThreads("LedgerSpeculation %d"));
 
   private LedgerProof currentLedgerHeader;
 
@@ -160,8 +233,12 @@ public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
       StateComputer stateComputer,
       LedgerAccumulator accumulator,
       LedgerAccumulatorVerifier verifier,
+      Hasher hasher,
+      HashVerifier hashVerifier,
       SystemCounters counters) {
     this.timeSupplier = Objects.requireNonNull(timeSupplier);
+    this.hasher = Objects.requireNonNull(hasher);
+    this.hashVerifier = Objects.requireNonNull(hashVerifier);
     this.headerComparator = Objects.requireNonNull(headerComparator);
     this.stateComputer = Objects.requireNonNull(stateComputer);
     this.counters = Objects.requireNonNull(counters);
@@ -197,9 +274,143 @@ public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
     }
   }
 
+  /**
+   * The result of executing a vertex ahead of consensus.
+   *
+   * @param stateVersion the committed state version it was executed against
+   */
+  private record Speculation(long stateVersion, Optional<PreparedVertex> prepared) {}
+
+  @Override
+  public void speculate(Proposal proposal) {
+    // One at a time, so that a flood of proposals cannot pile up work
+    if (!speculating.compareAndSet(false, true)) {
+      counters.increment(CounterType.LEDGER_SPECULATIONS_SKIPPED);
+      return;
+    }
+
+    try {
+      speculationExecutor.execute(
+          () -> {
+            try {
+              prepareSpeculatively(proposal);
+            } catch (RuntimeException e) {
+              // Consensus will reject the proposal or run into the same problem preparing it
+              counters.increment(CounterType.LEDGER_SPECULATIONS_SKIPPED);
+            } finally {
+              speculating.set(false);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      speculating.set(false);
+    }
+  }
+
+  private void prepareSpeculatively(Proposal proposal) {
+    final var unverified = proposal.getVertex();
+    final var vertex = new VerifiedVertex(unverified, hasher.hash(unverified));
+    if (!hashVerifier.verify(
+        proposal.getAuthor().getKey(), vertex.getId(), proposal.getSignature())) {
+      counters.increment(CounterType.LEDGER_SPECULATIONS_SKIPPED);
+      return;
+    }
+
+    final var future = new CompletableFuture<Speculation>();
+    if (speculations.asMap().putIfAbsent(vertex.getId(), future) != null) {
+      return;
+    }
+
+    try {
+      synchronized (lock) {
+        final var previous = uncommittedAncestors(vertex);
+        if (previous.isEmpty()
+            || preparedVertices.getIfPresent(vertex.getId()) != null
+            || !isFromLeader(proposal, vertex)) {
+          counters.increment(CounterType.LEDGER_SPECULATIONS_SKIPPED);
+          speculations.asMap().remove(vertex.getId(), future);
+          future.complete(null);
+          return;
+        }
+
+        counters.increment(CounterType.LEDGER_SPECULATIONS_STARTED);
+        final var stateVersion = this.currentLedgerHeader.getStateVersion();
+        future.complete(
+            new Speculation(stateVersion, prepareInternal(previous.get(), vertex, true)));
+      }
+    } catch (Throwable e) {
+      // Consensus may be waiting for the result, whatever went wrong
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  // Whether the proposal is for the current epoch and from the leader of its view
+  private boolean isFromLeader(Proposal proposal, VerifiedVertex vertex) {
+    final var currentEpoch =
+        this.currentLedgerHeader.isEndOfEpoch()
+            ? this.currentLedgerHeader.getEpoch() + 1
+            : this.currentLedgerHeader.getEpoch();
+    final var viewGap = vertex.getView().number() - vertex.getParentHeader().getView().number();
+    return proposal.getEpoch() == currentEpoch
+        && viewGap > 0
+        && viewGap <= MAX_SPECULATED_VIEW_GAP
+        && stateComputer.isLeader(proposal.getAuthor(), vertex.getView());
+  }
+
+  // The prepared vertices between the committed state and the given vertex, if all are known
+  private Optional<LinkedList<PreparedVertex>> uncommittedAncestors(VerifiedVertex vertex) {
+    final var committedVersion = this.currentLedgerHeader.getStateVersion();
+    final var ancestors = new LinkedList<PreparedVertex>();
+    var parentHeader = vertex.getParentHeader().getLedgerHeader();
+    var parentId = vertex.getParentId();
+    while (parentHeader.getAccumulatorState().getStateVersion() > committedVersion) {
+      final var parent = preparedVertices.getIfPresent(parentId);
+      if (parent == null) {
+        return Optional.empty();
+      }
+      ancestors.addFirst(parent);
+      parentHeader = parent.getVertex().getParentHeader().getLedgerHeader();
+      parentId = parent.getParentId();
+    }
+    return Optional.of(ancestors);
+  }
+
   @Override
   public Optional<PreparedVertex> prepare(
       LinkedList<PreparedVertex> previous, VerifiedVertex vertex) {
+    final var future = speculations.asMap().remove(vertex.getId());
+    Speculation speculation = null;
+    if (future != null) {
+      // Waits outside of the lock, which the speculation holds while executing
+      try {
+        speculation = future.join();
+      } catch (CompletionException | CancellationException e) {
+        // Failed, so the vertex is prepared again below
+      }
+    }
+
+    waiting.incrementAndGet();
+    try {
+      synchronized (lock) {
+        if (future != null) {
+          if (speculation != null
+              && speculation.stateVersion() == this.currentLedgerHeader.getStateVersion()) {
+            counters.increment(CounterType.LEDGER_SPECULATIONS_USED);
+            speculation.prepared().ifPresent(stateComputer::speculationUsed);
+            return speculation.prepared();
+          }
+          counters.increment(CounterType.LEDGER_SPECULATIONS_DISCARDED);
+        }
+
+        return prepareInternal(previous, vertex, false);
+      }
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  private Optional<PreparedVertex> prepareInternal(
+      LinkedList<PreparedVertex> previous, VerifiedVertex vertex, boolean speculative) {
     final LedgerHeader parentHeader = vertex.getParentHeader().getLedgerHeader();
     final AccumulatorState parentAccumulatorState = parentHeader.getAccumulatorState();
     final ImmutableList<PreparedTxn> prevCommands =
@@ -230,6 +441,7 @@ public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
                     parentHeader.updateViewAndTimestamp(vertex.getView(), quorumTimestamp),
                     localTimestamp)
                 .andTxns(ImmutableList.of(), ImmutableMap.of());
+        preparedVertices.put(preparedVertex.getId(), preparedVertex);
         return Optional.of(preparedVertex);
       }
 
@@ -248,8 +460,15 @@ public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
 
       final var concatenatedCommands = maybeCommands.get();
 
+      final var prepareStart = System.nanoTime();
       final StateComputerResult result =
-          stateComputer.prepare(concatenatedCommands, vertex, quorumTimestamp);
+          speculative
+              ? stateComputer.prepareSpeculatively(
+                  concatenatedCommands, vertex, quorumTimestamp, () -> waiting.get() > 0)
+              : stateComputer.prepare(concatenatedCommands, vertex, quorumTimestamp);
+      counters.recordLatency(
+          speculative ? LatencyType.LEDGER_PREPARE_SPECULATIVE : LatencyType.LEDGER_PREPARE,
+          System.nanoTime() - prepareStart);
 
       AccumulatorState accumulatorState = parentHeader.getAccumulatorState();
       for (PreparedTxn txn : result.getSuccessfulCommands()) {
@@ -266,10 +485,12 @@ public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
               result.getNextValidatorSet().orElse(null));
 
       final long localTimestamp = timeSupplier.currentTime();
-      return Optional.of(
+      final PreparedVertex preparedVertex =
           vertex
               .withHeader(ledgerHeader, localTimestamp)
-              .andTxns(result.getSuccessfulCommands(), result.getFailedCommands()));
+              .andTxns(result.getSuccessfulCommands(), result.getFailedCommands());
+      preparedVertices.put(preparedVertex.getId(), preparedVertex);
+      return Optional.of(preparedVertex);
     }
   }
 
@@ -294,6 +515,17 @@ public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
 
   private void commit(
       VerifiedTxnsAndProof verifiedTxnsAndProof, VerifiedVertexStoreState vertexStoreState) {
+    // Takes priority over a speculation, which the commit makes stale anyway
+    waiting.incrementAndGet();
+    try {
+      commitInternal(verifiedTxnsAndProof, vertexStoreState);
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  private void commitInternal(
+      VerifiedTxnsAndProof verifiedTxnsAndProof, VerifiedVertexStoreState vertexStoreState) {
     synchronized (lock) {
       final LedgerProof nextHeader = verifiedTxnsAndProof.getProof();
       if (headerComparator.compare(nextHeader, this.currentLedgerHeader) <= 0) {
@@ -322,7 +554,9 @@ public final class StateComputerLedger implements Ledger, NextTxnsGenerator {
       var txnsAndProof = VerifiedTxnsAndProof.create(txns, verifiedTxnsAndProof.getProof());
 
       // persist
+      var commitStart = System.nanoTime();
       this.stateComputer.commit(txnsAndProof, vertexStoreState);
+      this.counters.recordLatency(LatencyType.LEDGER_COMMIT, System.nanoTime() - commitStart);
 
       // TODO: move all of the following to post-persist event handling
       this.currentLedgerHeader = nextHeader;
@@ -65,7 +65,9 @@
 package com.radixdlt.mempool;
 
 import com.radixdlt.atom.Txn;
+import com.radixdlt.identifiers.AID;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -90,6 +92,9 @@ public interface Mempool<T> {
    */
   List<Txn> getTxns(int count, List<T> seen);
 
+  /** Retrieve a transaction from the local mempool by its id. */
+  Optional<Txn> getTxn(AID txnId);
+
   List<Txn> scanUpdateAndGet(
       Predicate<MempoolMetadata> predicate, Consumer<MempoolMetadata> operator);
 
@@ -68,6 +68,8 @@ import com.google.inject.AbstractModule;
 
 /** Configuration parameters for mempool. */
 public final class MempoolConfig {
+  private static final long DEFAULT_TXN_TTL_MS = 3_600_000L;
+
   private MempoolConfig() {
     throw new IllegalStateException("Cannot instantiate.");
   }
@@ -82,6 +84,34 @@ public final class MempoolConfig {
       long relayInitialDelay,
       long relayRepeatDelay,
       int relayMaxPeers) {
+    return asModule(maxSize, throttleMs, relayInitialDelay, relayRepeatDelay, relayMaxPeers, false);
+  }
+
+  public static AbstractModule asModule(
+      int maxSize,
+      long throttleMs,
+      long relayInitialDelay,
+      long relayRepeatDelay,
+      int relayMaxPeers,
+      boolean relayInventory) {
+    return asModule(
+        maxSize,
+        throttleMs,
+        relayInitialDelay,
+        relayRepeatDelay,
+        relayMaxPeers,
+        relayInventory,
+        DEFAULT_TXN_TTL_MS);
+  }
+
+  public static AbstractModule asModule(
+      int maxSize,
+      long throttleMs,
+      long relayInitialDelay,
+      long relayRepeatDelay,
+      int relayMaxPeers,
+      boolean relayInventory,
+      long txnTtlMs) {
     return new AbstractModule() {
       @Override
       protected void configure() {
@@ -90,6 +120,8 @@ public final class MempoolConfig {
         bindConstant().annotatedWith(MempoolRelayInitialDelay.class).to(relayInitialDelay);
         bindConstant().annotatedWith(MempoolRelayRepeatDelay.class).to(relayRepeatDelay);
         bindConstant().annotatedWith(MempoolRelayMaxPeers.class).to(relayMaxPeers);
+        bindConstant().annotatedWith(MempoolRelayInventory.class).to(relayInventory);
+        bindConstant().annotatedWith(MempoolTxnTtlMs.class).to(txnTtlMs);
       }
     };
   }
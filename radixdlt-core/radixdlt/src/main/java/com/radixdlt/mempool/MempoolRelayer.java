@@ -65,51 +65,101 @@
 package com.radixdlt.mempool;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.inject.Singleton;
 import com.radixdlt.atom.Txn;
 import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.counters.SystemCounters.CounterType;
 import com.radixdlt.environment.EventProcessor;
 import com.radixdlt.environment.RemoteEventDispatcher;
+import com.radixdlt.environment.RemoteEventProcessor;
 import com.radixdlt.hotstuff.bft.BFTNode;
+import com.radixdlt.identifiers.AID;
 import com.radixdlt.network.p2p.PeersView;
+import com.radixdlt.utils.TimeSupplier;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 
-/** Relays commands from the local mempool to node neighbors. */
+/**
+ * Relays commands from the local mempool to node neighbors.
+ *
+ * <p>Unless inventory relay is enabled, commands are sent in full to every selected neighbor.
+ * Otherwise only their ids are announced, and only to neighbors not already known to have them.
+ * A neighbor then requests the announced commands its mempool is missing, so each command crosses
+ * each link about once no matter how many neighbors relay it. Neighbors which don't announce
+ * inventories keep relaying commands in full, which are accepted as before.
+ */
 @Singleton
 public final class MempoolRelayer {
+  private static final int MAX_KNOWN_PEERS = 1024;
+  private static final int MAX_KNOWN_TXNS_PER_PEER = 4096;
+  private static final int MAX_REQUESTED_TXNS = 16384;
+  private static final long REQUEST_TIMEOUT_MS = 5000;
+
   private final PeersView peersView;
   private final RemoteEventDispatcher<MempoolAdd> remoteEventDispatcher;
+  private final RemoteEventDispatcher<MempoolInventory> inventoryDispatcher;
+  private final RemoteEventDispatcher<MempoolGetTxns> getTxnsDispatcher;
   private final SystemCounters counters;
+  private final TimeSupplier timeSupplier;
   private final Mempool<?> mempool;
   private final long initialDelay;
   private final long repeatDelay;
   private final int maxPeers;
+  private final boolean inventoryRelay;
+  private final PeerKnownTxns peerKnownTxns =
+      new PeerKnownTxns(MAX_KNOWN_PEERS, MAX_KNOWN_TXNS_PER_PEER);
+  // Commands requested from a neighbor, which aren't requested again until the request times out
+  private final Map<AID, Long> requestedTxns =
+      new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<AID, Long> eldest) {
+          return size() > MAX_REQUESTED_TXNS;
+        }
+      };
 
   @Inject
   public MempoolRelayer(
       Mempool<?> mempool,
       RemoteEventDispatcher<MempoolAdd> remoteEventDispatcher,
+      RemoteEventDispatcher<MempoolInventory> inventoryDispatcher,
+      RemoteEventDispatcher<MempoolGetTxns> getTxnsDispatcher,
       PeersView peersView,
       @MempoolRelayInitialDelay long initialDelay,
       @MempoolRelayRepeatDelay long repeatDelay,
       @MempoolRelayMaxPeers int maxPeers,
-      SystemCounters counters) {
+      @MempoolRelayInventory boolean inventoryRelay,
+      SystemCounters counters,
+      TimeSupplier timeSupplier) {
     this.mempool = mempool;
     this.remoteEventDispatcher = Objects.requireNonNull(remoteEventDispatcher);
+    this.inventoryDispatcher = Objects.requireNonNull(inventoryDispatcher);
+    this.getTxnsDispatcher = Objects.requireNonNull(getTxnsDispatcher);
     this.peersView = Objects.requireNonNull(peersView);
     this.initialDelay = initialDelay;
     this.repeatDelay = repeatDelay;
     this.maxPeers = maxPeers;
+    this.inventoryRelay = inventoryRelay;
     this.counters = Objects.requireNonNull(counters);
+    this.timeSupplier = Objects.requireNonNull(timeSupplier);
   }
 
   public EventProcessor<MempoolAddSuccess> mempoolAddSuccessEventProcessor() {
     return mempoolAddSuccess -> {
+      mempoolAddSuccess
+          .getOrigin()
+          .ifPresent(
+              origin -> {
+                final var txnId = mempoolAddSuccess.getTxn().getId();
+                peerKnownTxns.markKnown(origin, List.of(txnId));
+                requestedTxns.remove(txnId);
+              });
       final var ignorePeers =
           mempoolAddSuccess.getOrigin().map(ImmutableList::of).orElse(ImmutableList.of());
       relayCommands(ImmutableList.of(mempoolAddSuccess.getTxn()), ignorePeers);
@@ -118,7 +168,7 @@ public final class MempoolRelayer {
 
   public EventProcessor<MempoolRelayTrigger> mempoolRelayTriggerEventProcessor() {
     return ev -> {
-      final var now = System.currentTimeMillis();
+      final var now = timeSupplier.currentTime();
       final var maxAddTime = now - initialDelay;
       final var txns =
           mempool.scanUpdateAndGet(
@@ -132,18 +182,71 @@ public final class MempoolRelayer {
     };
   }
 
+  public RemoteEventProcessor<MempoolInventory> mempoolInventoryRemoteEventProcessor() {
+    return (peer, inventory) -> {
+      peerKnownTxns.markKnown(peer, inventory.txnIds());
+      final var now = timeSupplier.currentTime();
+      final var missing =
+          inventory.txnIds().stream()
+              .distinct()
+              .filter(txnId -> mempool.getTxn(txnId).isEmpty())
+              .filter(txnId -> requestedTxns.getOrDefault(txnId, 0L) + REQUEST_TIMEOUT_MS <= now)
+              .toList();
+      counters.add(
+          CounterType.MEMPOOL_INVENTORY_DUPLICATE_TXNS, inventory.txnIds().size() - missing.size());
+      if (!missing.isEmpty()) {
+        missing.forEach(txnId -> requestedTxns.put(txnId, now));
+        counters.add(CounterType.MEMPOOL_INVENTORY_REQUESTED_TXNS, missing.size());
+        Lists.partition(missing, MempoolGetTxns.MAX_TXN_IDS)
+            .forEach(txnIds -> this.getTxnsDispatcher.dispatch(peer, new MempoolGetTxns(txnIds)));
+      }
+    };
+  }
+
+  public RemoteEventProcessor<MempoolGetTxns> mempoolGetTxnsRemoteEventProcessor() {
+    return (peer, request) -> {
+      peerKnownTxns.markKnown(peer, request.txnIds());
+      final var txns =
+          request.txnIds().stream()
+              .distinct()
+              .limit(MempoolGetTxns.MAX_TXN_IDS)
+              .map(mempool::getTxn)
+              .flatMap(Optional::stream)
+              .toList();
+      if (!txns.isEmpty()) {
+        counters.add(CounterType.MEMPOOL_RELAYS_SENT, txns.size());
+        this.remoteEventDispatcher.dispatch(peer, MempoolAdd.create(txns));
+      }
+    };
+  }
+
   private void relayCommands(List<Txn> txns, ImmutableList<BFTNode> ignorePeers) {
-    final var mempoolAddMsg = MempoolAdd.create(txns);
     final var peers =
         this.peersView.peers().map(PeersView.PeerInfo::bftNode).collect(Collectors.toList());
     peers.removeAll(ignorePeers);
     Collections.shuffle(peers);
-    peers.stream()
-        .limit(maxPeers)
-        .forEach(
-            peer -> {
-              counters.add(CounterType.MEMPOOL_RELAYS_SENT, txns.size());
-              this.remoteEventDispatcher.dispatch(peer, mempoolAddMsg);
-            });
+    if (inventoryRelay) {
+      peers.stream().limit(maxPeers).forEach(peer -> announceCommands(peer, txns));
+    } else {
+      final var mempoolAddMsg = MempoolAdd.create(txns);
+      peers.stream()
+          .limit(maxPeers)
+          .forEach(
+              peer -> {
+                counters.add(CounterType.MEMPOOL_RELAYS_SENT, txns.size());
+                this.remoteEventDispatcher.dispatch(peer, mempoolAddMsg);
+              });
+    }
+  }
+
+  private void announceCommands(BFTNode peer, List<Txn> txns) {
+    final var txnIds =
+        txns.stream().map(Txn::getId).filter(txnId -> !peerKnownTxns.isKnown(peer, txnId)).toList();
+    counters.add(CounterType.MEMPOOL_INVENTORY_DUPLICATE_TXNS, txns.size() - txnIds.size());
+    if (!txnIds.isEmpty()) {
+      peerKnownTxns.markKnown(peer, txnIds);
+      counters.add(CounterType.MEMPOOL_INVENTORY_ANNOUNCED_TXNS, txnIds.size());
+      this.inventoryDispatcher.dispatch(peer, new MempoolInventory(txnIds));
+    }
   }
 }
@@ -72,6 +72,7 @@ import com.google.inject.multibindings.ProvidesIntoSet;
 import com.radixdlt.environment.EventDispatcher;
 import com.radixdlt.environment.EventProcessorOnRunner;
 import com.radixdlt.environment.LocalEvents;
+import com.radixdlt.environment.RemoteEventProcessorOnRunner;
 import com.radixdlt.environment.Runners;
 import com.radixdlt.environment.ScheduledEventProducerOnRunner;
 import java.time.Duration;
@@ -103,6 +104,24 @@ public final class MempoolRelayerModule extends AbstractModule {
         mempoolRelayer.mempoolRelayTriggerEventProcessor());
   }
 
+  @ProvidesIntoSet
+  private RemoteEventProcessorOnRunner<?> mempoolInventoryRemoteEventProcessor(
+      MempoolRelayer mempoolRelayer) {
+    return new RemoteEventProcessorOnRunner<>(
+        Runners.MEMPOOL,
+        MempoolInventory.class,
+        mempoolRelayer.mempoolInventoryRemoteEventProcessor());
+  }
+
+  @ProvidesIntoSet
+  private RemoteEventProcessorOnRunner<?> mempoolGetTxnsRemoteEventProcessor(
+      MempoolRelayer mempoolRelayer) {
+    return new RemoteEventProcessorOnRunner<>(
+        Runners.MEMPOOL,
+        MempoolGetTxns.class,
+        mempoolRelayer.mempoolGetTxnsRemoteEventProcessor());
+  }
+
   @ProvidesIntoSet
   public ScheduledEventProducerOnRunner<?> mempoolRelayTriggerEventProducer(
       EventDispatcher<MempoolRelayTrigger> mempoolRelayTriggerEventDispatcher) {
@@ -65,7 +65,9 @@
 package com.radixdlt.mempool;
 
 import com.radixdlt.atom.Txn;
+import com.radixdlt.identifiers.AID;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -98,6 +100,11 @@ public class Mempools {
         return List.of();
       }
 
+      @Override
+      public Optional<Txn> getTxn(AID txnId) {
+        return Optional.empty();
+      }
+
       @Override
       public List<Txn> scanUpdateAndGet(
           Predicate<MempoolMetadata> predicate, Consumer<MempoolMetadata> operator) {
@@ -68,6 +68,8 @@ import com.radixdlt.environment.RemoteEventDispatcher;
 import com.radixdlt.environment.rx.RemoteEvent;
 import com.radixdlt.hotstuff.bft.BFTNode;
 import com.radixdlt.mempool.MempoolAdd;
+import com.radixdlt.mempool.MempoolGetTxns;
+import com.radixdlt.mempool.MempoolInventory;
 import com.radixdlt.network.messaging.MessageCentral;
 import com.radixdlt.network.p2p.NodeId;
 import io.reactivex.rxjava3.core.BackpressureStrategy;
@@ -92,6 +94,15 @@ public final class MessageCentralMempool {
     };
   }
 
+  public RemoteEventDispatcher<MempoolInventory> mempoolInventoryRemoteEventDispatcher() {
+    return (receiver, inventory) ->
+        this.send(MempoolInventoryMessage.from(inventory.txnIds()), receiver);
+  }
+
+  public RemoteEventDispatcher<MempoolGetTxns> mempoolGetTxnsRemoteEventDispatcher() {
+    return (receiver, request) -> this.send(MempoolGetTxnsMessage.from(request.txnIds()), receiver);
+  }
+
   private void send(Message message, BFTNode recipient) {
     this.messageCentral.send(NodeId.fromPublicKey(recipient.getKey()), message);
   }
@@ -106,4 +117,26 @@ public final class MessageCentralMempool {
             })
         .toFlowable(BackpressureStrategy.BUFFER);
   }
+
+  public Flowable<RemoteEvent<MempoolInventory>> mempoolInventories() {
+    return messageCentral
+        .messagesOf(MempoolInventoryMessage.class)
+        .map(
+            msg -> {
+              final BFTNode node = BFTNode.create(msg.getSource().getPublicKey());
+              return RemoteEvent.create(node, new MempoolInventory(msg.getMessage().getTxnIds()));
+            })
+        .toFlowable(BackpressureStrategy.BUFFER);
+  }
+
+  public Flowable<RemoteEvent<MempoolGetTxns>> mempoolGetTxns() {
+    return messageCentral
+        .messagesOf(MempoolGetTxnsMessage.class)
+        .map(
+            msg -> {
+              final BFTNode node = BFTNode.create(msg.getSource().getPublicKey());
+              return RemoteEvent.create(node, new MempoolGetTxns(msg.getMessage().getTxnIds()));
+            })
+        .toFlowable(BackpressureStrategy.BUFFER);
+  }
 }
@@ -107,6 +107,8 @@ import com.radixdlt.hotstuff.liveness.PacemakerState;
 import com.radixdlt.hotstuff.liveness.PacemakerTimeoutCalculator;
 import com.radixdlt.hotstuff.liveness.ProposerElection;
 import com.radixdlt.hotstuff.liveness.ScheduledLocalTimeout;
+import com.radixdlt.hotstuff.safety.DurableVoteDispatcher;
+import com.radixdlt.hotstuff.safety.PersistentSafetyStateStore;
 import com.radixdlt.hotstuff.safety.SafetyRules;
 import com.radixdlt.hotstuff.sync.BFTSync;
 import com.radixdlt.hotstuff.sync.BFTSyncPatienceMillis;
@@ -148,7 +150,9 @@ public final class ConsensusModule extends AbstractModule {
       HashVerifier verifier,
       EventDispatcher<ViewQuorumReached> viewQuorumReachedEventDispatcher,
       EventDispatcher<NoVote> noVoteEventDispatcher,
-      RemoteEventDispatcher<Vote> voteDispatcher) {
+      RemoteEventDispatcher<Vote> voteDispatcher,
+      PersistentSafetyStateStore safetyStateStore,
+      SystemCounters systemCounters) {
     return (self,
         pacemaker,
         vertexStore,
@@ -161,7 +165,8 @@ public final class ConsensusModule extends AbstractModule {
             .self(self)
             .hasher(hasher)
             .verifier(verifier)
-            .voteDispatcher(voteDispatcher)
+            .systemCounters(systemCounters)
+            .voteDispatcher(DurableVoteDispatcher.create(voteDispatcher, safetyStateStore))
             .safetyRules(safetyRules)
             .pacemaker(pacemaker)
             .vertexStore(vertexStore)
@@ -221,6 +226,7 @@ public final class ConsensusModule extends AbstractModule {
       Hasher hasher,
       RemoteEventDispatcher<Proposal> proposalDispatcher,
       RemoteEventDispatcher<Vote> voteDispatcher,
+      PersistentSafetyStateStore safetyStateStore,
       TimeSupplier timeSupplier,
       ViewUpdate initialViewUpdate,
       SystemCounters systemCounters) {
@@ -236,7 +242,7 @@ public final class ConsensusModule extends AbstractModule {
         timeoutCalculator,
         nextTxnsGenerator,
         proposalDispatcher,
-        voteDispatcher,
+        DurableVoteDispatcher.create(voteDispatcher, safetyStateStore),
         hasher,
         timeSupplier,
         initialViewUpdate,
@@ -68,14 +68,17 @@ import com.google.common.hash.HashCode;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.OptionalBinder;
 import com.radixdlt.DefaultSerialization;
 import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.counters.SystemCounters.CounterType;
 import com.radixdlt.crypto.Hasher;
 import com.radixdlt.hotstuff.HashVerifier;
 import com.radixdlt.hotstuff.Sha256Hasher;
+import com.radixdlt.hotstuff.VerifiedSignatureCache;
 import com.radixdlt.serialization.DsonOutput.Output;
 import com.radixdlt.serialization.Serialization;
+import java.util.Optional;
 
 /** Module which maintains crypto primitives for consensus */
 public final class CryptoModule extends AbstractModule {
@@ -83,6 +86,7 @@ public final class CryptoModule extends AbstractModule {
   protected void configure() {
     // Configuration
     bind(Serialization.class).toProvider(DefaultSerialization::getInstance);
+    OptionalBinder.newOptionalBinder(binder(), VerifiedSignatureCache.class);
   }
 
   @Provides
@@ -111,10 +115,13 @@ public final class CryptoModule extends AbstractModule {
 
   @Provides
   @Singleton
-  HashVerifier hashVerifier(SystemCounters counters) {
-    return (pubKey, hash, signature) -> {
-      counters.increment(CounterType.SIGNATURES_VERIFIED);
-      return pubKey.verify(hash, signature);
-    };
+  HashVerifier hashVerifier(
+      SystemCounters counters, Optional<VerifiedSignatureCache> verifiedSignatureCache) {
+    HashVerifier verifier =
+        (pubKey, hash, signature) -> {
+          counters.increment(CounterType.SIGNATURES_VERIFIED);
+          return pubKey.verify(hash, signature);
+        };
+    return verifiedSignatureCache.map(cache -> cache.caching(verifier)).orElse(verifier);
   }
 }
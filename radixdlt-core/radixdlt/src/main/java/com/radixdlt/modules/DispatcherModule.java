@@ -106,7 +106,10 @@ import com.radixdlt.ledger.LedgerUpdate;
 import com.radixdlt.ledger.VerifiedTxnsAndProof;
 import com.radixdlt.mempool.MempoolAdd;
 import com.radixdlt.mempool.MempoolAddSuccess;
+import com.radixdlt.mempool.MempoolGetTxns;
+import com.radixdlt.mempool.MempoolInventory;
 import com.radixdlt.mempool.MempoolRelayTrigger;
+import com.radixdlt.mempool.MempoolRevalidateTrigger;
 import com.radixdlt.network.p2p.PeerEvent;
 import com.radixdlt.network.p2p.PendingOutboundChannelsManager.PeerOutboundConnectionTimeout;
 import com.radixdlt.network.p2p.discovery.DiscoverPeers;
@@ -119,6 +122,7 @@ import com.radixdlt.network.p2p.liveness.Pong;
 import com.radixdlt.statecomputer.InvalidProposedTxn;
 import com.radixdlt.statecomputer.REOutput;
 import com.radixdlt.statecomputer.TxnsRemovedFromMempool;
+import com.radixdlt.sync.SyncTarget;
 import com.radixdlt.sync.messages.local.LocalSyncRequest;
 import com.radixdlt.sync.messages.local.SyncCheckReceiveStatusTimeout;
 import com.radixdlt.sync.messages.local.SyncCheckTrigger;
@@ -160,6 +164,9 @@ public class DispatcherModule extends AbstractModule {
     bind(new TypeLiteral<EventDispatcher<MempoolRelayTrigger>>() {})
         .toProvider(Dispatchers.dispatcherProvider(MempoolRelayTrigger.class))
         .in(Scopes.SINGLETON);
+    bind(new TypeLiteral<EventDispatcher<MempoolRevalidateTrigger>>() {})
+        .toProvider(Dispatchers.dispatcherProvider(MempoolRevalidateTrigger.class))
+        .in(Scopes.SINGLETON);
     bind(new TypeLiteral<EventDispatcher<NoVote>>() {})
         .toProvider(
             Dispatchers.dispatcherProvider(NoVote.class, v -> CounterType.BFT_NO_VOTES_SENT))
@@ -211,6 +218,12 @@ public class DispatcherModule extends AbstractModule {
     bind(new TypeLiteral<RemoteEventDispatcher<MempoolAdd>>() {})
         .toProvider(Dispatchers.remoteDispatcherProvider(MempoolAdd.class))
         .in(Scopes.SINGLETON);
+    bind(new TypeLiteral<RemoteEventDispatcher<MempoolInventory>>() {})
+        .toProvider(Dispatchers.remoteDispatcherProvider(MempoolInventory.class))
+        .in(Scopes.SINGLETON);
+    bind(new TypeLiteral<RemoteEventDispatcher<MempoolGetTxns>>() {})
+        .toProvider(Dispatchers.remoteDispatcherProvider(MempoolGetTxns.class))
+        .in(Scopes.SINGLETON);
 
     final var scheduledTimeoutKey = new TypeLiteral<EventProcessor<ScheduledLocalTimeout>>() {};
     Multibinder.newSetBinder(binder(), scheduledTimeoutKey, ProcessOnDispatch.class);
@@ -323,7 +336,8 @@ public class DispatcherModule extends AbstractModule {
       @Self BFTNode self,
       @ProcessOnDispatch Set<EventProcessor<LocalSyncRequest>> syncProcessors,
       Environment environment,
-      SystemCounters systemCounters) {
+      SystemCounters systemCounters,
+      SyncTarget syncTarget) {
     var envDispatcher = environment.getDispatcher(LocalSyncRequest.class);
     return req -> {
       if (logger.isTraceEnabled()) {
@@ -341,6 +355,7 @@ public class DispatcherModule extends AbstractModule {
         systemCounters.set(
             CounterType.SYNC_TARGET_STATE_VERSION, req.getTarget().getStateVersion());
       }
+      syncTarget.raise(req.getTarget().getStateVersion());
 
       syncProcessors.forEach(e -> e.process(req));
       envDispatcher.dispatch(req);
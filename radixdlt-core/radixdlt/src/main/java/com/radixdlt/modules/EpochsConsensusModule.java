@@ -68,6 +68,7 @@ import com.google.common.util.concurrent.RateLimiter;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
@@ -112,6 +113,8 @@ import com.radixdlt.hotstuff.liveness.PacemakerFactory;
 import com.radixdlt.hotstuff.liveness.PacemakerState;
 import com.radixdlt.hotstuff.liveness.PacemakerStateFactory;
 import com.radixdlt.hotstuff.liveness.ScheduledLocalTimeout;
+import com.radixdlt.hotstuff.safety.DurableVoteDispatcher;
+import com.radixdlt.hotstuff.safety.PersistentSafetyStateStore;
 import com.radixdlt.hotstuff.sync.BFTSync;
 import com.radixdlt.hotstuff.sync.BFTSyncPatienceMillis;
 import com.radixdlt.hotstuff.sync.GetVerticesErrorResponse;
@@ -121,6 +124,7 @@ import com.radixdlt.hotstuff.sync.VertexRequestTimeout;
 import com.radixdlt.hotstuff.sync.VertexStoreBFTSyncRequestProcessor;
 import com.radixdlt.ledger.LedgerUpdate;
 import com.radixdlt.middleware2.network.GetVerticesRequestRateLimit;
+import com.radixdlt.network.p2p.ConsensusPeers;
 import com.radixdlt.statecomputer.forks.CurrentForkView;
 import com.radixdlt.store.LastEpochProof;
 import com.radixdlt.sync.messages.local.LocalSyncRequest;
@@ -187,6 +191,13 @@ public class EpochsConsensusModule extends AbstractModule {
         Runners.CONSENSUS, LedgerUpdate.class, epochManager.epochsLedgerUpdateEventProcessor());
   }
 
+  @ProvidesIntoSet
+  private EventProcessorOnRunner<?> consensusPeersLedgerUpdateEventProcessor(
+      ConsensusPeers consensusPeers) {
+    return new EventProcessorOnRunner<>(
+        Runners.CONSENSUS, LedgerUpdate.class, consensusPeers.ledgerUpdateEventProcessor());
+  }
+
   @ProvidesIntoSet
   private RemoteEventProcessorOnRunner<?> localGetVerticesRequestRemoteEventProcessor(
       EpochManager epochManager) {
@@ -242,6 +253,12 @@ public class EpochsConsensusModule extends AbstractModule {
         proof, initialBFTConfig, currentForkView.currentForkConfig().isShutdown());
   }
 
+  @Provides
+  @Singleton
+  private ConsensusPeers consensusPeers(EpochChange initialEpoch) {
+    return new ConsensusPeers(initialEpoch.getBFTConfiguration().getValidatorSet());
+  }
+
   @ProvidesIntoSet
   @ProcessOnDispatch
   private EventProcessor<ScheduledLocalTimeout> initialEpochsTimeoutSender(
@@ -296,6 +313,7 @@ public class EpochsConsensusModule extends AbstractModule {
       ScheduledEventDispatcher<Epoched<ScheduledLocalTimeout>> localTimeoutSender,
       RemoteEventDispatcher<Proposal> proposalDispatcher,
       RemoteEventDispatcher<Vote> voteDispatcher,
+      PersistentSafetyStateStore safetyStateStore,
       TimeSupplier timeSupplier) {
     return (validatorSet, vertexStore, timeoutCalculator, safetyRules, initialViewUpdate, epoch) ->
         new Pacemaker(
@@ -311,7 +329,7 @@ public class EpochsConsensusModule extends AbstractModule {
             timeoutCalculator,
             nextTxnsGenerator,
             proposalDispatcher,
-            voteDispatcher,
+            DurableVoteDispatcher.create(voteDispatcher, safetyStateStore),
             hasher,
             timeSupplier,
             initialViewUpdate,
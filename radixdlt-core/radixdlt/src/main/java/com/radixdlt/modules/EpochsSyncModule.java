@@ -88,6 +88,7 @@ import com.radixdlt.sync.LocalSyncService.VerifiedSyncResponseHandler;
 import com.radixdlt.sync.LocalSyncServiceImpl;
 import com.radixdlt.sync.RemoteSyncService;
 import com.radixdlt.sync.SyncConfig;
+import com.radixdlt.sync.SyncTarget;
 import com.radixdlt.sync.messages.local.LocalSyncRequest;
 import com.radixdlt.sync.messages.local.SyncCheckReceiveStatusTimeout;
 import com.radixdlt.sync.messages.local.SyncCheckTrigger;
@@ -214,6 +215,7 @@ public class EpochsSyncModule extends AbstractModule {
       ScheduledEventDispatcher<SyncLedgerUpdateTimeout> syncLedgerUpdateTimeoutDispatcher,
       SyncConfig syncConfig,
       SystemCounters systemCounters,
+      SyncTarget syncTarget,
       PeersView peersView,
       Comparator<AccumulatorState> accComparator,
       RemoteSyncResponseSignaturesVerifier signaturesVerifier,
@@ -229,6 +231,7 @@ public class EpochsSyncModule extends AbstractModule {
             syncLedgerUpdateTimeoutDispatcher,
             syncConfig,
             systemCounters,
+            syncTarget,
             peersView,
             accComparator,
             remoteSyncResponseValidatorSetVerifier,
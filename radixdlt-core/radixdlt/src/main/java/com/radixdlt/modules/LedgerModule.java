@@ -68,12 +68,14 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.radixdlt.environment.EventProcessor;
 import com.radixdlt.environment.ProcessOnDispatch;
 import com.radixdlt.hotstuff.Ledger;
 import com.radixdlt.hotstuff.LedgerProof;
 import com.radixdlt.hotstuff.LedgerProof.OrderByEpochAndVersionComparator;
+import com.radixdlt.hotstuff.ProposalSpeculator;
 import com.radixdlt.hotstuff.bft.BFTCommittedUpdate;
 import com.radixdlt.ledger.AccumulatorState;
 import com.radixdlt.ledger.LedgerAccumulator;
@@ -94,6 +96,9 @@ public class LedgerModule extends AbstractModule {
     bind(LedgerAccumulator.class).to(SimpleLedgerAccumulatorAndVerifier.class);
     bind(LedgerAccumulatorVerifier.class).to(SimpleLedgerAccumulatorAndVerifier.class);
     bind(StateComputerLedger.class).in(Scopes.SINGLETON);
+    OptionalBinder.newOptionalBinder(binder(), ProposalSpeculator.class)
+        .setBinding()
+        .to(StateComputerLedger.class);
   }
 
   @Provides
@@ -136,14 +136,14 @@ class MessageDispatcher {
 
     return peerManager
         .findOrCreateChannel(outboundMessage.receiver())
-        .thenApply(channel -> send(channel, bytes))
+        .thenApply(channel -> send(channel, bytes, MessagePriority.of(message)))
         .thenApply(this::updateStatistics)
         .exceptionally(t -> completionException(t, receiver, message));
   }
 
-  private Result<Unit> send(PeerChannel channel, byte[] bytes) {
+  private Result<Unit> send(PeerChannel channel, byte[] bytes, MessagePriority priority) {
     this.counters.add(CounterType.NETWORKING_BYTES_SENT, bytes.length);
-    return channel.send(bytes);
+    return channel.send(bytes, priority);
   }
 
   private Result<Unit> completionException(Throwable cause, NodeId receiver, Message message) {
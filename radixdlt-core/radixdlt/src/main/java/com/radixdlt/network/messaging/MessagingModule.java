@@ -69,22 +69,32 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.crypto.Hasher;
 import com.radixdlt.environment.rx.RemoteEvent;
 import com.radixdlt.environment.rx.RxRemoteDispatcher;
 import com.radixdlt.environment.rx.RxRemoteEnvironment;
+import com.radixdlt.hotstuff.HashVerifier;
 import com.radixdlt.hotstuff.Proposal;
+import com.radixdlt.hotstuff.ProposalSpeculator;
+import com.radixdlt.hotstuff.VerifiedSignatureCache;
 import com.radixdlt.hotstuff.Vote;
+import com.radixdlt.hotstuff.bft.ConsensusEventPreVerifier;
 import com.radixdlt.hotstuff.sync.GetVerticesErrorResponse;
 import com.radixdlt.hotstuff.sync.GetVerticesRequest;
 import com.radixdlt.hotstuff.sync.GetVerticesResponse;
 import com.radixdlt.mempool.MempoolAdd;
+import com.radixdlt.mempool.MempoolGetTxns;
+import com.radixdlt.mempool.MempoolInventory;
 import com.radixdlt.middleware2.network.GetVerticesRequestRateLimit;
 import com.radixdlt.middleware2.network.MessageCentralBFTNetwork;
 import com.radixdlt.middleware2.network.MessageCentralLedgerSync;
 import com.radixdlt.middleware2.network.MessageCentralMempool;
 import com.radixdlt.middleware2.network.MessageCentralPeerDiscovery;
 import com.radixdlt.middleware2.network.MessageCentralPeerLiveness;
+import com.radixdlt.middleware2.network.MessageCentralSnapshotSync;
 import com.radixdlt.middleware2.network.MessageCentralValidatorSync;
 import com.radixdlt.network.p2p.discovery.GetPeers;
 import com.radixdlt.network.p2p.discovery.PeersResponse;
@@ -95,13 +105,47 @@ import com.radixdlt.sync.messages.remote.StatusRequest;
 import com.radixdlt.sync.messages.remote.StatusResponse;
 import com.radixdlt.sync.messages.remote.SyncRequest;
 import com.radixdlt.sync.messages.remote.SyncResponse;
+import com.radixdlt.sync.snapshot.messages.EpochProofsRequest;
+import com.radixdlt.sync.snapshot.messages.EpochProofsResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotChunkRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotChunkResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestResponse;
 import io.reactivex.rxjava3.core.Flowable;
+import java.util.Optional;
 
 /** Network related module */
 public final class MessagingModule extends AbstractModule {
+  private static final long VERIFIED_SIGNATURE_CACHE_SIZE = 10_000L;
+
+  private final int preVerificationParallelism;
+  private final int preVerificationBufferSize;
+
+  public MessagingModule() {
+    this(0, 0);
+  }
+
+  /**
+   * @param preVerificationParallelism the number of threads which verify the signatures of inbound
+   *     proposals and votes before they reach the consensus runner, or 0 to verify them on the
+   *     consensus runner only
+   * @param preVerificationBufferSize the number of inbound proposals and votes which may wait for
+   *     verification before the oldest ones are dropped
+   */
+  public MessagingModule(int preVerificationParallelism, int preVerificationBufferSize) {
+    this.preVerificationParallelism = preVerificationParallelism;
+    this.preVerificationBufferSize = preVerificationBufferSize;
+  }
 
   @Override
   protected void configure() {
+    OptionalBinder.newOptionalBinder(binder(), ProposalSpeculator.class);
+    if (preVerificationParallelism > 0) {
+      OptionalBinder.newOptionalBinder(binder(), VerifiedSignatureCache.class)
+          .setBinding()
+          .toInstance(new VerifiedSignatureCache(VERIFIED_SIGNATURE_CACHE_SIZE));
+    }
+
     // provides (for SharedMempool)
     bind(MessageCentralMempool.class).in(Scopes.SINGLETON);
 
@@ -122,6 +166,20 @@ public final class MessagingModule extends AbstractModule {
         MempoolAdd.class, messageCentralMempool.mempoolAddRemoteEventDispatcher());
   }
 
+  @ProvidesIntoSet
+  private RxRemoteDispatcher<?> mempoolInventoryDispatcher(
+      MessageCentralMempool messageCentralMempool) {
+    return RxRemoteDispatcher.create(
+        MempoolInventory.class, messageCentralMempool.mempoolInventoryRemoteEventDispatcher());
+  }
+
+  @ProvidesIntoSet
+  private RxRemoteDispatcher<?> mempoolGetTxnsDispatcher(
+      MessageCentralMempool messageCentralMempool) {
+    return RxRemoteDispatcher.create(
+        MempoolGetTxns.class, messageCentralMempool.mempoolGetTxnsRemoteEventDispatcher());
+  }
+
   @ProvidesIntoSet
   private RxRemoteDispatcher<?> proposalDispatcher(MessageCentralBFTNetwork bftNetwork) {
     return RxRemoteDispatcher.create(Proposal.class, bftNetwork.proposalDispatcher());
@@ -215,6 +273,48 @@ public final class MessagingModule extends AbstractModule {
         LedgerStatusUpdate.class, messageCentralLedgerSync.ledgerStatusUpdateDispatcher());
   }
 
+  @ProvidesIntoSet
+  private RxRemoteDispatcher<?> snapshotManifestRequestDispatcher(
+      MessageCentralSnapshotSync messageCentralSnapshotSync) {
+    return RxRemoteDispatcher.create(
+        SnapshotManifestRequest.class, messageCentralSnapshotSync.manifestRequestDispatcher());
+  }
+
+  @ProvidesIntoSet
+  private RxRemoteDispatcher<?> snapshotManifestResponseDispatcher(
+      MessageCentralSnapshotSync messageCentralSnapshotSync) {
+    return RxRemoteDispatcher.create(
+        SnapshotManifestResponse.class, messageCentralSnapshotSync.manifestResponseDispatcher());
+  }
+
+  @ProvidesIntoSet
+  private RxRemoteDispatcher<?> snapshotChunkRequestDispatcher(
+      MessageCentralSnapshotSync messageCentralSnapshotSync) {
+    return RxRemoteDispatcher.create(
+        SnapshotChunkRequest.class, messageCentralSnapshotSync.chunkRequestDispatcher());
+  }
+
+  @ProvidesIntoSet
+  private RxRemoteDispatcher<?> snapshotChunkResponseDispatcher(
+      MessageCentralSnapshotSync messageCentralSnapshotSync) {
+    return RxRemoteDispatcher.create(
+        SnapshotChunkResponse.class, messageCentralSnapshotSync.chunkResponseDispatcher());
+  }
+
+  @ProvidesIntoSet
+  private RxRemoteDispatcher<?> epochProofsRequestDispatcher(
+      MessageCentralSnapshotSync messageCentralSnapshotSync) {
+    return RxRemoteDispatcher.create(
+        EpochProofsRequest.class, messageCentralSnapshotSync.epochProofsRequestDispatcher());
+  }
+
+  @ProvidesIntoSet
+  private RxRemoteDispatcher<?> epochProofsResponseDispatcher(
+      MessageCentralSnapshotSync messageCentralSnapshotSync) {
+    return RxRemoteDispatcher.create(
+        EpochProofsResponse.class, messageCentralSnapshotSync.epochProofsResponseDispatcher());
+  }
+
   // TODO: Clean this up
   @Provides
   @Singleton
@@ -225,14 +325,39 @@ public final class MessagingModule extends AbstractModule {
       MessageCentralBFTNetwork messageCentralBFT,
       MessageCentralValidatorSync messageCentralBFTSync,
       MessageCentralPeerLiveness messageCentralPeerLiveness,
-      MessageCentralPeerDiscovery messageCentralPeerDiscovery) {
+      MessageCentralPeerDiscovery messageCentralPeerDiscovery,
+      MessageCentralSnapshotSync messageCentralSnapshotSync,
+      Hasher hasher,
+      HashVerifier hashVerifier,
+      SystemCounters counters,
+      Optional<ProposalSpeculator> proposalSpeculator) {
+    final Optional<ConsensusEventPreVerifier> preVerifier =
+        preVerificationParallelism > 0
+            ? Optional.of(
+                new ConsensusEventPreVerifier(
+                    hasher,
+                    hashVerifier,
+                    counters,
+                    preVerificationParallelism,
+                    preVerificationBufferSize))
+            : Optional.empty();
     return new RxRemoteEnvironment() {
       @Override
       public <T> Flowable<RemoteEvent<T>> remoteEvents(Class<T> remoteEventClass) {
         if (remoteEventClass == Vote.class) {
-          return messageCentralBFT.remoteVotes().map(m -> (RemoteEvent<T>) m);
+          final var votes = messageCentralBFT.remoteVotes();
+          return preVerifier.map(v -> v.verify(votes)).orElse(votes).map(m -> (RemoteEvent<T>) m);
         } else if (remoteEventClass == Proposal.class) {
-          return messageCentralBFT.remoteProposals().map(m -> (RemoteEvent<T>) m);
+          // Starts executing proposals while their signatures are being verified
+          final var received = messageCentralBFT.remoteProposals();
+          final var proposals =
+              proposalSpeculator
+                  .map(s -> received.doOnNext(e -> s.speculate(e.getEvent())))
+                  .orElse(received);
+          return preVerifier
+              .map(v -> v.verify(proposals))
+              .orElse(proposals)
+              .map(m -> (RemoteEvent<T>) m);
         } else if (remoteEventClass == GetVerticesRequest.class) {
           return messageCentralBFTSync.requests().map(m -> (RemoteEvent<T>) m);
         } else if (remoteEventClass == GetVerticesResponse.class) {
@@ -241,6 +366,10 @@ public final class MessagingModule extends AbstractModule {
           return messageCentralBFTSync.errorResponses().map(m -> (RemoteEvent<T>) m);
         } else if (remoteEventClass == MempoolAdd.class) {
           return messageCentralMempool.mempoolComands().map(m -> (RemoteEvent<T>) m);
+        } else if (remoteEventClass == MempoolInventory.class) {
+          return messageCentralMempool.mempoolInventories().map(m -> (RemoteEvent<T>) m);
+        } else if (remoteEventClass == MempoolGetTxns.class) {
+          return messageCentralMempool.mempoolGetTxns().map(m -> (RemoteEvent<T>) m);
         } else if (remoteEventClass == SyncRequest.class) {
           return messageCentralLedgerSync.syncRequests().map(m -> (RemoteEvent<T>) m);
         } else if (remoteEventClass == SyncResponse.class) {
@@ -259,6 +388,18 @@ public final class MessagingModule extends AbstractModule {
           return messageCentralPeerDiscovery.getPeersEvents().map(m -> (RemoteEvent<T>) m);
         } else if (remoteEventClass == PeersResponse.class) {
           return messageCentralPeerDiscovery.peersResponses().map(m -> (RemoteEvent<T>) m);
+        } else if (remoteEventClass == SnapshotManifestRequest.class) {
+          return messageCentralSnapshotSync.manifestRequests().map(m -> (RemoteEvent<T>) m);
+        } else if (remoteEventClass == SnapshotManifestResponse.class) {
+          return messageCentralSnapshotSync.manifestResponses().map(m -> (RemoteEvent<T>) m);
+        } else if (remoteEventClass == SnapshotChunkRequest.class) {
+          return messageCentralSnapshotSync.chunkRequests().map(m -> (RemoteEvent<T>) m);
+        } else if (remoteEventClass == SnapshotChunkResponse.class) {
+          return messageCentralSnapshotSync.chunkResponses().map(m -> (RemoteEvent<T>) m);
+        } else if (remoteEventClass == EpochProofsRequest.class) {
+          return messageCentralSnapshotSync.epochProofsRequests().map(m -> (RemoteEvent<T>) m);
+        } else if (remoteEventClass == EpochProofsResponse.class) {
+          return messageCentralSnapshotSync.epochProofsResponses().map(m -> (RemoteEvent<T>) m);
         } else {
           throw new IllegalStateException();
         }
@@ -124,6 +124,27 @@ public interface P2PConfig {
    */
   long pingTimeout();
 
+  /**
+   * Whether to use the native epoll transport, on Linux only. Otherwise, or when the native
+   * transport isn't available, the NIO transport is used.
+   */
+  boolean useNativeTransport();
+
+  /** The number of event loop threads handling peer connections, 0 for Netty's default. */
+  int ioThreads();
+
+  /**
+   * The number of threads of a dedicated event loop group for the connections to the current
+   * validators, separate from full node and sync traffic. 0 disables the dedicated group.
+   */
+  int consensusIoThreads();
+
+  /**
+   * The time in microseconds to busy poll for incoming packets on a socket, with the native
+   * transport only. 0 disables busy polling.
+   */
+  int busyPollMicros();
+
   /**
    * Create a configuration from specified {@link RuntimeProperties}.
    *
@@ -199,6 +220,26 @@ public interface P2PConfig {
       public long pingTimeout() {
         return properties.get("network.p2p.ping_timeout", 5000);
       }
+
+      @Override
+      public boolean useNativeTransport() {
+        return properties.get("network.p2p.native_transport.enable", false);
+      }
+
+      @Override
+      public int ioThreads() {
+        return properties.get("network.p2p.io_threads", 0);
+      }
+
+      @Override
+      public int consensusIoThreads() {
+        return properties.get("network.p2p.consensus_io_threads", 0);
+      }
+
+      @Override
+      public int busyPollMicros() {
+        return properties.get("network.p2p.busy_poll_micros", 0);
+      }
     };
   }
 }
@@ -119,6 +119,8 @@ public final class PeerManager {
   private final SystemCounters counters;
   private final Object lock = new Object();
   private final Map<NodeId, Set<PeerChannel>> activeChannels = new ConcurrentHashMap<>();
+  // One completed future per connected peer, read without the lock by the outbound send path
+  private final Map<NodeId, CompletableFuture<PeerChannel>> routes = new ConcurrentHashMap<>();
   private final PublishSubject<Observable<InboundMessage>> inboundMessagesFromChannels =
       PublishSubject.create();
 
@@ -145,6 +147,13 @@ public final class PeerManager {
   }
 
   public CompletableFuture<PeerChannel> findOrCreateChannel(NodeId nodeId) {
+    // Routes only exist for connected peers that are neither self nor banned, so an existing
+    // connection is returned without taking the lock or consulting the address book.
+    final var route = this.routes.get(nodeId);
+    if (route != null) {
+      return route;
+    }
+
     synchronized (lock) {
       final var checkResult = this.canConnectTo(nodeId);
       return checkResult.fold(
@@ -263,6 +272,7 @@ public final class PeerManager {
         this.disconnectOutboundPeersOverLimit(peerConnected.channel().getRemoteNodeId());
       }
 
+      updateRoute(channel.getRemoteNodeId());
       updateChannelsCounters();
     }
   }
@@ -316,6 +326,7 @@ public final class PeerManager {
           this.activeChannels.remove(channel.getRemoteNodeId());
           updateChannelsCounters();
         }
+        updateRoute(channel.getRemoteNodeId());
       }
     }
   }
@@ -329,6 +340,23 @@ public final class PeerManager {
     }
   }
 
+  /**
+   * Points the route of the given peer at one of its active channels, keeping the current route
+   * while its channel is still active. Must be called while holding the lock.
+   */
+  private void updateRoute(NodeId nodeId) {
+    final var channels = this.activeChannels.get(nodeId);
+    if (channels == null || channels.isEmpty() || !canConnectTo(nodeId).isSuccess()) {
+      this.routes.remove(nodeId);
+      return;
+    }
+
+    final var route = this.routes.get(nodeId);
+    if (route == null || !channels.contains(route.join())) {
+      this.routes.put(nodeId, CompletableFuture.completedFuture(channels.iterator().next()));
+    }
+  }
+
   public ImmutableSet<PeerChannel> activeChannels() {
     return this.activeChannels.values().stream()
         .flatMap(Collection::stream)
@@ -350,6 +378,10 @@ public final class PeerManager {
   }
 
   private void handlePeerBanned(PeerBanned event) {
+    synchronized (lock) {
+      this.routes.remove(event.nodeId());
+    }
+
     this.activeChannels().stream()
         .filter(peerChannel -> isSameNodeId(peerChannel, event.nodeId()))
         .forEach(this::handlePeerBanned);
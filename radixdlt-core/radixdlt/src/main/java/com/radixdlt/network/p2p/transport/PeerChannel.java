@@ -70,9 +70,11 @@ import static java.util.Objects.requireNonNull;
 
 import com.google.common.util.concurrent.RateLimiter;
 import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
 import com.radixdlt.crypto.ECKeyOps;
 import com.radixdlt.environment.EventDispatcher;
 import com.radixdlt.network.messaging.InboundMessage;
+import com.radixdlt.network.messaging.MessagePriority;
 import com.radixdlt.network.p2p.NodeId;
 import com.radixdlt.network.p2p.P2PConfig;
 import com.radixdlt.network.p2p.PeerEvent;
@@ -103,7 +105,12 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.security.SecureRandom;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -112,6 +119,10 @@ import org.radix.time.Time;
 /**
  * Class that manages TCP connection channel. It takes care of the initial handshake, creating the
  * frame and message codec and forwarding the messages to MessageCentral.
+ *
+ * <p>Outbound messages are queued and then encoded and written on the channel's event loop, with a
+ * single flush for all the messages queued since the previous one. While the channel isn't
+ * writable, messages are handled according to their {@link MessagePriority}.
  */
 @SuppressWarnings({"UnstableApiUsage", "OptionalUsedAsFieldOrParameterType"})
 public final class PeerChannel extends SimpleChannelInboundHandler<ByteBuf> {
@@ -136,7 +147,13 @@ public final class PeerChannel extends SimpleChannelInboundHandler<ByteBuf> {
   private final SocketChannel nettyChannel;
   private Optional<InetSocketAddress> remoteAddress;
 
-  private ChannelState state = ChannelState.INACTIVE;
+  private final Queue<OutboundMessage> outboundMessages = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean outboundDrainScheduled = new AtomicBoolean();
+  // Only accessed on the channel's event loop
+  private final Deque<byte[]> deferredMessages = new ArrayDeque<>();
+  private final int maxDeferredMessages;
+
+  private volatile ChannelState state = ChannelState.INACTIVE;
   private NodeId remoteNodeId;
   private FrameCodec frameCodec;
   private Optional<String> remoteNewestForkName = Optional.empty();
@@ -169,6 +186,7 @@ public final class PeerChannel extends SimpleChannelInboundHandler<ByteBuf> {
     this.remoteAddress = requireNonNull(remoteAddress);
 
     this.isInitiator = uri.isPresent();
+    this.maxDeferredMessages = config.channelBufferSize();
 
     this.inboundMessages =
         inboundMessageSink.onBackpressureBuffer(
@@ -300,30 +318,103 @@ public final class PeerChannel extends SimpleChannelInboundHandler<ByteBuf> {
     }
   }
 
+  @Override
+  public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+    if (this.state == ChannelState.ACTIVE && this.nettyChannel.isWritable()) {
+      if (this.writeDeferredMessages()) {
+        this.nettyChannel.flush();
+      }
+    }
+    ctx.fireChannelWritabilityChanged();
+  }
+
   private void write(ByteBuf data) {
     this.nettyChannel.writeAndFlush(data);
   }
 
-  public Result<Unit> send(byte[] data) {
-    synchronized (this.lock) {
-      if (this.state != ChannelState.ACTIVE) {
-        return IO_ERROR.result();
-      } else {
-        try {
-          // we don't need to release the buffer manually as this is done by Netty (in
-          // writeAndFlush)
-          final var buf = PooledByteBufAllocator.DEFAULT.buffer(data.length);
-          try (var out = new ByteBufOutputStream(buf)) {
-            this.frameCodec.writeFrame(data, out);
+  public Result<Unit> send(byte[] data, MessagePriority priority) {
+    if (this.state != ChannelState.ACTIVE) {
+      return IO_ERROR.result();
+    }
+
+    if (priority == MessagePriority.LOW && !this.nettyChannel.isWritable()) {
+      this.counters.increment(CounterType.NETWORKING_TCP_OUTBOUND_DROPPED_LOW_PRIORITY);
+      return IO_ERROR.result();
+    }
+
+    this.outboundMessages.add(new OutboundMessage(data, priority));
+    if (this.outboundDrainScheduled.compareAndSet(false, true)) {
+      this.nettyChannel.eventLoop().execute(this::drainOutboundMessages);
+    }
+    return unitResult();
+  }
+
+  private void drainOutboundMessages() {
+    this.outboundDrainScheduled.set(false);
+    if (this.state != ChannelState.ACTIVE) {
+      this.outboundMessages.clear();
+      this.deferredMessages.clear();
+      return;
+    }
+
+    var written = this.writeDeferredMessages();
+    OutboundMessage message;
+    while ((message = this.outboundMessages.poll()) != null) {
+      final var writable = this.nettyChannel.isWritable();
+      switch (message.priority()) {
+        case HIGH -> written |= this.writeFrame(message.data());
+        case NORMAL -> {
+          if (writable && this.deferredMessages.isEmpty()) {
+            written |= this.writeFrame(message.data());
+          } else {
+            this.deferMessage(message.data());
+          }
+        }
+        case LOW -> {
+          if (writable) {
+            written |= this.writeFrame(message.data());
+          } else {
+            this.counters.increment(CounterType.NETWORKING_TCP_OUTBOUND_DROPPED_LOW_PRIORITY);
           }
-          this.write(buf);
-          this.outMessagesStats.tick();
-          return unitResult();
-        } catch (IOException e) {
-          return IO_ERROR.result();
         }
       }
     }
+
+    if (written) {
+      this.nettyChannel.flush();
+    }
+  }
+
+  private void deferMessage(byte[] data) {
+    if (this.deferredMessages.size() >= this.maxDeferredMessages) {
+      this.deferredMessages.poll();
+      this.counters.increment(CounterType.NETWORKING_TCP_OUTBOUND_DROPPED_NORMAL_PRIORITY);
+    }
+    this.deferredMessages.add(data);
+    this.counters.increment(CounterType.NETWORKING_TCP_OUTBOUND_DEFERRED);
+  }
+
+  private boolean writeDeferredMessages() {
+    var written = false;
+    while (!this.deferredMessages.isEmpty() && this.nettyChannel.isWritable()) {
+      written |= this.writeFrame(this.deferredMessages.poll());
+    }
+    return written;
+  }
+
+  private boolean writeFrame(byte[] data) {
+    // the buffer is released by Netty once written
+    final var buf = PooledByteBufAllocator.DEFAULT.buffer(data.length);
+    try (var out = new ByteBufOutputStream(buf)) {
+      this.frameCodec.writeFrame(data, out);
+    } catch (IOException e) {
+      buf.release();
+      log.warn("Failed to encode a frame on {}: {}", this, e.getMessage());
+      return false;
+    }
+    this.nettyChannel.write(buf);
+    this.outMessagesStats.tick();
+    return true;
   }
 
   public long sentMessagesRate() {
@@ -374,4 +465,6 @@ public final class PeerChannel extends SimpleChannelInboundHandler<ByteBuf> {
         getPort(),
         state);
   }
+
+  private record OutboundMessage(byte[] data, MessagePriority priority) {}
 }
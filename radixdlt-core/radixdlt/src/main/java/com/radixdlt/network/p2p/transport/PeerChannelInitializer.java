@@ -79,6 +79,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
@@ -99,6 +100,9 @@ public final class PeerChannelInitializer extends ChannelInitializer<SocketChann
   private static final int FRAME_HEADER_LENGTH = Integer.BYTES;
   private static final int RECEIVE_BUFFER_SIZE = 1024 * 1024;
   private static final int SOCKET_BACKLOG_SIZE = 1024;
+  // Above the high mark, the channel is reported unwritable until below the low mark again
+  private static final int WRITE_BUFFER_LOW_WATER_MARK = 1024 * 1024;
+  private static final int WRITE_BUFFER_HIGH_WATER_MARK = 4 * 1024 * 1024;
 
   private final P2PConfig config;
   private final Addressing addressing;
@@ -143,6 +147,8 @@ public final class PeerChannelInitializer extends ChannelInitializer<SocketChann
     socketChannelConfig.setSendBufferSize(MAX_PACKET_LENGTH);
     socketChannelConfig.setOption(ChannelOption.SO_RCVBUF, RECEIVE_BUFFER_SIZE);
     socketChannelConfig.setOption(ChannelOption.SO_BACKLOG, SOCKET_BACKLOG_SIZE);
+    socketChannelConfig.setWriteBufferWaterMark(
+        new WriteBufferWaterMark(WRITE_BUFFER_LOW_WATER_MARK, WRITE_BUFFER_HIGH_WATER_MARK));
 
     if (log.isDebugEnabled()) {
       socketChannel.pipeline().addLast(new LoggingHandler(LogSink.using(log), false));
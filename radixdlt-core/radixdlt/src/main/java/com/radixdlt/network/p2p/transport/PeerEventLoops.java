@@ -0,0 +1,172 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.network.p2p.transport;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.radixdlt.network.p2p.ConsensusPeers;
+import com.radixdlt.network.p2p.NodeId;
+import com.radixdlt.network.p2p.P2PConfig;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.util.Objects;
+import java.util.Optional;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The Netty transport and event loop groups shared by all peer connections.
+ *
+ * <p>The native epoll transport is used when configured and available, with edge-triggered I/O and
+ * optional busy polling. Otherwise the NIO transport is used. Outbound connections to the current
+ * validators may be handled on a dedicated event loop group, so that consensus traffic doesn't
+ * queue behind full node and sync traffic.
+ */
+@Singleton
+public final class PeerEventLoops {
+  private static final Logger log = LogManager.getLogger();
+
+  private final P2PConfig config;
+  private final ConsensusPeers consensusPeers;
+  private final boolean nativeTransport;
+  private final EventLoopGroup serverGroup;
+  private final EventLoopGroup workerGroup;
+  private final Optional<EventLoopGroup> consensusGroup;
+
+  @Inject
+  public PeerEventLoops(P2PConfig config, ConsensusPeers consensusPeers) {
+    this.config = Objects.requireNonNull(config);
+    this.consensusPeers = Objects.requireNonNull(consensusPeers);
+    this.nativeTransport = config.useNativeTransport() && isNativeTransportAvailable();
+    this.serverGroup = createGroup(1, "PeerServer");
+    this.workerGroup = createGroup(config.ioThreads(), "PeerWorker");
+    this.consensusGroup =
+        config.consensusIoThreads() > 0
+            ? Optional.of(createGroup(config.consensusIoThreads(), "PeerConsensus"))
+            : Optional.empty();
+  }
+
+  private static boolean isNativeTransportAvailable() {
+    if (!Epoll.isAvailable()) {
+      log.warn(
+          "Native transport is not available, falling back to NIO: {}",
+          Epoll.unavailabilityCause().getMessage());
+      return false;
+    }
+    return true;
+  }
+
+  private EventLoopGroup createGroup(int threads, String name) {
+    final var threadFactory = new DefaultThreadFactory(name);
+    return nativeTransport
+        ? new EpollEventLoopGroup(threads, threadFactory)
+        : new NioEventLoopGroup(threads, threadFactory);
+  }
+
+  /** Configures a bootstrap accepting inbound connections. */
+  public ServerBootstrap configure(ServerBootstrap serverBootstrap) {
+    serverBootstrap.group(serverGroup, workerGroup);
+    if (nativeTransport) {
+      serverBootstrap.channel(EpollServerSocketChannel.class);
+      serverBootstrap.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+      if (config.busyPollMicros() > 0) {
+        serverBootstrap.childOption(EpollChannelOption.SO_BUSY_POLL, config.busyPollMicros());
+      }
+    } else {
+      serverBootstrap.channel(NioServerSocketChannel.class);
+    }
+    serverBootstrap.childOption(ChannelOption.TCP_NODELAY, true);
+    return serverBootstrap;
+  }
+
+  /** Configures a bootstrap for an outbound connection to the specified node. */
+  public Bootstrap configure(Bootstrap bootstrap, NodeId nodeId) {
+    bootstrap.group(
+        consensusGroup.filter(unused -> consensusPeers.contains(nodeId)).orElse(workerGroup));
+    if (nativeTransport) {
+      bootstrap.channel(EpollSocketChannel.class);
+      bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+      if (config.busyPollMicros() > 0) {
+        bootstrap.option(EpollChannelOption.SO_BUSY_POLL, config.busyPollMicros());
+      }
+    } else {
+      bootstrap.channel(NioSocketChannel.class);
+    }
+    bootstrap.option(ChannelOption.TCP_NODELAY, true);
+    return bootstrap;
+  }
+}
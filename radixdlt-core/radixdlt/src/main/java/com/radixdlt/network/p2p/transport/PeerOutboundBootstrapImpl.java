@@ -78,8 +78,6 @@ import com.radixdlt.statecomputer.forks.ForkConfig;
 import com.radixdlt.statecomputer.forks.NewestForkConfig;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import java.security.SecureRandom;
 import java.util.Objects;
 import java.util.Optional;
@@ -94,8 +92,7 @@ public final class PeerOutboundBootstrapImpl implements PeerOutboundBootstrap {
   private final SecureRandom secureRandom;
   private final ECKeyOps ecKeyOps;
   private final EventDispatcher<PeerEvent> peerEventDispatcher;
-
-  private final NioEventLoopGroup clientWorkerGroup;
+  private final PeerEventLoops peerEventLoops;
 
   @Inject
   public PeerOutboundBootstrapImpl(
@@ -107,7 +104,8 @@ public final class PeerOutboundBootstrapImpl implements PeerOutboundBootstrap {
       Serialization serialization,
       SecureRandom secureRandom,
       ECKeyOps ecKeyOps,
-      EventDispatcher<PeerEvent> peerEventDispatcher) {
+      EventDispatcher<PeerEvent> peerEventDispatcher,
+      PeerEventLoops peerEventLoops) {
     this.config = Objects.requireNonNull(config);
     this.addressing = Objects.requireNonNull(addressing);
     this.networkId = networkId;
@@ -117,17 +115,13 @@ public final class PeerOutboundBootstrapImpl implements PeerOutboundBootstrap {
     this.secureRandom = Objects.requireNonNull(secureRandom);
     this.ecKeyOps = Objects.requireNonNull(ecKeyOps);
     this.peerEventDispatcher = Objects.requireNonNull(peerEventDispatcher);
-
-    this.clientWorkerGroup = new NioEventLoopGroup();
+    this.peerEventLoops = Objects.requireNonNull(peerEventLoops);
   }
 
   @Override
   public void initOutboundConnection(RadixNodeUri uri) {
-    final var bootstrap = new Bootstrap();
+    final var bootstrap = peerEventLoops.configure(new Bootstrap(), uri.getNodeId());
     bootstrap
-        .group(clientWorkerGroup)
-        .channel(NioSocketChannel.class)
-        .option(ChannelOption.TCP_NODELAY, true)
         .option(ChannelOption.SO_KEEPALIVE, true)
         .handler(
             new PeerChannelInitializer(
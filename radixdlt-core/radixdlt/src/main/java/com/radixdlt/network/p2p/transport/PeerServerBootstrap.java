@@ -77,8 +77,6 @@ import com.radixdlt.statecomputer.forks.ForkConfig;
 import com.radixdlt.statecomputer.forks.NewestForkConfig;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import java.security.SecureRandom;
 import java.util.Objects;
 import java.util.Optional;
@@ -95,6 +93,7 @@ public final class PeerServerBootstrap {
   private final SecureRandom secureRandom;
   private final ECKeyOps ecKeyOps;
   private final EventDispatcher<PeerEvent> peerEventDispatcher;
+  private final PeerEventLoops peerEventLoops;
 
   @Inject
   public PeerServerBootstrap(
@@ -106,7 +105,8 @@ public final class PeerServerBootstrap {
       Serialization serialization,
       SecureRandom secureRandom,
       ECKeyOps ecKeyOps,
-      EventDispatcher<PeerEvent> peerEventDispatcher) {
+      EventDispatcher<PeerEvent> peerEventDispatcher,
+      PeerEventLoops peerEventLoops) {
     this.config = Objects.requireNonNull(config);
     this.addressing = Objects.requireNonNull(addressing);
     this.networkId = networkId;
@@ -116,16 +116,12 @@ public final class PeerServerBootstrap {
     this.secureRandom = Objects.requireNonNull(secureRandom);
     this.ecKeyOps = Objects.requireNonNull(ecKeyOps);
     this.peerEventDispatcher = Objects.requireNonNull(peerEventDispatcher);
+    this.peerEventLoops = Objects.requireNonNull(peerEventLoops);
   }
 
   public void start() throws InterruptedException {
-    final var serverGroup = new NioEventLoopGroup(1);
-    final var workerGroup = new NioEventLoopGroup();
-
-    final var serverBootstrap = new ServerBootstrap();
+    final var serverBootstrap = peerEventLoops.configure(new ServerBootstrap());
     serverBootstrap
-        .group(serverGroup, workerGroup)
-        .channel(NioServerSocketChannel.class)
         .option(ChannelOption.SO_BACKLOG, BACKLOG_SIZE)
         .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.peerConnectionTimeout())
         .childHandler(
@@ -64,6 +64,8 @@
 
 package com.radixdlt.statecomputer;
 
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -81,14 +83,19 @@ import com.radixdlt.mempool.MempoolFullException;
 import com.radixdlt.mempool.MempoolMaxSize;
 import com.radixdlt.mempool.MempoolMetadata;
 import com.radixdlt.mempool.MempoolRejectedException;
+import com.radixdlt.mempool.MempoolTxnTtlMs;
 import com.radixdlt.utils.Pair;
+import com.radixdlt.utils.TimeSupplier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -96,7 +103,14 @@ import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-/** A mempool which uses internal radix engine to be more efficient. */
+/**
+ * A mempool which uses internal radix engine to be more efficient.
+ *
+ * <p>Transactions are added and removed under the state computer's lock. Readers which only need
+ * to look at the contents, such as the API and proposal generation, use an immutable {@link
+ * Snapshot} instead, which is rebuilt at most once per version of the mempool and then shared
+ * without any locking.
+ */
 @Singleton
 public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
   private static final Logger logger = LogManager.getLogger();
@@ -104,21 +118,58 @@ public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
   private final ConcurrentHashMap<AID, Pair<REProcessedTxn, MempoolMetadata>> data =
       new ConcurrentHashMap<>();
   private final Map<SubstateId, Set<AID>> substateIndex = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private final Object snapshotLock = new Object();
+  private volatile Snapshot snapshot = Snapshot.EMPTY;
+  private AID revalidationCursor;
   private final RadixEngine<LedgerAndBFTProof> radixEngine;
   private final int maxSize;
+  private final long txnTtlMs;
+  private final TimeSupplier timeSupplier;
 
   @Inject
   public RadixEngineMempool(
-      RadixEngine<LedgerAndBFTProof> radixEngine, @MempoolMaxSize int maxSize) {
+      RadixEngine<LedgerAndBFTProof> radixEngine,
+      @MempoolMaxSize int maxSize,
+      @MempoolTxnTtlMs long txnTtlMs,
+      TimeSupplier timeSupplier) {
     if (maxSize <= 0) {
       throw new IllegalArgumentException("mempool.maxSize must be positive: " + maxSize);
     }
+    if (txnTtlMs <= 0) {
+      throw new IllegalArgumentException("mempool.txnTtlMs must be positive: " + txnTtlMs);
+    }
     this.maxSize = maxSize;
+    this.txnTtlMs = txnTtlMs;
     this.radixEngine = radixEngine;
+    this.timeSupplier = Objects.requireNonNull(timeSupplier);
   }
 
   public <T> T getData(Function<Map<AID, Pair<REProcessedTxn, MempoolMetadata>>, T> mapper) {
-    return mapper.apply(data);
+    return mapper.apply(snapshot().txns());
+  }
+
+  /**
+   * The contents of the mempool as of the latest add or commit. Rebuilt on the first call after
+   * the mempool changed, and shared by all callers until it changes again.
+   */
+  public Snapshot snapshot() {
+    var current = this.snapshot;
+    if (current.version() == version.get()) {
+      return current;
+    }
+
+    synchronized (snapshotLock) {
+      current = this.snapshot;
+      // Read before copying, so that a concurrent change leaves this snapshot outdated
+      final var latest = version.get();
+      if (current.version() != latest) {
+        current = Snapshot.of(latest, data);
+        this.snapshot = current;
+      }
+      return current;
+    }
   }
 
   @Override
@@ -147,9 +198,11 @@ public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
       radixEngine.deleteBranches();
     }
 
-    var mempoolTxn = MempoolMetadata.create(System.currentTimeMillis());
+    var mempoolTxn = MempoolMetadata.create(timeSupplier.currentTime());
     var data = Pair.of(result.getProcessedTxn(), mempoolTxn);
     this.data.put(txn.getId(), data);
+    this.bytes.addAndGet(txn.getPayload().length);
+    this.version.incrementAndGet();
     result
         .getProcessedTxn()
         .substateDependencies()
@@ -177,6 +230,9 @@ public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
 
               for (var txnId : txnIds) {
                 var toRemove = data.remove(txnId);
+                if (toRemove != null) {
+                  bytes.addAndGet(-toRemove.getFirst().getTxn().getPayload().length);
+                }
                 // TODO: Cleanup
                 if (toRemove != null
                     && !committedIds.contains(toRemove.getFirst().getTxn().getId())) {
@@ -185,6 +241,8 @@ public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
               }
             });
 
+    version.incrementAndGet();
+
     if (!removed.isEmpty()) {
       logger.debug("Evicting {} txns from mempool", removed.size());
     }
@@ -192,6 +250,89 @@ public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
     return removed;
   }
 
+  /**
+   * Evicts the txns which outlived the TTL, then re-executes up to {@code maxTxns} of the txns
+   * which are at least {@code minAgeMs} old against the current state, evicting those which no
+   * longer apply. Each call continues in id order where the previous one stopped, so every aged
+   * txn is re-checked in turn.
+   */
+  public Revalidation revalidate(long now, long minAgeMs, int maxTxns) {
+    if (radixEngine.isShutDown()) {
+      return new Revalidation(List.of(), List.of(), 0);
+    }
+
+    final var txns = snapshot().txns();
+    final var expired = new ArrayList<Txn>();
+    for (var txnData : txns.values()) {
+      if (now - txnData.getSecond().getInserted() >= txnTtlMs) {
+        expired.add(remove(txnData.getFirst().getTxn().getId()));
+      }
+    }
+
+    final var cursor = revalidationCursor;
+    final var ordered =
+        cursor == null
+            ? txns.entrySet()
+            : Iterables.concat(
+                txns.tailMap(cursor, false).entrySet(), txns.headMap(cursor, true).entrySet());
+    final var invalid = new ArrayList<Txn>();
+    var checked = 0;
+    for (var entry : ordered) {
+      if (checked >= maxTxns) {
+        break;
+      }
+      if (now - entry.getValue().getSecond().getInserted() < minAgeMs
+          || !data.containsKey(entry.getKey())) {
+        continue;
+      }
+
+      checked++;
+      revalidationCursor = entry.getKey();
+      try {
+        radixEngine.transientBranch().execute(List.of(entry.getValue().getFirst().getTxn()));
+      } catch (RadixEngineException e) {
+        invalid.add(remove(entry.getKey()));
+      } finally {
+        radixEngine.deleteBranches();
+      }
+    }
+
+    if (!expired.isEmpty() || !invalid.isEmpty()) {
+      logger.debug(
+          "Evicting {} expired and {} invalid txns from mempool", expired.size(), invalid.size());
+    }
+
+    return new Revalidation(expired, invalid, checked);
+  }
+
+  private Txn remove(AID txnId) {
+    final var removed = data.remove(txnId);
+    final var txn = removed.getFirst().getTxn();
+    bytes.addAndGet(-txn.getPayload().length);
+    removed
+        .getFirst()
+        .substateDependencies()
+        .forEach(
+            substateId ->
+                substateIndex.computeIfPresent(
+                    substateId,
+                    (k, txnIds) -> {
+                      var remaining = Sets.difference(txnIds, Set.of(txnId)).immutableCopy();
+                      return remaining.isEmpty() ? null : remaining;
+                    }));
+    version.incrementAndGet();
+    return txn;
+  }
+
+  /**
+   * The txns evicted by one revalidation run.
+   *
+   * @param expired the txns which outlived the TTL
+   * @param invalid the txns which failed to execute against the current state
+   * @param checked the number of txns which were re-executed
+   */
+  public record Revalidation(List<Txn> expired, List<Txn> invalid, int checked) {}
+
   @Override
   public List<Txn> getTxns(int count, List<REProcessedTxn> prepared) {
     if (this.radixEngine.isShutDown()) {
@@ -199,27 +340,30 @@ public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
     }
 
     // TODO: Order by highest fees paid
-    var copy = new TreeSet<>(data.keySet());
+    // Walks the snapshot in id order, skipping whatever conflicts with what was already picked
+    var excluded = new HashSet<AID>();
     prepared.stream()
         .flatMap(REProcessedTxn::stateUpdates)
         .filter(REStateUpdate::isShutDown)
         .flatMap(i -> substateIndex.getOrDefault(i.getId(), Set.of()).stream())
-        .distinct()
-        .forEach(copy::remove);
+        .forEach(excluded::add);
 
     var txns = new ArrayList<Txn>();
 
-    for (int i = 0; i < count && !copy.isEmpty(); i++) {
-      var txId = copy.first();
-      copy.remove(txId);
-      var txnData = data.get(txId);
+    for (var entry : snapshot().txns().entrySet()) {
+      if (txns.size() >= count) {
+        break;
+      }
+      if (excluded.contains(entry.getKey())) {
+        continue;
+      }
+      var txnData = entry.getValue();
       txnData
           .getFirst()
           .stateUpdates()
           .filter(REStateUpdate::isShutDown)
           .flatMap(inst -> substateIndex.getOrDefault(inst.getId(), Set.of()).stream())
-          .distinct()
-          .forEach(copy::remove);
+          .forEach(excluded::add);
 
       txns.add(txnData.getFirst().getTxn());
     }
@@ -227,6 +371,11 @@ public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
     return txns;
   }
 
+  @Override
+  public Optional<Txn> getTxn(AID txnId) {
+    return Optional.ofNullable(data.get(txnId)).map(e -> e.getFirst().getTxn());
+  }
+
   public Set<SubstateId> getShuttingDownSubstates() {
     return new HashSet<>(substateIndex.keySet());
   }
@@ -234,7 +383,7 @@ public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
   @Override
   public List<Txn> scanUpdateAndGet(
       Predicate<MempoolMetadata> predicate, Consumer<MempoolMetadata> operator) {
-    return this.data.values().stream()
+    return snapshot().txns().values().stream()
         .filter(e -> predicate.test(e.getSecond()))
         .peek(e -> operator.accept(e.getSecond()))
         .map(e -> e.getFirst().getTxn())
@@ -245,6 +394,86 @@ public final class RadixEngineMempool implements Mempool<REProcessedTxn> {
     return this.data.size();
   }
 
+  /** The total payload size of the transactions in the mempool. */
+  public long getBytes() {
+    return this.bytes.get();
+  }
+
+  /**
+   * An immutable view of the mempool, ordered by transaction id.
+   *
+   * <p>The metadata of each transaction is shared with the mempool, so relay times recorded after
+   * the snapshot was taken are visible through it.
+   */
+  public static final class Snapshot {
+    private static final Snapshot EMPTY = new Snapshot(0, ImmutableSortedMap.of(), 0, new long[0]);
+
+    private final long version;
+    private final ImmutableSortedMap<AID, Pair<REProcessedTxn, MempoolMetadata>> txns;
+    private final long bytes;
+    private final long[] insertedTimes;
+
+    private Snapshot(
+        long version,
+        ImmutableSortedMap<AID, Pair<REProcessedTxn, MempoolMetadata>> txns,
+        long bytes,
+        long[] insertedTimes) {
+      this.version = version;
+      this.txns = txns;
+      this.bytes = bytes;
+      this.insertedTimes = insertedTimes;
+    }
+
+    private static Snapshot of(
+        long version, Map<AID, Pair<REProcessedTxn, MempoolMetadata>> data) {
+      var txns = ImmutableSortedMap.copyOf(data);
+      var bytes = 0L;
+      var insertedTimes = new long[txns.size()];
+      var i = 0;
+      for (var txnData : txns.values()) {
+        bytes += txnData.getFirst().getTxn().getPayload().length;
+        insertedTimes[i++] = txnData.getSecond().getInserted();
+      }
+      // Oldest first
+      Arrays.sort(insertedTimes);
+      return new Snapshot(version, txns, bytes, insertedTimes);
+    }
+
+    /** Increases with every add or commit, so equal versions mean equal contents. */
+    public long version() {
+      return version;
+    }
+
+    public ImmutableSortedMap<AID, Pair<REProcessedTxn, MempoolMetadata>> txns() {
+      return txns;
+    }
+
+    public int size() {
+      return txns.size();
+    }
+
+    /** The total payload size of the transactions in this snapshot. */
+    public long bytes() {
+      return bytes;
+    }
+
+    /**
+     * The age which the given percentage of transactions does not exceed at the given time, or
+     * zero if the snapshot is empty. A percentile of 100 is the age of the oldest transaction.
+     */
+    public long ageMillisAtPercentile(long now, int percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException("Invalid percentile: " + percentile);
+      }
+      if (insertedTimes.length == 0) {
+        return 0;
+      }
+      // Nearest rank, counted from the youngest transaction
+      var rank = Math.max(1, (int) Math.ceil(percentile / 100.0 * insertedTimes.length));
+      return Math.max(0, now - insertedTimes[insertedTimes.length - rank]);
+    }
+  }
+
   @Override
   public String toString() {
     return String.format(
@@ -81,10 +81,12 @@ import com.radixdlt.crypto.ECPublicKey;
 import com.radixdlt.crypto.Hasher;
 import com.radixdlt.engine.PostProcessorException;
 import com.radixdlt.engine.RadixEngine;
+import com.radixdlt.engine.RadixEngine.PrecheckedTxn;
 import com.radixdlt.engine.RadixEngine.RadixEngineBranch;
 import com.radixdlt.engine.RadixEngineException;
 import com.radixdlt.engine.RadixEngineResult;
 import com.radixdlt.environment.EventDispatcher;
+import com.radixdlt.environment.EventProcessor;
 import com.radixdlt.hotstuff.BFTConfiguration;
 import com.radixdlt.hotstuff.HighQC;
 import com.radixdlt.hotstuff.LedgerHeader;
@@ -93,6 +95,7 @@ import com.radixdlt.hotstuff.UnverifiedVertex;
 import com.radixdlt.hotstuff.bft.BFTNode;
 import com.radixdlt.hotstuff.bft.BFTValidator;
 import com.radixdlt.hotstuff.bft.BFTValidatorSet;
+import com.radixdlt.hotstuff.bft.PreparedVertex;
 import com.radixdlt.hotstuff.bft.VerifiedVertex;
 import com.radixdlt.hotstuff.bft.VerifiedVertexStoreState;
 import com.radixdlt.hotstuff.bft.View;
@@ -110,12 +113,22 @@ import com.radixdlt.mempool.MempoolAdd;
 import com.radixdlt.mempool.MempoolAddSuccess;
 import com.radixdlt.mempool.MempoolDuplicateException;
 import com.radixdlt.mempool.MempoolRejectedException;
+import com.radixdlt.mempool.MempoolRevalidateTrigger;
 import com.radixdlt.statecomputer.forks.ForkConfig;
 import com.radixdlt.statecomputer.forks.Forks;
+import com.radixdlt.utils.ThreadFactories;
+import com.radixdlt.utils.TimeSupplier;
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
 import java.util.function.LongFunction;
 import javax.annotation.Nullable;
 import org.apache.logging.log4j.LogManager;
@@ -124,6 +137,12 @@ import org.apache.logging.log4j.Logger;
 /** Wraps the Radix Engine and emits messages based on success or failure */
 public final class RadixEngineStateComputer implements StateComputer {
   private static final Logger log = LogManager.getLogger();
+  private static final long MEMPOOL_REVALIDATION_MIN_AGE_MS = 60_000L;
+  private static final int MEMPOOL_REVALIDATION_BATCH_SIZE = 50;
+  private static final int PRECHECK_THREADS =
+      Math.min(4, Runtime.getRuntime().availableProcessors());
+  // How many txns of a proposal are prechecked ahead of the one being executed
+  private static final int PRECHECK_WINDOW = 2 * PRECHECK_THREADS;
 
   private final RadixEngineMempool mempool;
   private final RadixEngine<LedgerAndBFTProof> radixEngine;
@@ -132,17 +151,22 @@ public final class RadixEngineStateComputer implements StateComputer {
   private final EventDispatcher<TxnsRemovedFromMempool> mempoolAtomsRemovedEventDispatcher;
   private final EventDispatcher<InvalidProposedTxn> invalidProposedCommandEventDispatcher;
   private final SystemCounters systemCounters;
+  private final TimeSupplier timeSupplier;
   private final Hasher hasher;
   private final Forks forks;
   private final Object lock = new Object();
+  private final ExecutorService precheckExecutor =
+      Executors.newFixedThreadPool(
+          PRECHECK_THREADS, ThreadFactories.daemonThreads("TxnPrecheck %d"));
 
+  // Not shared with consensus as leaders are also looked up while speculating, guarded by lock
   private ProposerElection proposerElection;
   private View epochCeilingView;
   private OptionalInt maxSigsPerRound;
 
   @Inject
   public RadixEngineStateComputer(
-      ProposerElection proposerElection, // TODO: Should be able to load this directly from state
+      BFTValidatorSet validatorSet, // TODO: Should be able to load this directly from state
       RadixEngine<LedgerAndBFTProof> radixEngine,
       Forks forks,
       RadixEngineMempool mempool, // TODO: Move this into radixEngine
@@ -153,7 +177,8 @@ public final class RadixEngineStateComputer implements StateComputer {
       EventDispatcher<TxnsRemovedFromMempool> mempoolAtomsRemovedEventDispatcher,
       EventDispatcher<LedgerUpdate> ledgerUpdateDispatcher,
       Hasher hasher,
-      SystemCounters systemCounters) {
+      SystemCounters systemCounters,
+      TimeSupplier timeSupplier) {
     if (epochCeilingView.isGenesis()) {
       throw new IllegalArgumentException("Epoch change view must not be genesis.");
     }
@@ -172,7 +197,8 @@ public final class RadixEngineStateComputer implements StateComputer {
     this.ledgerUpdateDispatcher = Objects.requireNonNull(ledgerUpdateDispatcher);
     this.hasher = Objects.requireNonNull(hasher);
     this.systemCounters = Objects.requireNonNull(systemCounters);
-    this.proposerElection = proposerElection;
+    this.timeSupplier = Objects.requireNonNull(timeSupplier);
+    this.proposerElection = new WeightedRotatingLeaders(validatorSet);
   }
 
   public record RadixEngineTxn(Txn txn, REProcessedTxn processed, PermissionLevel permissionLevel)
@@ -206,6 +232,7 @@ public final class RadixEngineStateComputer implements StateComputer {
 
         systemCounters.increment(CounterType.MEMPOOL_ADD_SUCCESS);
         systemCounters.set(CounterType.MEMPOOL_CURRENT_SIZE, mempool.getCount());
+        systemCounters.set(CounterType.MEMPOOL_CURRENT_BYTES, mempool.getBytes());
 
         var success = MempoolAddSuccess.create(txn, processed, origin);
         mempoolAddSuccessEventDispatcher.dispatch(success);
@@ -285,7 +312,9 @@ public final class RadixEngineStateComputer implements StateComputer {
       RadixEngineBranch<LedgerAndBFTProof> branch,
       List<Txn> nextTxns,
       ImmutableList.Builder<PreparedTxn> successBuilder,
-      ImmutableMap.Builder<Txn, Exception> errorBuilder) {
+      ImmutableMap.Builder<Txn, Exception> errorBuilder,
+      boolean speculative,
+      BooleanSupplier cancelled) {
     // TODO: This check should probably be done before getting into state computer
     this.maxSigsPerRound.ifPresent(
         max -> {
@@ -294,73 +323,156 @@ public final class RadixEngineStateComputer implements StateComputer {
           }
         });
     var numToProcess = Integer.min(nextTxns.size(), this.maxSigsPerRound.orElse(Integer.MAX_VALUE));
-    for (int i = 0; i < numToProcess; i++) {
-      var txn = nextTxns.get(i);
-      final RadixEngineResult<LedgerAndBFTProof> result;
-      try {
-        result = branch.execute(List.of(txn));
-      } catch (RadixEngineException e) {
-        errorBuilder.put(txn, e);
-        invalidProposedCommandEventDispatcher.dispatch(
-            InvalidProposedTxn.create(proposer.getKey(), txn, e));
-        return;
+    var txns = nextTxns.subList(0, numToProcess);
+    // Parsing and signature recovery don't depend on state so are done in parallel a few txns
+    // ahead, leaving only the state dependent part to be executed in proposal order. Nothing after
+    // the first failed txn is executed, so nothing much after it is prechecked either.
+    var prechecks = new ArrayDeque<Future<PrecheckedTxn>>();
+    var nextToPrecheck = 0;
+    try {
+      while (nextToPrecheck < txns.size() || !prechecks.isEmpty()) {
+        while (nextToPrecheck < txns.size() && prechecks.size() < PRECHECK_WINDOW) {
+          var txnToPrecheck = txns.get(nextToPrecheck++);
+          prechecks.add(precheckExecutor.submit(() -> branch.precheck(txnToPrecheck)));
+        }
+
+        checkCancelled(cancelled);
+        var precheckedTxn = awaitPrecheck(prechecks.remove());
+        var txn = precheckedTxn.txn();
+        final RadixEngineResult<LedgerAndBFTProof> result;
+        try {
+          result = branch.execute(precheckedTxn);
+        } catch (RadixEngineException e) {
+          errorBuilder.put(txn, e);
+          // Unverified proposals may claim any proposer, so this waits until the result is used
+          if (!speculative) {
+            invalidProposedCommandEventDispatcher.dispatch(
+                InvalidProposedTxn.create(proposer.getKey(), txn, e));
+          }
+          return;
+        }
+
+        var radixEngineCommand =
+            new RadixEngineTxn(txn, result.getProcessedTxn(), PermissionLevel.USER);
+        successBuilder.add(radixEngineCommand);
       }
+    } finally {
+      prechecks.forEach(precheck -> precheck.cancel(false));
+    }
+  }
 
-      var radixEngineCommand =
-          new RadixEngineTxn(txn, result.getProcessedTxn(), PermissionLevel.USER);
-      successBuilder.add(radixEngineCommand);
+  private static PrecheckedTxn awaitPrecheck(Future<PrecheckedTxn> precheck) {
+    try {
+      return precheck.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while prechecking txns", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to precheck txn", e.getCause());
+    }
+  }
+
+  private static void checkCancelled(BooleanSupplier cancelled) {
+    if (cancelled.getAsBoolean()) {
+      throw new CancellationException("Speculative execution cancelled");
+    }
+  }
+
+  @Override
+  public boolean isLeader(BFTNode node, View view) {
+    synchronized (lock) {
+      return proposerElection.getProposer(view).equals(node);
     }
   }
 
   @Override
   public StateComputerResult prepare(
       List<PreparedTxn> previous, VerifiedVertex vertex, long timestamp) {
+    return prepare(previous, vertex, timestamp, false, () -> false);
+  }
+
+  @Override
+  public StateComputerResult prepareSpeculatively(
+      List<PreparedTxn> previous,
+      VerifiedVertex vertex,
+      long timestamp,
+      BooleanSupplier cancelled) {
+    return prepare(previous, vertex, timestamp, true, cancelled);
+  }
+
+  @Override
+  public void speculationUsed(PreparedVertex vertex) {
+    var proposer = vertex.getVertex().getProposer().getKey();
+    vertex
+        .errorCommands()
+        .forEach(
+            e ->
+                invalidProposedCommandEventDispatcher.dispatch(
+                    InvalidProposedTxn.create(proposer, e.getFirst(), e.getSecond())));
+  }
+
+  private StateComputerResult prepare(
+      List<PreparedTxn> previous,
+      VerifiedVertex vertex,
+      long timestamp,
+      boolean speculative,
+      BooleanSupplier cancelled) {
     synchronized (lock) {
       var next = vertex.getTxns();
       var transientBranch = this.radixEngine.transientBranch();
-
-      for (var command : previous) {
-        // TODO: fix this cast with generics. Currently the fix would become a bit too messy
-        final var radixEngineCommand = (RadixEngineTxn) command;
-        try {
-          transientBranch.execute(
-              List.of(radixEngineCommand.txn()), radixEngineCommand.permissionLevel());
-        } catch (RadixEngineException e) {
-          throw new IllegalStateException(
-              "Re-execution of already prepared transaction failed: "
-                  + radixEngineCommand.processed.getTxn().getId(),
-              e);
+      try {
+        for (var command : previous) {
+          checkCancelled(cancelled);
+          // TODO: fix this cast with generics. Currently the fix would become a bit too messy
+          final var radixEngineCommand = (RadixEngineTxn) command;
+          try {
+            transientBranch.execute(
+                List.of(radixEngineCommand.txn()), radixEngineCommand.permissionLevel());
+          } catch (RadixEngineException e) {
+            throw new IllegalStateException(
+                "Re-execution of already prepared transaction failed: "
+                    + radixEngineCommand.processed.getTxn().getId(),
+                e);
+          }
         }
-      }
 
-      var systemTxn = this.executeSystemUpdate(transientBranch, vertex, timestamp);
-      var successBuilder = ImmutableList.<PreparedTxn>builder();
-
-      successBuilder.add(systemTxn);
+        var systemTxn = this.executeSystemUpdate(transientBranch, vertex, timestamp);
+        var successBuilder = ImmutableList.<PreparedTxn>builder();
+
+        successBuilder.add(systemTxn);
+
+        var exceptionBuilder = ImmutableMap.<Txn, Exception>builder();
+        var nextValidatorSet =
+            systemTxn.processed().getEvents().stream()
+                .filter(REEvent.NextValidatorSetEvent.class::isInstance)
+                .map(REEvent.NextValidatorSetEvent.class::cast)
+                .findFirst()
+                .map(
+                    e ->
+                        BFTValidatorSet.from(
+                            e.nextValidators().stream()
+                                .map(
+                                    v ->
+                                        BFTValidator.from(
+                                            BFTNode.create(v.validatorKey()), v.amount()))));
+        // Don't execute command if changing epochs
+        if (nextValidatorSet.isEmpty()) {
+          this.executeUserCommands(
+              vertex.getProposer(),
+              transientBranch,
+              next,
+              successBuilder,
+              exceptionBuilder,
+              speculative,
+              cancelled);
+        }
 
-      var exceptionBuilder = ImmutableMap.<Txn, Exception>builder();
-      var nextValidatorSet =
-          systemTxn.processed().getEvents().stream()
-              .filter(REEvent.NextValidatorSetEvent.class::isInstance)
-              .map(REEvent.NextValidatorSetEvent.class::cast)
-              .findFirst()
-              .map(
-                  e ->
-                      BFTValidatorSet.from(
-                          e.nextValidators().stream()
-                              .map(
-                                  v ->
-                                      BFTValidator.from(
-                                          BFTNode.create(v.validatorKey()), v.amount()))));
-      // Don't execute command if changing epochs
-      if (nextValidatorSet.isEmpty()) {
-        this.executeUserCommands(
-            vertex.getProposer(), transientBranch, next, successBuilder, exceptionBuilder);
+        return new StateComputerResult(
+            successBuilder.build(), exceptionBuilder.build(), nextValidatorSet.orElse(null));
+      } finally {
+        // Also when cancelled, as no other branch can be made nor any txn committed until then
+        this.radixEngine.deleteBranches();
       }
-      this.radixEngine.deleteBranches();
-
-      return new StateComputerResult(
-          successBuilder.build(), exceptionBuilder.build(), nextValidatorSet.orElse(null));
     }
   }
 
@@ -393,6 +505,43 @@ public final class RadixEngineStateComputer implements StateComputer {
     return result;
   }
 
+  public EventProcessor<MempoolRevalidateTrigger> mempoolRevalidateTriggerEventProcessor() {
+    return trigger -> {
+      synchronized (lock) {
+        final var revalidation =
+            mempool.revalidate(
+                timeSupplier.currentTime(),
+                MEMPOOL_REVALIDATION_MIN_AGE_MS,
+                MEMPOOL_REVALIDATION_BATCH_SIZE);
+        systemCounters.add(CounterType.MEMPOOL_REVALIDATED_TXNS, revalidation.checked());
+        systemCounters.add(CounterType.MEMPOOL_EXPIRED_TXNS, revalidation.expired().size());
+        systemCounters.add(
+            CounterType.MEMPOOL_REVALIDATION_EVICTED_TXNS, revalidation.invalid().size());
+
+        final var removed =
+            ImmutableList.<Txn>builder()
+                .addAll(revalidation.expired())
+                .addAll(revalidation.invalid())
+                .build();
+        if (!removed.isEmpty()) {
+          updateMempoolMetrics();
+          mempoolAtomsRemovedEventDispatcher.dispatch(TxnsRemovedFromMempool.create(removed));
+        }
+      }
+    };
+  }
+
+  // Ages only change with time, so they are refreshed once per commit rather than on every add
+  private void updateMempoolMetrics() {
+    final var snapshot = mempool.snapshot();
+    final var now = timeSupplier.currentTime();
+    systemCounters.set(CounterType.MEMPOOL_CURRENT_SIZE, snapshot.size());
+    systemCounters.set(CounterType.MEMPOOL_CURRENT_BYTES, snapshot.bytes());
+    systemCounters.set(CounterType.MEMPOOL_AGE_P50_MS, snapshot.ageMillisAtPercentile(now, 50));
+    systemCounters.set(CounterType.MEMPOOL_AGE_P99_MS, snapshot.ageMillisAtPercentile(now, 99));
+    systemCounters.set(CounterType.MEMPOOL_AGE_MAX_MS, snapshot.ageMillisAtPercentile(now, 100));
+  }
+
   @Override
   public void commit(VerifiedTxnsAndProof txnsAndProof, VerifiedVertexStoreState vertexStoreState) {
     synchronized (lock) {
@@ -408,7 +557,8 @@ public final class RadixEngineStateComputer implements StateComputer {
       // TODO: refactor mempool to be less generic and make this more efficient
       // TODO: Move this into engine
       var removed = this.mempool.committed(txCommitted);
-      systemCounters.set(CounterType.MEMPOOL_CURRENT_SIZE, mempool.getCount());
+      systemCounters.add(CounterType.MEMPOOL_CONFLICT_EVICTED_TXNS, removed.size());
+      updateMempoolMetrics();
       if (!removed.isEmpty()) {
         var atomsRemovedFromMempool = TxnsRemovedFromMempool.create(removed);
         mempoolAtomsRemovedEventDispatcher.dispatch(atomsRemovedFromMempool);
@@ -451,7 +601,8 @@ public final class RadixEngineStateComputer implements StateComputer {
       var outputBuilder = ImmutableClassToInstanceMap.builder();
       epochChangeOptional.ifPresent(
           e -> {
-            this.proposerElection = e.getBFTConfiguration().getProposerElection();
+            this.proposerElection =
+                new WeightedRotatingLeaders(e.getBFTConfiguration().getValidatorSet());
             outputBuilder.put(EpochChange.class, e);
           });
       outputBuilder.put(REOutput.class, REOutput.create(txCommitted));
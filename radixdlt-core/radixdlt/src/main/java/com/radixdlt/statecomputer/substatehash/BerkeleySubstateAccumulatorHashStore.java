@@ -89,12 +89,15 @@ import com.radixdlt.utils.Pair;
 import com.sleepycat.je.*;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.LongStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
 
 public class BerkeleySubstateAccumulatorHashStore implements BerkeleyAdditionalStore {
@@ -119,6 +122,8 @@ public class BerkeleySubstateAccumulatorHashStore implements BerkeleyAdditionalS
 
   private static final String EPOCH_HASH_FILE_SEPARATOR = "=";
 
+  private static final long EPOCH_VERIFICATION_RANGE_SIZE = 1000L;
+
   private static final byte[] LAST_EPOCH_VERIFIED_KEY =
       "last_epoch_verified".getBytes(StandardCharsets.UTF_8);
 
@@ -138,6 +143,7 @@ public class BerkeleySubstateAccumulatorHashStore implements BerkeleyAdditionalS
   private final Stopwatch timeSpentOnSubstateAccumulatorThisEpoch = Stopwatch.createUnstarted();
 
   private final Provider<RadixEngine<LedgerAndBFTProof>> radixEngineProvider;
+  private SubstateAccumulatorHasher hasher;
 
   private Writer epochsHashFileWriter;
   private BufferedReader epochsHashFileBufferedReader;
@@ -187,8 +193,9 @@ public class BerkeleySubstateAccumulatorHashStore implements BerkeleyAdditionalS
       this.epochsHashFileWriter = openEpochsHashFileAsAppend();
     } else if (isVerifyEpochHashEnabled) {
       try {
-        this.epochsHashFileBufferedReader = openEpochsHashFileAsRead();
         this.lastEpochHashVerified = getLastEpochHashVerified();
+        verifyStoredEpochHashes();
+        this.epochsHashFileBufferedReader = openEpochsHashFileAsRead();
         moveFileReaderToLastEpochVerified(
             this.epochsHashFileBufferedReader, this.lastEpochHashVerified);
       } catch (IOException e) {
@@ -229,6 +236,12 @@ public class BerkeleySubstateAccumulatorHashStore implements BerkeleyAdditionalS
     }
   }
 
+  @Override
+  public boolean isSynchronous() {
+    // Epoch hash verification must halt the node before the offending state is acted upon
+    return true;
+  }
+
   @Override
   public void process(
       Transaction dbTxn,
@@ -242,19 +255,19 @@ public class BerkeleySubstateAccumulatorHashStore implements BerkeleyAdditionalS
     var isEpochChange = false;
     Long currentEpoch = null;
     Long nextEpoch;
-    var substateBytes = new byte[0];
-    for (REStateUpdate reStateUpdate : txn.stateUpdates().toList()) {
-      substateBytes = Arrays.concatenate(substateBytes, getBytes(reStateUpdate));
-      if (reStateUpdate.getParsed() instanceof EpochData epochData) {
-        nextEpoch = epochData.epoch();
-        currentEpoch = nextEpoch - 1;
-        isEpochChange = true;
+    var hasher = getHasher().reset(this.currentSubstateAccumulatorHash);
+    for (var stateUpdates : txn.getGroupedStateUpdates()) {
+      for (var reStateUpdate : stateUpdates) {
+        hasher.update(reStateUpdate);
+        if (reStateUpdate.getParsed() instanceof EpochData epochData) {
+          nextEpoch = epochData.epoch();
+          currentEpoch = nextEpoch - 1;
+          isEpochChange = true;
+        }
       }
     }
 
-    this.currentSubstateAccumulatorHash =
-        HashUtils.sha256(Arrays.concatenate(this.currentSubstateAccumulatorHash, substateBytes))
-            .asBytes();
+    this.currentSubstateAccumulatorHash = hasher.digest();
     persistCurrentSubstateAccumulatorHash(dbTxn, this.lastStateVersionInDbOpt, stateVersion);
     this.lastStateVersionInDbOpt = Optional.of(stateVersion);
 
@@ -283,6 +296,73 @@ public class BerkeleySubstateAccumulatorHashStore implements BerkeleyAdditionalS
     }
   }
 
+  /* Epochs which were processed while verification was not enabled (e.g. to sync faster) are
+  checked against the epoch hash file when the store is opened, in parallel per range of epochs. */
+  private void verifyStoredEpochHashes() throws IOException {
+    var fromEpoch = this.lastEpochHashVerified.map(it -> it + 1).orElse(0L);
+    var toEpoch = Math.min(this.lastEpochInDbOpt.orElse(-1L), this.lastEpochInFileOpt.orElse(-1L));
+    if (toEpoch < fromEpoch) {
+      return;
+    }
+
+    var stopwatch = Stopwatch.createStarted();
+    var hashesInFile = readEpochHashesInFile(fromEpoch, toEpoch);
+    var ranges = (toEpoch - fromEpoch) / EPOCH_VERIFICATION_RANGE_SIZE + 1;
+    LongStream.range(0, ranges)
+        .parallel()
+        .forEach(
+            range -> {
+              var rangeStart = fromEpoch + range * EPOCH_VERIFICATION_RANGE_SIZE;
+              var rangeEnd = Math.min(rangeStart + EPOCH_VERIFICATION_RANGE_SIZE - 1, toEpoch);
+              verifyStoredEpochHashes(rangeStart, rangeEnd, hashesInFile);
+            });
+
+    persistLastEpochHashVerified(null, toEpoch);
+    this.lastEpochHashVerified = Optional.of(toEpoch);
+    logger.info(
+        "Verified stored epoch hashes for epochs {} to {} in {} ms.",
+        fromEpoch,
+        toEpoch,
+        stopwatch.elapsed().toMillis());
+  }
+
+  private void verifyStoredEpochHashes(
+      long fromEpoch, long toEpoch, Map<Long, String> hashesInFile) {
+    for (var epoch = fromEpoch; epoch <= toEpoch; epoch++) {
+      var storedHash = new DatabaseEntry();
+      var status =
+          this.epochHashDatabase.get(
+              null, new DatabaseEntry(Longs.toByteArray(epoch)), storedHash, null);
+      if (status != OperationStatus.SUCCESS) {
+        // Epochs before the store was enabled
+        continue;
+      }
+      var hashInFile = hashesInFile.get(epoch);
+      if (hashInFile == null || !Arrays.equals(Hex.decode(hashInFile), storedHash.getData())) {
+        throw new IllegalStateException(
+            String.format(
+                "The stored hash %s for epoch %s does not match the hash in the file %s.",
+                Hex.toHexString(storedHash.getData()), epoch, hashInFile));
+      }
+    }
+  }
+
+  private Map<Long, String> readEpochHashesInFile(long fromEpoch, long toEpoch)
+      throws IOException {
+    var hashes = new HashMap<Long, String>();
+    try (BufferedReader bufferedReader = openEpochsHashFileAsRead()) {
+      String line;
+      while (!Strings.isNullOrEmpty((line = bufferedReader.readLine()))) {
+        var epochAndHash = line.split(EPOCH_HASH_FILE_SEPARATOR);
+        var epoch = Long.parseLong(epochAndHash[0]);
+        if (epoch >= fromEpoch && epoch <= toEpoch) {
+          hashes.put(epoch, epochAndHash[1]);
+        }
+      }
+    }
+    return hashes;
+  }
+
   private boolean isLastEpochInFileGreaterThanLastEpochHashVerified() {
     return this.lastEpochInFileOpt.orElseGet(
             () -> {
@@ -381,7 +461,7 @@ public class BerkeleySubstateAccumulatorHashStore implements BerkeleyAdditionalS
                   + " please clean the ledger and start again.",
               currentEpochAndHashInFile.getFirst(), currentEpoch));
     }
-    if (!java.util.Arrays.equals(
+    if (!Arrays.equals(
         Hex.decode(currentEpochAndHashInFile.getSecond()), currentSubstateAccumulatorHash)) {
       throw new IllegalStateException(
           String.format(
@@ -432,22 +512,13 @@ public class BerkeleySubstateAccumulatorHashStore implements BerkeleyAdditionalS
         : Optional.of(Longs.fromByteArray(data.getData()));
   }
 
-  private byte[] getBytes(REStateUpdate reStateUpdate) {
-    var op = reStateUpdate.isBootUp() ? new byte[] {0} : new byte[] {1};
-    var id = reStateUpdate.getId() != null ? reStateUpdate.getId().asBytes() : new byte[0];
-    var type = new byte[] {reStateUpdate.typeByte()};
-    var parsed = getBytes(reStateUpdate.getParsed());
-    var stateBuf = reStateUpdate.getRawSubstateBytes().getData();
-    var instructionIndex = new byte[] {(byte) reStateUpdate.getInstructionIndex()};
-    return Arrays.concatenate(Arrays.concatenate(op, id, type, parsed), stateBuf, instructionIndex);
-  }
-
-  private byte[] getBytes(Particle particle) {
-    return getSubstateSerializer().serialize(particle);
-  }
-
-  private SubstateSerialization getSubstateSerializer() {
-    return this.radixEngineProvider.get().getSubstateSerialization();
+  private SubstateAccumulatorHasher getHasher() {
+    // The engine is not available yet when the store is opened
+    if (this.hasher == null) {
+      this.hasher =
+          new SubstateAccumulatorHasher(this.radixEngineProvider.get().getSubstateSerialization());
+    }
+    return this.hasher;
   }
 
   /* When we are updating the epoch hash file (appending new epoch hashes), we must not have processed epochs greater
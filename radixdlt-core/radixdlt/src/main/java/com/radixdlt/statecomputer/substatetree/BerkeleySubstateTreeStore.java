@@ -0,0 +1,361 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.statecomputer.substatetree;
+
+import static com.google.common.primitives.UnsignedBytes.lexicographicalComparator;
+
+import com.google.common.hash.HashCode;
+import com.radixdlt.atom.SubstateId;
+import com.radixdlt.constraintmachine.REProcessedTxn;
+import com.radixdlt.constraintmachine.RawSubstateBytes;
+import com.radixdlt.constraintmachine.SystemMapKey;
+import com.radixdlt.store.DatabaseEnvironment;
+import com.radixdlt.store.berkeley.BerkeleyAdditionalStore;
+import com.radixdlt.store.berkeley.BerkeleyLedgerEntryStore;
+import com.radixdlt.utils.Longs;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Maintains a {@link SparseMerkleTree} over all substates which are up, keyed by {@link
+ * SubstateId}, so that the value or absence of a single substate can be proven against the root.
+ *
+ * <p>Virtual substates are not part of the tree, as they are implied by their parent until they
+ * are shut down, at which point a regular substate takes their place.
+ *
+ * <p>The tree is updated within the ledger commit, so that the root always matches the state read
+ * under the {@link com.radixdlt.engine.RadixEngine} lock. The upper levels of the tree, which are
+ * read on every update and every proof, are cached once the commit which wrote them is durable.
+ */
+public final class BerkeleySubstateTreeStore implements BerkeleyAdditionalStore {
+  private static final Logger logger = LogManager.getLogger();
+
+  public static final String SUBSTATE_TREE_ENABLE_PROPERTY_NAME = "db.substate_tree.enable";
+
+  // Positions above this depth are cached, there are at most 2^CACHED_DEPTH - 1 of them
+  private static final int CACHED_DEPTH = 12;
+  private static final int BOOTSTRAP_BATCH_SIZE = 10_000;
+
+  private static final String NODE_DB_NAME = "radix.substate_tree_nodes";
+  private static final String METADATA_DB_NAME = "radix.substate_tree_metadata";
+  private static final byte[] STATE_VERSION_KEY = "state_version".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] INITIALISED_KEY = "initialised".getBytes(StandardCharsets.UTF_8);
+
+  private Database nodeDatabase;
+  private Database metadataDatabase;
+  private Optional<Long> lastStateVersion;
+
+  private final Map<NodePosition, Optional<TreeNode>> cache = new HashMap<>();
+  // Cacheable nodes written by a transaction which may not have been committed yet
+  private final Map<NodePosition, Optional<TreeNode>> uncommitted = new HashMap<>();
+  private Transaction uncommittedTxn;
+
+  @Override
+  public synchronized void open(DatabaseEnvironment dbEnv) {
+    var env = dbEnv.getEnvironment();
+    this.nodeDatabase = openDatabase(env, NODE_DB_NAME);
+    this.metadataDatabase = openDatabase(env, METADATA_DB_NAME);
+    if (readMetadata(INITIALISED_KEY).isEmpty()) {
+      bootstrap(env);
+    }
+    this.lastStateVersion = readMetadata(STATE_VERSION_KEY).map(Longs::fromByteArray);
+  }
+
+  private Database openDatabase(Environment env, String databaseName) {
+    return env.openDatabase(
+        null,
+        databaseName,
+        new DatabaseConfig()
+            .setAllowCreate(true)
+            .setTransactional(true)
+            .setKeyPrefixing(true)
+            .setBtreeComparator(lexicographicalComparator()));
+  }
+
+  @Override
+  public synchronized void close() {
+    this.nodeDatabase.close();
+    this.metadataDatabase.close();
+  }
+
+  @Override
+  public boolean isSynchronous() {
+    // Proofs are served against the state read under the engine lock, so must never lag behind
+    return true;
+  }
+
+  @Override
+  public boolean supportsStateSnapshots() {
+    // The tree is rebuilt from the substates when opened without having been initialised
+    return true;
+  }
+
+  @Override
+  public void clearForStateSnapshot(Environment env) {
+    for (var databaseName : List.of(NODE_DB_NAME, METADATA_DB_NAME)) {
+      if (env.getDatabaseNames().contains(databaseName)) {
+        env.removeDatabase(null, databaseName);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void process(
+      Transaction dbTxn,
+      REProcessedTxn txn,
+      long stateVersion,
+      Function<SystemMapKey, Optional<RawSubstateBytes>> mapper) {
+    settle(dbTxn);
+    if (lastStateVersion.isPresent() && lastStateVersion.get() != stateVersion - 1) {
+      throw new IllegalStateException(
+          String.format(
+              "The substate tree has got out of sync with the ledger (It is expected to be at %s,"
+                  + " but is at %s) - please clean the ledger and start again.",
+              stateVersion - 1, lastStateVersion.get()));
+    }
+
+    var updates = new HashMap<HashCode, Optional<HashCode>>();
+    txn.stateUpdates()
+        .filter(update -> !update.getId().isVirtual())
+        .forEach(
+            update ->
+                updates.put(
+                    SparseMerkleTree.key(update.getId()),
+                    update.isBootUp()
+                        ? Optional.of(
+                            SparseMerkleTree.valueHash(update.getRawSubstateBytes().getData()))
+                        : Optional.empty()));
+    apply(dbTxn, updates);
+
+    metadataDatabase.put(
+        dbTxn,
+        new DatabaseEntry(STATE_VERSION_KEY),
+        new DatabaseEntry(Longs.toByteArray(stateVersion)));
+    this.lastStateVersion = Optional.of(stateVersion);
+  }
+
+  /** Returns the root of the tree as of the last committed ledger transaction. */
+  public synchronized HashCode getRoot() {
+    settle(null);
+    return new SparseMerkleTree(position -> read(null, position)).getRoot();
+  }
+
+  /**
+   * Returns a proof of the current value of a substate, or of its absence if it is not up.
+   *
+   * @param substateId the substate to prove
+   * @return a proof against {@link #getRoot()}
+   */
+  public synchronized SparseMerkleProof prove(SubstateId substateId) {
+    settle(null);
+    return new SparseMerkleTree(position -> read(null, position))
+        .prove(SparseMerkleTree.key(substateId));
+  }
+
+  private void apply(Transaction dbTxn, Map<HashCode, Optional<HashCode>> updates) {
+    var changes = new SparseMerkleTree(position -> read(dbTxn, position)).update(updates);
+    changes.forEach(
+        (position, node) -> {
+          var key = new DatabaseEntry(position.asBytes());
+          node.ifPresentOrElse(
+              n -> nodeDatabase.put(dbTxn, key, new DatabaseEntry(n.toBytes())),
+              () -> nodeDatabase.delete(dbTxn, key));
+          if (position.depth() < CACHED_DEPTH) {
+            uncommitted.put(position, node);
+          }
+        });
+  }
+
+  /**
+   * Moves the nodes written by the previous transaction into the cache once it has committed, or
+   * drops them if it was aborted. Reads outside of a transaction, i.e. with {@code current ==
+   * null}, only ever see committed nodes.
+   */
+  private void settle(Transaction current) {
+    if (uncommittedTxn != null && uncommittedTxn != current) {
+      switch (uncommittedTxn.getState()) {
+        case COMMITTED -> cache.putAll(uncommitted);
+        case ABORTED, MUST_ABORT -> this.lastStateVersion =
+            readMetadata(STATE_VERSION_KEY).map(Longs::fromByteArray);
+        default -> {
+          if (current != null) {
+            throw new IllegalStateException("Substate tree is already being updated");
+          }
+          return;
+        }
+      }
+      uncommitted.clear();
+      uncommittedTxn = null;
+    }
+    if (current != null) {
+      uncommittedTxn = current;
+    }
+  }
+
+  private Optional<TreeNode> read(Transaction dbTxn, NodePosition position) {
+    if (position.depth() >= CACHED_DEPTH) {
+      return readFromDatabase(dbTxn, position);
+    }
+    if (dbTxn != null && uncommitted.containsKey(position)) {
+      return uncommitted.get(position);
+    }
+    var cached = cache.get(position);
+    if (cached != null) {
+      return cached;
+    }
+    // Not written by the current transaction, so this is the committed node
+    var node = readFromDatabase(dbTxn, position);
+    cache.put(position, node);
+    return node;
+  }
+
+  private Optional<TreeNode> readFromDatabase(Transaction dbTxn, NodePosition position) {
+    var value = new DatabaseEntry();
+    var status = nodeDatabase.get(dbTxn, new DatabaseEntry(position.asBytes()), value, null);
+    return status == OperationStatus.SUCCESS
+        ? Optional.of(TreeNode.fromBytes(value.getData()))
+        : Optional.empty();
+  }
+
+  private Optional<byte[]> readMetadata(byte[] key) {
+    var value = new DatabaseEntry();
+    var status = metadataDatabase.get(null, new DatabaseEntry(key), value, null);
+    return status == OperationStatus.SUCCESS ? Optional.of(value.getData()) : Optional.empty();
+  }
+
+  /**
+   * Builds the tree from the substates which are already up, for a ledger which was started
+   * without the substate tree. The tree is written in batches, which is safe to resume as
+   * inserting a leaf which is already in the tree does not change it.
+   */
+  private void bootstrap(Environment env) {
+    var substatesDatabase =
+        env.openDatabase(
+            null,
+            BerkeleyLedgerEntryStore.SUBSTATE_DB_NAME,
+            new DatabaseConfig()
+                .setAllowCreate(true)
+                .setTransactional(true)
+                .setKeyPrefixing(true)
+                .setBtreeComparator(lexicographicalComparator()));
+    var count = 0L;
+    try (var cursor = substatesDatabase.openCursor(null, null)) {
+      var key = new DatabaseEntry();
+      var value = new DatabaseEntry();
+      var batch = new HashMap<HashCode, Optional<HashCode>>();
+      while (cursor.getNext(key, value, LockMode.READ_COMMITTED) == OperationStatus.SUCCESS) {
+        // Shut down virtual substates are stored without a value
+        if (value.getSize() == 0) {
+          continue;
+        }
+        var substateId = SubstateId.fromBytes(key.getData());
+        batch.put(
+            SparseMerkleTree.key(substateId),
+            Optional.of(SparseMerkleTree.valueHash(value.getData())));
+        if (batch.size() >= BOOTSTRAP_BATCH_SIZE) {
+          count += batch.size();
+          bootstrapBatch(env, batch, false);
+          batch.clear();
+        }
+      }
+      count += batch.size();
+      bootstrapBatch(env, batch, true);
+    } finally {
+      substatesDatabase.close();
+    }
+    logger.info("Built substate tree from {} existing substates", count);
+  }
+
+  private void bootstrapBatch(
+      Environment env, Map<HashCode, Optional<HashCode>> batch, boolean isLast) {
+    var dbTxn = env.beginTransaction(null, null);
+    try {
+      settle(dbTxn);
+      apply(dbTxn, batch);
+      if (isLast) {
+        metadataDatabase.put(
+            dbTxn, new DatabaseEntry(INITIALISED_KEY), new DatabaseEntry(new byte[] {1}));
+      }
+      dbTxn.commit();
+    } catch (RuntimeException e) {
+      dbTxn.abort();
+      throw e;
+    }
+    settle(null);
+  }
+}
@@ -0,0 +1,330 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.statecomputer.substatetree;
+
+import com.google.common.hash.HashCode;
+import com.radixdlt.SecurityCritical;
+import com.radixdlt.SecurityCritical.SecurityKind;
+import com.radixdlt.atom.SubstateId;
+import com.radixdlt.crypto.HashUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * A sparse Merkle tree over 256-bit keys, read through a function from {@link NodePosition} to
+ * the node stored there.
+ *
+ * <p>The tree is kept in canonical form: a subtree which holds a single leaf is replaced by that
+ * leaf, stored at the highest position on its path which is not shared with any other key. The
+ * root therefore only depends on the set of leaves, not on the order in which they were inserted,
+ * and a path is only as long as is needed to separate its key from its closest neighbour.
+ *
+ * <p>Updates do not write anything themselves, they return the nodes to put and delete so that the
+ * caller can write them all in one batch.
+ */
+@SecurityCritical(SecurityKind.HASHING)
+public final class SparseMerkleTree {
+  public static final int KEY_BYTES = 32;
+  public static final int KEY_BITS = KEY_BYTES * Byte.SIZE;
+
+  private final Function<NodePosition, Optional<TreeNode>> nodes;
+
+  public SparseMerkleTree(Function<NodePosition, Optional<TreeNode>> nodes) {
+    this.nodes = Objects.requireNonNull(nodes);
+  }
+
+  /** Returns the key of the leaf for a substate. */
+  public static HashCode key(SubstateId substateId) {
+    return HashUtils.sha256(substateId.asBytes());
+  }
+
+  /** Returns the value hash of the leaf for the serialized contents of a substate. */
+  public static HashCode valueHash(byte[] substate) {
+    return HashUtils.sha256(substate);
+  }
+
+  static int bit(byte[] key, int index) {
+    return (key[index >>> 3] >>> (7 - (index & 7))) & 1;
+  }
+
+  static int bit(HashCode key, int index) {
+    return bit(key.asBytes(), index);
+  }
+
+  public HashCode getRoot() {
+    return nodes.apply(NodePosition.root()).map(TreeNode::hash).orElse(HashUtils.zero256());
+  }
+
+  /**
+   * Computes the changes to the stored nodes which apply a batch of updates to the tree.
+   *
+   * @param updates the new value hash of each updated key, or empty if the key is removed.
+   *     Removing a key which is not in the tree is a no-op.
+   * @return the node to store at each changed position, or empty if the position is now empty
+   */
+  public Map<NodePosition, Optional<TreeNode>> update(Map<HashCode, Optional<HashCode>> updates) {
+    var changes = new HashMap<NodePosition, Optional<TreeNode>>();
+    if (updates.isEmpty()) {
+      return changes;
+    }
+
+    var root = NodePosition.root();
+    var result = update(root, nodes.apply(root), List.copyOf(updates.entrySet()), changes);
+    switch (result.kind) {
+      case EMPTY -> changes.put(root, Optional.empty());
+      case LEAF -> changes.put(root, Optional.of(result.leaf));
+      default -> {
+        // Internal nodes are written by the update itself
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Returns a proof of the leaf at {@code key}, if there is one, or otherwise of the absence of
+   * {@code key} from the tree.
+   *
+   * @param key the key to prove
+   * @return a proof against the current root
+   */
+  public SparseMerkleProof prove(HashCode key) {
+    var siblings = new ArrayList<HashCode>();
+    var position = NodePosition.root();
+    var node = nodes.apply(position);
+    while (node.isPresent() && !node.get().isLeaf()) {
+      var internal = node.get();
+      var bit = bit(key, position.depth());
+      siblings.add(bit == 0 ? internal.right() : internal.left());
+      position = position.child(bit);
+      node = load(position, bit == 0 ? internal.left() : internal.right());
+    }
+    return new SparseMerkleProof(key, siblings, node.orElse(null));
+  }
+
+  private Subtree update(
+      NodePosition position,
+      Optional<TreeNode> existing,
+      List<Map.Entry<HashCode, Optional<HashCode>>> updates,
+      Map<NodePosition, Optional<TreeNode>> changes) {
+    if (existing.isPresent() && !existing.get().isLeaf()) {
+      var node = existing.get();
+      var leftUpdates = new ArrayList<Map.Entry<HashCode, Optional<HashCode>>>();
+      var rightUpdates = new ArrayList<Map.Entry<HashCode, Optional<HashCode>>>();
+      for (var update : updates) {
+        (bit(update.getKey(), position.depth()) == 0 ? leftUpdates : rightUpdates).add(update);
+      }
+
+      var leftPosition = position.child(0);
+      var rightPosition = position.child(1);
+      var left =
+          leftUpdates.isEmpty()
+              ? Subtree.unchanged(node.left())
+              : update(leftPosition, load(leftPosition, node.left()), leftUpdates, changes);
+      var right =
+          rightUpdates.isEmpty()
+              ? Subtree.unchanged(node.right())
+              : update(rightPosition, load(rightPosition, node.right()), rightUpdates, changes);
+      return join(position, node, left, right, changes);
+    }
+
+    // The subtree holds at most one leaf, so it is simplest to rebuild it from its new leaves
+    var leaves = new HashMap<HashCode, HashCode>();
+    existing.ifPresent(leaf -> leaves.put(leaf.leafKey(), leaf.valueHash()));
+    for (var update : updates) {
+      update
+          .getValue()
+          .ifPresentOrElse(
+              valueHash -> leaves.put(update.getKey(), valueHash),
+              () -> leaves.remove(update.getKey()));
+    }
+    var leafNodes = leaves.entrySet().stream().map(e -> TreeNode.leaf(e.getKey(), e.getValue()));
+    return build(position, leafNodes.toList(), changes);
+  }
+
+  private Subtree build(
+      NodePosition position, List<TreeNode> leaves, Map<NodePosition, Optional<TreeNode>> changes) {
+    if (leaves.isEmpty()) {
+      return Subtree.EMPTY;
+    }
+    if (leaves.size() == 1) {
+      return Subtree.leaf(leaves.get(0));
+    }
+
+    var leftLeaves = new ArrayList<TreeNode>();
+    var rightLeaves = new ArrayList<TreeNode>();
+    for (var leaf : leaves) {
+      (bit(leaf.leafKey(), position.depth()) == 0 ? leftLeaves : rightLeaves).add(leaf);
+    }
+    var left = build(position.child(0), leftLeaves, changes);
+    var right = build(position.child(1), rightLeaves, changes);
+    return join(position, null, left, right, changes);
+  }
+
+  /**
+   * Combines the new left and right subtrees of {@code position}. If only a single leaf remains
+   * beneath {@code position} it is returned to be stored higher up, otherwise the internal node is
+   * written. A child position is deleted if it held a node before and is now empty.
+   */
+  private Subtree join(
+      NodePosition position,
+      TreeNode previous,
+      Subtree left,
+      Subtree right,
+      Map<NodePosition, Optional<TreeNode>> changes) {
+    var leftPosition = position.child(0);
+    var rightPosition = position.child(1);
+    var previousLeft = previous == null ? HashUtils.zero256() : previous.left();
+    var previousRight = previous == null ? HashUtils.zero256() : previous.right();
+
+    // An unchanged sibling of an empty subtree has to be moved up if it is a single leaf
+    if (right.kind == Kind.EMPTY && left.kind == Kind.UNCHANGED) {
+      left = resolve(leftPosition, left);
+    }
+    if (left.kind == Kind.EMPTY && right.kind == Kind.UNCHANGED) {
+      right = resolve(rightPosition, right);
+    }
+
+    var collapsed =
+        (left.kind == Kind.EMPTY && right.kind != Kind.INTERNAL)
+            || (right.kind == Kind.EMPTY && left.kind != Kind.INTERNAL);
+    if (collapsed) {
+      deleteIfPresent(leftPosition, previousLeft, changes);
+      deleteIfPresent(rightPosition, previousRight, changes);
+      return left.kind == Kind.EMPTY ? right : left;
+    }
+
+    writeChild(leftPosition, previousLeft, left, changes);
+    writeChild(rightPosition, previousRight, right, changes);
+    var node = TreeNode.internal(left.hash, right.hash);
+    changes.put(position, Optional.of(node));
+    return Subtree.internal(node.hash());
+  }
+
+  private Subtree resolve(NodePosition position, Subtree unchanged) {
+    var node = load(position, unchanged.hash).orElseThrow();
+    return node.isLeaf() ? Subtree.leaf(node) : Subtree.internal(unchanged.hash);
+  }
+
+  private static void writeChild(
+      NodePosition position,
+      HashCode previousHash,
+      Subtree subtree,
+      Map<NodePosition, Optional<TreeNode>> changes) {
+    switch (subtree.kind) {
+      case EMPTY -> deleteIfPresent(position, previousHash, changes);
+      case LEAF -> changes.put(position, Optional.of(subtree.leaf));
+      default -> {
+        // Unchanged, or an internal node which has already been written
+      }
+    }
+  }
+
+  private static void deleteIfPresent(
+      NodePosition position, HashCode previousHash, Map<NodePosition, Optional<TreeNode>> changes) {
+    if (!previousHash.equals(HashUtils.zero256())) {
+      changes.put(position, Optional.empty());
+    }
+  }
+
+  private Optional<TreeNode> load(NodePosition position, HashCode hash) {
+    if (hash.equals(HashUtils.zero256())) {
+      return Optional.empty();
+    }
+    var node = nodes.apply(position);
+    if (node.isEmpty()) {
+      throw new IllegalStateException("Missing sparse Merkle tree node at " + position);
+    }
+    return node;
+  }
+
+  private enum Kind {
+    EMPTY,
+    LEAF,
+    INTERNAL,
+    // Not touched by the update, may be a leaf or an internal node
+    UNCHANGED
+  }
+
+  private record Subtree(Kind kind, HashCode hash, TreeNode leaf) {
+    private static final Subtree EMPTY = new Subtree(Kind.EMPTY, HashUtils.zero256(), null);
+
+    private static Subtree leaf(TreeNode leaf) {
+      return new Subtree(Kind.LEAF, leaf.hash(), leaf);
+    }
+
+    private static Subtree internal(HashCode hash) {
+      return new Subtree(Kind.INTERNAL, hash, null);
+    }
+
+    private static Subtree unchanged(HashCode hash) {
+      return hash.equals(HashUtils.zero256()) ? EMPTY : new Subtree(Kind.UNCHANGED, hash, null);
+    }
+  }
+}
@@ -91,6 +91,15 @@ public final class DatabaseEnvironment {
   @Inject
   public DatabaseEnvironment(
       @DatabaseLocation String databaseLocation, @DatabaseCacheSize long cacheSize) {
+    this(databaseLocation, cacheSize, false);
+  }
+
+  /**
+   * @param readOptimised whether to tune the environment for a read mostly workload, as on a
+   *     read-only replica. Leaf nodes are kept in the cache and commits are not synced to disk, as
+   *     any commits lost on a crash are simply synced from the network again.
+   */
+  public DatabaseEnvironment(String databaseLocation, long cacheSize, boolean readOptimised) {
     var dbHome = new File(databaseLocation);
     dbHome.mkdir();
 
@@ -100,7 +109,8 @@ public final class DatabaseEnvironment {
     environmentConfig.setTransactional(true);
     environmentConfig.setAllowCreate(true);
     environmentConfig.setLockTimeout(30, TimeUnit.SECONDS);
-    environmentConfig.setDurability(Durability.COMMIT_SYNC);
+    environmentConfig.setDurability(
+        readOptimised ? Durability.COMMIT_WRITE_NO_SYNC : Durability.COMMIT_SYNC);
     environmentConfig.setConfigParam(LOG_FILE_CACHE_SIZE, "256");
     environmentConfig.setConfigParam(ENV_RUN_CHECKPOINTER, "true");
     environmentConfig.setConfigParam(ENV_RUN_CLEANER, "true");
@@ -108,11 +118,14 @@ public final class DatabaseEnvironment {
     environmentConfig.setConfigParam(ENV_RUN_VERIFIER, "false");
     environmentConfig.setConfigParam(TREE_MAX_EMBEDDED_LN, "0");
     environmentConfig.setCacheSize(cacheSize);
-    environmentConfig.setCacheMode(CacheMode.EVICT_LN);
+    environmentConfig.setCacheMode(readOptimised ? CacheMode.DEFAULT : CacheMode.EVICT_LN);
 
     environment = new Environment(dbHome, environmentConfig);
 
     log.info("DB cache size set to {} ({} bytes)", toHumanReadable(cacheSize), cacheSize);
+    if (readOptimised) {
+      log.info("DB environment tuned for reads");
+    }
   }
 
   public void stop() {
@@ -65,8 +65,11 @@
 package com.radixdlt.store;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.counters.SystemCounters.CounterType;
@@ -75,6 +78,7 @@ import com.radixdlt.environment.ProcessOnDispatch;
 import com.radixdlt.hotstuff.bft.BFTHighQCUpdate;
 import com.radixdlt.hotstuff.bft.BFTInsertUpdate;
 import com.radixdlt.hotstuff.bft.PersistentVertexStore;
+import com.radixdlt.hotstuff.safety.AsyncSafetyStateWriter;
 import com.radixdlt.hotstuff.safety.PersistentSafetyStateStore;
 import com.radixdlt.store.berkeley.BerkeleyLedgerEntryStore;
 import com.radixdlt.store.berkeley.BerkeleySafetyStateStore;
@@ -83,14 +87,76 @@ import java.util.Optional;
 
 /** Module which manages persistent storage */
 public class PersistenceModule extends AbstractModule {
+  private final boolean asyncSafetyStateWrites;
+  private final boolean readOptimisedDatabase;
+  private final boolean asyncIndexing;
+  private final long bulkLoadDistance;
+
+  public PersistenceModule() {
+    this(false, false, false, 0L);
+  }
+
+  /**
+   * @param asyncSafetyStateWrites whether safety state should be persisted on a dedicated writer
+   *     thread rather than synchronously on the consensus thread
+   * @param readOptimisedDatabase whether the database environment should be tuned for reads, see
+   *     {@link DatabaseEnvironment#DatabaseEnvironment(String, long, boolean)}
+   * @param asyncIndexing whether additional stores which are not consensus critical should be
+   *     updated off the ledger commit path, see {@link StoreConfig#isAsyncIndexing()}
+   * @param bulkLoadDistance how far behind the sync target the ledger must be for commits to be
+   *     bulk loaded, see {@link StoreConfig#getBulkLoadDistance()}
+   */
+  public PersistenceModule(
+      boolean asyncSafetyStateWrites,
+      boolean readOptimisedDatabase,
+      boolean asyncIndexing,
+      long bulkLoadDistance) {
+    this.asyncSafetyStateWrites = asyncSafetyStateWrites;
+    this.readOptimisedDatabase = readOptimisedDatabase;
+    this.asyncIndexing = asyncIndexing;
+    this.bulkLoadDistance = bulkLoadDistance;
+  }
+
   @Override
   protected void configure() {
     // TODO: should be singletons?
     bind(ResourceStore.class).to(BerkeleyLedgerEntryStore.class).in(Scopes.SINGLETON);
     bind(PersistentVertexStore.class).to(BerkeleyLedgerEntryStore.class);
-    bind(PersistentSafetyStateStore.class).to(BerkeleySafetyStateStore.class);
     bind(BerkeleySafetyStateStore.class).in(Scopes.SINGLETON);
-    bind(DatabaseEnvironment.class).in(Scopes.SINGLETON);
+    if (readOptimisedDatabase) {
+      bind(DatabaseEnvironment.class)
+          .toProvider(ReadOptimisedDatabaseEnvironmentProvider.class)
+          .in(Scopes.SINGLETON);
+    } else {
+      bind(DatabaseEnvironment.class).in(Scopes.SINGLETON);
+    }
+  }
+
+  static final class ReadOptimisedDatabaseEnvironmentProvider
+      implements Provider<DatabaseEnvironment> {
+    private final String databaseLocation;
+    private final long cacheSize;
+
+    @Inject
+    ReadOptimisedDatabaseEnvironmentProvider(
+        @DatabaseLocation String databaseLocation, @DatabaseCacheSize long cacheSize) {
+      this.databaseLocation = databaseLocation;
+      this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public DatabaseEnvironment get() {
+      return new DatabaseEnvironment(databaseLocation, cacheSize, true);
+    }
+  }
+
+  @Provides
+  @Singleton
+  PersistentSafetyStateStore safetyStateStore(
+      BerkeleySafetyStateStore berkeleySafetyStateStore, SystemCounters systemCounters) {
+    return asyncSafetyStateWrites
+        ? new AsyncSafetyStateWriter(berkeleySafetyStateStore, systemCounters)
+        : berkeleySafetyStateStore;
   }
 
   @Provides
@@ -100,7 +166,7 @@ public class PersistenceModule extends AbstractModule {
 
   @Provides
   StoreConfig storeConfig() {
-    return new StoreConfig(1000);
+    return new StoreConfig(1000, asyncIndexing, bulkLoadDistance);
   }
 
   @ProvidesIntoSet
@@ -67,15 +67,57 @@ package com.radixdlt.store;
 /** Specifies high level configuration options for persistent storage */
 public final class StoreConfig {
   private final int minimumProofBlockSize;
+  private final boolean asyncIndexing;
+  private final long bulkLoadDistance;
 
   public StoreConfig(int minimumProofBlockSize) {
+    this(minimumProofBlockSize, false);
+  }
+
+  /**
+   * @param minimumProofBlockSize minimum number of transactions between stored proofs
+   * @param asyncIndexing whether additional stores which are not synchronous should be updated
+   *     off the commit path, see {@link
+   *     com.radixdlt.store.berkeley.BerkeleyAdditionalStore#isSynchronous()}
+   */
+  public StoreConfig(int minimumProofBlockSize, boolean asyncIndexing) {
+    this(minimumProofBlockSize, asyncIndexing, 0L);
+  }
+
+  /**
+   * @param minimumProofBlockSize minimum number of transactions between stored proofs
+   * @param asyncIndexing whether additional stores which are not synchronous should be updated
+   *     off the commit path, see {@link
+   *     com.radixdlt.store.berkeley.BerkeleyAdditionalStore#isSynchronous()}
+   * @param bulkLoadDistance the number of state versions the ledger must be behind the sync
+   *     target by for commits to be bulk loaded, see {@link #getBulkLoadDistance()}
+   */
+  public StoreConfig(int minimumProofBlockSize, boolean asyncIndexing, long bulkLoadDistance) {
     if (minimumProofBlockSize < 1) {
       throw new IllegalArgumentException("Proof block size must be >= 1.");
     }
+    if (bulkLoadDistance < 0) {
+      throw new IllegalArgumentException("Bulk load distance must be >= 0.");
+    }
     this.minimumProofBlockSize = minimumProofBlockSize;
+    this.asyncIndexing = asyncIndexing;
+    this.bulkLoadDistance = bulkLoadDistance;
   }
 
   public int getMinimumProofBlockSize() {
     return minimumProofBlockSize;
   }
+
+  public boolean isAsyncIndexing() {
+    return asyncIndexing;
+  }
+
+  /**
+   * While the ledger is further than this many state versions behind the sync target, commits
+   * are not synced to disk, other than those of epoch proofs. Any commits lost on a crash are
+   * synced from the network again. Zero disables bulk loading.
+   */
+  public long getBulkLoadDistance() {
+    return bulkLoadDistance;
+  }
 }
@@ -68,6 +68,7 @@ import com.radixdlt.constraintmachine.REProcessedTxn;
 import com.radixdlt.constraintmachine.RawSubstateBytes;
 import com.radixdlt.constraintmachine.SystemMapKey;
 import com.radixdlt.store.DatabaseEnvironment;
+import com.sleepycat.je.Environment;
 import com.sleepycat.je.Transaction;
 import java.util.Optional;
 import java.util.function.Function;
@@ -82,6 +83,40 @@ public interface BerkeleyAdditionalStore {
 
   void close();
 
+  /**
+   * Whether this store must be updated within the same database transaction as the ledger commit.
+   * Stores which are not synchronous may be updated by {@link BerkeleyAdditionalStoreIndexer} some
+   * time after the commit, in which case {@code process} receives the indexer's transaction and a
+   * {@code mapper} which reads the latest committed state rather than the state as of {@code
+   * stateVersion}. Stores which depend on the {@code mapper} must therefore be synchronous.
+   *
+   * @return {@code true} if the store is consensus critical and must not lag behind the ledger
+   */
+  default boolean isSynchronous() {
+    return false;
+  }
+
+  /**
+   * Whether this store can be rebuilt from the ledger state alone, so that a node running it can be
+   * bootstrapped from a state snapshot, which does not carry any transaction history.
+   *
+   * @return {@code true} if {@link #clearForStateSnapshot} is supported
+   */
+  default boolean supportsStateSnapshots() {
+    return false;
+  }
+
+  /**
+   * Removes the contents of this store before a state snapshot is applied to the ledger. Called
+   * before {@link #open}, which must then rebuild the store from the snapshot state.
+   *
+   * <p>Only called on stores which {@link #supportsStateSnapshots() support state snapshots}: a
+   * node with any other store enabled neither stages nor applies a snapshot.
+   */
+  default void clearForStateSnapshot(Environment env) {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot be cleared");
+  }
+
   void process(
       Transaction dbTxn,
       REProcessedTxn txn,
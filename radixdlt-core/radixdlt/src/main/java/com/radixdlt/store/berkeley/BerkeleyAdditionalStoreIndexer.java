@@ -0,0 +1,519 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+package com.radixdlt.store.berkeley;
+
+import static com.google.common.primitives.UnsignedBytes.lexicographicalComparator;
+import static com.sleepycat.je.OperationStatus.SUCCESS;
+
+import com.radixdlt.atom.Txn;
+import com.radixdlt.constraintmachine.REProcessedTxn;
+import com.radixdlt.constraintmachine.RawSubstateBytes;
+import com.radixdlt.constraintmachine.SystemMapKey;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.store.DatabaseEnvironment;
+import com.radixdlt.utils.Longs;
+import com.radixdlt.utils.Pair;
+import com.radixdlt.utils.ThreadFactories;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Transaction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Updates the {@link BerkeleyAdditionalStore}s which are not {@link
+ * BerkeleyAdditionalStore#isSynchronous() synchronous} on a dedicated thread, so that indexing for
+ * the APIs does not add to the latency of every ledger commit.
+ *
+ * <p>The state updates of every committed transaction are written to a journal within the ledger
+ * commit, as they cannot be rebuilt from the transaction log once the substates they shut down have
+ * been deleted. Committed transactions are also handed over in memory once the ledger transaction
+ * has committed, and are processed in batches. Each batch is written in a single database
+ * transaction together with the checkpoint of every store, i.e. the last state version it has
+ * processed, and the removal of the batch from the journal, so a store is never partially updated.
+ *
+ * <p>Whatever is not available in memory, because the node restarted, the hand over queue was full
+ * or a batch failed, is replayed from the journal. Failed batches are retried with a backoff,
+ * during which the stores are reported as unavailable rather than silently serving stale data.
+ * Only a store which needs versions that are no longer in the journal is given up on.
+ *
+ * <p>Stores are given a {@code mapper} which reads the latest committed state rather than the state
+ * as of the transaction being indexed, so only stores which do not depend on the mapper may be
+ * indexed asynchronously.
+ */
+final class BerkeleyAdditionalStoreIndexer {
+  private static final Logger log = LogManager.getLogger();
+
+  static final String CHECKPOINT_DB_NAME = "radix.additional_store_checkpoints";
+  static final String JOURNAL_DB_NAME = "radix.additional_store_journal";
+  private static final int MAX_BATCH_SIZE = 1000;
+  private static final int MAX_PENDING_TXNS = 10_000;
+  private static final long POLL_INTERVAL_MS = 100L;
+  private static final long MIN_RETRY_DELAY_MS = 100L;
+  private static final long MAX_RETRY_DELAY_MS = 30_000L;
+
+  /** Encodes processed transactions for the journal and rebuilds them from it. */
+  interface JournalCodec {
+    byte[] encode(REProcessedTxn txn);
+
+    REProcessedTxn decode(Txn txn, byte[] journalEntry);
+  }
+
+  private final DatabaseEnvironment dbEnv;
+  private final SystemCounters systemCounters;
+  private final List<BerkeleyAdditionalStore> stores;
+  private final Function<SystemMapKey, Optional<RawSubstateBytes>> committedStateReader;
+  private final JournalCodec journalCodec;
+  private final LongFunction<Optional<Txn>> committedTxnReader;
+  private final BlockingDeque<Pair<Long, REProcessedTxn>> pending =
+      new LinkedBlockingDeque<>(MAX_PENDING_TXNS);
+  private final ExecutorService executor;
+
+  // Only updated by the indexer thread once open
+  private final Map<BerkeleyAdditionalStore, Long> checkpoints = new HashMap<>();
+  private final Set<BerkeleyAdditionalStore> givenUp = ConcurrentHashMap.newKeySet();
+
+  private Database checkpointDatabase;
+  private Database journalDatabase;
+  private volatile long committedStateVersion;
+  private volatile long indexedStateVersion;
+  private volatile boolean closing;
+  private volatile boolean failing;
+
+  BerkeleyAdditionalStoreIndexer(
+      DatabaseEnvironment dbEnv,
+      SystemCounters systemCounters,
+      List<BerkeleyAdditionalStore> stores,
+      Function<SystemMapKey, Optional<RawSubstateBytes>> committedStateReader,
+      JournalCodec journalCodec,
+      LongFunction<Optional<Txn>> committedTxnReader) {
+    this.dbEnv = Objects.requireNonNull(dbEnv);
+    this.systemCounters = Objects.requireNonNull(systemCounters);
+    this.stores = new CopyOnWriteArrayList<>(stores);
+    this.committedStateReader = Objects.requireNonNull(committedStateReader);
+    this.journalCodec = Objects.requireNonNull(journalCodec);
+    this.committedTxnReader = Objects.requireNonNull(committedTxnReader);
+    this.executor =
+        Executors.newSingleThreadExecutor(ThreadFactories.daemonThreads("AdditionalStoreIndexer"));
+  }
+
+  /**
+   * Loads the checkpoints of the stores and starts indexing. Must be called after the stores have
+   * been opened. Stores which are behind the ledger are caught up from the journal by the indexer
+   * thread.
+   *
+   * @param ledgerStateVersion the state version of the last committed transaction
+   * @param synchronousStores the stores which are meant to be updated within the ledger commit
+   * @return those of {@code synchronousStores} which are still behind the ledger, as they were
+   *     previously indexed asynchronously. They remain with the indexer until they have caught up.
+   */
+  List<BerkeleyAdditionalStore> open(
+      long ledgerStateVersion, List<BerkeleyAdditionalStore> synchronousStores) {
+    checkpointDatabase = openDatabase(CHECKPOINT_DB_NAME);
+    journalDatabase = openDatabase(JOURNAL_DB_NAME);
+
+    var lagging = new ArrayList<BerkeleyAdditionalStore>();
+    for (var store : synchronousStores) {
+      var checkpoint = readCheckpoint(store);
+      if (checkpoint.isPresent() && checkpoint.get() < ledgerStateVersion) {
+        lagging.add(store);
+      } else {
+        // A store which has been switched back to synchronous updates no longer has a checkpoint
+        checkpointDatabase.delete(null, checkpointKey(store));
+      }
+    }
+    stores.addAll(lagging);
+
+    for (var store : stores) {
+      var checkpoint = readCheckpoint(store);
+      if (checkpoint.isEmpty()) {
+        // Stores without a checkpoint were previously updated within the ledger commit
+        checkpointDatabase.put(null, checkpointKey(store), checkpointEntry(ledgerStateVersion));
+        checkpoints.put(store, ledgerStateVersion);
+      } else if (checkpoint.get() > ledgerStateVersion) {
+        giveUp(store, checkpoint.get(), ledgerStateVersion);
+      } else {
+        if (checkpoint.get() < ledgerStateVersion) {
+          log.info(
+              "Additional store {} is at state version {}, catching up to {} from the journal",
+              store.getClass().getSimpleName(),
+              checkpoint.get(),
+              ledgerStateVersion);
+        }
+        checkpoints.put(store, checkpoint.get());
+      }
+    }
+    stores.removeAll(givenUp);
+
+    this.committedStateVersion = ledgerStateVersion;
+    this.indexedStateVersion = minCheckpoint().orElse(ledgerStateVersion);
+    removeJournalEntriesUpTo(indexedStateVersion);
+    updateCounters();
+
+    if (!stores.isEmpty()) {
+      executor.execute(this::run);
+    }
+
+    return lagging;
+  }
+
+  /**
+   * Whether the given store is being indexed and is not failing. A store which is available may
+   * still lag behind the ledger, but it is consistent up to its checkpoint.
+   */
+  boolean isAvailable(BerkeleyAdditionalStore store) {
+    return stores.contains(store) && !givenUp.contains(store) && !failing;
+  }
+
+  /**
+   * Writes the state updates of a transaction to the journal, within the ledger commit which
+   * stores the transaction.
+   */
+  void journal(Transaction dbTxn, long stateVersion, REProcessedTxn txn) {
+    if (stores.isEmpty()) {
+      return;
+    }
+    var status =
+        journalDatabase.put(
+            dbTxn, checkpointEntry(stateVersion), new DatabaseEntry(journalCodec.encode(txn)));
+    if (status != SUCCESS) {
+      throw new BerkeleyStoreException("Unable to journal state version " + stateVersion);
+    }
+  }
+
+  /**
+   * Hands over transactions which have just been committed to the ledger, in state version order.
+   * Never blocks: transactions which do not fit into the queue are replayed from the journal.
+   */
+  void committed(List<Pair<Long, REProcessedTxn>> txns) {
+    if (stores.isEmpty() || txns.isEmpty()) {
+      return;
+    }
+
+    this.committedStateVersion = txns.get(txns.size() - 1).getFirst();
+    for (var txn : txns) {
+      if (!pending.offer(txn)) {
+        break;
+      }
+    }
+    updateCounters();
+  }
+
+  /** Processes all remaining committed transactions and stops the indexer thread. */
+  void close() {
+    closing = true;
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        log.warn("Additional store indexer did not drain within a minute");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (checkpointDatabase != null) {
+      checkpointDatabase.close();
+    }
+    if (journalDatabase != null) {
+      journalDatabase.close();
+    }
+  }
+
+  private void run() {
+    var batch = new ArrayList<Pair<Long, REProcessedTxn>>(MAX_BATCH_SIZE);
+    var retryDelayMs = MIN_RETRY_DELAY_MS;
+    while (!stores.isEmpty()) {
+      try {
+        if (!nextBatch(batch)) {
+          if (closing && pending.isEmpty() && indexedStateVersion >= committedStateVersion) {
+            return;
+          }
+          continue;
+        }
+        processBatch(batch);
+        failing = false;
+        retryDelayMs = MIN_RETRY_DELAY_MS;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        failing = true;
+        systemCounters.increment(CounterType.PERSISTENCE_INDEXER_FAILURES);
+        if (closing) {
+          log.error("Unable to index committed transactions, will replay them on restart", e);
+          return;
+        }
+        log.error(
+            "Unable to index committed transactions, additional stores are unavailable until"
+                + " retried in {}ms",
+            retryDelayMs,
+            e);
+        // The failed batch and everything after it is replayed from the journal
+        pending.clear();
+        try {
+          Thread.sleep(retryDelayMs);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        retryDelayMs = Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Collects the next transactions to index, from the hand over queue if it continues from the
+   * last indexed state version and otherwise from the journal.
+   *
+   * @return {@code false} if there is nothing to index
+   */
+  private boolean nextBatch(List<Pair<Long, REProcessedTxn>> batch) throws InterruptedException {
+    var next = indexedStateVersion + 1;
+    var head = pending.peek();
+    while (head != null && head.getFirst() < next) {
+      pending.poll();
+      head = pending.peek();
+    }
+
+    if (head == null && next > committedStateVersion) {
+      head = pending.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      if (head == null) {
+        return false;
+      }
+      if (head.getFirst() != next) {
+        // Handed over after a gap, which is replayed first
+        pending.offerFirst(head);
+        return false;
+      }
+      batch.add(head);
+      next++;
+    } else if (head == null || head.getFirst() > next) {
+      // Not handed over, e.g. after a restart, a full queue or a failed batch
+      var last = Math.min(committedStateVersion, next + MAX_BATCH_SIZE - 1);
+      if (head != null) {
+        last = Math.min(last, head.getFirst() - 1);
+      }
+      replay(next, last, batch);
+      return !batch.isEmpty();
+    }
+
+    while (batch.size() < MAX_BATCH_SIZE
+        && (head = pending.peek()) != null
+        && head.getFirst() == next) {
+      batch.add(pending.poll());
+      next++;
+    }
+    return true;
+  }
+
+  private void replay(long from, long to, List<Pair<Long, REProcessedTxn>> batch) {
+    var value = new DatabaseEntry();
+    for (long stateVersion = from; stateVersion <= to; stateVersion++) {
+      var txn = committedTxnReader.apply(stateVersion);
+      if (txn.isEmpty()
+          || journalDatabase.get(null, checkpointEntry(stateVersion), value, null) != SUCCESS) {
+        giveUpUpTo(stateVersion);
+        batch.clear();
+        return;
+      }
+      batch.add(Pair.of(stateVersion, journalCodec.decode(txn.get(), value.getData())));
+    }
+    systemCounters.add(CounterType.PERSISTENCE_INDEXER_REPLAYED_TXNS, batch.size());
+  }
+
+  /** Gives up on the stores which need a state version which is no longer journaled. */
+  private void giveUpUpTo(long missingStateVersion) {
+    for (var store : List.copyOf(stores)) {
+      var checkpoint = checkpoints.get(store);
+      if (checkpoint < missingStateVersion) {
+        giveUp(store, checkpoint, missingStateVersion);
+        stores.remove(store);
+        checkpoints.remove(store);
+      }
+    }
+    this.indexedStateVersion = minCheckpoint().orElse(committedStateVersion);
+    updateCounters();
+  }
+
+  private void giveUp(BerkeleyAdditionalStore store, long checkpoint, long stateVersion) {
+    log.error(
+        "Additional store {} is at state version {} but state version {} is not available, it will"
+            + " no longer be updated. Its databases must be rebuilt from a ledger sync.",
+        store.getClass().getSimpleName(),
+        checkpoint,
+        stateVersion);
+    givenUp.add(store);
+  }
+
+  private void processBatch(List<Pair<Long, REProcessedTxn>> batch) {
+    var lastStateVersion = batch.get(batch.size() - 1).getFirst();
+    var dbTxn = dbEnv.getEnvironment().beginTransaction(null, null);
+    try {
+      for (var txn : batch) {
+        for (var store : stores) {
+          if (txn.getFirst() > checkpoints.get(store)) {
+            store.process(dbTxn, txn.getSecond(), txn.getFirst(), committedStateReader);
+          }
+        }
+      }
+      var checkpoint = checkpointEntry(lastStateVersion);
+      for (var store : stores) {
+        if (lastStateVersion > checkpoints.get(store)) {
+          checkpointDatabase.put(dbTxn, checkpointKey(store), checkpoint);
+        }
+      }
+      for (var txn : batch) {
+        journalDatabase.delete(dbTxn, checkpointEntry(txn.getFirst()));
+      }
+      dbTxn.commit();
+    } catch (RuntimeException e) {
+      abort(dbTxn);
+      throw e;
+    }
+
+    stores.forEach(store -> checkpoints.merge(store, lastStateVersion, Math::max));
+    this.indexedStateVersion = minCheckpoint().orElse(lastStateVersion);
+    systemCounters.increment(CounterType.PERSISTENCE_INDEXER_BATCHES);
+    updateCounters();
+  }
+
+  private void removeJournalEntriesUpTo(long stateVersion) {
+    try (var cursor = journalDatabase.openCursor(null, null)) {
+      var key = new DatabaseEntry();
+      var value = new DatabaseEntry();
+      value.setPartial(0, 0, true);
+      while (cursor.getNext(key, value, null) == SUCCESS
+          && Longs.fromByteArray(key.getData()) <= stateVersion) {
+        cursor.delete();
+      }
+    }
+  }
+
+  private Optional<Long> minCheckpoint() {
+    return checkpoints.values().stream().min(Long::compare);
+  }
+
+  private Optional<Long> readCheckpoint(BerkeleyAdditionalStore store) {
+    var value = new DatabaseEntry();
+    if (checkpointDatabase.get(null, checkpointKey(store), value, null) != SUCCESS) {
+      return Optional.empty();
+    }
+    return Optional.of(Longs.fromByteArray(value.getData()));
+  }
+
+  private Database openDatabase(String name) {
+    return dbEnv
+        .getEnvironment()
+        .openDatabase(
+            null,
+            name,
+            new DatabaseConfig()
+                .setAllowCreate(true)
+                .setTransactional(true)
+                .setBtreeComparator(lexicographicalComparator()));
+  }
+
+  private static void abort(Transaction dbTxn) {
+    try {
+      dbTxn.abort();
+    } catch (RuntimeException e) {
+      log.warn("Unable to abort indexer transaction", e);
+    }
+  }
+
+  private void updateCounters() {
+    var indexed = this.indexedStateVersion;
+    systemCounters.set(CounterType.PERSISTENCE_INDEXER_STATE_VERSION, indexed);
+    systemCounters.set(
+        CounterType.PERSISTENCE_INDEXER_LAG, Math.max(0L, committedStateVersion - indexed));
+  }
+
+  private static DatabaseEntry checkpointEntry(long stateVersion) {
+    return new DatabaseEntry(Longs.toByteArray(stateVersion));
+  }
+
+  private static DatabaseEntry checkpointKey(BerkeleyAdditionalStore store) {
+    return new DatabaseEntry(store.getClass().getName().getBytes(StandardCharsets.UTF_8));
+  }
+}
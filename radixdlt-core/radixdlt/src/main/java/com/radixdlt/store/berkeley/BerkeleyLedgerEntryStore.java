@@ -78,6 +78,7 @@ import com.google.common.collect.Streams;
 import com.google.common.hash.HashCode;
 import com.google.common.primitives.Bytes;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.radixdlt.application.system.state.SystemData;
 import com.radixdlt.application.system.state.VirtualParent;
 import com.radixdlt.application.tokens.state.ResourceData;
@@ -97,7 +98,9 @@ import com.radixdlt.constraintmachine.exceptions.VirtualParentStateDoesNotExist;
 import com.radixdlt.constraintmachine.exceptions.VirtualSubstateAlreadyDownException;
 import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.counters.SystemCounters.LatencyType;
 import com.radixdlt.crypto.ECPublicKey;
+import com.radixdlt.engine.RadixEngine;
 import com.radixdlt.engine.RadixEngineException;
 import com.radixdlt.hotstuff.LedgerProof;
 import com.radixdlt.hotstuff.bft.PersistentVertexStore;
@@ -120,23 +123,31 @@ import com.radixdlt.store.ResourceStore;
 import com.radixdlt.store.StoreConfig;
 import com.radixdlt.store.berkeley.atom.AppendLog;
 import com.radixdlt.sync.CommittedReader;
+import com.radixdlt.sync.SyncTarget;
+import com.radixdlt.sync.snapshot.StagedStateSnapshot;
+import com.radixdlt.sync.snapshot.StateSnapshotChunks;
 import com.radixdlt.utils.Longs;
+import com.radixdlt.utils.Pair;
 import com.radixdlt.utils.Shorts;
 import com.radixdlt.utils.UInt256;
 import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
 import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Durability;
+import com.sleepycat.je.Environment;
 import com.sleepycat.je.Get;
 import com.sleepycat.je.OperationStatus;
 import com.sleepycat.je.SecondaryConfig;
 import com.sleepycat.je.SecondaryCursor;
 import com.sleepycat.je.SecondaryDatabase;
 import com.sleepycat.je.Transaction;
+import com.sleepycat.je.TransactionConfig;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -145,8 +156,12 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -161,12 +176,13 @@ public final class BerkeleyLedgerEntryStore
   private final Serialization serialization;
   private final DatabaseEnvironment dbEnv;
   private final SystemCounters systemCounters;
+  private final SyncTarget syncTarget;
   private final StoreConfig storeConfig;
 
   // Engine Store databases
-  private static final String SUBSTATE_DB_NAME = "radix.substate_db";
-  private static final String RESOURCE_DB_NAME = "radix.resource_db";
-  private static final String MAP_DB_NAME = "radix.map_db";
+  public static final String SUBSTATE_DB_NAME = "radix.substate_db";
+  static final String RESOURCE_DB_NAME = "radix.resource_db";
+  static final String MAP_DB_NAME = "radix.map_db";
   private static final String INDEXED_SUBSTATE_DB_NAME = "radix.indexed_substate_db";
   private Database substatesDatabase; // Write/Delete
   private SecondaryDatabase indexedSubstatesDatabase; // Write/Delete
@@ -176,8 +192,8 @@ public final class BerkeleyLedgerEntryStore
   // Metadata databases
   private static final String VERTEX_STORE_DB_NAME = "radix.vertex_store";
   private static final String TXN_DB_NAME = "radix.txn_db";
-  private static final String FORK_CONFIG_DB = "radix.fork_config_db";
-  private static final String FORKS_VOTING_RESULTS_DB = "radix.forks_voting_results";
+  static final String FORK_CONFIG_DB = "radix.fork_config_db";
+  static final String FORKS_VOTING_RESULTS_DB = "radix.forks_voting_results";
   // A constant prefix to make any storage format changes easier in the future
   private static final byte[] FORK_VOTING_RESULT_VERSION_PREFIX = {0x01};
 
@@ -194,7 +210,36 @@ public final class BerkeleyLedgerEntryStore
   private Database txnDatabase; // Txns by state version; Append-only
   private AppendLog txnLog; // Atom data append only log
 
+  // The state version of the state snapshot the ledger was started from, if any
+  private static final String SNAPSHOT_BASE_DB_NAME = "radix.snapshot_base";
+  private static final byte[] SNAPSHOT_BASE_VERSION_KEY = {0x00};
+  private Database snapshotBaseDatabase;
+  private long snapshotBaseVersion;
+
+  // The databases which are replaced when a state snapshot is applied
+  private static final Set<String> LEDGER_DATABASES =
+      Set.of(
+          TXN_DB_NAME,
+          RESOURCE_DB_NAME,
+          MAP_DB_NAME,
+          SUBSTATE_DB_NAME,
+          INDEXED_SUBSTATE_DB_NAME,
+          PROOF_DB_NAME,
+          EPOCH_PROOF_DB_NAME,
+          VERTEX_STORE_DB_NAME,
+          FORK_CONFIG_DB,
+          FORKS_VOTING_RESULTS_DB,
+          SNAPSHOT_BASE_DB_NAME,
+          BerkeleyAdditionalStoreIndexer.CHECKPOINT_DB_NAME,
+          BerkeleyAdditionalStoreIndexer.JOURNAL_DB_NAME);
+
+  // Whether commits are currently bulk loaded, see StoreConfig#getBulkLoadDistance
+  private volatile boolean bulkLoading;
+
   private final Set<BerkeleyAdditionalStore> additionalStores;
+  private final List<BerkeleyAdditionalStore> synchronousStores;
+  private final BerkeleyAdditionalStoreIndexer indexer;
+  private final List<Consumer<LedgerProof>> epochProofListeners = new CopyOnWriteArrayList<>();
 
   @Inject
   public BerkeleyLedgerEntryStore(
@@ -202,17 +247,63 @@ public final class BerkeleyLedgerEntryStore
       DatabaseEnvironment dbEnv,
       StoreConfig storeConfig,
       SystemCounters systemCounters,
-      Set<BerkeleyAdditionalStore> additionalStores) {
+      SyncTarget syncTarget,
+      Set<BerkeleyAdditionalStore> additionalStores,
+      Provider<RadixEngine<LedgerAndBFTProof>> radixEngineProvider) {
     this.serialization = Objects.requireNonNull(serialization);
     this.dbEnv = Objects.requireNonNull(dbEnv);
     this.systemCounters = Objects.requireNonNull(systemCounters);
+    this.syncTarget = Objects.requireNonNull(syncTarget);
     this.storeConfig = storeConfig;
     this.additionalStores = additionalStores;
+    var asyncIndexing = storeConfig.isAsyncIndexing();
+    this.synchronousStores =
+        additionalStores.stream()
+            .filter(s -> !asyncIndexing || s.isSynchronous())
+            .collect(Collectors.toCollection(ArrayList::new));
+    this.indexer =
+        new BerkeleyAdditionalStoreIndexer(
+            dbEnv,
+            systemCounters,
+            additionalStores.stream().filter(s -> asyncIndexing && !s.isSynchronous()).toList(),
+            k -> getInternal(null, k),
+            new ProcessedTxnJournalCodec(radixEngineProvider),
+            stateVersion -> getCommittedTxns(stateVersion - 1, 1).stream().findFirst());
 
     this.open();
   }
 
+  /**
+   * Whether the given additional store is up to date with the ledger, or is being indexed without
+   * failures, so that the data it serves is consistent up to the state version it has reached.
+   */
+  public boolean isAdditionalStoreAvailable(BerkeleyAdditionalStore store) {
+    return synchronousStores.contains(store) || indexer.isAvailable(store);
+  }
+
+  /**
+   * Adds a listener which is called with each epoch proof right after it has been committed, and
+   * before any further commit, so that it sees the ledger state exactly as of the end of the epoch.
+   * Listeners must return quickly, as they hold up commits, and must not throw.
+   */
+  public void addEpochProofListener(Consumer<LedgerProof> listener) {
+    epochProofListeners.add(listener);
+  }
+
   public void close() {
+    // Let the indexer catch up before any of the databases it writes to are closed
+    indexer.close();
+
+    closeDatabases();
+
+    additionalStores.forEach(BerkeleyAdditionalStore::close);
+
+    if (txnLog != null) {
+      txnLog.close();
+    }
+  }
+
+  private void closeDatabases() {
     safeClose(txnDatabase);
     safeClose(resourceDatabase);
     safeClose(mapDatabase);
@@ -229,11 +320,7 @@ public final class BerkeleyLedgerEntryStore
 
     safeClose(forksVotingResultsDatabase);
 
-    additionalStores.forEach(BerkeleyAdditionalStore::close);
-
-    if (txnLog != null) {
-      txnLog.close();
-    }
+    safeClose(snapshotBaseDatabase);
   }
 
   private Transaction createTransaction() {
@@ -246,19 +333,23 @@ public final class BerkeleyLedgerEntryStore
   @Override
   public <R> R transaction(TransactionEngineStoreConsumer<LedgerAndBFTProof, R> consumer)
       throws RadixEngineException {
+    var start = System.nanoTime();
     var dbTxn = createTransaction();
+    var committed = new ArrayList<Pair<Long, REProcessedTxn>>();
+    var storedProof = new AtomicReference<LedgerProof>();
     try {
       var result =
           consumer.start(
               new EngineStoreInTransaction<>() {
                 @Override
                 public void storeTxn(REProcessedTxn txn) {
-                  BerkeleyLedgerEntryStore.this.storeTxn(dbTxn, txn);
+                  BerkeleyLedgerEntryStore.this.storeTxn(dbTxn, txn, committed);
                 }
 
                 @Override
                 public void storeMetadata(LedgerAndBFTProof metadata) {
                   BerkeleyLedgerEntryStore.this.storeMetadata(dbTxn, metadata);
+                  storedProof.set(metadata.getProof());
                 }
 
                 @Override
@@ -299,7 +390,13 @@ public final class BerkeleyLedgerEntryStore
                   return BerkeleyLedgerEntryStore.this.loadAddr(dbTxn, addr);
                 }
               });
-      dbTxn.commit();
+      var proof = storedProof.get();
+      commit(dbTxn, proof);
+      systemCounters.recordLatency(LatencyType.BDB_LEDGER_WRITE, System.nanoTime() - start);
+      indexer.committed(committed);
+      if (proof != null && proof.isEndOfEpoch()) {
+        epochProofListeners.forEach(listener -> listener.accept(proof));
+      }
       return result;
     } catch (Exception e) {
       dbTxn.abort();
@@ -307,6 +404,42 @@ public final class BerkeleyLedgerEntryStore
     }
   }
 
+  /**
+   * Commits a ledger transaction, without waiting for it to be synced to disk while bulk loading.
+   * Epoch proofs are still committed with the default durability, which syncs every commit before
+   * them too, so a crash loses at most the current epoch.
+   */
+  private void commit(Transaction dbTxn, LedgerProof proof) {
+    if (proof != null && updateBulkLoading(proof) && !proof.isEndOfEpoch()) {
+      dbTxn.commit(Durability.COMMIT_WRITE_NO_SYNC);
+      systemCounters.increment(CounterType.COUNT_BDB_LEDGER_BULK_LOAD_COMMITS);
+    } else {
+      dbTxn.commit();
+    }
+  }
+
+  private boolean updateBulkLoading(LedgerProof proof) {
+    var distance = storeConfig.getBulkLoadDistance();
+    var targetVersion = syncTarget.stateVersion();
+    var bulkLoad = distance > 0 && targetVersion - proof.getStateVersion() > distance;
+    if (bulkLoad != bulkLoading) {
+      bulkLoading = bulkLoad;
+      if (bulkLoad) {
+        log.info(
+            "Ledger at version {} is far behind sync target {}, bulk loading commits",
+            proof.getStateVersion(),
+            targetVersion);
+      } else {
+        // This commit is synced, along with all the bulk loaded ones before it
+        log.info(
+            "Ledger at version {} is close to sync target {}, stopped bulk loading",
+            proof.getStateVersion(),
+            targetVersion);
+      }
+    }
+    return bulkLoad;
+  }
+
   @Override
   public LedgerAndBFTProof getMetadata() {
     return getLastProof().map(LedgerAndBFTProof::create).orElse(null);
@@ -335,9 +468,16 @@ public final class BerkeleyLedgerEntryStore
     return getInternal(null, mapKey);
   }
 
-  private void storeTxn(Transaction dbTxn, REProcessedTxn txn) {
+  /** Returns the contents of a substate if it is up, or empty if it is down or does not exist. */
+  public Optional<RawSubstateBytes> get(SubstateId substateId) {
+    return loadSubstate(null, substateId)
+        .map(buf -> new RawSubstateBytes(substateId.asBytes(), buf.array()));
+  }
+
+  private void storeTxn(
+      Transaction dbTxn, REProcessedTxn txn, List<Pair<Long, REProcessedTxn>> committed) {
     withTime(
-        () -> doStore(dbTxn, txn),
+        () -> doStore(dbTxn, txn, committed),
         CounterType.ELAPSED_BDB_LEDGER_STORE,
         CounterType.COUNT_BDB_LEDGER_STORE);
   }
@@ -600,15 +740,40 @@ public final class BerkeleyLedgerEntryStore
   }
 
   private void open() {
+    // This SuppressWarnings here is valid, as ownership of the underlying
+    // resource is not changed here, the resource is just accessed.
+    @SuppressWarnings("resource")
+    var env = dbEnv.getEnvironment();
+    openDatabases(env);
+
+    try {
+      txnLog =
+          AppendLog.openCompressed(
+              new File(env.getHome(), LEDGER_NAME).getAbsolutePath(), systemCounters);
+    } catch (Exception e) {
+      throw new BerkeleyStoreException("Error while opening databases", e);
+    }
+
+    StagedStateSnapshot.open(env.getHome().toPath(), serialization)
+        .ifPresent(snapshot -> applyStagedStateSnapshot(env, snapshot));
+
+    this.additionalStores.forEach(b -> b.open(dbEnv));
+    // Stores which were indexed asynchronously before are only updated synchronously once caught up
+    this.synchronousStores.removeAll(this.indexer.open(getLastStateVersion(), synchronousStores));
+
+    if (System.getProperty("db.check_integrity", "1").equals("1")) {
+      // TODO implement integrity check
+      // TODO perhaps we should implement recovery instead?
+      // TODO recovering should be integrated with recovering of ClientApiStore
+    }
+  }
+
+  private void openDatabases(Environment env) {
     var primaryConfig = buildPrimaryConfig();
     var rriConfig = buildRriConfig();
     var pendingConfig = buildPendingConfig();
 
     try {
-      // This SuppressWarnings here is valid, as ownership of the underlying
-      // resource is not changed here, the resource is just accessed.
-      @SuppressWarnings("resource")
-      var env = dbEnv.getEnvironment();
       txnDatabase = env.openDatabase(null, TXN_DB_NAME, primaryConfig);
 
       resourceDatabase = env.openDatabase(null, RESOURCE_DB_NAME, rriConfig);
@@ -740,20 +905,113 @@ public final class BerkeleyLedgerEntryStore
           env.openDatabase(
               null, FORKS_VOTING_RESULTS_DB, primaryConfig.clone().setSortedDuplicates(true));
 
-      txnLog =
-          AppendLog.openCompressed(
-              new File(env.getHome(), LEDGER_NAME).getAbsolutePath(), systemCounters);
+      snapshotBaseDatabase = env.openDatabase(null, SNAPSHOT_BASE_DB_NAME, primaryConfig);
+      var baseVersion = entry();
+      var status =
+          snapshotBaseDatabase.get(null, entry(SNAPSHOT_BASE_VERSION_KEY), baseVersion, DEFAULT);
+      this.snapshotBaseVersion =
+          status == SUCCESS ? Longs.fromByteArray(baseVersion.getData()) : 0L;
     } catch (Exception e) {
       throw new BerkeleyStoreException("Error while opening databases", e);
     }
+  }
 
-    this.additionalStores.forEach(b -> b.open(dbEnv));
+  /**
+   * Replaces the ledger with a state snapshot which has been downloaded and verified by {@link
+   * com.radixdlt.sync.snapshot.LocalStateSnapshotSync}. The ledger then starts from the epoch
+   * proof the snapshot was taken at, without any of the transactions or proofs before it.
+   *
+   * <p>The snapshot state is loaded one chunk per database transaction, without syncing each one
+   * to disk, and the epoch proof is only written once all of it has been flushed. If the node
+   * stops before that, the ledger is still empty the next time it starts, so the snapshot is
+   * simply applied again.
+   */
+  private void applyStagedStateSnapshot(Environment env, StagedStateSnapshot snapshot) {
+    var manifest = snapshot.getManifest();
+    if (!snapshot.isComplete()) {
+      log.info("State snapshot {} has not been fully downloaded yet", manifest);
+      return;
+    }
+    if (getLastStateVersion() >= manifest.getStateVersion()) {
+      log.info("Ledger is already past state snapshot {}, discarding it", manifest);
+      snapshot.delete();
+      return;
+    }
+    var unsupportedStores =
+        additionalStores.stream()
+            .filter(store -> !store.supportsStateSnapshots())
+            .map(store -> store.getClass().getSimpleName())
+            .toList();
+    if (!unsupportedStores.isEmpty()) {
+      log.warn(
+          "Not applying state snapshot {} as {} cannot be rebuilt from it",
+          manifest,
+          unsupportedStores);
+      return;
+    }
 
-    if (System.getProperty("db.check_integrity", "1").equals("1")) {
-      // TODO implement integrity check
-      // TODO perhaps we should implement recovery instead?
-      // TODO recovering should be integrated with recovering of ClientApiStore
+    // Chunks were verified when they were downloaded, this guards against them being damaged since
+    var chunkHashes = new ArrayList<HashCode>(manifest.getChunkCount());
+    for (int i = 0; i < manifest.getChunkCount(); i++) {
+      chunkHashes.add(StateSnapshotChunks.hash(snapshot.readChunk(i)));
+    }
+    if (!StateSnapshotChunks.root(chunkHashes).equals(manifest.getChunksRoot())) {
+      log.error("Staged state snapshot {} does not match its manifest, discarding it", manifest);
+      snapshot.delete();
+      return;
+    }
+
+    log.info("Applying state snapshot {}", manifest);
+    var stopwatch = Stopwatch.createStarted();
+    closeDatabases();
+    for (var databaseName : env.getDatabaseNames()) {
+      if (LEDGER_DATABASES.contains(databaseName)) {
+        env.removeDatabase(null, databaseName);
+      }
+    }
+    additionalStores.forEach(store -> store.clearForStateSnapshot(env));
+    txnLog.truncate(0);
+    openDatabases(env);
+
+    var databases =
+        List.of(
+            substatesDatabase,
+            resourceDatabase,
+            mapDatabase,
+            forkConfigDatabase,
+            forksVotingResultsDatabase);
+    var noSync = new TransactionConfig().setDurability(Durability.COMMIT_NO_SYNC);
+    for (int i = 0; i < manifest.getChunkCount(); i++) {
+      var dbTxn = env.beginTransaction(null, noSync);
+      try {
+        for (var e : StateSnapshotChunks.decode(snapshot.readChunk(i))) {
+          var database = databases.get(e.database());
+          failIfNotSuccess(
+              database.put(dbTxn, entry(e.key()), entry(e.value())), "Snapshot write to", database);
+        }
+        dbTxn.commit();
+      } catch (RuntimeException e) {
+        dbTxn.abort();
+        throw new BerkeleyStoreException("Unable to apply state snapshot chunk " + i, e);
+      }
     }
+    env.flushLog(true);
+
+    var dbTxn = beginTransaction();
+    var proof = snapshot.getEpochProof();
+    failIfNotSuccess(
+        proofDatabase.put(dbTxn, toHeaderKey(proof), entry(serialize(proof))),
+        "Epoch proof write",
+        proof);
+    var baseVersion = manifest.getStateVersion();
+    snapshotBaseDatabase.put(
+        dbTxn, entry(SNAPSHOT_BASE_VERSION_KEY), entry(Longs.toByteArray(baseVersion)));
+    dbTxn.commitSync();
+    this.snapshotBaseVersion = baseVersion;
+
+    snapshot.delete();
+    log.info(
+        "Applied state snapshot {} in {}s", manifest, stopwatch.elapsed(TimeUnit.SECONDS));
   }
 
   private SecondaryConfig buildEpochProofConfig() {
@@ -1059,7 +1317,8 @@ public final class BerkeleyLedgerEntryStore
     }
   }
 
-  private void doStore(Transaction dbTxn, REProcessedTxn txn) {
+  private void doStore(
+      Transaction dbTxn, REProcessedTxn txn, List<Pair<Long, REProcessedTxn>> committed) {
     final long stateVersion;
     final long expectedOffset;
     try (var cursor = txnDatabase.openCursor(dbTxn, null)) {
@@ -1067,7 +1326,8 @@ public final class BerkeleyLedgerEntryStore
       var data = entry();
       var status = cursor.getLast(key, data, DEFAULT);
       if (status == OperationStatus.NOTFOUND) {
-        stateVersion = 1;
+        // A ledger started from a state snapshot has no transactions up to the snapshot
+        stateVersion = snapshotBaseVersion + 1;
         expectedOffset = 0;
       } else {
         stateVersion = Longs.fromByteArray(key.getData()) + 1;
@@ -1117,8 +1377,10 @@ public final class BerkeleyLedgerEntryStore
         }
       }
 
-      additionalStores.forEach(
+      synchronousStores.forEach(
           b -> b.process(dbTxn, txn, stateVersion, k -> getInternal(dbTxn, k)));
+      indexer.journal(dbTxn, stateVersion, txn);
+      committed.add(Pair.of(stateVersion, txn));
 
     } catch (Exception e) {
       if (dbTxn != null) {
@@ -1144,6 +1406,10 @@ public final class BerkeleyLedgerEntryStore
   public VerifiedTxnsAndProof getNextCommittedTxns(DtoLedgerProof start) {
 
     long stateVersion = start.getLedgerHeader().getAccumulatorState().getStateVersion();
+    if (stateVersion < snapshotBaseVersion) {
+      // The transactions before the state snapshot the ledger was started from are not available
+      return null;
+    }
     final var startTime = System.nanoTime();
 
     com.sleepycat.je.Transaction txn = beginTransaction();
@@ -1188,7 +1454,18 @@ public final class BerkeleyLedgerEntryStore
     }
   }
 
+  private long getLastStateVersion() {
+    try (var cursor = txnDatabase.openCursor(null, null)) {
+      var key = entry();
+      var status = cursor.getLast(key, null, DEFAULT);
+      return status == SUCCESS ? Longs.fromByteArray(key.getData()) : snapshotBaseVersion;
+    }
+  }
+
   public List<Txn> getCommittedTxns(long stateVersion, long limit) {
+    if (stateVersion < snapshotBaseVersion) {
+      return List.of();
+    }
     try (var txnCursor = txnDatabase.openCursor(null, null)) {
       var iterator =
           new Iterator<Txn>() {
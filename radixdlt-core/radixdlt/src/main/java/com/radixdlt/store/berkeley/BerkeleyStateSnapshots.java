@@ -0,0 +1,180 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.store.berkeley;
+
+import static com.google.common.primitives.UnsignedBytes.lexicographicalComparator;
+
+import com.radixdlt.sync.snapshot.StateSnapshotChunks;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.EnvironmentConfig;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.util.DbBackup;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Reads and writes the ledger databases which make up a state snapshot. Only the ledger state is
+ * part of a snapshot: transactions, proofs other than epoch proofs, and the vertex store are not,
+ * and secondary databases are rebuilt from their primaries when the snapshot is loaded.
+ */
+public final class BerkeleyStateSnapshots {
+  /** The databases in a snapshot, where the position of a database is its id in the chunks. */
+  static final List<String> DATABASES =
+      List.of(
+          BerkeleyLedgerEntryStore.SUBSTATE_DB_NAME,
+          BerkeleyLedgerEntryStore.RESOURCE_DB_NAME,
+          BerkeleyLedgerEntryStore.MAP_DB_NAME,
+          BerkeleyLedgerEntryStore.FORK_CONFIG_DB,
+          BerkeleyLedgerEntryStore.FORKS_VOTING_RESULTS_DB);
+
+  private static final long EXPORT_CACHE_BYTES = 64L * 1024 * 1024;
+
+  private BerkeleyStateSnapshots() {
+    throw new IllegalStateException("Cannot instantiate.");
+  }
+
+  /**
+   * Fixes the set of log files which hold the current state of the environment, so that it can be
+   * copied without holding up further commits. Must be called while no commit is in progress, and
+   * followed by {@link #copyBackup}.
+   */
+  public static DbBackup startBackup(Environment env) {
+    var backup = new DbBackup(env);
+    backup.startBackup();
+    return backup;
+  }
+
+  /**
+   * Links the log files of a backup into a directory, copying them where the file system does not
+   * support links, and ends the backup.
+   *
+   * @param env the environment of the ledger
+   * @param backup a backup returned by {@link #startBackup}
+   * @param target a directory which does not exist yet
+   */
+  public static void copyBackup(Environment env, DbBackup backup, Path target) throws IOException {
+    try {
+      Files.createDirectories(target);
+      for (var fileName : backup.getLogFilesInBackupSet()) {
+        var source = new File(env.getHome(), fileName).toPath();
+        try {
+          Files.createLink(target.resolve(fileName), source);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+          Files.copy(source, target.resolve(fileName));
+        }
+      }
+    } finally {
+      backup.endBackup();
+    }
+  }
+
+  /**
+   * Writes the contents of the snapshot databases of an environment copy, in database and then key
+   * order.
+   *
+   * @param environmentHome a copy made with {@link #copyBackup}
+   * @param writer the writer to add the entries to
+   */
+  public static void export(File environmentHome, StateSnapshotChunks.Writer writer) {
+    var envConfig = new EnvironmentConfig().setReadOnly(true).setTransactional(true);
+    // Each entry is only read once, so there is no point in taking cache away from the ledger
+    envConfig.setCacheSize(EXPORT_CACHE_BYTES);
+    var env = new Environment(environmentHome, envConfig);
+    try {
+      for (int i = 0; i < DATABASES.size(); i++) {
+        var databaseName = DATABASES.get(i);
+        if (!env.getDatabaseNames().contains(databaseName)) {
+          continue;
+        }
+        try (var database = env.openDatabase(null, databaseName, readOnlyConfig(databaseName));
+            var cursor = database.openCursor(null, null)) {
+          var key = new DatabaseEntry();
+          var value = new DatabaseEntry();
+          while (cursor.getNext(key, value, LockMode.READ_UNCOMMITTED) == OperationStatus.SUCCESS) {
+            writer.add(new StateSnapshotChunks.Entry(i, key.getData(), value.getData()));
+          }
+        }
+      }
+    } finally {
+      env.close();
+    }
+  }
+
+  private static DatabaseConfig readOnlyConfig(String databaseName) {
+    return new DatabaseConfig()
+        .setReadOnly(true)
+        .setTransactional(true)
+        .setKeyPrefixing(true)
+        .setBtreeComparator(lexicographicalComparator())
+        .setSortedDuplicates(databaseName.equals(BerkeleyLedgerEntryStore.FORKS_VOTING_RESULTS_DB));
+  }
+}
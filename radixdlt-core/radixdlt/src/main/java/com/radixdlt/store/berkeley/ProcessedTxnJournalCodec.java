@@ -0,0 +1,219 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+package com.radixdlt.store.berkeley;
+
+import com.google.inject.Provider;
+import com.radixdlt.atom.SubstateId;
+import com.radixdlt.atom.Txn;
+import com.radixdlt.constraintmachine.REInstruction.REMicroOp;
+import com.radixdlt.constraintmachine.REOp;
+import com.radixdlt.constraintmachine.REProcessedTxn;
+import com.radixdlt.constraintmachine.REStateUpdate;
+import com.radixdlt.crypto.ECPublicKey;
+import com.radixdlt.crypto.exception.PublicKeyException;
+import com.radixdlt.engine.RadixEngine;
+import com.radixdlt.engine.parser.exceptions.TxnParseException;
+import com.radixdlt.serialization.DeserializeException;
+import com.radixdlt.statecomputer.LedgerAndBFTProof;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encodes the state updates of a committed transaction for the journal of {@link
+ * BerkeleyAdditionalStoreIndexer}, so that the processed transaction can be rebuilt together with
+ * the transaction from the ledger after the substates it shut down have been deleted.
+ *
+ * <p>Ups are journaled as their raw substate bytes, downs as the serialized substate they shut down
+ * and virtual downs only by their type, as the substate follows from the key in the substate id.
+ * Events are not journaled, so replayed transactions have none.
+ */
+final class ProcessedTxnJournalCodec implements BerkeleyAdditionalStoreIndexer.JournalCodec {
+  private static final byte NO_SIGNER = 0;
+  private static final byte SIGNER = 1;
+  private static final int VIRTUAL_DOWN = -1;
+
+  private final Provider<RadixEngine<LedgerAndBFTProof>> radixEngineProvider;
+
+  ProcessedTxnJournalCodec(Provider<RadixEngine<LedgerAndBFTProof>> radixEngineProvider) {
+    this.radixEngineProvider = Objects.requireNonNull(radixEngineProvider);
+  }
+
+  @Override
+  public byte[] encode(REProcessedTxn txn) {
+    var serialization = radixEngineProvider.get().getSubstateSerialization();
+    var instructions = txn.getParsedTxn().instructions();
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new DataOutputStream(bytes)) {
+      var signedBy = txn.getSignedBy();
+      if (signedBy.isPresent()) {
+        out.writeByte(SIGNER);
+        out.write(signedBy.get().getCompressedBytes());
+      } else {
+        out.writeByte(NO_SIGNER);
+      }
+
+      out.writeInt(txn.getGroupedStateUpdates().size());
+      for (var group : txn.getGroupedStateUpdates()) {
+        out.writeInt(group.size());
+        for (var update : group) {
+          out.writeBoolean(update.isBootUp());
+          out.writeInt(update.getInstructionIndex());
+          out.writeByte(update.typeByte());
+          var id = update.getId().asBytes();
+          out.writeInt(id.length);
+          out.write(id);
+
+          final byte[] data;
+          if (update.isBootUp()) {
+            data = update.getRawSubstateBytes().getData();
+          } else {
+            var microOp = instructions.get(update.getInstructionIndex()).getMicroOp();
+            data =
+                microOp == REMicroOp.VDOWN || microOp == REMicroOp.LVDOWN
+                    ? null
+                    : serialization.serialize(update.getParsed());
+          }
+          if (data == null) {
+            out.writeInt(VIRTUAL_DOWN);
+          } else {
+            out.writeInt(data.length);
+            out.write(data);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public REProcessedTxn decode(Txn txn, byte[] journalEntry) {
+    var radixEngine = radixEngineProvider.get();
+    var deserialization = radixEngine.getSubstateDeserialization();
+    var virtualDeserialization = radixEngine.getVirtualSubstateDeserialization();
+    try {
+      var parsedTxn = radixEngine.getParser().parse(txn);
+      var buf = ByteBuffer.wrap(journalEntry);
+
+      ECPublicKey signedBy = null;
+      if (buf.get() == SIGNER) {
+        var key = new byte[ECPublicKey.COMPRESSED_BYTES];
+        buf.get(key);
+        signedBy = ECPublicKey.fromBytes(key);
+      }
+
+      var groupCount = buf.getInt();
+      var groups = new ArrayList<List<REStateUpdate>>(groupCount);
+      for (int i = 0; i < groupCount; i++) {
+        var updateCount = buf.getInt();
+        var group = new ArrayList<REStateUpdate>(updateCount);
+        for (int j = 0; j < updateCount; j++) {
+          var isBootUp = buf.get() != 0;
+          var instructionIndex = buf.getInt();
+          var typeByte = buf.get();
+          var id = new byte[buf.getInt()];
+          buf.get(id);
+          var substateId = SubstateId.fromBytes(id);
+          var length = buf.getInt();
+
+          if (length == VIRTUAL_DOWN) {
+            var substate =
+                virtualDeserialization.keyToSubstate(
+                    typeByte, substateId.getVirtualKey().orElseThrow());
+            group.add(
+                REStateUpdate.of(
+                    REOp.DOWN, instructionIndex, substateId, typeByte, substate, null));
+            continue;
+          }
+
+          var data = new byte[length];
+          buf.get(data);
+          var substate = deserialization.deserialize(data);
+          group.add(
+              isBootUp
+                  ? REStateUpdate.of(
+                      REOp.UP,
+                      instructionIndex,
+                      substateId,
+                      typeByte,
+                      substate,
+                      () -> ByteBuffer.wrap(data))
+                  : REStateUpdate.of(
+                      REOp.DOWN, instructionIndex, substateId, typeByte, substate, null));
+        }
+        groups.add(group);
+      }
+      return new REProcessedTxn(parsedTxn, signedBy, groups, List.of());
+    } catch (TxnParseException | DeserializeException | PublicKeyException e) {
+      throw new IllegalStateException("Unable to replay journaled transaction " + txn.getId(), e);
+    }
+  }
+}
@@ -125,6 +125,7 @@ public final class LocalSyncServiceImpl implements LocalSyncService {
   private final ScheduledEventDispatcher<SyncLedgerUpdateTimeout> syncLedgerUpdateTimeoutDispatcher;
   private final SyncConfig syncConfig;
   private final SystemCounters systemCounters;
+  private final SyncTarget syncTarget;
   private final PeersView peersView;
   private final Comparator<AccumulatorState> accComparator;
   private final RemoteSyncResponseValidatorSetVerifier validatorSetVerifier;
@@ -147,6 +148,7 @@ public final class LocalSyncServiceImpl implements LocalSyncService {
       ScheduledEventDispatcher<SyncLedgerUpdateTimeout> syncLedgerUpdateTimeoutDispatcher,
       SyncConfig syncConfig,
       SystemCounters systemCounters,
+      SyncTarget syncTarget,
       PeersView peersView,
       Comparator<AccumulatorState> accComparator,
       RemoteSyncResponseValidatorSetVerifier validatorSetVerifier,
@@ -164,6 +166,7 @@ public final class LocalSyncServiceImpl implements LocalSyncService {
         Objects.requireNonNull(syncLedgerUpdateTimeoutDispatcher);
     this.syncConfig = Objects.requireNonNull(syncConfig);
     this.systemCounters = Objects.requireNonNull(systemCounters);
+    this.syncTarget = Objects.requireNonNull(syncTarget);
     this.peersView = Objects.requireNonNull(peersView);
     this.accComparator = Objects.requireNonNull(accComparator);
     this.validatorSetVerifier = Objects.requireNonNull(validatorSetVerifier);
@@ -539,16 +542,17 @@ public final class LocalSyncServiceImpl implements LocalSyncService {
       this.systemCounters.set(
           CounterType.SYNC_CURRENT_STATE_VERSION,
           syncingState.getCurrentHeader().getStateVersion());
-      this.systemCounters.set(
-          CounterType.SYNC_TARGET_STATE_VERSION,
+      final var targetVersion =
           Math.max(
               syncingState.getTargetHeader().getStateVersion(),
-              syncingState.getTargetHeader().getAccumulatorState().getStateVersion()));
+              syncingState.getTargetHeader().getAccumulatorState().getStateVersion());
+      this.systemCounters.set(CounterType.SYNC_TARGET_STATE_VERSION, targetVersion);
+      this.syncTarget.set(targetVersion);
     } else {
-      this.systemCounters.set(
-          CounterType.SYNC_CURRENT_STATE_VERSION, syncState.getCurrentHeader().getStateVersion());
-      this.systemCounters.set(
-          CounterType.SYNC_TARGET_STATE_VERSION, syncState.getCurrentHeader().getStateVersion());
+      final var currentVersion = syncState.getCurrentHeader().getStateVersion();
+      this.systemCounters.set(CounterType.SYNC_CURRENT_STATE_VERSION, currentVersion);
+      this.systemCounters.set(CounterType.SYNC_TARGET_STATE_VERSION, currentVersion);
+      this.syncTarget.set(currentVersion);
     }
 
     return syncState;
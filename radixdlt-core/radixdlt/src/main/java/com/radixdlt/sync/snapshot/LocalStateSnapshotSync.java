@@ -0,0 +1,547 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.sync.snapshot;
+
+import com.google.common.hash.HashCode;
+import com.google.inject.Inject;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.crypto.Hasher;
+import com.radixdlt.environment.EventProcessor;
+import com.radixdlt.environment.RemoteEventDispatcher;
+import com.radixdlt.environment.RemoteEventProcessor;
+import com.radixdlt.hotstuff.ConsensusHasher;
+import com.radixdlt.hotstuff.HashVerifier;
+import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.hotstuff.bft.BFTNode;
+import com.radixdlt.network.p2p.NodeId;
+import com.radixdlt.network.p2p.PeerControl;
+import com.radixdlt.network.p2p.PeersView;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.store.DatabaseEnvironment;
+import com.radixdlt.store.berkeley.BerkeleyAdditionalStore;
+import com.radixdlt.sync.CommittedReader;
+import com.radixdlt.sync.snapshot.messages.EpochProofsRequest;
+import com.radixdlt.sync.snapshot.messages.EpochProofsResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotChunkRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotChunkResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotSyncCheck;
+import com.radixdlt.utils.TimeSupplier;
+import com.radixdlt.utils.UInt256;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Bootstraps a node which is far behind the network from a state snapshot, rather than by
+ * replaying every transaction since its last epoch.
+ *
+ * <p>A snapshot manifest is only trusted once:
+ *
+ * <ul>
+ *   <li>the epoch header it was taken at is reached by a chain of epoch proofs, each signed by a
+ *       quorum of the validators of the previous one, starting from the last epoch proof of the
+ *       local ledger, and
+ *   <li>it has been signed by validators of the following epoch holding more than a third of its
+ *       power, so that at least one honest validator vouches for its contents.
+ * </ul>
+ *
+ * Chunks are then downloaded in parallel from the nodes which signed the manifest, each one checked
+ * against the chunks root before it is staged on disk. Once all chunks are staged, the snapshot is
+ * applied by {@link com.radixdlt.store.berkeley.BerkeleyLedgerEntryStore} the next time the node
+ * starts. Meanwhile, ledger sync carries on as usual, and a snapshot which the ledger catches up
+ * with is discarded.
+ */
+public final class LocalStateSnapshotSync {
+  private static final Logger log = LogManager.getLogger();
+
+  private static final int MAX_CHUNKS_IN_FLIGHT = 16;
+  private static final long CHUNK_REQUEST_TIMEOUT_MS = 10_000L;
+  private static final long EPOCH_PROOFS_REQUEST_TIMEOUT_MS = 10_000L;
+  private static final long MANIFEST_REQUEST_INTERVAL_MS = 30_000L;
+  // Manifests which haven't been sent again for this long are forgotten
+  private static final long MANIFEST_EXPIRY_MS = 2 * MANIFEST_REQUEST_INTERVAL_MS;
+  private static final Duration BAN_DURATION = Duration.ofMinutes(10);
+
+  private record PendingRequest(BFTNode peer, long sentAt) {}
+
+  private final StateSnapshotConfig config;
+  private final Path databaseHome;
+  private final Serialization serialization;
+  private final CommittedReader committedReader;
+  private final PeersView peersView;
+  private final PeerControl peerControl;
+  private final Hasher hasher;
+  private final HashVerifier hashVerifier;
+  private final TimeSupplier timeSupplier;
+  private final SystemCounters systemCounters;
+  private final RemoteEventDispatcher<SnapshotManifestRequest> manifestRequestDispatcher;
+  private final RemoteEventDispatcher<EpochProofsRequest> epochProofsRequestDispatcher;
+  private final RemoteEventDispatcher<SnapshotChunkRequest> chunkRequestDispatcher;
+  private final boolean enabled;
+
+  // Manifests by hash, with the time each node which signed one last sent it. A node only counts
+  // towards the latest manifest it sent, so there are never more manifests than peers.
+  private final Map<HashCode, StateSnapshotManifest> manifests = new HashMap<>();
+  private final Map<HashCode, Map<BFTNode, Long>> manifestSigners = new HashMap<>();
+  // The peers which haven't responded yet to the latest manifest request
+  private final Set<BFTNode> manifestRequests = new HashSet<>();
+  private long manifestsRequestedAt = Long.MIN_VALUE;
+
+  // The last epoch proof which has been verified, starting from the one of the local ledger
+  private LedgerProof trustedEpochProof;
+  private PendingRequest epochProofsRequest;
+
+  private StagedStateSnapshot staged;
+  private final Set<BFTNode> chunkHolders = new HashSet<>();
+  private final NavigableSet<Integer> missingChunks = new TreeSet<>();
+  private final Map<Integer, PendingRequest> chunkRequests = new HashMap<>();
+  private int nextHolder;
+
+  @Inject
+  public LocalStateSnapshotSync(
+      StateSnapshotConfig config,
+      DatabaseEnvironment dbEnv,
+      Serialization serialization,
+      CommittedReader committedReader,
+      PeersView peersView,
+      PeerControl peerControl,
+      Hasher hasher,
+      HashVerifier hashVerifier,
+      TimeSupplier timeSupplier,
+      SystemCounters systemCounters,
+      Set<BerkeleyAdditionalStore> additionalStores,
+      RemoteEventDispatcher<SnapshotManifestRequest> manifestRequestDispatcher,
+      RemoteEventDispatcher<EpochProofsRequest> epochProofsRequestDispatcher,
+      RemoteEventDispatcher<SnapshotChunkRequest> chunkRequestDispatcher) {
+    this.config = config;
+    this.databaseHome = dbEnv.getEnvironment().getHome().toPath();
+    this.serialization = serialization;
+    this.committedReader = committedReader;
+    this.peersView = peersView;
+    this.peerControl = peerControl;
+    this.hasher = hasher;
+    this.hashVerifier = hashVerifier;
+    this.timeSupplier = timeSupplier;
+    this.systemCounters = systemCounters;
+    this.manifestRequestDispatcher = manifestRequestDispatcher;
+    this.epochProofsRequestDispatcher = epochProofsRequestDispatcher;
+    this.chunkRequestDispatcher = chunkRequestDispatcher;
+
+    var supported =
+        additionalStores.stream().allMatch(BerkeleyAdditionalStore::supportsStateSnapshots);
+    if (config.bootstrap() && !supported) {
+      log.warn("State snapshot bootstrap is disabled, as not all enabled stores can be rebuilt");
+    }
+    this.enabled = config.bootstrap() && supported;
+
+    if (enabled) {
+      StagedStateSnapshot.open(databaseHome, serialization).ifPresent(this::startDownload);
+    }
+  }
+
+  public EventProcessor<SnapshotSyncCheck> syncCheckEventProcessor() {
+    return check -> processSyncCheck();
+  }
+
+  private void processSyncCheck() {
+    if (!enabled || isDownloaded()) {
+      return;
+    }
+
+    var now = timeSupplier.currentTime();
+    if (manifestsRequestedAt == Long.MIN_VALUE
+        || now - manifestsRequestedAt >= MANIFEST_REQUEST_INTERVAL_MS) {
+      manifestsRequestedAt = now;
+      expireManifests(now);
+      manifestRequests.clear();
+      var request = new SnapshotManifestRequest();
+      peersView
+          .peers()
+          .forEach(
+              peer -> {
+                manifestRequests.add(peer.bftNode());
+                manifestRequestDispatcher.dispatch(peer.bftNode(), request);
+              });
+    }
+
+    if (staged == null) {
+      requestEpochProofs(now);
+    } else if (localStateVersion() >= staged.getManifest().getStateVersion()) {
+      log.info("Ledger has caught up with state snapshot {}, discarding it", staged.getManifest());
+      staged.delete();
+      staged = null;
+      chunkHolders.clear();
+      missingChunks.clear();
+      chunkRequests.clear();
+    } else {
+      chunkRequests.values().removeIf(r -> now - r.sentAt() >= CHUNK_REQUEST_TIMEOUT_MS);
+      requestChunks(now);
+    }
+  }
+
+  public RemoteEventProcessor<SnapshotManifestResponse> manifestResponseEventProcessor() {
+    return this::processManifestResponse;
+  }
+
+  private void processManifestResponse(BFTNode sender, SnapshotManifestResponse response) {
+    if (!enabled || isDownloaded() || !manifestRequests.remove(sender)) {
+      return;
+    }
+
+    var manifest = response.manifest();
+    var manifestHash = hasher.hash(manifest);
+    if (!hashVerifier.verify(sender.getKey(), manifestHash, response.signature())) {
+      invalidResponse(sender, "Invalid state snapshot manifest signature");
+      return;
+    }
+
+    if (staged != null) {
+      if (manifest.equals(staged.getManifest())) {
+        chunkHolders.add(sender);
+      }
+      return;
+    }
+
+    if (manifest.getNextEpoch() < localEpoch() + config.minEpochsBehind()) {
+      return;
+    }
+    removeManifestSigner(sender);
+    manifests.put(manifestHash, manifest);
+    manifestSigners
+        .computeIfAbsent(manifestHash, h -> new HashMap<>())
+        .put(sender, timeSupplier.currentTime());
+    tryStage();
+    requestEpochProofs(timeSupplier.currentTime());
+  }
+
+  private void removeManifestSigner(BFTNode signer) {
+    manifestSigners.values().forEach(signers -> signers.remove(signer));
+    removeUnsignedManifests();
+  }
+
+  private void expireManifests(long now) {
+    manifestSigners
+        .values()
+        .forEach(signers -> signers.values().removeIf(at -> now - at >= MANIFEST_EXPIRY_MS));
+    removeUnsignedManifests();
+  }
+
+  private void removeUnsignedManifests() {
+    manifestSigners.values().removeIf(Map::isEmpty);
+    manifests.keySet().retainAll(manifestSigners.keySet());
+  }
+
+  public RemoteEventProcessor<EpochProofsResponse> epochProofsResponseEventProcessor() {
+    return this::processEpochProofsResponse;
+  }
+
+  private void processEpochProofsResponse(BFTNode sender, EpochProofsResponse response) {
+    if (epochProofsRequest == null || !epochProofsRequest.peer().equals(sender)) {
+      return;
+    }
+    epochProofsRequest = null;
+
+    var targetEpoch = targetEpoch();
+    for (var proof : response.proofs()) {
+      if (staged != null || trustedEpochProof.getEpoch() >= targetEpoch) {
+        break;
+      }
+      if (!verifyNextEpochProof(trustedEpochProof, proof)) {
+        invalidResponse(sender, "Invalid epoch proof");
+        return;
+      }
+      trustedEpochProof = proof;
+      tryStage();
+    }
+
+    if (staged == null) {
+      requestEpochProofs(timeSupplier.currentTime());
+    } else {
+      requestChunks(timeSupplier.currentTime());
+    }
+  }
+
+  public RemoteEventProcessor<SnapshotChunkResponse> chunkResponseEventProcessor() {
+    return this::processChunkResponse;
+  }
+
+  private void processChunkResponse(BFTNode sender, SnapshotChunkResponse response) {
+    if (staged == null) {
+      return;
+    }
+    var manifest = staged.getManifest();
+    var request = chunkRequests.get(response.index());
+    if (request == null
+        || !request.peer().equals(sender)
+        || response.stateVersion() != manifest.getStateVersion()) {
+      return;
+    }
+    chunkRequests.remove(response.index());
+
+    var chunkHash = StateSnapshotChunks.hash(response.data());
+    if (!StateSnapshotChunks.verify(
+        manifest.getChunksRoot(),
+        manifest.getChunkCount(),
+        response.index(),
+        chunkHash,
+        response.proof())) {
+      chunkHolders.remove(sender);
+      invalidResponse(sender, "Invalid state snapshot chunk");
+      return;
+    }
+
+    staged.writeChunk(response.index(), response.data());
+    missingChunks.remove(response.index());
+    systemCounters.increment(CounterType.SYNC_SNAPSHOT_CHUNKS_RECEIVED);
+
+    if (missingChunks.isEmpty()) {
+      staged.markComplete();
+      log.info(
+          "State snapshot {} has been downloaded and will be applied when the node restarts",
+          manifest);
+    } else {
+      requestChunks(timeSupplier.currentTime());
+    }
+  }
+
+  private boolean isDownloaded() {
+    return staged != null && missingChunks.isEmpty();
+  }
+
+  private long localEpoch() {
+    return committedReader
+        .getLastProof()
+        .map(proof -> proof.isEndOfEpoch() ? proof.getEpoch() + 1 : proof.getEpoch())
+        .orElse(0L);
+  }
+
+  private long localStateVersion() {
+    return committedReader.getLastProof().map(LedgerProof::getStateVersion).orElse(0L);
+  }
+
+  private long targetEpoch() {
+    return manifests.values().stream()
+        .mapToLong(manifest -> manifest.getEpochHeader().getEpoch())
+        .max()
+        .orElse(-1L);
+  }
+
+  private void requestEpochProofs(long now) {
+    if (trustedEpochProof == null) {
+      var lastProof = committedReader.getLastProof().orElse(null);
+      if (lastProof == null) {
+        return;
+      }
+      trustedEpochProof =
+          lastProof.isEndOfEpoch()
+              ? lastProof
+              : committedReader.getEpochProof(lastProof.getEpoch()).orElseThrow();
+    }
+
+    var targetEpoch = targetEpoch();
+    if (trustedEpochProof.getEpoch() >= targetEpoch) {
+      return;
+    }
+    if (epochProofsRequest != null
+        && now - epochProofsRequest.sentAt() < EPOCH_PROOFS_REQUEST_TIMEOUT_MS) {
+      return;
+    }
+
+    // Any node serving a snapshot of the target epoch has all the epoch proofs up to it
+    var peers =
+        manifests.entrySet().stream()
+            .filter(e -> e.getValue().getEpochHeader().getEpoch() == targetEpoch)
+            .flatMap(e -> manifestSigners.get(e.getKey()).keySet().stream())
+            .filter(peersView::hasPeer)
+            .toList();
+    if (peers.isEmpty()) {
+      return;
+    }
+    var peer = peers.get(nextHolder++ % peers.size());
+    epochProofsRequest = new PendingRequest(peer, now);
+    epochProofsRequestDispatcher.dispatch(
+        peer, new EpochProofsRequest(trustedEpochProof.getEpoch() + 1));
+  }
+
+  private boolean verifyNextEpochProof(LedgerProof trusted, LedgerProof proof) {
+    if (!proof.isEndOfEpoch()
+        || proof.getEpoch() != trusted.getEpoch() + 1
+        || proof.getStateVersion() < trusted.getStateVersion()) {
+      return false;
+    }
+
+    var validatorSet = trusted.getNextValidatorSet().orElseThrow();
+    var validationState = validatorSet.newValidationState();
+    for (var nodeAndSignature : proof.getSignatures().getSignatures().entrySet()) {
+      var node = nodeAndSignature.getKey();
+      var signature = nodeAndSignature.getValue();
+      if (!validatorSet.containsNode(node)) {
+        return false;
+      }
+      var voteDataHash =
+          ConsensusHasher.toHash(proof.getOpaque(), proof.getRaw(), signature.timestamp(), hasher);
+      if (!hashVerifier.verify(node.getKey(), voteDataHash, signature.signature())) {
+        return false;
+      }
+      validationState.addSignature(node, signature.timestamp(), signature.signature());
+    }
+    return validationState.complete();
+  }
+
+  /**
+   * Starts downloading a manifest which matches the trusted epoch proof, if it has been signed by
+   * enough of the validators which take over from that epoch.
+   */
+  private void tryStage() {
+    if (staged != null || trustedEpochProof == null) {
+      return;
+    }
+
+    var validatorSet = trustedEpochProof.getNextValidatorSet().orElseThrow();
+    for (var entry : manifests.entrySet()) {
+      var manifest = entry.getValue();
+      if (!manifest.getEpochHeader().equals(trustedEpochProof.getRaw())) {
+        continue;
+      }
+      var signers = manifestSigners.get(entry.getKey()).keySet();
+      var signedPower =
+          signers.stream()
+              .filter(validatorSet::containsNode)
+              .map(validatorSet::getPower)
+              .reduce(UInt256.ZERO, UInt256::add);
+      // More than a third of the power, so at least one of the signers is honest
+      if (signedPower.multiply(UInt256.THREE).compareTo(validatorSet.getTotalPower()) <= 0) {
+        continue;
+      }
+
+      log.info("Downloading state snapshot {} signed by {} nodes", manifest, signers.size());
+      var snapshot =
+          StagedStateSnapshot.create(databaseHome, serialization, manifest, trustedEpochProof);
+      chunkHolders.addAll(signers);
+      startDownload(snapshot);
+      manifests.clear();
+      manifestSigners.clear();
+      return;
+    }
+  }
+
+  private void startDownload(StagedStateSnapshot snapshot) {
+    this.staged = snapshot;
+    if (snapshot.isComplete()) {
+      return;
+    }
+    for (int i = 0; i < snapshot.getManifest().getChunkCount(); i++) {
+      if (!snapshot.hasChunk(i)) {
+        missingChunks.add(i);
+      }
+    }
+    if (missingChunks.isEmpty()) {
+      snapshot.markComplete();
+    } else if (chunkHolders.isEmpty()) {
+      log.info("Resuming download of state snapshot {}", snapshot.getManifest());
+    }
+  }
+
+  private void requestChunks(long now) {
+    var holders = new ArrayList<BFTNode>();
+    for (var holder : chunkHolders) {
+      if (peersView.hasPeer(holder)) {
+        holders.add(holder);
+      }
+    }
+    if (holders.isEmpty()) {
+      return;
+    }
+
+    var stateVersion = staged.getManifest().getStateVersion();
+    for (var index : missingChunks) {
+      if (chunkRequests.size() >= MAX_CHUNKS_IN_FLIGHT) {
+        break;
+      }
+      if (chunkRequests.containsKey(index)) {
+        continue;
+      }
+      var holder = holders.get(nextHolder++ % holders.size());
+      chunkRequests.put(index, new PendingRequest(holder, now));
+      chunkRequestDispatcher.dispatch(holder, new SnapshotChunkRequest(stateVersion, index));
+    }
+  }
+
+  private void invalidResponse(BFTNode sender, String reason) {
+    systemCounters.increment(CounterType.SYNC_SNAPSHOT_INVALID_RESPONSES_RECEIVED);
+    peerControl.banPeer(NodeId.fromPublicKey(sender.getKey()), BAN_DURATION, reason);
+  }
+}
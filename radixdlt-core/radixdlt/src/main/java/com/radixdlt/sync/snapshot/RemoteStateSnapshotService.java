@@ -0,0 +1,179 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.sync.snapshot;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.Inject;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.environment.RemoteEventDispatcher;
+import com.radixdlt.environment.RemoteEventProcessor;
+import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.hotstuff.bft.BFTNode;
+import com.radixdlt.sync.CommittedReader;
+import com.radixdlt.sync.snapshot.messages.EpochProofsRequest;
+import com.radixdlt.sync.snapshot.messages.EpochProofsResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotChunkRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotChunkResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestResponse;
+import java.util.ArrayList;
+import java.util.Objects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/** Service which serves state snapshots and epoch proofs to nodes which are bootstrapping. */
+public final class RemoteStateSnapshotService {
+  private static final Logger log = LogManager.getLogger();
+
+  static final int MAX_EPOCH_PROOFS_PER_RESPONSE = 20;
+  // Each chunk is up to 512 KiB, so this caps the upload bandwidth spent on snapshots
+  private static final double MAX_CHUNKS_PER_SECOND = 20.0;
+
+  private final StateSnapshotStore snapshotStore;
+  private final CommittedReader committedReader;
+  private final RemoteEventDispatcher<SnapshotManifestResponse> manifestResponseDispatcher;
+  private final RemoteEventDispatcher<SnapshotChunkResponse> chunkResponseDispatcher;
+  private final RemoteEventDispatcher<EpochProofsResponse> epochProofsResponseDispatcher;
+  private final SystemCounters systemCounters;
+  private final RateLimiter chunkRateLimiter = RateLimiter.create(MAX_CHUNKS_PER_SECOND);
+
+  @Inject
+  public RemoteStateSnapshotService(
+      StateSnapshotStore snapshotStore,
+      CommittedReader committedReader,
+      RemoteEventDispatcher<SnapshotManifestResponse> manifestResponseDispatcher,
+      RemoteEventDispatcher<SnapshotChunkResponse> chunkResponseDispatcher,
+      RemoteEventDispatcher<EpochProofsResponse> epochProofsResponseDispatcher,
+      SystemCounters systemCounters) {
+    this.snapshotStore = Objects.requireNonNull(snapshotStore);
+    this.committedReader = Objects.requireNonNull(committedReader);
+    this.manifestResponseDispatcher = Objects.requireNonNull(manifestResponseDispatcher);
+    this.chunkResponseDispatcher = Objects.requireNonNull(chunkResponseDispatcher);
+    this.epochProofsResponseDispatcher = Objects.requireNonNull(epochProofsResponseDispatcher);
+    this.systemCounters = Objects.requireNonNull(systemCounters);
+  }
+
+  public RemoteEventProcessor<SnapshotManifestRequest> manifestRequestEventProcessor() {
+    return (sender, request) ->
+        snapshotStore
+            .latest()
+            .ifPresent(
+                snapshot ->
+                    manifestResponseDispatcher.dispatch(
+                        sender,
+                        new SnapshotManifestResponse(snapshot.manifest(), snapshot.signature())));
+  }
+
+  public RemoteEventProcessor<SnapshotChunkRequest> chunkRequestEventProcessor() {
+    return this::processChunkRequest;
+  }
+
+  private void processChunkRequest(BFTNode sender, SnapshotChunkRequest request) {
+    var snapshot = snapshotStore.get(request.stateVersion());
+    if (snapshot.isEmpty()
+        || request.index() < 0
+        || request.index() >= snapshot.get().manifest().getChunkCount()) {
+      log.debug("Unable to serve snapshot chunk request {} from {}", request, sender);
+      return;
+    }
+    // Requesters retry chunks which do not arrive, so requests over the limit are dropped
+    if (!chunkRateLimiter.tryAcquire()) {
+      return;
+    }
+
+    var index = request.index();
+    snapshotStore
+        .readChunk(snapshot.get(), index)
+        .ifPresent(
+            data -> {
+              var proof = StateSnapshotChunks.proof(snapshot.get().chunkHashes(), index);
+              systemCounters.increment(CounterType.SYNC_SNAPSHOT_CHUNKS_SERVED);
+              chunkResponseDispatcher.dispatch(
+                  sender, new SnapshotChunkResponse(request.stateVersion(), index, data, proof));
+            });
+  }
+
+  public RemoteEventProcessor<EpochProofsRequest> epochProofsRequestEventProcessor() {
+    return this::processEpochProofsRequest;
+  }
+
+  private void processEpochProofsRequest(BFTNode sender, EpochProofsRequest request) {
+    var proofs = new ArrayList<LedgerProof>();
+    for (var epoch = request.fromEpoch();
+        proofs.size() < MAX_EPOCH_PROOFS_PER_RESPONSE;
+        epoch++) {
+      // Epoch proofs are stored by the epoch they start
+      var proof = committedReader.getEpochProof(epoch + 1);
+      if (proof.isEmpty()) {
+        break;
+      }
+      proofs.add(proof.get());
+    }
+    if (!proofs.isEmpty()) {
+      epochProofsResponseDispatcher.dispatch(sender, new EpochProofsResponse(proofs));
+    }
+  }
+}
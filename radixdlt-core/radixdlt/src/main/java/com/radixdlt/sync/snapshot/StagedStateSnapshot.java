@@ -0,0 +1,231 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.sync.snapshot;
+
+import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.serialization.DeserializeException;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.Serialization;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * A state snapshot downloaded from peers and verified, waiting in the database directory to be
+ * applied to the ledger the next time the node starts.
+ *
+ * <p>The manifest and epoch proofs are only written once they have been verified, and each chunk
+ * only once it has been verified against the manifest, so a staged snapshot which is {@link
+ * #isComplete() complete} can be applied without contacting any peer.
+ */
+public final class StagedStateSnapshot {
+  public static final String STAGING_DIRECTORY = "snapshot_staging";
+
+  private static final String MANIFEST_FILE = "manifest";
+  private static final String EPOCH_PROOF_FILE = "epoch_proof";
+  private static final String CHUNKS_DIRECTORY = "chunks";
+  private static final String COMPLETE_FILE = "complete";
+
+  private final Path directory;
+  private final StateSnapshotManifest manifest;
+  private final LedgerProof epochProof;
+
+  private StagedStateSnapshot(
+      Path directory, StateSnapshotManifest manifest, LedgerProof epochProof) {
+    this.directory = directory;
+    this.manifest = manifest;
+    this.epochProof = epochProof;
+  }
+
+  /**
+   * Starts staging a snapshot, replacing any snapshot which was staged before.
+   *
+   * @param databaseHome the database directory of the node
+   * @param manifest the verified manifest of the snapshot
+   * @param epochProof the verified proof of the epoch the snapshot was taken at
+   */
+  public static StagedStateSnapshot create(
+      Path databaseHome,
+      Serialization serialization,
+      StateSnapshotManifest manifest,
+      LedgerProof epochProof) {
+    if (!epochProof.getRaw().equals(manifest.getEpochHeader())) {
+      throw new IllegalArgumentException("Epoch proof does not match the snapshot");
+    }
+
+    var directory = databaseHome.resolve(STAGING_DIRECTORY);
+    try {
+      delete(directory);
+      Files.createDirectories(directory.resolve(CHUNKS_DIRECTORY));
+
+      writeAtomically(
+          directory.resolve(EPOCH_PROOF_FILE), serialization.toDson(epochProof, Output.PERSIST));
+      // The manifest is written last, as it marks the staging directory as in use
+      writeAtomically(
+          directory.resolve(MANIFEST_FILE), serialization.toDson(manifest, Output.PERSIST));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to stage state snapshot", e);
+    }
+    return new StagedStateSnapshot(directory, manifest, epochProof);
+  }
+
+  /** Opens the snapshot staged in a database directory, if there is one. */
+  public static Optional<StagedStateSnapshot> open(Path databaseHome, Serialization serialization) {
+    var directory = databaseHome.resolve(STAGING_DIRECTORY);
+    var manifestFile = directory.resolve(MANIFEST_FILE);
+    if (!Files.exists(manifestFile)) {
+      return Optional.empty();
+    }
+
+    try {
+      var manifest =
+          serialization.fromDson(Files.readAllBytes(manifestFile), StateSnapshotManifest.class);
+      var epochProof =
+          serialization.fromDson(
+              Files.readAllBytes(directory.resolve(EPOCH_PROOF_FILE)), LedgerProof.class);
+      return Optional.of(new StagedStateSnapshot(directory, manifest, epochProof));
+    } catch (IOException | DeserializeException e) {
+      throw new IllegalStateException("Unable to read staged state snapshot in " + directory, e);
+    }
+  }
+
+  public StateSnapshotManifest getManifest() {
+    return manifest;
+  }
+
+  /** The verified proof of the epoch the snapshot was taken at. */
+  public LedgerProof getEpochProof() {
+    return epochProof;
+  }
+
+  public boolean hasChunk(int index) {
+    return Files.exists(chunkFile(index));
+  }
+
+  public void writeChunk(int index, byte[] chunk) {
+    Objects.checkIndex(index, manifest.getChunkCount());
+    try {
+      writeAtomically(chunkFile(index), chunk);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write snapshot chunk " + index, e);
+    }
+  }
+
+  public byte[] readChunk(int index) {
+    try {
+      return Files.readAllBytes(chunkFile(index));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read snapshot chunk " + index, e);
+    }
+  }
+
+  public void markComplete() {
+    try {
+      writeAtomically(directory.resolve(COMPLETE_FILE), new byte[0]);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to complete staged state snapshot", e);
+    }
+  }
+
+  public boolean isComplete() {
+    return Files.exists(directory.resolve(COMPLETE_FILE));
+  }
+
+  /** Removes the staged snapshot, once it has been applied or is no longer of any use. */
+  public void delete() {
+    try {
+      delete(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to delete staged state snapshot", e);
+    }
+  }
+
+  private Path chunkFile(int index) {
+    return directory.resolve(CHUNKS_DIRECTORY).resolve(Integer.toString(index));
+  }
+
+  static void writeAtomically(Path file, byte[] bytes) throws IOException {
+    var tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    Files.write(tmp, bytes);
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  static void delete(Path directory) throws IOException {
+    if (!Files.exists(directory)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (var path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+}
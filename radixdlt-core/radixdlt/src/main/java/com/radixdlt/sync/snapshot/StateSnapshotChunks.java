@@ -0,0 +1,279 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.sync.snapshot;
+
+import com.google.common.hash.HashCode;
+import com.radixdlt.SecurityCritical;
+import com.radixdlt.SecurityCritical.SecurityKind;
+import com.radixdlt.crypto.HashUtils;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The format of state snapshot chunks, and the Merkle tree over chunk hashes which lets each chunk
+ * be verified on its own against a {@link StateSnapshotManifest}.
+ *
+ * <p>A chunk is a sequence of database entries, each encoded as:
+ *
+ * <pre>
+ *     [database (1 byte)] [key length (4 bytes)] [key] [value length (4 bytes)] [value]
+ * </pre>
+ *
+ * Entries are written in database and then key order, and a new chunk is started whenever the next
+ * entry would take the current one over {@link #MAX_CHUNK_BYTES}, so the chunks of a snapshot only
+ * depend on the state it was taken from.
+ */
+@SecurityCritical(SecurityKind.HASHING)
+public final class StateSnapshotChunks {
+  // Leaves room for the message envelope below the maximum p2p packet length of 1 MiB
+  public static final int MAX_CHUNK_BYTES = 512 * 1024;
+
+  private static final int ENTRY_OVERHEAD = 1 + Integer.BYTES + Integer.BYTES;
+  private static final byte INTERNAL_NODE = 1;
+
+  private StateSnapshotChunks() {
+    throw new IllegalStateException("Cannot instantiate.");
+  }
+
+  /** A key and value of one of the snapshotted databases. */
+  public record Entry(int database, byte[] key, byte[] value) {
+    public Entry {
+      Objects.requireNonNull(key);
+      Objects.requireNonNull(value);
+      if (database < 0 || database > 0xff) {
+        throw new IllegalArgumentException("Invalid database " + database);
+      }
+    }
+  }
+
+  /** Splits a sequence of entries into chunks, handing each chunk over once it is full. */
+  public static final class Writer {
+    private final Consumer<byte[]> chunkConsumer;
+    private final ByteArrayOutputStream current = new ByteArrayOutputStream(MAX_CHUNK_BYTES);
+    private int chunkCount;
+
+    public Writer(Consumer<byte[]> chunkConsumer) {
+      this.chunkConsumer = Objects.requireNonNull(chunkConsumer);
+    }
+
+    public void add(Entry entry) {
+      var size = ENTRY_OVERHEAD + entry.key().length + entry.value().length;
+      if (size > MAX_CHUNK_BYTES) {
+        throw new IllegalArgumentException("Entry of " + size + " bytes does not fit in a chunk");
+      }
+      if (current.size() + size > MAX_CHUNK_BYTES) {
+        flush();
+      }
+
+      var buf = ByteBuffer.allocate(size);
+      buf.put((byte) entry.database());
+      buf.putInt(entry.key().length);
+      buf.put(entry.key());
+      buf.putInt(entry.value().length);
+      buf.put(entry.value());
+      current.writeBytes(buf.array());
+    }
+
+    /**
+     * Hands over the last chunk, which may be empty if there were no entries at all.
+     *
+     * @return the number of chunks written
+     */
+    public int finish() {
+      if (current.size() > 0 || chunkCount == 0) {
+        flush();
+      }
+      return chunkCount;
+    }
+
+    private void flush() {
+      chunkConsumer.accept(current.toByteArray());
+      current.reset();
+      chunkCount++;
+    }
+  }
+
+  /**
+   * Decodes the entries of a chunk.
+   *
+   * @throws IllegalArgumentException if the chunk is malformed
+   */
+  public static List<Entry> decode(byte[] chunk) {
+    var entries = new ArrayList<Entry>();
+    var buf = ByteBuffer.wrap(chunk);
+    try {
+      while (buf.hasRemaining()) {
+        var database = Byte.toUnsignedInt(buf.get());
+        var key = new byte[checkedLength(buf)];
+        buf.get(key);
+        var value = new byte[checkedLength(buf)];
+        buf.get(value);
+        entries.add(new Entry(database, key, value));
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Truncated snapshot chunk", e);
+    }
+    return entries;
+  }
+
+  private static int checkedLength(ByteBuffer buf) {
+    var length = buf.getInt();
+    if (length < 0 || length > buf.remaining()) {
+      throw new IllegalArgumentException("Invalid entry length " + length);
+    }
+    return length;
+  }
+
+  public static HashCode hash(byte[] chunk) {
+    return HashUtils.sha256(chunk);
+  }
+
+  /** The root of the Merkle tree over the chunk hashes of a snapshot. */
+  public static HashCode root(List<HashCode> chunkHashes) {
+    if (chunkHashes.isEmpty()) {
+      throw new IllegalArgumentException("A snapshot has at least one chunk");
+    }
+    var level = chunkHashes;
+    while (level.size() > 1) {
+      level = nextLevel(level);
+    }
+    return level.get(0);
+  }
+
+  /**
+   * The sibling hashes along the path from a chunk to the root, from the bottom up. The last node
+   * of a level without a sibling is carried up unchanged, so has no sibling in the proof.
+   */
+  public static List<HashCode> proof(List<HashCode> chunkHashes, int index) {
+    Objects.checkIndex(index, chunkHashes.size());
+    var siblings = new ArrayList<HashCode>();
+    var level = chunkHashes;
+    var i = index;
+    while (level.size() > 1) {
+      var sibling = i ^ 1;
+      if (sibling < level.size()) {
+        siblings.add(level.get(sibling));
+      }
+      level = nextLevel(level);
+      i /= 2;
+    }
+    return siblings;
+  }
+
+  /**
+   * Verifies that a chunk hash is the one at {@code index} of the snapshot with the given root.
+   *
+   * @param root the root from the manifest
+   * @param chunkCount the number of chunks from the manifest
+   * @param index the index of the chunk
+   * @param chunkHash the hash of the chunk
+   * @param siblings the proof, as returned by {@link #proof(List, int)}
+   * @return whether the proof is valid
+   */
+  public static boolean verify(
+      HashCode root, int chunkCount, int index, HashCode chunkHash, List<HashCode> siblings) {
+    if (index < 0 || index >= chunkCount) {
+      return false;
+    }
+    var hash = chunkHash;
+    var i = index;
+    var size = chunkCount;
+    var next = 0;
+    while (size > 1) {
+      var hasSibling = (i % 2 == 1) || i + 1 < size;
+      if (hasSibling) {
+        if (next >= siblings.size()) {
+          return false;
+        }
+        var sibling = siblings.get(next++);
+        hash = i % 2 == 1 ? node(sibling, hash) : node(hash, sibling);
+      }
+      i /= 2;
+      size = (size + 1) / 2;
+    }
+    return next == siblings.size() && hash.equals(root);
+  }
+
+  private static List<HashCode> nextLevel(List<HashCode> level) {
+    var next = new ArrayList<HashCode>((level.size() + 1) / 2);
+    for (int i = 0; i < level.size(); i += 2) {
+      next.add(i + 1 < level.size() ? node(level.get(i), level.get(i + 1)) : level.get(i));
+    }
+    return next;
+  }
+
+  private static HashCode node(HashCode left, HashCode right) {
+    var bytes = new byte[1 + 2 * 32];
+    bytes[0] = INTERNAL_NODE;
+    left.writeBytesTo(bytes, 1, 32);
+    right.writeBytesTo(bytes, 1 + 32, 32);
+    return HashUtils.sha256(bytes);
+  }
+}
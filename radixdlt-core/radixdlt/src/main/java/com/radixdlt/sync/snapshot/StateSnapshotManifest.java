@@ -0,0 +1,169 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.sync.snapshot;
+
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.hash.HashCode;
+import com.radixdlt.hotstuff.LedgerHeader;
+import com.radixdlt.serialization.DsonOutput;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.SerializerConstants;
+import com.radixdlt.serialization.SerializerDummy;
+import com.radixdlt.serialization.SerializerId2;
+import java.util.Objects;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Describes a snapshot of the ledger state taken at the end of an epoch: the header of the epoch
+ * proof it was taken at and the root of the Merkle tree over the hashes of its chunks.
+ *
+ * <p>The snapshot contents are fully determined by the ledger, so every node which takes a snapshot
+ * at the same epoch produces the same manifest. The header is used rather than the whole proof, as
+ * nodes may hold different signatures for the same proof.
+ */
+@Immutable
+@SerializerId2("sync.snapshot.manifest")
+public final class StateSnapshotManifest {
+  @JsonProperty(SerializerConstants.SERIALIZER_NAME)
+  @DsonOutput(value = {Output.API, Output.WIRE, Output.PERSIST})
+  SerializerDummy serializer = SerializerDummy.DUMMY;
+
+  @JsonProperty("epoch_header")
+  @DsonOutput(Output.ALL)
+  private final LedgerHeader epochHeader;
+
+  @JsonProperty("chunk_count")
+  @DsonOutput(Output.ALL)
+  private final int chunkCount;
+
+  @JsonProperty("chunks_root")
+  @DsonOutput(Output.ALL)
+  private final HashCode chunksRoot;
+
+  @JsonCreator
+  public StateSnapshotManifest(
+      @JsonProperty(value = "epoch_header", required = true) LedgerHeader epochHeader,
+      @JsonProperty("chunk_count") int chunkCount,
+      @JsonProperty(value = "chunks_root", required = true) HashCode chunksRoot) {
+    this.epochHeader = requireNonNull(epochHeader);
+    this.chunkCount = chunkCount;
+    this.chunksRoot = requireNonNull(chunksRoot);
+
+    if (!epochHeader.isEndOfEpoch()) {
+      throw new IllegalArgumentException("Snapshots can only be taken at the end of an epoch");
+    }
+    if (chunkCount <= 0) {
+      throw new IllegalArgumentException("Invalid chunk count " + chunkCount);
+    }
+  }
+
+  public LedgerHeader getEpochHeader() {
+    return epochHeader;
+  }
+
+  /** The epoch which starts from the state in this snapshot. */
+  public long getNextEpoch() {
+    return epochHeader.getEpoch() + 1;
+  }
+
+  public long getStateVersion() {
+    return epochHeader.getAccumulatorState().getStateVersion();
+  }
+
+  public int getChunkCount() {
+    return chunkCount;
+  }
+
+  public HashCode getChunksRoot() {
+    return chunksRoot;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s{epoch=%s version=%s chunks=%s}",
+        getClass().getSimpleName(), getNextEpoch(), getStateVersion(), chunkCount);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    return (o instanceof StateSnapshotManifest that)
+        && chunkCount == that.chunkCount
+        && Objects.equals(epochHeader, that.epochHeader)
+        && Objects.equals(chunksRoot, that.chunksRoot);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(epochHeader, chunkCount, chunksRoot);
+  }
+}
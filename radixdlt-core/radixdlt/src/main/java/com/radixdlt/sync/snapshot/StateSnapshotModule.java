@@ -0,0 +1,215 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.sync.snapshot;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Scopes;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
+import com.radixdlt.environment.Dispatchers;
+import com.radixdlt.environment.EventDispatcher;
+import com.radixdlt.environment.EventProcessorOnRunner;
+import com.radixdlt.environment.LocalEvents;
+import com.radixdlt.environment.RemoteEventDispatcher;
+import com.radixdlt.environment.RemoteEventProcessorOnRunner;
+import com.radixdlt.environment.Runners;
+import com.radixdlt.environment.ScheduledEventProducerOnRunner;
+import com.radixdlt.sync.snapshot.messages.EpochProofsRequest;
+import com.radixdlt.sync.snapshot.messages.EpochProofsResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotChunkRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotChunkResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotSyncCheck;
+import java.time.Duration;
+
+/**
+ * Serves state snapshots taken at epoch boundaries to peers, and bootstraps this node from one
+ * when it is far behind the network.
+ */
+public final class StateSnapshotModule extends AbstractModule {
+  public static final String SERVE_ENABLE_PROPERTY_NAME = "sync.snapshot.serve.enable";
+  public static final String INTERVAL_EPOCHS_PROPERTY_NAME = "sync.snapshot.interval_epochs";
+  public static final String RETAINED_PROPERTY_NAME = "sync.snapshot.retained";
+  public static final String BOOTSTRAP_ENABLE_PROPERTY_NAME = "sync.snapshot.bootstrap.enable";
+  public static final String MIN_EPOCHS_BEHIND_PROPERTY_NAME =
+      "sync.snapshot.bootstrap.min_epochs_behind";
+
+  private static final Duration SYNC_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+  private final StateSnapshotConfig config;
+
+  public StateSnapshotModule(StateSnapshotConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  protected void configure() {
+    bind(StateSnapshotConfig.class).toInstance(config);
+    bind(StateSnapshotStore.class).in(Scopes.SINGLETON);
+    bind(RemoteStateSnapshotService.class).in(Scopes.SINGLETON);
+    bind(LocalStateSnapshotSync.class).in(Scopes.SINGLETON);
+
+    var eventBinder =
+        Multibinder.newSetBinder(binder(), new TypeLiteral<Class<?>>() {}, LocalEvents.class)
+            .permitDuplicates();
+    eventBinder.addBinding().toInstance(SnapshotSyncCheck.class);
+    bind(new TypeLiteral<EventDispatcher<SnapshotSyncCheck>>() {})
+        .toProvider(Dispatchers.dispatcherProvider(SnapshotSyncCheck.class))
+        .in(Scopes.SINGLETON);
+
+    bind(new TypeLiteral<RemoteEventDispatcher<SnapshotManifestRequest>>() {})
+        .toProvider(Dispatchers.remoteDispatcherProvider(SnapshotManifestRequest.class))
+        .in(Scopes.SINGLETON);
+    bind(new TypeLiteral<RemoteEventDispatcher<SnapshotManifestResponse>>() {})
+        .toProvider(Dispatchers.remoteDispatcherProvider(SnapshotManifestResponse.class))
+        .in(Scopes.SINGLETON);
+    bind(new TypeLiteral<RemoteEventDispatcher<SnapshotChunkRequest>>() {})
+        .toProvider(Dispatchers.remoteDispatcherProvider(SnapshotChunkRequest.class))
+        .in(Scopes.SINGLETON);
+    bind(new TypeLiteral<RemoteEventDispatcher<SnapshotChunkResponse>>() {})
+        .toProvider(Dispatchers.remoteDispatcherProvider(SnapshotChunkResponse.class))
+        .in(Scopes.SINGLETON);
+    bind(new TypeLiteral<RemoteEventDispatcher<EpochProofsRequest>>() {})
+        .toProvider(Dispatchers.remoteDispatcherProvider(EpochProofsRequest.class))
+        .in(Scopes.SINGLETON);
+    bind(new TypeLiteral<RemoteEventDispatcher<EpochProofsResponse>>() {})
+        .toProvider(Dispatchers.remoteDispatcherProvider(EpochProofsResponse.class))
+        .in(Scopes.SINGLETON);
+  }
+
+  @ProvidesIntoSet
+  private RemoteEventProcessorOnRunner<?> manifestRequestEventProcessor(
+      RemoteStateSnapshotService remoteStateSnapshotService) {
+    return new RemoteEventProcessorOnRunner<>(
+        Runners.SYNC,
+        SnapshotManifestRequest.class,
+        remoteStateSnapshotService.manifestRequestEventProcessor());
+  }
+
+  @ProvidesIntoSet
+  private RemoteEventProcessorOnRunner<?> chunkRequestEventProcessor(
+      RemoteStateSnapshotService remoteStateSnapshotService) {
+    return new RemoteEventProcessorOnRunner<>(
+        Runners.SYNC,
+        SnapshotChunkRequest.class,
+        remoteStateSnapshotService.chunkRequestEventProcessor());
+  }
+
+  @ProvidesIntoSet
+  private RemoteEventProcessorOnRunner<?> epochProofsRequestEventProcessor(
+      RemoteStateSnapshotService remoteStateSnapshotService) {
+    return new RemoteEventProcessorOnRunner<>(
+        Runners.SYNC,
+        EpochProofsRequest.class,
+        remoteStateSnapshotService.epochProofsRequestEventProcessor());
+  }
+
+  @ProvidesIntoSet
+  private EventProcessorOnRunner<?> snapshotSyncCheckEventProcessor(
+      LocalStateSnapshotSync localStateSnapshotSync) {
+    return new EventProcessorOnRunner<>(
+        Runners.SYNC, SnapshotSyncCheck.class, localStateSnapshotSync.syncCheckEventProcessor());
+  }
+
+  @ProvidesIntoSet
+  private RemoteEventProcessorOnRunner<?> manifestResponseEventProcessor(
+      LocalStateSnapshotSync localStateSnapshotSync) {
+    return new RemoteEventProcessorOnRunner<>(
+        Runners.SYNC,
+        SnapshotManifestResponse.class,
+        localStateSnapshotSync.manifestResponseEventProcessor());
+  }
+
+  @ProvidesIntoSet
+  private RemoteEventProcessorOnRunner<?> chunkResponseEventProcessor(
+      LocalStateSnapshotSync localStateSnapshotSync) {
+    return new RemoteEventProcessorOnRunner<>(
+        Runners.SYNC,
+        SnapshotChunkResponse.class,
+        localStateSnapshotSync.chunkResponseEventProcessor());
+  }
+
+  @ProvidesIntoSet
+  private RemoteEventProcessorOnRunner<?> epochProofsResponseEventProcessor(
+      LocalStateSnapshotSync localStateSnapshotSync) {
+    return new RemoteEventProcessorOnRunner<>(
+        Runners.SYNC,
+        EpochProofsResponse.class,
+        localStateSnapshotSync.epochProofsResponseEventProcessor());
+  }
+
+  @ProvidesIntoSet
+  private ScheduledEventProducerOnRunner<?> snapshotSyncCheckEventProducer(
+      EventDispatcher<SnapshotSyncCheck> snapshotSyncCheckDispatcher) {
+    return new ScheduledEventProducerOnRunner<>(
+        Runners.SYNC,
+        snapshotSyncCheckDispatcher,
+        SnapshotSyncCheck::new,
+        SYNC_CHECK_INTERVAL,
+        SYNC_CHECK_INTERVAL);
+  }
+}
@@ -0,0 +1,324 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.sync.snapshot;
+
+import com.google.common.hash.HashCode;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.crypto.ECDSASignature;
+import com.radixdlt.crypto.Hasher;
+import com.radixdlt.hotstuff.HashSigner;
+import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.serialization.DeserializeException;
+import com.radixdlt.serialization.DsonOutput.Output;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.store.DatabaseEnvironment;
+import com.radixdlt.store.berkeley.BerkeleyLedgerEntryStore;
+import com.radixdlt.store.berkeley.BerkeleyStateSnapshots;
+import com.radixdlt.utils.ThreadFactories;
+import com.sleepycat.je.util.DbBackup;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Takes state snapshots at epoch boundaries and keeps the most recent ones on disk, to be served
+ * to nodes which are bootstrapping.
+ *
+ * <p>The set of database files holding the state is fixed as soon as the epoch proof is committed,
+ * before any further commit. The snapshot is then taken in the background from a copy of these
+ * files, so taking one does not hold up consensus. A snapshot is skipped if one is still being
+ * taken and another one is waiting, as each of them prevents the log files it uses from being
+ * cleaned. Each snapshot lives in a directory named after the epoch it starts, holding its
+ * manifest, the hashes of its chunks and the chunks themselves.
+ */
+@Singleton
+public final class StateSnapshotStore {
+  private static final Logger log = LogManager.getLogger();
+
+  public static final String SNAPSHOTS_DIRECTORY = "snapshots";
+
+  private static final String ENVIRONMENT_COPY_DIRECTORY = "environment";
+  private static final String CHUNKS_DIRECTORY = "chunks";
+  private static final String MANIFEST_FILE = "manifest";
+  private static final String CHUNK_HASHES_FILE = "chunk_hashes";
+  private static final String IN_PROGRESS_SUFFIX = ".tmp";
+  private static final int HASH_BYTES = 32;
+  // One snapshot being taken, and one waiting for it
+  private static final int MAX_PENDING_SNAPSHOTS = 2;
+
+  /** A snapshot which is ready to be served, with this node's signature of its manifest. */
+  public record ServedSnapshot(
+      Path directory,
+      StateSnapshotManifest manifest,
+      ECDSASignature signature,
+      List<HashCode> chunkHashes) {}
+
+  private final DatabaseEnvironment dbEnv;
+  private final Serialization serialization;
+  private final Hasher hasher;
+  private final HashSigner hashSigner;
+  private final StateSnapshotConfig config;
+  private final SystemCounters systemCounters;
+  private final Path snapshotsDirectory;
+  private final Map<Long, ServedSnapshot> snapshots = new ConcurrentHashMap<>();
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(ThreadFactories.daemonThreads("StateSnapshots"));
+  private final Semaphore pendingSnapshots = new Semaphore(MAX_PENDING_SNAPSHOTS);
+
+  @Inject
+  public StateSnapshotStore(
+      DatabaseEnvironment dbEnv,
+      BerkeleyLedgerEntryStore ledgerEntryStore,
+      Serialization serialization,
+      Hasher hasher,
+      HashSigner hashSigner,
+      StateSnapshotConfig config,
+      SystemCounters systemCounters) {
+    this.dbEnv = dbEnv;
+    this.serialization = serialization;
+    this.hasher = hasher;
+    this.hashSigner = hashSigner;
+    this.config = config;
+    this.systemCounters = systemCounters;
+    this.snapshotsDirectory =
+        dbEnv.getEnvironment().getHome().toPath().resolve(SNAPSHOTS_DIRECTORY);
+    loadSnapshots();
+    ledgerEntryStore.addEpochProofListener(this::epochProofCommitted);
+  }
+
+  /**
+   * Starts taking a snapshot if a proof ends an epoch at which snapshots are taken. Called by the
+   * ledger store right after the proof is committed, before any further commit.
+   */
+  private void epochProofCommitted(LedgerProof proof) {
+    var nextEpoch = proof.getEpoch() + 1;
+    if (!config.serve() || nextEpoch % config.intervalEpochs() != 0) {
+      return;
+    }
+    if (!pendingSnapshots.tryAcquire()) {
+      log.warn("Skipping state snapshot at epoch {}, previous ones are in progress", nextEpoch);
+      systemCounters.increment(CounterType.SYNC_SNAPSHOTS_SKIPPED);
+      return;
+    }
+
+    final DbBackup backup;
+    try {
+      backup = BerkeleyStateSnapshots.startBackup(dbEnv.getEnvironment());
+    } catch (RuntimeException e) {
+      pendingSnapshots.release();
+      log.error("Unable to start state snapshot at epoch {}", nextEpoch, e);
+      systemCounters.increment(CounterType.SYNC_SNAPSHOTS_SKIPPED);
+      return;
+    }
+    executor.execute(
+        () -> {
+          try {
+            takeSnapshot(proof, backup);
+          } finally {
+            pendingSnapshots.release();
+          }
+        });
+  }
+
+  public Optional<ServedSnapshot> latest() {
+    return snapshots.values().stream()
+        .max(Comparator.comparingLong(s -> s.manifest().getStateVersion()));
+  }
+
+  public Optional<ServedSnapshot> get(long stateVersion) {
+    return Optional.ofNullable(snapshots.get(stateVersion));
+  }
+
+  /** Reads a chunk of a snapshot, or returns empty if the snapshot has been pruned meanwhile. */
+  public Optional<byte[]> readChunk(ServedSnapshot snapshot, int index) {
+    try {
+      return Optional.of(Files.readAllBytes(chunkFile(snapshot.directory(), index)));
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  private void takeSnapshot(LedgerProof proof, DbBackup backup) {
+    var nextEpoch = proof.getEpoch() + 1;
+    var env = dbEnv.getEnvironment();
+    var directory = snapshotsDirectory.resolve(Long.toString(nextEpoch));
+    var inProgress = snapshotsDirectory.resolve(nextEpoch + IN_PROGRESS_SUFFIX);
+    var environmentCopy = inProgress.resolve(ENVIRONMENT_COPY_DIRECTORY);
+
+    try {
+      try {
+        StagedStateSnapshot.delete(inProgress);
+      } catch (IOException e) {
+        backup.endBackup();
+        throw e;
+      }
+      BerkeleyStateSnapshots.copyBackup(env, backup, environmentCopy);
+
+      Files.createDirectories(inProgress.resolve(CHUNKS_DIRECTORY));
+      var chunkHashes = new ArrayList<HashCode>();
+      var writer =
+          new StateSnapshotChunks.Writer(
+              chunk -> {
+                try {
+                  Files.write(chunkFile(inProgress, chunkHashes.size()), chunk);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+                chunkHashes.add(StateSnapshotChunks.hash(chunk));
+              });
+      BerkeleyStateSnapshots.export(environmentCopy.toFile(), writer);
+      var chunkCount = writer.finish();
+      StagedStateSnapshot.delete(environmentCopy);
+
+      var manifest =
+          new StateSnapshotManifest(
+              proof.getRaw(), chunkCount, StateSnapshotChunks.root(chunkHashes));
+      var hashes = new byte[chunkCount * HASH_BYTES];
+      for (int i = 0; i < chunkCount; i++) {
+        chunkHashes.get(i).writeBytesTo(hashes, i * HASH_BYTES, HASH_BYTES);
+      }
+      Files.write(inProgress.resolve(CHUNK_HASHES_FILE), hashes);
+      Files.write(
+          inProgress.resolve(MANIFEST_FILE), serialization.toDson(manifest, Output.PERSIST));
+      Files.move(inProgress, directory, StandardCopyOption.ATOMIC_MOVE);
+
+      snapshots.put(
+          manifest.getStateVersion(),
+          new ServedSnapshot(directory, manifest, sign(manifest), List.copyOf(chunkHashes)));
+      log.info("Took state snapshot {} in {}", manifest, directory);
+      prune();
+    } catch (IOException | RuntimeException e) {
+      log.error("Unable to take state snapshot at epoch {}", nextEpoch, e);
+      systemCounters.increment(CounterType.SYNC_SNAPSHOTS_SKIPPED);
+    }
+  }
+
+  private void loadSnapshots() {
+    if (!Files.isDirectory(snapshotsDirectory)) {
+      return;
+    }
+    try (Stream<Path> directories = Files.list(snapshotsDirectory)) {
+      for (var directory : directories.toList()) {
+        if (directory.getFileName().toString().endsWith(IN_PROGRESS_SUFFIX)) {
+          StagedStateSnapshot.delete(directory);
+          continue;
+        }
+        var manifest =
+            serialization.fromDson(
+                Files.readAllBytes(directory.resolve(MANIFEST_FILE)), StateSnapshotManifest.class);
+        var hashes = Files.readAllBytes(directory.resolve(CHUNK_HASHES_FILE));
+        var chunkHashes = new ArrayList<HashCode>(manifest.getChunkCount());
+        for (int i = 0; i < manifest.getChunkCount(); i++) {
+          var hash = new byte[HASH_BYTES];
+          System.arraycopy(hashes, i * HASH_BYTES, hash, 0, HASH_BYTES);
+          chunkHashes.add(HashCode.fromBytes(hash));
+        }
+        snapshots.put(
+            manifest.getStateVersion(),
+            new ServedSnapshot(directory, manifest, sign(manifest), List.copyOf(chunkHashes)));
+      }
+      prune();
+    } catch (IOException | DeserializeException e) {
+      log.error("Unable to load state snapshots from {}", snapshotsDirectory, e);
+    }
+  }
+
+  private void prune() throws IOException {
+    var byAge =
+        snapshots.values().stream()
+            .sorted(Comparator.comparingLong(s -> -s.manifest().getStateVersion()))
+            .toList();
+    var retained = Math.min(byAge.size(), config.retainedSnapshots());
+    for (var snapshot : byAge.subList(retained, byAge.size())) {
+      snapshots.remove(snapshot.manifest().getStateVersion());
+      StagedStateSnapshot.delete(snapshot.directory());
+    }
+  }
+
+  private ECDSASignature sign(StateSnapshotManifest manifest) {
+    return hashSigner.sign(hasher.hash(manifest));
+  }
+
+  private static Path chunkFile(Path directory, int index) {
+    return directory.resolve(CHUNKS_DIRECTORY).resolve(Integer.toString(index));
+  }
+}
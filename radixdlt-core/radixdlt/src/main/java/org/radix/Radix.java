@@ -209,8 +209,15 @@ public final class Radix {
     final var syncRunner = moduleRunners.get(Runners.SYNC);
     syncRunner.start();
 
-    final var mempoolReceiverRunner = moduleRunners.get(Runners.MEMPOOL);
-    mempoolReceiverRunner.start();
+    // A read-only replica only follows the ledger through sync, it neither accepts transactions
+    // into a mempool nor takes part in consensus
+    final var readOnlyReplica =
+        properties.get(RadixNodeModule.READ_ONLY_REPLICA_ENABLE_PROPERTY_NAME, false);
+
+    if (!readOnlyReplica) {
+      final var mempoolReceiverRunner = moduleRunners.get(Runners.MEMPOOL);
+      mempoolReceiverRunner.start();
+    }
 
     final var peerServer = injector.getInstance(PeerServerBootstrap.class);
     try {
@@ -222,8 +229,10 @@ public final class Radix {
     final var undertow = injector.getInstance(Undertow.class);
     undertow.start();
 
-    final var consensusRunner = moduleRunners.get(Runners.CONSENSUS);
-    consensusRunner.start();
+    if (!readOnlyReplica) {
+      final var consensusRunner = moduleRunners.get(Runners.CONSENSUS);
+      consensusRunner.start();
+    }
 
     final BFTNode self = injector.getInstance(Key.get(BFTNode.class, Self.class));
     long finish = System.currentTimeMillis();
@@ -66,10 +66,18 @@ package org.radix.utils;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
 import com.radixdlt.atom.Txn;
+import com.radixdlt.crypto.Hasher;
 import com.radixdlt.environment.EventDispatcher;
+import com.radixdlt.hotstuff.ConsensusHasher;
+import com.radixdlt.hotstuff.HashVerifier;
 import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.hotstuff.bft.BFTValidatorSet;
+import com.radixdlt.ledger.AccumulatorState;
 import com.radixdlt.ledger.DtoLedgerProof;
+import com.radixdlt.ledger.LedgerAccumulatorVerifier;
 import com.radixdlt.ledger.VerifiedTxnsAndProof;
 import com.radixdlt.serialization.DsonOutput;
 import com.radixdlt.serialization.Serialization;
@@ -78,16 +86,53 @@ import com.radixdlt.serialization.SerializerDummy;
 import com.radixdlt.serialization.SerializerId2;
 import com.radixdlt.sync.CommittedReader;
 import com.radixdlt.utils.Compress;
-import java.io.FileInputStream;
+import com.radixdlt.utils.ThreadFactories;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
 import javax.annotation.concurrent.Immutable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-/** Utility class to write/restore ledger sync data from a file. */
+/**
+ * Utility class to write/restore ledger sync data from a file.
+ *
+ * <p>The file consists of a header, a sequence of length prefixed, compressed chunks (one per
+ * ledger proof) and an index footer holding the state version, offset, length and CRC32C checksum
+ * of every chunk.
+ *
+ * <p>Both export and import encode/decode and verify chunks on a pool of worker threads while
+ * chunks are written/applied strictly in ledger order.
+ */
 public final class LedgerFileSync {
+  private static final Logger logger = LogManager.getLogger();
+
+  private static final int FORMAT_MAGIC = 0x52445853;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = Integer.BYTES * 2;
+  private static final int INDEX_ENTRY_SIZE = Long.BYTES * 2 + Integer.BYTES * 2;
+  private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES * 2;
+  private static final int IO_BUFFER_SIZE = 1 << 20;
+  private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+  private static final int MAX_CHUNKS_IN_FLIGHT = PARALLELISM * 4;
+
+  private LedgerFileSync() {
+    throw new IllegalStateException("Can't construct");
+  }
 
   /** Writes node's ledger sync data to a file. */
   public static void writeToFile(
@@ -95,46 +140,309 @@ public final class LedgerFileSync {
       throws IOException {
     final var initialProof = committedReader.getEpochProof(1L);
     final var endProofOpt = committedReader.getLastProof();
-    if (initialProof.isPresent() && endProofOpt.isPresent()) {
-      final var endProof = endProofOpt.get();
-      try (var out = new FileOutputStream(fileName)) {
-        var currentProof = initialProof.get();
-        var nextCommands = committedReader.getNextCommittedTxns(currentProof.toDto());
-        while (nextCommands != null
-            && nextCommands.getProof().getStateVersion() <= endProof.getStateVersion()) {
-          final var commandsAndProof =
-              new CommandsAndProof(nextCommands.getTxns(), nextCommands.getProof().toDto());
-          final var serialized =
-              Compress.compress(serialization.toDson(commandsAndProof, DsonOutput.Output.WIRE));
-          out.write(ByteBuffer.allocate(4).putInt(serialized.length).array());
-          out.write(serialized);
-          currentProof = nextCommands.getProof();
-          nextCommands = committedReader.getNextCommittedTxns(currentProof.toDto());
+    if (initialProof.isEmpty() || endProofOpt.isEmpty()) {
+      return;
+    }
+
+    final var endStateVersion = endProofOpt.get().getStateVersion();
+    final var executor = newExecutor();
+    try (var out =
+        new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(fileName), IO_BUFFER_SIZE))) {
+      out.writeInt(FORMAT_MAGIC);
+      out.writeInt(FORMAT_VERSION);
+
+      final var index = new ArrayList<ChunkIndexEntry>();
+      final var inFlight = new ArrayDeque<Future<EncodedChunk>>();
+      var offset = (long) HEADER_SIZE;
+      var nextCommands = committedReader.getNextCommittedTxns(initialProof.get().toDto());
+      while (nextCommands != null
+          && nextCommands.getProof().getStateVersion() <= endStateVersion) {
+        final var txnsAndProof = nextCommands;
+        inFlight.add(executor.submit(() -> encodeChunk(serialization, txnsAndProof)));
+        if (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+          offset = writeChunk(out, offset, await(inFlight.poll()), index);
         }
+        nextCommands = committedReader.getNextCommittedTxns(txnsAndProof.getProof().toDto());
+      }
+      while (!inFlight.isEmpty()) {
+        offset = writeChunk(out, offset, await(inFlight.poll()), index);
       }
+
+      for (var entry : index) {
+        out.writeLong(entry.stateVersion());
+        out.writeLong(entry.offset());
+        out.writeInt(entry.length());
+        out.writeInt(entry.checksum());
+      }
+      out.writeLong(offset);
+      out.writeInt(index.size());
+      out.writeInt(FORMAT_MAGIC);
+    } finally {
+      executor.shutdownNow();
     }
   }
 
-  /** Reads and processes ledger sync data from a file. */
+  /**
+   * Reads, verifies and processes ledger sync data from a file. Chunks which are already part of
+   * the local ledger are skipped; every other chunk must carry a quorum of valid signatures of the
+   * current validator set and extend the ledger accumulator, otherwise the restore is aborted.
+   */
   public static void restoreFromFile(
       String fileName,
       Serialization serialization,
+      Hasher hasher,
+      HashVerifier hashVerifier,
+      LedgerAccumulatorVerifier accumulatorVerifier,
+      CommittedReader committedReader,
+      EventDispatcher<VerifiedTxnsAndProof> verifiedTxnsAndProofDispatcher)
+      throws IOException {
+    final var lastProof =
+        committedReader
+            .getLastProof()
+            .orElseThrow(() -> new IOException("Ledger has no proof to restore from"));
+    final var currentValidatorSet =
+        lastProof
+            .getNextValidatorSet()
+            .or(
+                () ->
+                    committedReader
+                        .getEpochProof(lastProof.getEpoch())
+                        .flatMap(LedgerProof::getNextValidatorSet))
+            .orElseThrow(() -> new IOException("Unable to determine current validator set"));
+    final var verifier =
+        new ChunkVerifier(
+            hasher, hashVerifier, accumulatorVerifier, lastProof, currentValidatorSet);
+
+    final var executor = newExecutor();
+    try (var channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+      final var index = readIndex(channel);
+      final var inFlight = new ArrayDeque<Future<DecodedChunk>>();
+      for (var entry : index) {
+        if (entry.stateVersion() <= lastProof.getStateVersion()) {
+          continue;
+        }
+
+        final var data = readFully(channel, entry.offset() + Integer.BYTES, entry.length());
+        inFlight.add(executor.submit(() -> decodeChunk(serialization, verifier, entry, data)));
+        if (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+          applyChunk(await(inFlight.poll()), verifier, verifiedTxnsAndProofDispatcher);
+        }
+      }
+      while (!inFlight.isEmpty()) {
+        applyChunk(await(inFlight.poll()), verifier, verifiedTxnsAndProofDispatcher);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static ExecutorService newExecutor() {
+    return Executors.newFixedThreadPool(
+        PARALLELISM, ThreadFactories.daemonThreads("LedgerFileSync-%d"));
+  }
+
+  private static EncodedChunk encodeChunk(
+      Serialization serialization, VerifiedTxnsAndProof txnsAndProof) throws IOException {
+    final var commandsAndProof =
+        new CommandsAndProof(txnsAndProof.getTxns(), txnsAndProof.getProof().toDto());
+    final var serialized =
+        Compress.compress(serialization.toDson(commandsAndProof, DsonOutput.Output.WIRE));
+    return new EncodedChunk(txnsAndProof.getProof().getStateVersion(), serialized);
+  }
+
+  private static long writeChunk(
+      DataOutputStream out, long offset, EncodedChunk chunk, List<ChunkIndexEntry> index)
+      throws IOException {
+    out.writeInt(chunk.data().length);
+    out.write(chunk.data());
+    index.add(
+        new ChunkIndexEntry(
+            chunk.stateVersion(), offset, chunk.data().length, checksum(chunk.data())));
+    return offset + Integer.BYTES + chunk.data().length;
+  }
+
+  private static int checksum(byte[] data) {
+    final var crc = new CRC32C();
+    crc.update(data);
+    return (int) crc.getValue();
+  }
+
+  private static DecodedChunk decodeChunk(
+      Serialization serialization, ChunkVerifier verifier, ChunkIndexEntry entry, byte[] data)
+      throws IOException {
+    if (checksum(data) != entry.checksum()) {
+      throw new IOException("Checksum mismatch of chunk up to " + entry.stateVersion());
+    }
+
+    final var wrapper = serialization.fromDson(Compress.uncompress(data), CommandsAndProof.class);
+    final var dtoProof = wrapper.getProof();
+    final var proof =
+        new LedgerProof(
+            dtoProof.getOpaque(), dtoProof.getLedgerHeader(), dtoProof.getSignatures());
+    if (!verifier.verifySignatures(proof)) {
+      throw new IOException("Invalid signatures on proof " + proof);
+    }
+    final var hashes =
+        wrapper.getTxns().stream()
+            .map(txn -> txn.getId().asHashCode())
+            .collect(ImmutableList.toImmutableList());
+    return new DecodedChunk(wrapper.getTxns(), hashes, proof);
+  }
+
+  private static void applyChunk(
+      DecodedChunk chunk,
+      ChunkVerifier verifier,
       EventDispatcher<VerifiedTxnsAndProof> verifiedTxnsAndProofDispatcher)
       throws IOException {
-    try (var in = new FileInputStream(fileName)) {
-      while (in.available() > 0) {
-        final var len = ByteBuffer.wrap(in.readNBytes(4)).getInt();
-        final var data = in.readNBytes(len);
-        final var wrapper =
-            serialization.fromDson(Compress.uncompress(data), CommandsAndProof.class);
-        final var proof = wrapper.getProof();
-        // TODO: verify the proof
-        final var verifiedTxnsAndProof =
-            VerifiedTxnsAndProof.create(
-                wrapper.getTxns(),
-                new LedgerProof(proof.getOpaque(), proof.getLedgerHeader(), proof.getSignatures()));
-        verifiedTxnsAndProofDispatcher.dispatch(verifiedTxnsAndProof);
+    final var extension = verifier.verifyAndExtend(chunk);
+    if (!extension.isEmpty()) {
+      verifiedTxnsAndProofDispatcher.dispatch(
+          VerifiedTxnsAndProof.create(extension, chunk.proof()));
+    }
+  }
+
+  private static List<ChunkIndexEntry> readIndex(FileChannel channel) throws IOException {
+    final var size = channel.size();
+    if (size < HEADER_SIZE + TRAILER_SIZE) {
+      throw new IOException("Ledger file is too short");
+    }
+
+    final var header = ByteBuffer.wrap(readFully(channel, 0, HEADER_SIZE));
+    if (header.getInt() != FORMAT_MAGIC || header.getInt() != FORMAT_VERSION) {
+      throw new IOException("Unsupported ledger file format");
+    }
+
+    final var trailer = ByteBuffer.wrap(readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE));
+    final var indexOffset = trailer.getLong();
+    final var chunkCount = trailer.getInt();
+    if (trailer.getInt() != FORMAT_MAGIC
+        || indexOffset + (long) chunkCount * INDEX_ENTRY_SIZE + TRAILER_SIZE != size) {
+      throw new IOException("Ledger file index is corrupt or missing");
+    }
+
+    final var indexSize = (long) chunkCount * INDEX_ENTRY_SIZE;
+    if (chunkCount < 0 || indexOffset < HEADER_SIZE || indexSize > Integer.MAX_VALUE) {
+      throw new IOException("Ledger file index is corrupt or missing");
+    }
+
+    final var indexBuf = ByteBuffer.wrap(readFully(channel, indexOffset, (int) indexSize));
+    final var index = new ArrayList<ChunkIndexEntry>(chunkCount);
+    var nextOffset = (long) HEADER_SIZE;
+    var lastStateVersion = Long.MIN_VALUE;
+    for (int i = 0; i < chunkCount; i++) {
+      final var entry =
+          new ChunkIndexEntry(
+              indexBuf.getLong(), indexBuf.getLong(), indexBuf.getInt(), indexBuf.getInt());
+      // Chunks are contiguous and ordered by state version
+      if (entry.offset() != nextOffset
+          || entry.length() < 0
+          || entry.stateVersion() <= lastStateVersion) {
+        throw new IOException("Ledger file index entry " + i + " is corrupt");
       }
+      nextOffset = entry.offset() + Integer.BYTES + entry.length();
+      lastStateVersion = entry.stateVersion();
+      index.add(entry);
+    }
+    if (nextOffset != indexOffset) {
+      throw new IOException("Ledger file index does not cover the chunks");
+    }
+    return index;
+  }
+
+  private static byte[] readFully(FileChannel channel, long position, int length)
+      throws IOException {
+    final var buf = ByteBuffer.allocate(length);
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, position + buf.position()) < 0) {
+        throw new IOException("Unexpected end of ledger file");
+      }
+    }
+    return buf.array();
+  }
+
+  private static <T> T await(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while processing ledger file", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to process ledger file chunk", e.getCause());
+    }
+  }
+
+  private record ChunkIndexEntry(long stateVersion, long offset, int length, int checksum) {}
+
+  private record EncodedChunk(long stateVersion, byte[] data) {}
+
+  private record DecodedChunk(List<Txn> txns, ImmutableList<HashCode> hashes, LedgerProof proof) {}
+
+  /**
+   * Verifies chunks against the local ledger. Signature checks are stateless and run on worker
+   * threads, validator set and accumulator checks depend on the previous chunk and run in order.
+   */
+  private static final class ChunkVerifier {
+    private final Hasher hasher;
+    private final HashVerifier hashVerifier;
+    private final LedgerAccumulatorVerifier accumulatorVerifier;
+    private AccumulatorState currentAccumulator;
+    private BFTValidatorSet currentValidatorSet;
+
+    private ChunkVerifier(
+        Hasher hasher,
+        HashVerifier hashVerifier,
+        LedgerAccumulatorVerifier accumulatorVerifier,
+        LedgerProof lastProof,
+        BFTValidatorSet currentValidatorSet) {
+      this.hasher = Objects.requireNonNull(hasher);
+      this.hashVerifier = Objects.requireNonNull(hashVerifier);
+      this.accumulatorVerifier = Objects.requireNonNull(accumulatorVerifier);
+      this.currentAccumulator = lastProof.getAccumulatorState();
+      this.currentValidatorSet = Objects.requireNonNull(currentValidatorSet);
+    }
+
+    private boolean verifySignatures(LedgerProof proof) {
+      final var opaque = proof.toDto().getOpaque();
+      final var header = proof.getRaw();
+      return proof.getSignatures().getSignatures().entrySet().stream()
+          .allMatch(
+              e -> {
+                final var hash =
+                    ConsensusHasher.toHash(opaque, header, e.getValue().timestamp(), hasher);
+                return hashVerifier.verify(e.getKey().getKey(), hash, e.getValue().signature());
+              });
+    }
+
+    private List<Txn> verifyAndExtend(DecodedChunk chunk) throws IOException {
+      final var proof = chunk.proof();
+      final var validationState = currentValidatorSet.newValidationState();
+      proof
+          .getSignatures()
+          .getSignatures()
+          .forEach(
+              (node, signature) ->
+                  validationState.addSignature(node, signature.timestamp(), signature.signature()));
+      if (!validationState.complete()) {
+        throw new IOException("Proof " + proof + " does not have a quorum of signatures");
+      }
+
+      final var extensionHashes =
+          accumulatorVerifier.verifyAndGetExtension(
+              currentAccumulator, chunk.hashes(), h -> h, proof.getAccumulatorState());
+      if (extensionHashes.isEmpty()) {
+        throw new IOException("Proof " + proof + " does not extend the current ledger");
+      }
+
+      final var txns = chunk.txns();
+      final var extension = txns.subList(txns.size() - extensionHashes.get().size(), txns.size());
+      currentAccumulator = proof.getAccumulatorState();
+      proof.getNextValidatorSet().ifPresent(nextSet -> currentValidatorSet = nextSet);
+      logger.debug("Verified ledger file chunk up to {}", proof.getStateVersion());
+      return extension;
     }
   }
 
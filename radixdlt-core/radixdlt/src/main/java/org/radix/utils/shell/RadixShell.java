@@ -73,6 +73,7 @@ import com.google.inject.Key;
 import com.google.inject.TypeLiteral;
 import com.radixdlt.RadixNodeModule;
 import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.crypto.Hasher;
 import com.radixdlt.crypto.RadixKeyStore;
 import com.radixdlt.environment.Environment;
 import com.radixdlt.environment.EventDispatcher;
@@ -81,8 +82,10 @@ import com.radixdlt.environment.Runners;
 import com.radixdlt.environment.rx.RemoteEvent;
 import com.radixdlt.environment.rx.RxEnvironment;
 import com.radixdlt.environment.rx.RxRemoteEnvironment;
+import com.radixdlt.hotstuff.HashVerifier;
 import com.radixdlt.hotstuff.bft.BFTNode;
 import com.radixdlt.hotstuff.bft.Self;
+import com.radixdlt.ledger.LedgerAccumulatorVerifier;
 import com.radixdlt.ledger.VerifiedTxnsAndProof;
 import com.radixdlt.modules.ModuleRunner;
 import com.radixdlt.network.messaging.MessageCentral;
@@ -371,6 +374,10 @@ public final class RadixShell {
       LedgerFileSync.restoreFromFile(
           fileName,
           getInstance(Serialization.class),
+          getInstance(Hasher.class),
+          getInstance(HashVerifier.class),
+          getInstance(LedgerAccumulatorVerifier.class),
+          getInstance(CommittedReader.class),
           getInstance(Key.get(new TypeLiteral<EventDispatcher<VerifiedTxnsAndProof>>() {})));
       final var time = System.currentTimeMillis() - start;
       System.out.printf("Restore finished. Took %ss%n", time / 1000);
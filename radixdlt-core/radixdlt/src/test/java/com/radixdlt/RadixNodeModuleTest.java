@@ -64,18 +64,26 @@
 
 package com.radixdlt;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.TypeLiteral;
+import com.radixdlt.api.HandlerRoute;
 import com.radixdlt.crypto.ECKeyPair;
 import com.radixdlt.crypto.RadixKeyStore;
 import com.radixdlt.networks.NetworkId;
 import com.radixdlt.properties.RuntimeProperties;
+import io.undertow.server.HttpHandler;
 import java.io.File;
+import java.util.Map;
 import org.assertj.core.util.Files;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -97,6 +105,28 @@ public class RadixNodeModuleTest {
     Guice.createInjector(new RadixNodeModule(properties)).injectMembers(this);
   }
 
+  @Test
+  public void read_only_replica_does_not_serve_submission_endpoints() {
+    final var properties = createDefaultProperties();
+    when(properties.get(eq("network.id"))).thenReturn("99");
+    when(properties.get(eq("network.genesis_txn"))).thenReturn("00");
+    when(properties.get(eq(RadixNodeModule.READ_ONLY_REPLICA_ENABLE_PROPERTY_NAME), anyBoolean()))
+        .thenReturn(true);
+
+    final var injector = Guice.createInjector(new RadixNodeModule(properties));
+    // Route providers, so that handlers (and the database behind them) aren't instantiated
+    final var routes =
+        injector.getInstance(
+            Key.get(new TypeLiteral<Map<HandlerRoute, Provider<HttpHandler>>>() {}));
+
+    assertThat(routes)
+        .containsKey(HandlerRoute.post("/transactions"))
+        .containsKey(HandlerRoute.post("/entity"))
+        .containsKey(HandlerRoute.post("/construction/build"))
+        .doesNotContainKey(HandlerRoute.post("/construction/submit"))
+        .doesNotContainKey(HandlerRoute.post("/mempool"));
+  }
+
   private RuntimeProperties createDefaultProperties() {
     final var properties = mock(RuntimeProperties.class);
     doReturn("127.0.0.1").when(properties).get(eq("host.ip"), any());
@@ -109,6 +109,9 @@ import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.ExceptionHandler;
 import io.undertow.util.HeaderMap;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
@@ -225,9 +228,20 @@ public abstract class ApiTest {
     when(httpServerExchange.isInIoThread()).thenReturn(false);
     when(httpServerExchange.getResponseHeaders()).thenReturn(new HeaderMap());
     when(httpServerExchange.getResponseSender()).thenReturn(sender);
+    when(httpServerExchange.getOutputStream()).thenReturn(streamingTo(sender));
     return httpServerExchange;
   }
 
+  // Responses which are streamed rather than sent are passed on to the sender once complete
+  private static OutputStream streamingTo(Sender sender) {
+    return new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        sender.send(toString(StandardCharsets.UTF_8));
+      }
+    };
+  }
+
   private HttpServerExchange exchange(Sender sender) {
     return exchange(new byte[0], sender);
   }
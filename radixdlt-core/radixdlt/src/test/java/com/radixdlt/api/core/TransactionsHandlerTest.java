@@ -65,9 +65,14 @@
 package com.radixdlt.api.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.google.inject.Inject;
 import com.radixdlt.api.ApiTest;
+import com.radixdlt.api.core.openapitools.JSON;
 import com.radixdlt.api.core.handlers.TransactionsHandler;
 import com.radixdlt.api.core.openapitools.model.CommittedTransactionsRequest;
 import com.radixdlt.api.core.openapitools.model.CommittedTransactionsResponse;
@@ -79,6 +84,10 @@ import com.radixdlt.api.core.openapitools.model.UnexpectedError;
 import com.radixdlt.ledger.VerifiedTxnsAndProof;
 import com.radixdlt.statecomputer.checkpoint.Genesis;
 import com.radixdlt.utils.Bytes;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.HeaderMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import org.junit.Test;
 
 public class TransactionsHandlerTest extends ApiTest {
@@ -105,6 +114,56 @@ public class TransactionsHandlerTest extends ApiTest {
     assertThat(hex).isEqualTo(Bytes.toHexString(genesis.getTxns().get(0).getPayload()));
   }
 
+  @Test
+  public void serving_the_same_page_twice_reuses_the_rendered_transactions() throws Exception {
+    // Arrange
+    start();
+    var request =
+        new CommittedTransactionsRequest()
+            .networkIdentifier(new NetworkIdentifier().network("localnet"))
+            .limit(10L)
+            .stateIdentifier(new PartialStateIdentifier().stateVersion(0L));
+
+    // Act
+    var first = sut.handleRequest(request);
+    var second = sut.handleRequest(request);
+
+    // Assert
+    assertThat(first.getTransactions()).hasSize(1);
+    assertThat(second.getTransactions()).hasSize(1);
+    assertThat(second.getTransactions().get(0)).isSameAs(first.getTransactions().get(0));
+    assertThat(second.getStateIdentifier()).isEqualTo(first.getStateIdentifier());
+  }
+
+  @Test
+  public void successful_response_is_streamed_to_the_exchange() throws Exception {
+    // Arrange
+    start();
+    var objectMapper = JSON.getDefault().getMapper();
+    var request =
+        new CommittedTransactionsRequest()
+            .networkIdentifier(new NetworkIdentifier().network("localnet"))
+            .limit(1L)
+            .stateIdentifier(new PartialStateIdentifier().stateVersion(0L));
+    var output = new ByteArrayOutputStream();
+    var exchange = mock(HttpServerExchange.class);
+    when(exchange.getInputStream())
+        .thenReturn(new ByteArrayInputStream(objectMapper.writeValueAsBytes(request)));
+    when(exchange.getResponseHeaders()).thenReturn(new HeaderMap());
+    when(exchange.getOutputStream()).thenReturn(output);
+
+    // Act
+    sut.handleRequest(exchange);
+
+    // Assert
+    verify(exchange).setStatusCode(200);
+    verify(exchange, never()).getResponseSender();
+    var response =
+        objectMapper.readValue(output.toByteArray(), CommittedTransactionsResponse.class);
+    var hex = response.getTransactions().get(0).getMetadata().getHex();
+    assertThat(hex).isEqualTo(Bytes.toHexString(genesis.getTxns().get(0).getPayload()));
+  }
+
   @Test
   public void retrieve_last_state_version() throws Exception {
     // Arrange
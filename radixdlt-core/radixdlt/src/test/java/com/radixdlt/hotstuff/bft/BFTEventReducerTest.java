@@ -68,6 +68,7 @@ import static com.radixdlt.utils.TypedMocks.rmock;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.radixdlt.counters.SystemCountersImpl;
 import com.radixdlt.crypto.Hasher;
 import com.radixdlt.environment.EventDispatcher;
 import com.radixdlt.environment.RemoteEventDispatcher;
@@ -113,7 +114,8 @@ public class BFTEventReducerTest {
             this.safetyRules,
             this.validatorSet,
             this.pendingVotes,
-            mock(ViewUpdate.class));
+            mock(ViewUpdate.class),
+            new SystemCountersImpl());
   }
 
   @Test
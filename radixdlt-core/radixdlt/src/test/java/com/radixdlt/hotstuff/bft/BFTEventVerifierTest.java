@@ -72,6 +72,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.radixdlt.counters.SystemCountersImpl;
 import com.radixdlt.crypto.ECDSASignature;
 import com.radixdlt.crypto.Hasher;
 import com.radixdlt.hotstuff.BFTEventProcessor;
@@ -101,7 +102,8 @@ public class BFTEventVerifierTest {
     this.verifier = mock(HashVerifier.class);
     this.safetyRules = mock(SafetyRules.class);
     this.eventVerifier =
-        new BFTEventVerifier(validatorSet, forwardTo, hasher, verifier, safetyRules);
+        new BFTEventVerifier(
+            validatorSet, forwardTo, hasher, verifier, safetyRules, new SystemCountersImpl());
   }
 
   @Test
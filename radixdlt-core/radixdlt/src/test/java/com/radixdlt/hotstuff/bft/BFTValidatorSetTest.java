@@ -104,6 +104,20 @@ public class BFTValidatorSetTest {
     assertThat(s).contains(node.getSimpleName());
   }
 
+  @Test
+  public void when_indexing_validators__then_each_validator_has_its_own_index() {
+    final var validators =
+        IntStream.range(0, 5)
+            .mapToObj(i -> BFTValidator.from(BFTNode.random(), UInt256.from(i + 1)))
+            .collect(ImmutableList.toImmutableList());
+    final var validatorSet = BFTValidatorSet.from(validators);
+
+    for (var validator : validators) {
+      assertEquals(validator, validatorSet.validatorAt(validatorSet.indexOf(validator.getNode())));
+    }
+    assertEquals(-1, validatorSet.indexOf(BFTNode.random()));
+  }
+
   @Test
   public void testValidate() {
     ECKeyPair k1 = ECKeyPair.generateNew();
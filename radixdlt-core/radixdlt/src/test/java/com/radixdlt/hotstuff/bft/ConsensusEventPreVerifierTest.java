@@ -0,0 +1,169 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.hotstuff.bft;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.hash.HashCode;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.counters.SystemCountersImpl;
+import com.radixdlt.crypto.ECDSASignature;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.crypto.HashUtils;
+import com.radixdlt.crypto.Hasher;
+import com.radixdlt.environment.rx.RemoteEvent;
+import com.radixdlt.hotstuff.BFTHeader;
+import com.radixdlt.hotstuff.HashVerifier;
+import com.radixdlt.hotstuff.HighQC;
+import com.radixdlt.hotstuff.QuorumCertificate;
+import com.radixdlt.hotstuff.TimestampedECDSASignatures;
+import com.radixdlt.hotstuff.Vote;
+import io.reactivex.rxjava3.core.Flowable;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConsensusEventPreVerifierTest {
+  private Hasher hasher;
+  private HashVerifier verifier;
+  private SystemCountersImpl counters;
+  private ConsensusEventPreVerifier preVerifier;
+
+  @Before
+  public void setup() {
+    this.hasher = mock(Hasher.class);
+    when(hasher.hash(any())).thenAnswer(i -> HashUtils.random256());
+    this.verifier = mock(HashVerifier.class);
+    this.counters = new SystemCountersImpl();
+    this.preVerifier = new ConsensusEventPreVerifier(hasher, verifier, counters, 2, 10);
+  }
+
+  @Test
+  public void only_votes_with_valid_signatures_are_passed_on() {
+    var validSignature = mock(ECDSASignature.class);
+    var invalidSignature = mock(ECDSASignature.class);
+    when(verifier.verify(any(), any(), eq(validSignature))).thenReturn(true);
+    when(verifier.verify(any(), any(), eq(invalidSignature))).thenReturn(false);
+    var valid = RemoteEvent.create(author(), vote(validSignature));
+    var invalid = RemoteEvent.create(author(), vote(invalidSignature));
+
+    var passedOn = preVerifier.verify(Flowable.just(valid, invalid)).toList().blockingGet();
+
+    assertThat(passedOn).containsExactly(valid);
+    assertThat(counters.get(CounterType.BFT_PREVERIFICATION_REJECTED)).isEqualTo(1);
+  }
+
+  @Test(timeout = 10_000)
+  public void votes_are_passed_on_in_arrival_order() {
+    var slowSignature = mock(ECDSASignature.class);
+    var fastSignature = mock(ECDSASignature.class);
+    var fastVerified = new CountDownLatch(1);
+    // The first vote is only verified once the one after it has been
+    when(verifier.verify(any(), any(), eq(slowSignature)))
+        .thenAnswer(i -> fastVerified.await(5, TimeUnit.SECONDS));
+    when(verifier.verify(any(), any(), eq(fastSignature)))
+        .thenAnswer(
+            i -> {
+              fastVerified.countDown();
+              return true;
+            });
+    var first = RemoteEvent.create(author(), vote(slowSignature));
+    var second = RemoteEvent.create(author(), vote(fastSignature));
+
+    var passedOn = preVerifier.verify(Flowable.just(first, second)).toList().blockingGet();
+
+    assertThat(passedOn).containsExactly(first, second);
+  }
+
+  private static BFTNode author() {
+    return BFTNode.create(ECKeyPair.generateNew().getPublicKey());
+  }
+
+  private Vote vote(ECDSASignature signature) {
+    var vote = mock(Vote.class);
+    when(vote.getAuthor()).thenReturn(author());
+    when(vote.getHashOfData(any())).thenReturn(HashCode.fromInt(1));
+    when(vote.getSignature()).thenReturn(signature);
+    when(vote.getTimeoutSignature()).thenReturn(Optional.empty());
+    var qc = mock(QuorumCertificate.class);
+    var proposed = mock(BFTHeader.class);
+    when(proposed.getView()).thenReturn(View.of(1));
+    when(qc.getProposed()).thenReturn(proposed);
+    when(qc.getCommitted()).thenReturn(Optional.empty());
+    when(qc.getTimestampedSignatures()).thenReturn(new TimestampedECDSASignatures());
+    var highQC = mock(HighQC.class);
+    when(highQC.highestQC()).thenReturn(qc);
+    when(highQC.highestCommittedQC()).thenReturn(qc);
+    when(highQC.highestTC()).thenReturn(Optional.empty());
+    when(vote.highQC()).thenReturn(highQC);
+    return vote;
+  }
+}
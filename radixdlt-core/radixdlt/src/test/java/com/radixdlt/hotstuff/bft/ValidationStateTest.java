@@ -66,9 +66,14 @@ package com.radixdlt.hotstuff.bft;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableList;
+import com.radixdlt.crypto.ECDSASignature;
+import com.radixdlt.hotstuff.TimestampedECDSASignature;
 import com.radixdlt.utils.UInt256;
+import java.util.Map;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import org.junit.Test;
 
@@ -84,6 +89,53 @@ public class ValidationStateTest {
     assertThat(s).contains(ValidationState.class.getSimpleName());
   }
 
+  @Test
+  public void when_signatures_added_and_removed__then_quorum_follows_signed_power() {
+    quorumFollowsSignedPower(UInt256.from(10));
+  }
+
+  @Test
+  public void when_total_power_exceeds_a_long__then_quorum_follows_signed_power() {
+    quorumFollowsSignedPower(UInt256.MAX_VALUE.shiftRight(2));
+  }
+
+  private void quorumFollowsSignedPower(UInt256 power) {
+    final var node1 = BFTNode.random();
+    final var node2 = BFTNode.random();
+    final var node3 = BFTNode.random();
+    final var validatorSet =
+        BFTValidatorSet.from(
+            ImmutableList.of(
+                BFTValidator.from(node1, power),
+                BFTValidator.from(node2, power),
+                BFTValidator.from(node3, power)));
+    final var signature = ECDSASignature.zeroSignature();
+    final var validationState = validatorSet.newValidationState();
+
+    assertTrue(validationState.addSignature(node1, 1L, signature));
+    assertFalse(validationState.addSignature(node1, 2L, signature));
+    assertFalse(validationState.addSignature(BFTNode.random(), 3L, signature));
+    assertFalse(validationState.complete());
+
+    assertTrue(validationState.addSignature(node2, 4L, signature));
+    assertFalse(validationState.complete());
+    assertTrue(validationState.addSignature(node3, 5L, signature));
+    assertTrue(validationState.complete());
+
+    validationState.removeSignature(node2);
+    assertFalse(validationState.complete());
+    assertFalse(validationState.isEmpty());
+    assertEquals(
+        Map.of(
+            node1, TimestampedECDSASignature.from(1L, signature),
+            node3, TimestampedECDSASignature.from(5L, signature)),
+        validationState.signatures().getSignatures());
+
+    validationState.removeSignature(node1);
+    validationState.removeSignature(node3);
+    assertTrue(validationState.isEmpty());
+  }
+
   @Test
   public void testAcceptableFaults() {
     assertEquals(UInt256.ZERO, ValidationState.acceptableFaults(UInt256.ZERO));
@@ -65,6 +65,7 @@
 package com.radixdlt.hotstuff.epoch;
 
 import static com.radixdlt.utils.TypedMocks.rmock;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
@@ -82,6 +83,7 @@ import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
 import com.radixdlt.atom.Txn;
 import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
 import com.radixdlt.counters.SystemCountersImpl;
 import com.radixdlt.crypto.ECKeyPair;
 import com.radixdlt.crypto.HashUtils;
@@ -90,6 +92,7 @@ import com.radixdlt.environment.EventDispatcher;
 import com.radixdlt.environment.RemoteEventDispatcher;
 import com.radixdlt.environment.ScheduledEventDispatcher;
 import com.radixdlt.hotstuff.BFTConfiguration;
+import com.radixdlt.hotstuff.BFTHeader;
 import com.radixdlt.hotstuff.HashSigner;
 import com.radixdlt.hotstuff.HighQC;
 import com.radixdlt.hotstuff.LedgerHeader;
@@ -110,6 +113,7 @@ import com.radixdlt.hotstuff.bft.PacemakerMaxExponent;
 import com.radixdlt.hotstuff.bft.PacemakerRate;
 import com.radixdlt.hotstuff.bft.PacemakerTimeout;
 import com.radixdlt.hotstuff.bft.PersistentVertexStore;
+import com.radixdlt.hotstuff.bft.PreparedVertex;
 import com.radixdlt.hotstuff.bft.Self;
 import com.radixdlt.hotstuff.bft.VerifiedVertex;
 import com.radixdlt.hotstuff.bft.VerifiedVertexStoreState;
@@ -166,6 +170,8 @@ public class EpochManagerTest {
 
   @Inject private Hasher hasher;
 
+  @Inject private SystemCounters counters;
+
   private ECKeyPair ecKeyPair = ECKeyPair.generateNew();
 
   private NextTxnsGenerator nextTxnsGenerator = mock(NextTxnsGenerator.class);
@@ -339,6 +345,47 @@ public class EpochManagerTest {
     epochManager.start();
     BFTValidatorSet nextValidatorSet =
         BFTValidatorSet.from(Stream.of(BFTValidator.from(BFTNode.random(), UInt256.ONE)));
+    var ledgerUpdate = epochChangeTo(nextValidatorSet);
+    var epochChange = ledgerUpdate.getStateComputerOutput().getInstance(EpochChange.class);
+
+    // Act
+    epochManager.epochsLedgerUpdateEventProcessor().process(ledgerUpdate);
+
+    // Assert
+    verify(proposalDispatcher, never())
+        .dispatch(any(Iterable.class), argThat(p -> p.getEpoch() == epochChange.getEpoch()));
+    verify(voteDispatcher, never()).dispatch(any(BFTNode.class), any());
+  }
+
+  @Test
+  public void should_switch_to_next_epoch_components_prepared_from_inserted_vertex() {
+    // Arrange
+    epochManager.start();
+    final var self = BFTNode.create(ecKeyPair.getPublicKey());
+    final var nextValidatorSet =
+        BFTValidatorSet.from(
+            Stream.of(
+                BFTValidator.from(self, UInt256.ONE),
+                BFTValidator.from(BFTNode.random(), UInt256.ONE)));
+    final var endOfEpochHeader =
+        LedgerHeader.genesis(new AccumulatorState(0, HashUtils.zero256()), nextValidatorSet, 0);
+    final var inserted = mock(PreparedVertex.class);
+    when(inserted.getLedgerHeader()).thenReturn(endOfEpochHeader);
+    final var insertedHeader = mock(BFTHeader.class);
+    when(insertedHeader.getView()).thenReturn(View.genesis());
+    final var insertUpdate = mock(BFTInsertUpdate.class);
+    when(insertUpdate.getInserted()).thenReturn(inserted);
+    when(insertUpdate.getHeader()).thenReturn(insertedHeader);
+
+    // Act
+    epochManager.processBFTUpdate(insertUpdate);
+    epochManager.epochsLedgerUpdateEventProcessor().process(epochChangeTo(nextValidatorSet));
+
+    // Assert
+    assertEquals(1L, counters.get(CounterType.EPOCH_MANAGER_PREPARED_EPOCHS_USED));
+  }
+
+  private LedgerUpdate epochChangeTo(BFTValidatorSet nextValidatorSet) {
     var accumulatorState = new AccumulatorState(0, HashUtils.zero256());
     LedgerHeader header = LedgerHeader.genesis(accumulatorState, nextValidatorSet, 0);
     UnverifiedVertex genesisVertex = UnverifiedVertex.createGenesis(header);
@@ -361,17 +408,8 @@ public class EpochManagerTest {
     LedgerProof proof = mock(LedgerProof.class);
     when(proof.getEpoch()).thenReturn(header.getEpoch() + 1);
     var epochChange = new EpochChange(proof, bftConfiguration);
-    var ledgerUpdate =
-        new LedgerUpdate(
-            mock(VerifiedTxnsAndProof.class),
-            ImmutableClassToInstanceMap.of(EpochChange.class, epochChange));
-
-    // Act
-    epochManager.epochsLedgerUpdateEventProcessor().process(ledgerUpdate);
-
-    // Assert
-    verify(proposalDispatcher, never())
-        .dispatch(any(Iterable.class), argThat(p -> p.getEpoch() == epochChange.getEpoch()));
-    verify(voteDispatcher, never()).dispatch(any(BFTNode.class), any());
+    return new LedgerUpdate(
+        mock(VerifiedTxnsAndProof.class),
+        ImmutableClassToInstanceMap.of(EpochChange.class, epochChange));
   }
 }
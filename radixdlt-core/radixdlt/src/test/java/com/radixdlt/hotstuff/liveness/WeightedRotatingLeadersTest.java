@@ -78,8 +78,16 @@ import com.radixdlt.hotstuff.bft.BFTValidatorSet;
 import com.radixdlt.hotstuff.bft.View;
 import com.radixdlt.utils.KeyComparator;
 import com.radixdlt.utils.UInt256;
+import com.radixdlt.utils.UInt256s;
+import com.radixdlt.utils.UInt384;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -197,4 +205,210 @@ public class WeightedRotatingLeadersTest {
 
     assertThat(proposerCounts).isEqualTo(expected);
   }
+
+  @Test
+  public void when_get_proposer_in_any_order__then_should_match_view_by_view_rotation() {
+    final var random = new Random(12345);
+    for (int i = 0; i < 20; i++) {
+      final var validatorSetSize = 1 + random.nextInt(16);
+      // Half of the sets have too much power for primitive weights
+      final var maxPower = i % 2 == 0 ? UInt256.from(1000) : UInt256.from(Long.MAX_VALUE);
+      this.validatorsInOrder =
+          Stream.generate(
+                  () ->
+                      BFTValidator.from(
+                          BFTNode.random(),
+                          UInt256.from(random.nextLong() & Long.MAX_VALUE)
+                              .remainder(maxPower)
+                              .increment()))
+              .limit(validatorSetSize)
+              .collect(ImmutableList.toImmutableList());
+      final var validatorSet = BFTValidatorSet.from(validatorsInOrder);
+      final var expected = viewByViewRotation(validatorSet, 1500);
+      this.weightedRotatingLeaders = new WeightedRotatingLeaders(validatorSet);
+
+      for (int query = 0; query < 500; query++) {
+        final var view = random.nextInt(expected.size());
+        assertThat(weightedRotatingLeaders.getProposer(View.of(view)))
+            .isEqualTo(expected.get(view));
+      }
+    }
+  }
+
+  @Test
+  public void when_get_proposer_skipping_views__then_should_match_previous_implementation() {
+    final var random = new Random(54321);
+    for (int i = 0; i < 20; i++) {
+      final var validatorSetSize = 1 + random.nextInt(8);
+      // Small powers keep the LCM of the powers below the number of views queried
+      final var maxPower = i % 2 == 0 ? 6 : 1000;
+      this.validatorsInOrder =
+          Stream.generate(
+                  () ->
+                      BFTValidator.from(
+                          BFTNode.random(), UInt256.from(1 + random.nextInt(maxPower))))
+              .limit(validatorSetSize)
+              .collect(ImmutableList.toImmutableList());
+      final var validatorSet = BFTValidatorSet.from(validatorsInOrder);
+      final var sizeOfCache = 1 + random.nextInt(16);
+      this.weightedRotatingLeaders = new WeightedRotatingLeaders(validatorSet, sizeOfCache);
+      final var previous = new PreviousWeightedRotatingLeaders(validatorSet, sizeOfCache);
+
+      var highestView = 0;
+      for (int query = 0; query < 300; query++) {
+        // Mostly move forward, skipping views, and sometimes look back before the cache window
+        final var view =
+            random.nextInt(4) == 0
+                ? random.nextInt(highestView + 1)
+                : highestView + random.nextInt(20);
+        highestView = Math.max(highestView, view);
+        assertThat(weightedRotatingLeaders.getProposer(View.of(view)))
+            .isEqualTo(previous.getProposer(View.of(view)));
+      }
+    }
+  }
+
+  // Straightforward computation of the leader of each view, one view after the other
+  private static List<BFTNode> viewByViewRotation(BFTValidatorSet validatorSet, int views) {
+    final var pow2To256 = UInt384.from(UInt256.MAX_VALUE).increment();
+    final Comparator<Entry<BFTValidator, UInt384>> weightsComparator =
+        Comparator.comparing(Entry<BFTValidator, UInt384>::getValue)
+            .thenComparing(v -> v.getKey().getNode().getKey(), KeyComparator.instance().reversed());
+    final var weights = new HashMap<BFTValidator, UInt384>();
+    validatorSet.getValidators().forEach(v -> weights.put(v, pow2To256.subtract(v.getPower())));
+
+    final var leaders = new ArrayList<BFTNode>();
+    for (int view = 0; view < views; view++) {
+      final var leader = weights.entrySet().stream().max(weightsComparator).orElseThrow().getKey();
+      leaders.add(leader.getNode());
+      weights.merge(leader, UInt384.from(validatorSet.getTotalPower()), UInt384::subtract);
+      validatorSet
+          .getValidators()
+          .forEach(v -> weights.merge(v, UInt384.from(v.getPower()), UInt384::add));
+    }
+    return leaders;
+  }
+
+  // The implementation before leader rotation was computed with primitive weights and
+  // checkpoints, kept to check that the leader of every view is unchanged
+  private static final class PreviousWeightedRotatingLeaders {
+    private static final UInt384 POW_2_256 = UInt384.from(UInt256.MAX_VALUE).increment();
+
+    private final BFTValidatorSet validatorSet;
+    private final Comparator<Entry<BFTValidator, UInt384>> weightsComparator;
+    private final CachingNextLeaderComputer nextLeaderComputer;
+
+    private PreviousWeightedRotatingLeaders(BFTValidatorSet validatorSet, int cacheSize) {
+      this.validatorSet = validatorSet;
+      this.weightsComparator =
+          Comparator.comparing(Entry<BFTValidator, UInt384>::getValue)
+              .thenComparing(
+                  v -> v.getKey().getNode().getKey(), KeyComparator.instance().reversed());
+      this.nextLeaderComputer =
+          new CachingNextLeaderComputer(validatorSet, weightsComparator, cacheSize);
+    }
+
+    private static class CachingNextLeaderComputer {
+      private final BFTValidatorSet validatorSet;
+      private final Comparator<Entry<BFTValidator, UInt384>> weightsComparator;
+      private final Map<BFTValidator, UInt384> weights;
+      private final BFTValidator[] cache;
+      private final Long lcm;
+      private View curView;
+
+      private CachingNextLeaderComputer(
+          BFTValidatorSet validatorSet,
+          Comparator<Entry<BFTValidator, UInt384>> weightsComparator,
+          int cacheSize) {
+        this.validatorSet = validatorSet;
+        this.weightsComparator = weightsComparator;
+        this.weights = new HashMap<>();
+        this.cache = new BFTValidator[cacheSize];
+
+        UInt256[] powerArray =
+            validatorSet.getValidators().stream()
+                .map(BFTValidator::getPower)
+                .toArray(UInt256[]::new);
+        UInt256 lcm256 = UInt256s.cappedLCM(UInt256.from(Long.MAX_VALUE), powerArray);
+        this.lcm = lcm256 == null ? null : lcm256.getLow().getLow();
+
+        this.resetToView(View.of(0));
+      }
+
+      private BFTValidator computeHeaviest() {
+        final Entry<BFTValidator, UInt384> max =
+            weights.entrySet().stream()
+                .max(weightsComparator)
+                .orElseThrow(() -> new IllegalStateException("Weights cannot be empty"));
+        return max.getKey();
+      }
+
+      private void computeNext() {
+        final int curIndex = (int) (this.curView.number() % cache.length);
+        final BFTValidator curLeader = cache[curIndex];
+        weights.merge(curLeader, UInt384.from(validatorSet.getTotalPower()), UInt384::subtract);
+
+        for (BFTValidator validator : validatorSet.getValidators()) {
+          weights.merge(validator, UInt384.from(validator.getPower()), UInt384::add);
+        }
+
+        this.curView = this.curView.next();
+        int index = (int) (this.curView.number() % cache.length);
+        cache[index] = computeHeaviest();
+      }
+
+      private BFTValidator checkCacheForProposer(View view) {
+        if (view.compareTo(curView) <= 0 && view.number() > curView.number() - cache.length) {
+          final int index = (int) (view.number() % cache.length);
+          return cache[index];
+        }
+
+        return null;
+      }
+
+      private void computeToView(View view) {
+        while (view.compareTo(curView) > 0) {
+          computeNext();
+        }
+      }
+
+      private BFTValidator resetToView(View view) {
+        if (curView == null || view.number() < curView.number() - cache.length) {
+          if (lcm == null || lcm > view.number()) {
+            curView = View.genesis();
+          } else {
+            long multipleOfLCM = view.number() / lcm;
+            curView = View.of(multipleOfLCM * lcm);
+          }
+
+          for (BFTValidator validator : validatorSet.getValidators()) {
+            weights.put(validator, POW_2_256.subtract(validator.getPower()));
+          }
+          cache[0] = computeHeaviest();
+        }
+
+        computeToView(view);
+
+        return cache[(int) (view.number() % cache.length)];
+      }
+
+      @Override
+      public String toString() {
+        return String.format("%s %s %s", this.curView, Arrays.toString(this.cache), this.weights);
+      }
+    }
+
+    private BFTNode getProposer(View view) {
+      nextLeaderComputer.computeToView(view);
+
+      BFTValidator validator = nextLeaderComputer.checkCacheForProposer(view);
+      if (validator != null) {
+        return validator.getNode();
+      } else {
+        CachingNextLeaderComputer computer =
+            new CachingNextLeaderComputer(validatorSet, weightsComparator, 1);
+        return computer.resetToView(view).getNode();
+      }
+    }
+  }
 }
@@ -0,0 +1,175 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.hotstuff.safety;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.counters.SystemCountersImpl;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncSafetyStateWriterTest {
+  private PersistentSafetyStateStore delegate;
+  private SystemCounters counters;
+  private AsyncSafetyStateWriter writer;
+
+  @Before
+  public void setup() {
+    this.delegate = mock(PersistentSafetyStateStore.class);
+    this.counters = new SystemCountersImpl();
+    this.writer = new AsyncSafetyStateWriter(delegate, counters);
+  }
+
+  @Test
+  public void when_nothing_committed__then_on_durable_runs_immediately() {
+    final var ran = new AtomicBoolean();
+
+    writer.onDurable(() -> ran.set(true));
+
+    assertThat(ran).isTrue();
+  }
+
+  @Test
+  public void when_state_committed__then_on_durable_runs_after_write() throws Exception {
+    final var writeStarted = new CountDownLatch(1);
+    final var releaseWrite = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              writeStarted.countDown();
+              releaseWrite.await();
+              return null;
+            })
+        .when(delegate)
+        .commitState(any());
+    final var durable = new CountDownLatch(1);
+
+    final var state = mock(SafetyState.class);
+    writer.commitState(state);
+    writer.onDurable(durable::countDown);
+
+    assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+    assertThat(durable.getCount()).isEqualTo(1);
+
+    releaseWrite.countDown();
+    assertTrue(durable.await(5, TimeUnit.SECONDS));
+    verify(delegate).commitState(state);
+  }
+
+  @Test
+  public void when_states_superseded__then_only_latest_is_written() throws Exception {
+    final var writeStarted = new CountDownLatch(1);
+    final var releaseWrite = new CountDownLatch(1);
+    final var first = mock(SafetyState.class);
+    final var second = mock(SafetyState.class);
+    final var third = mock(SafetyState.class);
+    doAnswer(
+            invocation -> {
+              if (invocation.getArgument(0) == first) {
+                writeStarted.countDown();
+                releaseWrite.await();
+              }
+              return null;
+            })
+        .when(delegate)
+        .commitState(any());
+
+    writer.commitState(first);
+    assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+    writer.commitState(second);
+    writer.commitState(third);
+    releaseWrite.countDown();
+    writer.close();
+
+    verify(delegate).commitState(third);
+    verify(delegate, never()).commitState(second);
+    verify(delegate).close();
+    assertThat(counters.get(CounterType.PERSISTENCE_SAFETY_STORE_COALESCED)).isPositive();
+  }
+
+  @Test
+  public void when_write_fails__then_on_durable_never_runs() {
+    doThrow(new IllegalStateException()).when(delegate).commitState(any());
+    final var ran = new AtomicBoolean();
+
+    writer.commitState(mock(SafetyState.class));
+    writer.onDurable(() -> ran.set(true));
+
+    assertThatThrownBy(writer::get).isInstanceOf(IllegalStateException.class);
+    assertThat(ran).isFalse();
+  }
+}
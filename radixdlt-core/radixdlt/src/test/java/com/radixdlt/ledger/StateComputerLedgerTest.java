@@ -69,6 +69,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -76,14 +78,19 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.radixdlt.atom.Txn;
 import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
 import com.radixdlt.crypto.HashUtils;
 import com.radixdlt.crypto.Hasher;
+import com.radixdlt.hotstuff.BFTHeader;
+import com.radixdlt.hotstuff.HashVerifier;
 import com.radixdlt.hotstuff.LedgerHeader;
 import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.hotstuff.Proposal;
 import com.radixdlt.hotstuff.QuorumCertificate;
 import com.radixdlt.hotstuff.Sha256Hasher;
 import com.radixdlt.hotstuff.TimestampedECDSASignatures;
 import com.radixdlt.hotstuff.UnverifiedVertex;
+import com.radixdlt.hotstuff.VoteData;
 import com.radixdlt.hotstuff.bft.BFTNode;
 import com.radixdlt.hotstuff.bft.BFTValidator;
 import com.radixdlt.hotstuff.bft.BFTValidatorSet;
@@ -102,6 +109,8 @@ import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 import org.junit.Before;
 import org.junit.Test;
@@ -116,6 +125,7 @@ public class StateComputerLedgerTest {
   private Comparator<LedgerProof> headerComparator;
   private LedgerAccumulator accumulator;
   private LedgerAccumulatorVerifier accumulatorVerifier;
+  private HashVerifier hashVerifier;
 
   private LedgerHeader ledgerHeader;
   private UnverifiedVertex genesis;
@@ -142,6 +152,9 @@ public class StateComputerLedgerTest {
     this.stateComputer = mock(StateComputer.class);
     this.counters = mock(SystemCounters.class);
     this.headerComparator = TypedMocks.rmock(Comparator.class);
+    this.hashVerifier = mock(HashVerifier.class);
+    when(hashVerifier.verify(any(), any(), any())).thenReturn(true);
+    when(stateComputer.isLeader(any(), any())).thenReturn(true);
 
     this.accumulator = new SimpleLedgerAccumulatorAndVerifier(hasher);
     this.accumulatorVerifier = new SimpleLedgerAccumulatorAndVerifier(hasher);
@@ -162,6 +175,8 @@ public class StateComputerLedgerTest {
             stateComputer,
             accumulator,
             accumulatorVerifier,
+            hasher,
+            hashVerifier,
             counters);
   }
 
@@ -189,6 +204,8 @@ public class StateComputerLedgerTest {
             stateComputer,
             accumulator,
             accumulatorVerifier,
+            hasher,
+            hashVerifier,
             counters);
   }
 
@@ -267,6 +284,205 @@ public class StateComputerLedgerTest {
         .contains(List.of(nextTxn));
   }
 
+  @Test
+  public void should_reuse_speculatively_prepared_vertex() {
+    // Arrange
+    genesisIsEndOfEpoch(false);
+    when(stateComputer.prepareSpeculatively(any(), any(), anyLong(), any()))
+        .thenReturn(
+            new StateComputerResult(ImmutableList.of(successfulNextCommand), ImmutableMap.of()));
+    var unverifiedVertex =
+        UnverifiedVertex.create(genesisQC, View.of(1), List.of(nextTxn), BFTNode.random());
+    var proposedVertex = new VerifiedVertex(unverifiedVertex, hasher.hash(unverifiedVertex));
+
+    // Act
+    sut.speculate(proposal(unverifiedVertex));
+    verify(stateComputer, timeout(5000)).prepareSpeculatively(any(), any(), anyLong(), any());
+    Optional<PreparedVertex> nextPrepared = sut.prepare(new LinkedList<>(), proposedVertex);
+
+    // Assert
+    verify(stateComputer, never()).prepare(any(), any(), anyLong());
+    verify(counters).increment(CounterType.LEDGER_SPECULATIONS_USED);
+    assertThat(nextPrepared)
+        .hasValueSatisfying(x -> assertThat(x.getId()).isEqualTo(proposedVertex.getId()));
+    assertThat(nextPrepared.map(x -> x.getTxns().toList())).contains(List.of(nextTxn));
+    verify(stateComputer).speculationUsed(nextPrepared.orElseThrow());
+  }
+
+  @Test
+  public void should_not_speculate_on_vertex_with_unknown_parent() {
+    // Arrange
+    genesisIsEndOfEpoch(false);
+    var parentHeader =
+        LedgerHeader.create(
+            genesisEpoch,
+            View.of(6),
+            new AccumulatorState(genesisStateVersion + 1, HashUtils.random256()),
+            12345);
+    var parentVertex = UnverifiedVertex.create(genesisQC, View.of(6), List.of(), BFTNode.random());
+    var qc =
+        new QuorumCertificate(
+            new VoteData(
+                new BFTHeader(View.of(6), hasher.hash(parentVertex), parentHeader),
+                genesisQC.getProposed(),
+                null),
+            new TimestampedECDSASignatures());
+    var unverifiedVertex =
+        UnverifiedVertex.create(qc, View.of(7), List.of(nextTxn), BFTNode.random());
+
+    // Act
+    sut.speculate(proposal(unverifiedVertex));
+
+    // Assert
+    verify(counters, timeout(5000)).increment(CounterType.LEDGER_SPECULATIONS_SKIPPED);
+    verify(stateComputer, never()).prepareSpeculatively(any(), any(), anyLong(), any());
+  }
+
+  @Test
+  public void should_not_speculate_on_proposal_with_invalid_signature() {
+    // Arrange
+    genesisIsEndOfEpoch(false);
+    when(hashVerifier.verify(any(), any(), any())).thenReturn(false);
+    var unverifiedVertex =
+        UnverifiedVertex.create(genesisQC, View.of(1), List.of(nextTxn), BFTNode.random());
+
+    // Act
+    sut.speculate(proposal(unverifiedVertex));
+
+    // Assert
+    verify(counters, timeout(5000)).increment(CounterType.LEDGER_SPECULATIONS_SKIPPED);
+    verify(stateComputer, never()).isLeader(any(), any());
+    verify(stateComputer, never()).prepareSpeculatively(any(), any(), anyLong(), any());
+  }
+
+  @Test
+  public void should_not_speculate_on_proposal_which_is_not_from_the_leader() {
+    // Arrange
+    genesisIsEndOfEpoch(false);
+    when(stateComputer.isLeader(any(), any())).thenReturn(false);
+    var unverifiedVertex =
+        UnverifiedVertex.create(genesisQC, View.of(1), List.of(nextTxn), BFTNode.random());
+
+    // Act
+    sut.speculate(proposal(unverifiedVertex));
+
+    // Assert
+    verify(counters, timeout(5000)).increment(CounterType.LEDGER_SPECULATIONS_SKIPPED);
+    verify(stateComputer).isLeader(unverifiedVertex.getProposer(), View.of(1));
+    verify(stateComputer, never()).prepareSpeculatively(any(), any(), anyLong(), any());
+  }
+
+  @Test
+  public void should_discard_speculation_when_committed_state_has_changed() {
+    // Arrange
+    genesisIsEndOfEpoch(false);
+    when(stateComputer.prepareSpeculatively(any(), any(), anyLong(), any()))
+        .thenReturn(
+            new StateComputerResult(ImmutableList.of(successfulNextCommand), ImmutableMap.of()));
+    when(headerComparator.compare(any(), any())).thenReturn(1);
+    var unverifiedVertex =
+        UnverifiedVertex.create(genesisQC, View.of(1), List.of(nextTxn), BFTNode.random());
+    var proposedVertex = new VerifiedVertex(unverifiedVertex, hasher.hash(unverifiedVertex));
+    var accumulatorState =
+        accumulator.accumulate(ledgerHeader.getAccumulatorState(), nextTxn.getId().asHashCode());
+    var proof =
+        new LedgerProof(
+            HashUtils.random256(),
+            LedgerHeader.create(genesisEpoch, View.of(2), accumulatorState, 1234),
+            new TimestampedECDSASignatures());
+
+    // Act
+    sut.speculate(proposal(unverifiedVertex));
+    verify(stateComputer, timeout(5000)).prepareSpeculatively(any(), any(), anyLong(), any());
+    sut.syncEventProcessor().process(VerifiedTxnsAndProof.create(List.of(nextTxn), proof));
+    Optional<PreparedVertex> nextPrepared = sut.prepare(new LinkedList<>(), proposedVertex);
+
+    // Assert
+    verify(counters).increment(CounterType.LEDGER_SPECULATIONS_DISCARDED);
+    verify(stateComputer, never()).speculationUsed(any());
+    // The parent of the vertex is behind the committed state now
+    assertThat(nextPrepared).isEmpty();
+  }
+
+  @Test
+  public void should_prepare_again_when_speculation_fails() {
+    // Arrange
+    genesisIsEndOfEpoch(false);
+    when(stateComputer.prepareSpeculatively(any(), any(), anyLong(), any()))
+        .thenThrow(new IllegalStateException("Speculation failed"));
+    when(stateComputer.prepare(any(), any(), anyLong()))
+        .thenReturn(
+            new StateComputerResult(ImmutableList.of(successfulNextCommand), ImmutableMap.of()));
+    var unverifiedVertex =
+        UnverifiedVertex.create(genesisQC, View.of(1), List.of(nextTxn), BFTNode.random());
+    var proposedVertex = new VerifiedVertex(unverifiedVertex, hasher.hash(unverifiedVertex));
+
+    // Act
+    sut.speculate(proposal(unverifiedVertex));
+    verify(stateComputer, timeout(5000)).prepareSpeculatively(any(), any(), anyLong(), any());
+    Optional<PreparedVertex> nextPrepared = sut.prepare(new LinkedList<>(), proposedVertex);
+
+    // Assert
+    verify(counters).increment(CounterType.LEDGER_SPECULATIONS_DISCARDED);
+    verify(stateComputer).prepare(any(), any(), anyLong());
+    assertThat(nextPrepared.map(x -> x.getTxns().toList())).contains(List.of(nextTxn));
+  }
+
+  @Test(timeout = 10000)
+  public void should_not_wait_forever_for_speculation_which_threw_an_error() {
+    // Arrange
+    genesisIsEndOfEpoch(false);
+    when(stateComputer.prepareSpeculatively(any(), any(), anyLong(), any()))
+        .thenThrow(new AssertionError("Speculation failed"));
+    when(stateComputer.prepare(any(), any(), anyLong()))
+        .thenReturn(
+            new StateComputerResult(ImmutableList.of(successfulNextCommand), ImmutableMap.of()));
+    var unverifiedVertex =
+        UnverifiedVertex.create(genesisQC, View.of(1), List.of(nextTxn), BFTNode.random());
+    var proposedVertex = new VerifiedVertex(unverifiedVertex, hasher.hash(unverifiedVertex));
+
+    // Act
+    sut.speculate(proposal(unverifiedVertex));
+    verify(stateComputer, timeout(5000)).prepareSpeculatively(any(), any(), anyLong(), any());
+    Optional<PreparedVertex> nextPrepared = sut.prepare(new LinkedList<>(), proposedVertex);
+
+    // Assert
+    verify(counters).increment(CounterType.LEDGER_SPECULATIONS_DISCARDED);
+    assertThat(nextPrepared.map(x -> x.getTxns().toList())).contains(List.of(nextTxn));
+  }
+
+  @Test(timeout = 10000)
+  public void should_not_wait_behind_speculation_of_another_vertex() {
+    // Arrange
+    genesisIsEndOfEpoch(false);
+    when(stateComputer.prepareSpeculatively(any(), any(), anyLong(), any()))
+        .thenAnswer(
+            invocation -> {
+              // Holds the locks until consensus needs them
+              BooleanSupplier cancelled = invocation.getArgument(3);
+              while (!cancelled.getAsBoolean()) {
+                Thread.sleep(10);
+              }
+              throw new CancellationException();
+            });
+    when(stateComputer.prepare(any(), any(), anyLong()))
+        .thenReturn(new StateComputerResult(ImmutableList.of(), ImmutableMap.of()));
+    var speculatedVertex =
+        UnverifiedVertex.create(genesisQC, View.of(1), List.of(nextTxn), BFTNode.random());
+    var unverifiedVertex =
+        UnverifiedVertex.create(genesisQC, View.of(1), List.of(), BFTNode.random());
+    var proposedVertex = new VerifiedVertex(unverifiedVertex, hasher.hash(unverifiedVertex));
+
+    // Act
+    sut.speculate(proposal(speculatedVertex));
+    verify(stateComputer, timeout(5000)).prepareSpeculatively(any(), any(), anyLong(), any());
+    Optional<PreparedVertex> nextPrepared = sut.prepare(new LinkedList<>(), proposedVertex);
+
+    // Assert
+    assertThat(nextPrepared)
+        .hasValueSatisfying(x -> assertThat(x.getId()).isEqualTo(proposedVertex.getId()));
+  }
+
   @Test
   public void should_do_nothing_if_committing_lower_state_version() {
     // Arrange
@@ -289,4 +505,12 @@ public class StateComputerLedgerTest {
     verify(stateComputer, never()).commit(any(), any());
     verify(mempool, never()).committed(any());
   }
+
+  private Proposal proposal(UnverifiedVertex vertex) {
+    var proposal = mock(Proposal.class);
+    when(proposal.getVertex()).thenReturn(vertex);
+    when(proposal.getAuthor()).thenReturn(vertex.getProposer());
+    when(proposal.getEpoch()).thenReturn(genesisEpoch);
+    return proposal;
+  }
 }
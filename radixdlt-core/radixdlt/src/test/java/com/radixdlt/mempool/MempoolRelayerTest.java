@@ -0,0 +1,216 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.mempool;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.radixdlt.atom.Txn;
+import com.radixdlt.counters.SystemCountersImpl;
+import com.radixdlt.environment.RemoteEventDispatcher;
+import com.radixdlt.hotstuff.bft.BFTNode;
+import com.radixdlt.network.p2p.PeersView;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MempoolRelayerTest {
+  private final BFTNode origin = BFTNode.random();
+  private final BFTNode peer = BFTNode.random();
+  private final Txn txn = Txn.create(new byte[] {1});
+  private final Txn otherTxn = Txn.create(new byte[] {2});
+
+  private SimpleMempool mempool;
+  private RemoteEventDispatcher<MempoolAdd> addDispatcher;
+  private RemoteEventDispatcher<MempoolInventory> inventoryDispatcher;
+  private RemoteEventDispatcher<MempoolGetTxns> getTxnsDispatcher;
+  private PeersView peersView;
+  private long now;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    this.mempool = new SimpleMempool(new SystemCountersImpl(), 10, new Random());
+    this.addDispatcher = mock(RemoteEventDispatcher.class);
+    this.inventoryDispatcher = mock(RemoteEventDispatcher.class);
+    this.getTxnsDispatcher = mock(RemoteEventDispatcher.class);
+    this.peersView = mock(PeersView.class);
+    when(peersView.peers())
+        .thenAnswer(
+            i ->
+                Stream.of(
+                    PeersView.PeerInfo.fromBftNode(origin), PeersView.PeerInfo.fromBftNode(peer)));
+  }
+
+  private MempoolRelayer relayer(boolean inventoryRelay) {
+    return new MempoolRelayer(
+        mempool,
+        addDispatcher,
+        inventoryDispatcher,
+        getTxnsDispatcher,
+        peersView,
+        0,
+        0,
+        10,
+        inventoryRelay,
+        new SystemCountersImpl(),
+        () -> now);
+  }
+
+  @Test
+  public void when_inventory_relay_is_disabled__then_txns_are_sent_in_full() {
+    relayer(false)
+        .mempoolAddSuccessEventProcessor()
+        .process(MempoolAddSuccess.create(txn, txn, origin));
+
+    verify(addDispatcher).dispatch(eq(peer), eq(MempoolAdd.create(txn)));
+    verify(addDispatcher, never()).dispatch(eq(origin), any());
+    verify(inventoryDispatcher, never()).dispatch(any(BFTNode.class), any());
+  }
+
+  @Test
+  public void when_inventory_relay_is_enabled__then_txn_ids_are_announced_once_per_peer() {
+    var relayer = relayer(true);
+
+    relayer.mempoolAddSuccessEventProcessor().process(MempoolAddSuccess.create(txn, txn, origin));
+    relayer.mempoolAddSuccessEventProcessor().process(MempoolAddSuccess.create(txn, txn, null));
+
+    verify(inventoryDispatcher).dispatch(eq(peer), eq(new MempoolInventory(List.of(txn.getId()))));
+    verify(inventoryDispatcher, never()).dispatch(eq(origin), any());
+    verify(addDispatcher, never()).dispatch(any(BFTNode.class), any());
+  }
+
+  @Test
+  public void when_receiving_an_inventory__then_only_missing_txns_are_requested_once()
+      throws Exception {
+    mempool.add(txn);
+    var relayer = relayer(true);
+    var inventory = new MempoolInventory(List.of(txn.getId(), otherTxn.getId()));
+
+    relayer.mempoolInventoryRemoteEventProcessor().process(origin, inventory);
+    relayer.mempoolInventoryRemoteEventProcessor().process(peer, inventory);
+
+    verify(getTxnsDispatcher)
+        .dispatch(eq(origin), eq(new MempoolGetTxns(List.of(otherTxn.getId()))));
+    verify(getTxnsDispatcher, never()).dispatch(eq(peer), any());
+  }
+
+  @Test
+  public void when_a_request_times_out__then_the_txn_is_requested_again() {
+    var relayer = relayer(true);
+    var inventory = new MempoolInventory(List.of(otherTxn.getId()));
+    var request = new MempoolGetTxns(List.of(otherTxn.getId()));
+
+    relayer.mempoolInventoryRemoteEventProcessor().process(origin, inventory);
+    now += 4999;
+    relayer.mempoolInventoryRemoteEventProcessor().process(peer, inventory);
+    now += 1;
+    relayer.mempoolInventoryRemoteEventProcessor().process(peer, inventory);
+
+    verify(getTxnsDispatcher).dispatch(eq(origin), eq(request));
+    verify(getTxnsDispatcher).dispatch(eq(peer), eq(request));
+  }
+
+  @Test
+  public void when_receiving_a_large_inventory__then_txns_are_requested_in_bounded_batches() {
+    var txnIds =
+        IntStream.range(0, MempoolGetTxns.MAX_TXN_IDS + 1)
+            .mapToObj(i -> Txn.create(new byte[] {3, (byte) i, (byte) (i >> 8)}).getId())
+            .toList();
+
+    relayer(true)
+        .mempoolInventoryRemoteEventProcessor()
+        .process(origin, new MempoolInventory(txnIds));
+
+    verify(getTxnsDispatcher)
+        .dispatch(
+            eq(origin), eq(new MempoolGetTxns(txnIds.subList(0, MempoolGetTxns.MAX_TXN_IDS))));
+    verify(getTxnsDispatcher)
+        .dispatch(
+            eq(origin), eq(new MempoolGetTxns(List.of(txnIds.get(MempoolGetTxns.MAX_TXN_IDS)))));
+  }
+
+  @Test
+  public void when_receiving_a_txns_request__then_txns_in_mempool_are_sent() throws Exception {
+    mempool.add(txn);
+    var relayer = relayer(true);
+
+    relayer
+        .mempoolGetTxnsRemoteEventProcessor()
+        .process(peer, new MempoolGetTxns(List.of(txn.getId(), otherTxn.getId())));
+    relayer.mempoolAddSuccessEventProcessor().process(MempoolAddSuccess.create(txn, txn, null));
+
+    verify(addDispatcher).dispatch(eq(peer), eq(MempoolAdd.create(txn)));
+    // The peer which requested the txn is known to have it
+    verify(inventoryDispatcher, never()).dispatch(eq(peer), any());
+  }
+}
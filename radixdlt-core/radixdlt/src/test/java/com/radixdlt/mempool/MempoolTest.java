@@ -72,6 +72,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.google.inject.util.Modules;
 import com.radixdlt.application.system.scrypt.Syscall;
 import com.radixdlt.application.tokens.Amount;
 import com.radixdlt.atom.SubstateId;
@@ -80,7 +81,9 @@ import com.radixdlt.atom.Txn;
 import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.counters.SystemCounters.CounterType;
 import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.constraintmachine.PermissionLevel;
 import com.radixdlt.crypto.HashUtils;
+import com.radixdlt.engine.RadixEngine;
 import com.radixdlt.environment.deterministic.DeterministicProcessor;
 import com.radixdlt.environment.deterministic.network.ControlledMessage;
 import com.radixdlt.environment.deterministic.network.DeterministicNetwork;
@@ -93,6 +96,8 @@ import com.radixdlt.ledger.AccumulatorState;
 import com.radixdlt.ledger.VerifiedTxnsAndProof;
 import com.radixdlt.modules.SingleNodeAndPeersDeterministicNetworkModule;
 import com.radixdlt.network.p2p.PeersView;
+import com.radixdlt.statecomputer.LedgerAndBFTProof;
+import com.radixdlt.statecomputer.RadixEngineMempool;
 import com.radixdlt.statecomputer.RadixEngineStateComputer;
 import com.radixdlt.statecomputer.checkpoint.Genesis;
 import com.radixdlt.statecomputer.checkpoint.MockedGenesisModule;
@@ -103,6 +108,7 @@ import com.radixdlt.statecomputer.forks.RadixEngineForksLatestOnlyModule;
 import com.radixdlt.statecomputer.forks.modules.MainnetForksModule;
 import com.radixdlt.store.DatabaseLocation;
 import com.radixdlt.utils.PrivateKeys;
+import com.radixdlt.utils.TimeSupplier;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Set;
@@ -122,30 +128,46 @@ public class MempoolTest {
   @Inject private DeterministicProcessor processor;
   @Inject private DeterministicNetwork network;
   @Inject private RadixEngineStateComputer stateComputer;
+  @Inject private RadixEngineMempool mempool;
+  @Inject private RadixEngine<LedgerAndBFTProof> radixEngine;
   @Inject private SystemCounters systemCounters;
   @Inject private PeersView peersView;
   @Inject private CurrentForkView currentForkView;
   @Inject @MempoolRelayInitialDelay private long initialDelay;
   @Inject @MempoolRelayRepeatDelay private long repeatDelay;
 
+  // Lets tests age the mempool without waiting
+  private long clockOffsetMs;
+
   private Injector getInjector() {
     return Guice.createInjector(
-        new MainnetForksModule(),
-        new RadixEngineForksLatestOnlyModule(
-            RERulesConfig.testingDefault().removeSigsPerRoundLimit()),
-        new ForksModule(),
-        MempoolConfig.asModule(10, 10, 200, 500, 10),
-        new SingleNodeAndPeersDeterministicNetworkModule(VALIDATOR_KEY, NUM_PEERS),
-        new MockedGenesisModule(
-            Set.of(VALIDATOR_KEY.getPublicKey()), Amount.ofTokens(1000), Amount.ofTokens(100)),
-        new AbstractModule() {
-          @Override
-          protected void configure() {
-            bindConstant()
-                .annotatedWith(DatabaseLocation.class)
-                .to(folder.getRoot().getAbsolutePath());
-          }
-        });
+        Modules.override(
+                new MainnetForksModule(),
+                new RadixEngineForksLatestOnlyModule(
+                    RERulesConfig.testingDefault().removeSigsPerRoundLimit()),
+                new ForksModule(),
+                MempoolConfig.asModule(10, 10, 200, 500, 10),
+                new SingleNodeAndPeersDeterministicNetworkModule(VALIDATOR_KEY, NUM_PEERS),
+                new MockedGenesisModule(
+                    Set.of(VALIDATOR_KEY.getPublicKey()),
+                    Amount.ofTokens(1000),
+                    Amount.ofTokens(100)),
+                new AbstractModule() {
+                  @Override
+                  protected void configure() {
+                    bindConstant()
+                        .annotatedWith(DatabaseLocation.class)
+                        .to(folder.getRoot().getAbsolutePath());
+                  }
+                })
+            .with(
+                new AbstractModule() {
+                  @Override
+                  protected void configure() {
+                    bind(TimeSupplier.class)
+                        .toInstance(() -> System.currentTimeMillis() + clockOffsetMs);
+                  }
+                }));
   }
 
   private BFTNode getFirstPeer() {
@@ -355,6 +377,122 @@ public class MempoolTest {
     assertThat(systemCounters.get(CounterType.MEMPOOL_CURRENT_SIZE)).isZero();
   }
 
+  @Test
+  public void mempool_snapshot_is_replaced_on_add_and_commit() throws Exception {
+    // Arrange
+    getInjector().injectMembers(this);
+    ECKeyPair keyPair = ECKeyPair.generateNew();
+    var txn = createTxn(keyPair, 2);
+    var empty = mempool.snapshot();
+    processor.handleMessage(getFirstPeer(), MempoolAdd.create(txn), null);
+    var added = mempool.snapshot();
+    var addedAgain = mempool.snapshot();
+
+    // Act
+    var txn2 = createTxn(keyPair, 1);
+    var proof = mock(LedgerProof.class);
+    when(proof.getAccumulatorState())
+        .thenReturn(new AccumulatorState(genesisTxns.getTxns().size() + 1, HashUtils.random256()));
+    when(proof.getStateVersion()).thenReturn((long) genesisTxns.getTxns().size() + 1);
+    when(proof.getView()).thenReturn(View.of(1));
+    stateComputer.commit(VerifiedTxnsAndProof.create(List.of(txn2), proof), null);
+    var committed = mempool.snapshot();
+
+    // Assert
+    assertThat(empty.txns()).isEmpty();
+    assertThat(added.txns()).containsOnlyKeys(txn.getId());
+    assertThat(added.bytes()).isEqualTo(txn.getPayload().length);
+    assertThat(added).isSameAs(addedAgain).isNotSameAs(committed);
+    var inserted = added.txns().get(txn.getId()).getSecond().getInserted();
+    assertThat(added.ageMillisAtPercentile(inserted + 10, 100)).isEqualTo(10);
+    assertThat(added.version()).isGreaterThan(empty.version()).isLessThan(committed.version());
+    assertThat(committed.txns()).isEmpty();
+    assertThat(systemCounters.get(CounterType.MEMPOOL_CURRENT_BYTES)).isZero();
+  }
+
+  @Test
+  public void mempool_revalidates_aged_txns_in_turn_and_evicts_expired_txns() throws Exception {
+    // Arrange
+    getInjector().injectMembers(this);
+    var txn = createTxn(ECKeyPair.generateNew());
+    var txn2 = createTxn(ECKeyPair.generateNew());
+    processor.handleMessage(getFirstPeer(), MempoolAdd.create(txn), null);
+    processor.handleMessage(getFirstPeer(), MempoolAdd.create(txn2), null);
+    var now = System.currentTimeMillis();
+
+    // Act
+    var first = mempool.revalidate(now, 0, 1);
+    var second = mempool.revalidate(now, 0, 10);
+    var expired = mempool.revalidate(now + 3_600_000L, 0, 10);
+
+    // Assert
+    assertThat(first.checked()).isEqualTo(1);
+    assertThat(first.expired()).isEmpty();
+    assertThat(first.invalid()).isEmpty();
+    assertThat(second.checked()).isEqualTo(2);
+    assertThat(second.invalid()).isEmpty();
+    assertThat(expired.expired()).containsExactlyInAnyOrder(txn, txn2);
+    assertThat(expired.checked()).isZero();
+    assertThat(mempool.getCount()).isZero();
+    assertThat(mempool.getBytes()).isZero();
+    assertThat(mempool.getShuttingDownSubstates()).isEmpty();
+  }
+
+  @Test
+  public void mempool_revalidation_evicts_txns_invalidated_by_a_commit() throws Exception {
+    // Arrange
+    getInjector().injectMembers(this);
+    ECKeyPair keyPair = ECKeyPair.generateNew();
+    var txn = createTxn(keyPair, 2);
+    processor.handleMessage(getFirstPeer(), MempoolAdd.create(txn), null);
+
+    // A conflicting commit which the mempool is not told about, so the txn is only found to be
+    // invalid once it is re-executed
+    var txn2 = createTxn(keyPair, 1);
+    var proof = mock(LedgerProof.class);
+    when(proof.getAccumulatorState())
+        .thenReturn(new AccumulatorState(genesisTxns.getTxns().size() + 1, HashUtils.random256()));
+    when(proof.getStateVersion()).thenReturn((long) genesisTxns.getTxns().size() + 1);
+    when(proof.getView()).thenReturn(View.of(1));
+    radixEngine.execute(List.of(txn2), LedgerAndBFTProof.create(proof), PermissionLevel.SUPER_USER);
+    assertThat(mempool.getCount()).isEqualTo(1);
+
+    // Act
+    clockOffsetMs = 60_000L;
+    stateComputer
+        .mempoolRevalidateTriggerEventProcessor()
+        .process(MempoolRevalidateTrigger.create());
+
+    // Assert
+    assertThat(mempool.getCount()).isZero();
+    assertThat(systemCounters.get(CounterType.MEMPOOL_REVALIDATED_TXNS)).isEqualTo(1);
+    assertThat(systemCounters.get(CounterType.MEMPOOL_REVALIDATION_EVICTED_TXNS)).isEqualTo(1);
+    assertThat(systemCounters.get(CounterType.MEMPOOL_EXPIRED_TXNS)).isZero();
+    assertThat(systemCounters.get(CounterType.MEMPOOL_CURRENT_SIZE)).isZero();
+  }
+
+  @Test
+  public void mempool_expires_txns_by_the_injected_clock() throws Exception {
+    // Arrange
+    getInjector().injectMembers(this);
+    // A day ahead of the system clock, with a TTL of an hour
+    clockOffsetMs = 86_400_000L;
+    var txn = createTxn(ECKeyPair.generateNew());
+    processor.handleMessage(getFirstPeer(), MempoolAdd.create(txn), null);
+    var revalidate = stateComputer.mempoolRevalidateTriggerEventProcessor();
+
+    // Act
+    revalidate.process(MempoolRevalidateTrigger.create());
+    var countBeforeTtl = mempool.getCount();
+    clockOffsetMs += 3_600_000L;
+    revalidate.process(MempoolRevalidateTrigger.create());
+
+    // Assert
+    assertThat(countBeforeTtl).isEqualTo(1);
+    assertThat(mempool.getCount()).isZero();
+    assertThat(systemCounters.get(CounterType.MEMPOOL_EXPIRED_TXNS)).isEqualTo(1);
+  }
+
   @Test
   @Ignore("Added hack which requires genesis to be sent as message. Reenable when fixed.")
   public void mempool_should_relay_commands_respecting_delay_config_params() throws Exception {
@@ -67,12 +67,14 @@ package com.radixdlt.mempool;
 import com.google.common.collect.Lists;
 import com.radixdlt.atom.Txn;
 import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.identifiers.AID;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -141,6 +143,11 @@ public final class SimpleMempool implements Mempool<Txn> {
     }
   }
 
+  @Override
+  public Optional<Txn> getTxn(AID txnId) {
+    return data.stream().filter(txn -> txn.getId().equals(txnId)).findFirst();
+  }
+
   @Override
   public List<Txn> scanUpdateAndGet(
       Predicate<MempoolMetadata> predicate, Consumer<MempoolMetadata> operator) {
@@ -90,6 +90,8 @@ import com.radixdlt.middleware2.network.GetVerticesRequestMessage;
 import com.radixdlt.middleware2.network.GetVerticesResponseMessage;
 import com.radixdlt.middleware2.network.LedgerStatusUpdateMessage;
 import com.radixdlt.middleware2.network.MempoolAddMessage;
+import com.radixdlt.middleware2.network.MempoolGetTxnsMessage;
+import com.radixdlt.middleware2.network.MempoolInventoryMessage;
 import com.radixdlt.middleware2.network.StatusResponseMessage;
 import com.radixdlt.middleware2.network.SyncRequestMessage;
 import com.radixdlt.middleware2.network.SyncResponseMessage;
@@ -137,6 +139,8 @@ public class MessagePreprocessorTest {
           tuple(new GetVerticesResponseMessage(mock(List.class)), "vertices"),
           tuple(new LedgerStatusUpdateMessage(mock(LedgerProof.class)), "header"),
           tuple(new MempoolAddMessage(mock(List.class)), "txns"),
+          tuple(new MempoolGetTxnsMessage(new byte[0]), "txnIds"),
+          tuple(new MempoolInventoryMessage(new byte[0]), "txnIds"),
           tuple(new StatusResponseMessage(mock(LedgerProof.class)), "header"),
           tuple(new SyncRequestMessage(mock(DtoLedgerProof.class)), "currentHeader"),
           tuple(new SyncResponseMessage(mock(DtoTxnsAndProof.class)), "commands"));
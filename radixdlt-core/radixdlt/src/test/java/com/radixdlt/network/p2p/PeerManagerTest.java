@@ -66,8 +66,11 @@ package com.radixdlt.network.p2p;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import com.radixdlt.network.messaging.MessagePriority;
 import com.radixdlt.network.p2p.test.DeterministicP2PNetworkTest;
 import com.radixdlt.network.p2p.test.P2PTestNetworkRunner.TestCounters;
 import com.radixdlt.networks.Network;
@@ -99,6 +102,28 @@ public final class PeerManagerTest extends DeterministicP2PNetworkTest {
     assertEquals(1L, testNetworkRunner.peerManager(1).activeChannels().size());
   }
 
+  @Test
+  public void when_channel_is_active_then_findOrCreateChannel_should_reuse_it() throws Exception {
+    setupTestRunner(2, defaultProperties());
+
+    testNetworkRunner.addressBook(0).addUncheckedPeers(Set.of(uriOfNode(1)));
+    final var peerManager = testNetworkRunner.peerManager(0);
+    final var connectFuture = peerManager.findOrCreateChannel(uriOfNode(1).getNodeId());
+
+    processAll();
+
+    final var channel = connectFuture.get();
+    final var existingFuture = peerManager.findOrCreateChannel(uriOfNode(1).getNodeId());
+    assertSame(channel, existingFuture.get());
+    assertSame(existingFuture, peerManager.findOrCreateChannel(uriOfNode(1).getNodeId()));
+
+    channel.disconnect();
+    processAll();
+
+    assertEquals(0L, peerManager.activeChannels().size());
+    assertNotSame(existingFuture, peerManager.findOrCreateChannel(uriOfNode(1).getNodeId()));
+  }
+
   @Test
   public void should_disconnect_the_least_used_channels_when_over_limit() throws Exception {
     final var props = defaultProperties();
@@ -120,16 +145,16 @@ public final class PeerManagerTest extends DeterministicP2PNetworkTest {
     processAll();
 
     // two messages sent over node1 channel
-    channel1Future.get().send(new byte[] {0x01});
-    channel1Future.get().send(new byte[] {0x02});
+    channel1Future.get().send(new byte[] {0x01}, MessagePriority.NORMAL);
+    channel1Future.get().send(new byte[] {0x02}, MessagePriority.NORMAL);
 
     // one messages sent over node2 channel
-    channel2Future.get().send(new byte[] {0x03});
+    channel2Future.get().send(new byte[] {0x03}, MessagePriority.NORMAL);
 
     // three messages sent over node3 channel
-    channel3Future.get().send(new byte[] {0x01});
-    channel3Future.get().send(new byte[] {0x01});
-    channel3Future.get().send(new byte[] {0x01});
+    channel3Future.get().send(new byte[] {0x01}, MessagePriority.NORMAL);
+    channel3Future.get().send(new byte[] {0x01}, MessagePriority.NORMAL);
+    channel3Future.get().send(new byte[] {0x01}, MessagePriority.NORMAL);
 
     final var channel4Future =
         testNetworkRunner.peerManager(0).findOrCreateChannel(uriOfNode(4).getNodeId());
@@ -65,6 +65,7 @@
 package com.radixdlt.network.p2p.test;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -83,6 +84,7 @@ import com.radixdlt.serialization.Serialization;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
 import io.netty.channel.socket.SocketChannel;
 import java.security.SecureRandom;
 import java.util.Optional;
@@ -105,7 +107,7 @@ final class MockP2PNetwork {
                         && p.uri.getPort() == serverPeerUri.getPort())
             .findAny();
 
-    final var clientSocketChannel = mock(SocketChannel.class);
+    final var clientSocketChannel = mockSocketChannel();
 
     final var clientChannel =
         new PeerChannel(
@@ -130,7 +132,7 @@ final class MockP2PNetwork {
 
     final var serverPeer = serverPeerOpt.get();
 
-    final var serverSocketChannel = mock(SocketChannel.class);
+    final var serverSocketChannel = mockSocketChannel();
 
     final var serverChannel =
         new PeerChannel(
@@ -154,6 +156,13 @@ final class MockP2PNetwork {
               serverChannel.channelRead0(null, (ByteBuf) rawData);
               return null;
             });
+    when(clientSocketChannel.write(any()))
+        .thenAnswer(
+            inv -> {
+              final var rawData = inv.getArgument(0);
+              serverChannel.channelRead0(null, (ByteBuf) rawData);
+              return null;
+            });
 
     when(serverSocketChannel.writeAndFlush(any()))
         .thenAnswer(
@@ -162,6 +171,13 @@ final class MockP2PNetwork {
               clientChannel.channelRead0(null, (ByteBuf) rawData);
               return null;
             });
+    when(serverSocketChannel.write(any()))
+        .thenAnswer(
+            inv -> {
+              final var rawData = inv.getArgument(0);
+              clientChannel.channelRead0(null, (ByteBuf) rawData);
+              return null;
+            });
 
     when(clientSocketChannel.close())
         .thenAnswer(
@@ -186,4 +202,20 @@ final class MockP2PNetwork {
     serverChannel.channelActive(null);
     clientChannel.channelActive(null);
   }
+
+  private static SocketChannel mockSocketChannel() {
+    // Outbound messages are written on the calling thread, as soon as they're sent
+    final var eventLoop = mock(EventLoop.class);
+    doAnswer(
+            inv -> {
+              inv.<Runnable>getArgument(0).run();
+              return null;
+            })
+        .when(eventLoop)
+        .execute(any());
+    final var socketChannel = mock(SocketChannel.class);
+    when(socketChannel.eventLoop()).thenReturn(eventLoop);
+    when(socketChannel.isWritable()).thenReturn(true);
+    return socketChannel;
+  }
 }
@@ -0,0 +1,259 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+package com.radixdlt.network.p2p.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.radixdlt.DefaultSerialization;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.counters.SystemCountersImpl;
+import com.radixdlt.crypto.ECKeyOps;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.environment.EventDispatcher;
+import com.radixdlt.network.messaging.MessagePriority;
+import com.radixdlt.network.p2p.P2PConfig;
+import com.radixdlt.network.p2p.PeerEvent;
+import com.radixdlt.network.p2p.transport.handshake.AuthHandshakeResult.AuthHandshakeSuccess;
+import com.radixdlt.network.p2p.transport.handshake.AuthHandshaker;
+import com.radixdlt.networks.Addressing;
+import com.radixdlt.networks.Network;
+import com.radixdlt.serialization.Serialization;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.SocketChannel;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class PeerChannelTest {
+  private static final int NETWORK_ID = 1;
+  private static final int CHANNEL_BUFFER_SIZE = 2;
+
+  private final Serialization serialization = DefaultSerialization.getInstance();
+  private final SecureRandom secureRandom = new SecureRandom();
+  private final ECKeyPair nodeKey = ECKeyPair.generateNew();
+  private final ECKeyPair remoteKey = ECKeyPair.generateNew();
+  private final SystemCounters counters = new SystemCountersImpl();
+
+  private EmbeddedChannel embeddedChannel;
+  private PeerChannel peerChannel;
+  private FrameCodec remoteFrameCodec;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setup() throws IOException {
+    final var config = mock(P2PConfig.class);
+    when(config.channelBufferSize()).thenReturn(CHANNEL_BUFFER_SIZE);
+
+    this.embeddedChannel = new EmbeddedChannel();
+    this.peerChannel =
+        new PeerChannel(
+            config,
+            Addressing.ofNetwork(Network.LOCALNET),
+            NETWORK_ID,
+            "fork1",
+            counters,
+            serialization,
+            secureRandom,
+            ECKeyOps.fromKeyPair(nodeKey),
+            mock(EventDispatcher.class),
+            Optional.empty(),
+            mock(SocketChannel.class, delegatesTo(embeddedChannel)),
+            Optional.of(new InetSocketAddress("127.0.0.1", 30000)));
+    this.embeddedChannel.pipeline().addLast(peerChannel);
+
+    // complete the auth handshake as the initiating peer
+    final var remoteHandshaker =
+        new AuthHandshaker(
+            serialization, secureRandom, ECKeyOps.fromKeyPair(remoteKey), NETWORK_ID, "fork1");
+    final var initMessage = remoteHandshaker.initiate(nodeKey.getPublicKey());
+    this.embeddedChannel.writeInbound(Unpooled.wrappedBuffer(initMessage));
+    final ByteBuf responseMessage = this.embeddedChannel.readOutbound();
+    final var handshakeResult =
+        (AuthHandshakeSuccess) remoteHandshaker.handleResponseMessage(responseMessage);
+    responseMessage.release();
+    this.remoteFrameCodec = new FrameCodec(handshakeResult.secrets());
+  }
+
+  @After
+  public void teardown() {
+    this.embeddedChannel.finishAndReleaseAll();
+  }
+
+  @Test
+  public void normal_priority_messages_are_deferred_while_the_channel_is_not_writable()
+      throws IOException {
+    setWritable(false);
+    send("normal1", MessagePriority.NORMAL);
+    send("normal2", MessagePriority.NORMAL);
+
+    assertThat(readFrames()).isEmpty();
+    assertThat(counters.get(CounterType.NETWORKING_TCP_OUTBOUND_DEFERRED)).isEqualTo(2);
+
+    setWritable(true);
+
+    assertThat(readFrames()).containsExactly("normal1", "normal2");
+  }
+
+  @Test
+  public void high_priority_messages_are_written_ahead_of_deferred_messages() throws IOException {
+    setWritable(false);
+    send("normal1", MessagePriority.NORMAL);
+    send("high", MessagePriority.HIGH);
+    send("normal2", MessagePriority.NORMAL);
+
+    assertThat(readFrames()).containsExactly("high");
+
+    setWritable(true);
+    send("normal3", MessagePriority.NORMAL);
+
+    assertThat(readFrames()).containsExactly("normal1", "normal2", "normal3");
+  }
+
+  @Test
+  public void messages_are_written_in_priority_order_once_the_high_water_mark_is_reached()
+      throws IOException {
+    // any single pending write exceeds these water marks
+    this.embeddedChannel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+
+    peerChannel.send(bytes("high"), MessagePriority.HIGH);
+    peerChannel.send(bytes("low"), MessagePriority.LOW);
+    peerChannel.send(bytes("normal"), MessagePriority.NORMAL);
+    this.embeddedChannel.runPendingTasks();
+
+    assertThat(readFrames()).containsExactly("high", "normal");
+    assertThat(counters.get(CounterType.NETWORKING_TCP_OUTBOUND_DROPPED_LOW_PRIORITY))
+        .isEqualTo(1);
+    assertThat(counters.get(CounterType.NETWORKING_TCP_OUTBOUND_DEFERRED)).isEqualTo(1);
+  }
+
+  @Test
+  public void low_priority_messages_are_dropped_while_the_channel_is_not_writable()
+      throws IOException {
+    setWritable(false);
+
+    assertThat(peerChannel.send(bytes("low"), MessagePriority.LOW).isSuccess()).isFalse();
+    this.embeddedChannel.runPendingTasks();
+    setWritable(true);
+
+    assertThat(readFrames()).isEmpty();
+    assertThat(counters.get(CounterType.NETWORKING_TCP_OUTBOUND_DROPPED_LOW_PRIORITY))
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void oldest_deferred_messages_are_dropped_when_the_buffer_is_full() throws IOException {
+    setWritable(false);
+    send("normal1", MessagePriority.NORMAL);
+    send("normal2", MessagePriority.NORMAL);
+    send("normal3", MessagePriority.NORMAL);
+    setWritable(true);
+
+    assertThat(readFrames()).containsExactly("normal2", "normal3");
+    assertThat(counters.get(CounterType.NETWORKING_TCP_OUTBOUND_DEFERRED)).isEqualTo(3);
+    assertThat(counters.get(CounterType.NETWORKING_TCP_OUTBOUND_DROPPED_NORMAL_PRIORITY))
+        .isEqualTo(1);
+  }
+
+  private void send(String message, MessagePriority priority) {
+    assertThat(peerChannel.send(bytes(message), priority).isSuccess()).isTrue();
+    this.embeddedChannel.runPendingTasks();
+  }
+
+  private void setWritable(boolean writable) {
+    this.embeddedChannel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+  }
+
+  private List<String> readFrames() throws IOException {
+    final var frames = new ArrayList<String>();
+    ByteBuf buf;
+    while ((buf = this.embeddedChannel.readOutbound()) != null) {
+      try {
+        remoteFrameCodec
+            .tryReadSingleFrame(buf)
+            .ifPresent(frame -> frames.add(new String(frame, StandardCharsets.UTF_8)));
+      } finally {
+        buf.release();
+      }
+    }
+    return frames;
+  }
+
+  private static byte[] bytes(String message) {
+    return message.getBytes(StandardCharsets.UTF_8);
+  }
+}
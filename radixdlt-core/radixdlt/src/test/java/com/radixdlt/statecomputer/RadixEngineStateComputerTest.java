@@ -67,8 +67,10 @@ package com.radixdlt.statecomputer;
 import static com.radixdlt.atom.TxAction.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -89,6 +91,7 @@ import com.radixdlt.constraintmachine.exceptions.ConstraintMachineException;
 import com.radixdlt.constraintmachine.exceptions.InvalidPermissionException;
 import com.radixdlt.counters.SystemCounters;
 import com.radixdlt.counters.SystemCountersImpl;
+import com.radixdlt.crypto.ECDSASignature;
 import com.radixdlt.crypto.ECKeyPair;
 import com.radixdlt.crypto.HashUtils;
 import com.radixdlt.crypto.Hasher;
@@ -135,9 +138,12 @@ import com.radixdlt.store.EngineStore;
 import com.radixdlt.store.InMemoryEngineStore;
 import com.radixdlt.sync.CommittedReader;
 import com.radixdlt.sync.NoOpCommittedReader;
+import com.radixdlt.utils.TimeSupplier;
 import com.radixdlt.utils.TypedMocks;
 import com.radixdlt.utils.UInt256;
+import java.math.BigInteger;
 import java.util.List;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.assertj.core.api.Condition;
@@ -162,11 +168,19 @@ public class RadixEngineStateComputerTest {
 
   @Inject private EventDispatcher<MempoolAddSuccess> mempoolAddSuccessEventDispatcher;
 
+  @Inject private EventDispatcher<InvalidProposedTxn> invalidProposedTxnEventDispatcher;
+
   private Serialization serialization = DefaultSerialization.getInstance();
   private InMemoryEngineStore<LedgerAndBFTProof> engineStore;
   private ImmutableList<ECKeyPair> registeredNodes =
       ImmutableList.of(ECKeyPair.generateNew(), ECKeyPair.generateNew());
   private ECKeyPair unregisteredNode = ECKeyPair.generateNew();
+  private BFTValidatorSet validatorSet =
+      BFTValidatorSet.from(
+          registeredNodes.stream()
+              .map(ECKeyPair::getPublicKey)
+              .map(BFTNode::create)
+              .map(n -> BFTValidator.from(n, UInt256.ONE)));
 
   private static final Hasher hasher = Sha256Hasher.withDefaultSerialization();
 
@@ -174,16 +188,11 @@ public class RadixEngineStateComputerTest {
     return new AbstractModule() {
       @Override
       public void configure() {
-        var validatorSet =
-            BFTValidatorSet.from(
-                registeredNodes.stream()
-                    .map(ECKeyPair::getPublicKey)
-                    .map(BFTNode::create)
-                    .map(n -> BFTValidator.from(n, UInt256.ONE)));
-
+        bind(BFTValidatorSet.class).toInstance(validatorSet);
         bind(ProposerElection.class).toInstance(new WeightedRotatingLeaders(validatorSet));
         bind(Serialization.class).toInstance(serialization);
         bind(Hasher.class).toInstance(Sha256Hasher.withDefaultSerialization());
+        bind(TimeSupplier.class).toInstance(System::currentTimeMillis);
         bind(new TypeLiteral<EngineStore<LedgerAndBFTProof>>() {}).toInstance(engineStore);
         bind(PersistentVertexStore.class).toInstance(mock(PersistentVertexStore.class));
 
@@ -368,21 +377,33 @@ public class RadixEngineStateComputerTest {
             });
   }
 
-  @Test
-  public void preparing_system_update_from_vertex_should_fail() throws TxBuilderException {
-    // Arrange
+  private Txn illegalSystemUpdateTxn() throws TxBuilderException {
     var txn =
         radixEngine
             .construct(
                 new NextRound(1, false, 0, i -> proposerElection.getProposer(View.of(i)).getKey()))
             .buildWithoutSignature();
-    var illegalTxn =
-        TxLowLevelBuilder.newBuilder(
-                currentForkView.currentForkConfig().engineRules().serialization())
-            .down(SubstateId.ofSubstate(txn.getId(), 1))
-            .up(new RoundData(2, 0))
-            .end()
-            .build();
+    return TxLowLevelBuilder.newBuilder(
+            currentForkView.currentForkConfig().engineRules().serialization())
+        .down(SubstateId.ofSubstate(txn.getId(), 1))
+        .up(new RoundData(2, 0))
+        .end()
+        .build();
+  }
+
+  // The signing key can't be recovered from a signature whose r is beyond the field prime
+  private Txn invalidSignatureTxn() throws TxBuilderException {
+    var invalidSignature =
+        ECDSASignature.create(BigInteger.TWO.pow(256).subtract(BigInteger.ONE), BigInteger.ONE, 0);
+    return radixEngine
+        .construct(new RegisterValidator(ECKeyPair.generateNew().getPublicKey()))
+        .signAndBuild(hash -> invalidSignature);
+  }
+
+  @Test
+  public void preparing_system_update_from_vertex_should_fail() throws TxBuilderException {
+    // Arrange
+    var illegalTxn = illegalSystemUpdateTxn();
     var v =
         UnverifiedVertex.create(
             mock(QuorumCertificate.class),
@@ -510,4 +531,106 @@ public class RadixEngineStateComputerTest {
         .dispatch(
             argThat(ev -> ev.getOrigin().orElseThrow().equals(origin) && ev.getTxn().equals(txn)));
   }
+
+  @Test(timeout = 60_000)
+  public void speculation_checks_leaders_while_consensus_queries_them() throws Exception {
+    // Arrange
+    var views = 20_000;
+    var reference = new WeightedRotatingLeaders(validatorSet);
+    var expected = new BFTNode[views + 1];
+    for (int view = 1; view <= views; view++) {
+      expected[view] = reference.getProposer(View.of(view));
+    }
+    var consensus = Executors.newSingleThreadExecutor();
+
+    try {
+      // Act
+      var consensusMismatches =
+          consensus.submit(
+              () -> {
+                var mismatches = 0;
+                for (int view = 1; view <= views; view++) {
+                  if (!proposerElection.getProposer(View.of(view)).equals(expected[view])) {
+                    mismatches++;
+                  }
+                }
+                return mismatches;
+              });
+      var speculationMismatches = 0;
+      for (int view = 1; view <= views; view++) {
+        if (!sut.isLeader(expected[view], View.of(view))) {
+          speculationMismatches++;
+        }
+      }
+
+      // Assert
+      assertThat(speculationMismatches).isZero();
+      assertThat(consensusMismatches.get()).isZero();
+    } finally {
+      consensus.shutdownNow();
+    }
+  }
+
+  @Test
+  public void preparing_stops_at_failed_execution_before_invalid_signature() throws Exception {
+    var failingTxn = illegalSystemUpdateTxn();
+    var invalidSignatureTxn = invalidSignatureTxn();
+
+    assertPreparingFailsAsSerialExecution(List.of(failingTxn, invalidSignatureTxn), failingTxn);
+  }
+
+  @Test
+  public void preparing_stops_at_invalid_signature_before_failed_execution() throws Exception {
+    var failingTxn = illegalSystemUpdateTxn();
+    var invalidSignatureTxn = invalidSignatureTxn();
+
+    assertPreparingFailsAsSerialExecution(
+        List.of(invalidSignatureTxn, failingTxn), invalidSignatureTxn);
+  }
+
+  private void assertPreparingFailsAsSerialExecution(
+      List<Txn> txns, Txn expectedFailedTxn) throws Exception {
+    // Arrange
+    var v =
+        UnverifiedVertex.create(
+            mock(QuorumCertificate.class),
+            View.of(1),
+            txns,
+            proposerElection.getProposer(View.of(1)));
+    var vertex = new VerifiedVertex(v, mock(HashCode.class));
+
+    // Act
+    var result = sut.prepare(ImmutableList.of(), vertex, 0);
+
+    // Assert
+    var expectedFailure = executeSerially(result.getSuccessfulCommands().get(0).txn(), txns);
+    assertThat(result.getSuccessfulCommands()).hasSize(1);
+    assertThat(result.getFailedCommands()).containsOnlyKeys(expectedFailedTxn);
+    var failure = (RadixEngineException) result.getFailedCommands().get(expectedFailedTxn);
+    assertThat(failure.getTxnIndex()).isEqualTo(expectedFailure.getTxnIndex());
+    assertThat(failure).hasMessage(expectedFailure.getMessage());
+    assertThat(failure.getCause())
+        .isExactlyInstanceOf(expectedFailure.getCause().getClass())
+        .hasMessage(expectedFailure.getCause().getMessage());
+    verify(invalidProposedTxnEventDispatcher, times(1)).dispatch(any());
+  }
+
+  // Executes the txns one at a time after the system update, which is how they used to be executed
+  private RadixEngineException executeSerially(Txn systemUpdate, List<Txn> txns)
+      throws RadixEngineException {
+    var branch = radixEngine.transientBranch();
+    try {
+      branch.execute(List.of(systemUpdate), PermissionLevel.SUPER_USER);
+      for (var txn : txns) {
+        try {
+          branch.execute(List.of(txn));
+        } catch (RadixEngineException e) {
+          return e;
+        }
+      }
+      throw new AssertionError("No txn failed");
+    } finally {
+      radixEngine.deleteBranches();
+    }
+  }
 }
@@ -0,0 +1,167 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.statecomputer.substatehash;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.radixdlt.application.system.scrypt.SystemConstraintScrypt;
+import com.radixdlt.application.system.state.EpochData;
+import com.radixdlt.application.system.state.RoundData;
+import com.radixdlt.atom.SubstateId;
+import com.radixdlt.atomos.CMAtomOS;
+import com.radixdlt.constraintmachine.Particle;
+import com.radixdlt.constraintmachine.REOp;
+import com.radixdlt.constraintmachine.REStateUpdate;
+import com.radixdlt.constraintmachine.SubstateSerialization;
+import com.radixdlt.crypto.HashUtils;
+import com.radixdlt.identifiers.AID;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.bouncycastle.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SubstateAccumulatorHasherTest {
+  private SubstateSerialization serialization;
+
+  @Before
+  public void setup() {
+    var cmAtomOS = new CMAtomOS();
+    cmAtomOS.load(new SystemConstraintScrypt());
+    serialization = cmAtomOS.buildSubstateSerialization();
+  }
+
+  @Test
+  public void hash_matches_hash_of_concatenated_state_updates() {
+    var previousHash = HashUtils.random256().asBytes();
+    var stateUpdates =
+        IntStream.range(0, 300)
+            .mapToObj(
+                i ->
+                    i % 3 == 0
+                        ? stateUpdate(REOp.DOWN, i, new EpochData(i))
+                        : stateUpdate(REOp.UP, i, new RoundData(i, i * 1000L)))
+            .toList();
+
+    var sut = new SubstateAccumulatorHasher(serialization).reset(previousHash);
+    stateUpdates.forEach(sut::update);
+
+    assertThat(sut.digest()).isEqualTo(concatenatedHash(previousHash, stateUpdates));
+  }
+
+  @Test
+  public void hasher_can_be_reused_across_transactions() {
+    var sut = new SubstateAccumulatorHasher(serialization);
+    var first = List.of(stateUpdate(REOp.UP, 0, new RoundData(1, 1)));
+    var second = List.of(stateUpdate(REOp.DOWN, 1, new RoundData(1, 1)));
+
+    var firstHash = sut.reset(HashUtils.zero256().asBytes()).update(first.get(0)).digest();
+    var secondHash = sut.reset(firstHash).update(second.get(0)).digest();
+
+    assertThat(firstHash).isEqualTo(concatenatedHash(HashUtils.zero256().asBytes(), first));
+    assertThat(secondHash).isEqualTo(concatenatedHash(firstHash, second));
+  }
+
+  @Test
+  public void hash_of_no_state_updates_is_hash_of_previous_hash() {
+    var previousHash = HashUtils.random256().asBytes();
+
+    var hash = new SubstateAccumulatorHasher(serialization).reset(previousHash).digest();
+
+    assertThat(hash).isEqualTo(HashUtils.sha256(previousHash).asBytes());
+  }
+
+  private REStateUpdate stateUpdate(REOp op, int index, Particle particle) {
+    var bytes = serialization.serialize(particle);
+    return REStateUpdate.of(
+        op,
+        index,
+        SubstateId.ofSubstate(AID.ZERO, index),
+        bytes[0],
+        particle,
+        () -> ByteBuffer.wrap(bytes));
+  }
+
+  // The accumulator as originally defined, over a single concatenated array
+  private byte[] concatenatedHash(byte[] previousHash, List<REStateUpdate> stateUpdates) {
+    var substateBytes = new byte[0];
+    for (var u : stateUpdates) {
+      var op = u.isBootUp() ? new byte[] {0} : new byte[] {1};
+      var type = new byte[] {u.typeByte()};
+      var parsed = serialization.serialize(u.getParsed());
+      var stateBuf = u.getRawSubstateBytes().getData();
+      var instructionIndex = new byte[] {(byte) u.getInstructionIndex()};
+      substateBytes =
+          Arrays.concatenate(
+              substateBytes,
+              Arrays.concatenate(
+                  Arrays.concatenate(op, u.getId().asBytes(), type, parsed),
+                  stateBuf,
+                  instructionIndex));
+    }
+    return HashUtils.sha256(Arrays.concatenate(previousHash, substateBytes)).asBytes();
+  }
+}
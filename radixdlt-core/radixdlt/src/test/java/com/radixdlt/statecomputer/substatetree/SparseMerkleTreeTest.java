@@ -0,0 +1,248 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.statecomputer.substatetree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.hash.HashCode;
+import com.radixdlt.crypto.HashUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class SparseMerkleTreeTest {
+  private final Map<NodePosition, TreeNode> nodes = new HashMap<>();
+  private final SparseMerkleTree sut =
+      new SparseMerkleTree(position -> Optional.ofNullable(nodes.get(position)));
+
+  @Test
+  public void empty_tree_has_zero_root() {
+    assertThat(sut.getRoot()).isEqualTo(HashUtils.zero256());
+  }
+
+  @Test
+  public void root_of_single_leaf_is_the_leaf() {
+    var key = HashUtils.random256();
+    var valueHash = HashUtils.random256();
+
+    apply(Map.of(key, Optional.of(valueHash)));
+
+    assertThat(sut.getRoot()).isEqualTo(TreeNode.leaf(key, valueHash).hash());
+  }
+
+  @Test
+  public void root_does_not_depend_on_update_order_or_batching() {
+    var leaves = randomLeaves(500);
+    applyAll(leaves);
+    var batchedRoot = sut.getRoot();
+
+    nodes.clear();
+    var shuffled = new ArrayList<>(leaves.entrySet());
+    Collections.shuffle(shuffled, new Random(1));
+    shuffled.forEach(e -> apply(Map.of(e.getKey(), Optional.of(e.getValue()))));
+
+    assertThat(sut.getRoot()).isEqualTo(batchedRoot);
+  }
+
+  @Test
+  public void removing_leaves_restores_previous_root_and_nodes() {
+    var leaves = randomLeaves(200);
+    applyAll(leaves);
+    var root = sut.getRoot();
+    var storedNodes = Map.copyOf(nodes);
+
+    var added = randomLeaves(100);
+    applyAll(added);
+    assertThat(sut.getRoot()).isNotEqualTo(root);
+
+    var removals = new HashMap<HashCode, Optional<HashCode>>();
+    added.keySet().forEach(key -> removals.put(key, Optional.empty()));
+    apply(removals);
+
+    assertThat(sut.getRoot()).isEqualTo(root);
+    assertThat(nodes).isEqualTo(storedNodes);
+  }
+
+  @Test
+  public void removing_all_leaves_empties_the_tree() {
+    var leaves = randomLeaves(50);
+    applyAll(leaves);
+
+    var removals = new HashMap<HashCode, Optional<HashCode>>();
+    leaves.keySet().forEach(key -> removals.put(key, Optional.empty()));
+    apply(removals);
+
+    assertThat(sut.getRoot()).isEqualTo(HashUtils.zero256());
+    assertThat(nodes).isEmpty();
+  }
+
+  @Test
+  public void removing_missing_key_does_not_change_root() {
+    applyAll(randomLeaves(50));
+    var root = sut.getRoot();
+
+    apply(Map.of(HashUtils.random256(), Optional.empty()));
+
+    assertThat(sut.getRoot()).isEqualTo(root);
+  }
+
+  @Test
+  public void inclusion_proofs_verify_against_root() {
+    var leaves = randomLeaves(300);
+    applyAll(leaves);
+    var root = sut.getRoot();
+
+    leaves.forEach(
+        (key, valueHash) -> {
+          var proof = sut.prove(key);
+          assertThat(proof.isInclusion()).isTrue();
+          assertThat(proof.leaf().valueHash()).isEqualTo(valueHash);
+          assertThat(proof.verify(root)).isTrue();
+        });
+  }
+
+  @Test
+  public void exclusion_proofs_verify_against_root() {
+    applyAll(randomLeaves(300));
+    var root = sut.getRoot();
+
+    for (int i = 0; i < 100; i++) {
+      var proof = sut.prove(HashUtils.random256());
+      assertThat(proof.isInclusion()).isFalse();
+      assertThat(proof.verify(root)).isTrue();
+    }
+  }
+
+  @Test
+  public void exclusion_proof_of_empty_tree_verifies() {
+    var proof = sut.prove(HashUtils.random256());
+
+    assertThat(proof.isInclusion()).isFalse();
+    assertThat(proof.verify(HashUtils.zero256())).isTrue();
+  }
+
+  @Test
+  public void proof_does_not_verify_against_other_root() {
+    var leaves = randomLeaves(100);
+    applyAll(leaves);
+    var key = leaves.keySet().iterator().next();
+    var proof = sut.prove(key);
+
+    apply(Map.of(key, Optional.of(HashUtils.random256())));
+
+    assertThat(proof.verify(sut.getRoot())).isFalse();
+  }
+
+  @Test
+  public void proof_of_other_key_does_not_prove_exclusion() {
+    var leaves = randomLeaves(100);
+    applyAll(leaves);
+    var root = sut.getRoot();
+    var keys = List.copyOf(leaves.keySet());
+    var proof = sut.prove(keys.get(0));
+
+    // Reuse the siblings and leaf of one key as a claimed exclusion proof for another
+    var forged = new SparseMerkleProof(keys.get(1), proof.siblings(), proof.leaf());
+
+    assertThat(forged.isInclusion()).isFalse();
+    assertThat(forged.verify(root)).isFalse();
+  }
+
+  @Test
+  public void tree_node_serialization_round_trips() {
+    var leaf = TreeNode.leaf(HashUtils.random256(), HashUtils.random256());
+    var internal = TreeNode.internal(HashUtils.random256(), HashUtils.zero256());
+
+    assertThat(TreeNode.fromBytes(leaf.toBytes())).isEqualTo(leaf);
+    assertThat(TreeNode.fromBytes(internal.toBytes())).isEqualTo(internal);
+    assertThat(leaf.hash()).isNotEqualTo(TreeNode.internal(leaf.first(), leaf.second()).hash());
+  }
+
+  private Map<HashCode, HashCode> randomLeaves(int count) {
+    var leaves = new HashMap<HashCode, HashCode>();
+    IntStream.range(0, count)
+        .forEach(i -> leaves.put(HashUtils.random256(), HashUtils.random256()));
+    return leaves;
+  }
+
+  private void applyAll(Map<HashCode, HashCode> leaves) {
+    var updates = new HashMap<HashCode, Optional<HashCode>>();
+    leaves.forEach((key, valueHash) -> updates.put(key, Optional.of(valueHash)));
+    apply(updates);
+  }
+
+  private void apply(Map<HashCode, Optional<HashCode>> updates) {
+    sut.update(updates)
+        .forEach(
+            (position, node) ->
+                node.ifPresentOrElse(n -> nodes.put(position, n), () -> nodes.remove(position)));
+  }
+}
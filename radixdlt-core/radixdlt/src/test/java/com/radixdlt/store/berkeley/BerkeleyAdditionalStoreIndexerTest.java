@@ -0,0 +1,304 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+package com.radixdlt.store.berkeley;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.radixdlt.atom.Txn;
+import com.radixdlt.constraintmachine.REProcessedTxn;
+import com.radixdlt.constraintmachine.RawSubstateBytes;
+import com.radixdlt.constraintmachine.SystemMapKey;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.counters.SystemCountersImpl;
+import com.radixdlt.store.DatabaseEnvironment;
+import com.radixdlt.utils.Longs;
+import com.radixdlt.utils.Pair;
+import com.sleepycat.je.Transaction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public final class BerkeleyAdditionalStoreIndexerTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private DatabaseEnvironment dbEnv;
+  private SystemCounters systemCounters;
+
+  @Before
+  public void setup() {
+    dbEnv = new DatabaseEnvironment(folder.getRoot().getAbsolutePath(), 1024L * 1024L);
+    systemCounters = new SystemCountersImpl(0L);
+  }
+
+  @After
+  public void teardown() {
+    dbEnv.stop();
+  }
+
+  @Test
+  public void committed_transactions_are_processed_in_order() {
+    var store = new RecordingStore();
+    var indexer = indexer(store);
+    indexer.open(0L, List.of());
+
+    commit(indexer, 1, 3);
+    commit(indexer, 4, 10);
+    indexer.close();
+
+    assertThat(store.processed)
+        .containsExactlyElementsOf(LongStream.rangeClosed(1, 10).boxed().toList());
+    assertThat(systemCounters.get(CounterType.PERSISTENCE_INDEXER_STATE_VERSION)).isEqualTo(10L);
+    assertThat(systemCounters.get(CounterType.PERSISTENCE_INDEXER_LAG)).isZero();
+  }
+
+  @Test
+  public void store_resumes_from_persisted_checkpoint() {
+    var first = new RecordingStore();
+    var indexer = indexer(first);
+    indexer.open(0L, List.of());
+    commit(indexer, 1, 5);
+    indexer.close();
+
+    var second = new RecordingStore();
+    var reopened = indexer(second);
+    reopened.open(5L, List.of());
+    commit(reopened, 6, 7);
+    reopened.close();
+
+    assertThat(second.processed).containsExactly(6L, 7L);
+  }
+
+  @Test
+  public void store_behind_the_ledger_catches_up_from_the_journal() {
+    var first = new RecordingStore();
+    var indexer = indexer(first);
+    indexer.open(0L, List.of());
+    commit(indexer, 1, 5);
+    // e.g. the node stopped before transactions 6 to 8 were handed over
+    LongStream.rangeClosed(6, 8).forEach(v -> indexer.journal(null, v, mock(REProcessedTxn.class)));
+    indexer.close();
+
+    var second = new RecordingStore();
+    var reopened = indexer(second);
+    reopened.open(8L, List.of());
+    reopened.close();
+
+    assertThat(second.processed).containsExactly(6L, 7L, 8L);
+    assertThat(systemCounters.get(CounterType.PERSISTENCE_INDEXER_REPLAYED_TXNS)).isEqualTo(3L);
+    assertThat(reopened.isAvailable(second)).isTrue();
+  }
+
+  @Test
+  public void store_is_given_up_on_when_versions_are_not_journaled() {
+    var first = new RecordingStore();
+    var indexer = indexer(first);
+    indexer.open(0L, List.of());
+    commit(indexer, 1, 5);
+    indexer.close();
+
+    // e.g. the ledger advanced while the store was not indexed asynchronously
+    var second = new RecordingStore();
+    var reopened = indexer(second);
+    reopened.open(8L, List.of());
+    commit(reopened, 9, 10);
+    reopened.close();
+
+    assertThat(second.processed).isEmpty();
+    assertThat(reopened.isAvailable(second)).isFalse();
+  }
+
+  @Test
+  public void failed_batch_is_retried_from_the_journal() throws InterruptedException {
+    var store = new FailingStore(1, 5);
+    var indexer = indexer(store);
+    indexer.open(0L, List.of());
+
+    commit(indexer, 1, 5);
+    assertThat(store.allProcessed.await(10, TimeUnit.SECONDS)).isTrue();
+    indexer.close();
+
+    assertThat(store.processed).containsExactly(1L, 2L, 3L, 4L, 5L);
+    assertThat(systemCounters.get(CounterType.PERSISTENCE_INDEXER_FAILURES)).isEqualTo(1L);
+    assertThat(indexer.isAvailable(store)).isTrue();
+  }
+
+  @Test(timeout = 10_000L)
+  public void store_is_unavailable_while_failing() throws InterruptedException {
+    var store = new FailingStore(Integer.MAX_VALUE, 1);
+    var indexer = indexer(store);
+    indexer.open(0L, List.of());
+
+    commit(indexer, 1, 1);
+    while (systemCounters.get(CounterType.PERSISTENCE_INDEXER_FAILURES) == 0) {
+      Thread.sleep(10L);
+    }
+    var available = indexer.isAvailable(store);
+    indexer.close();
+
+    assertThat(available).isFalse();
+    assertThat(store.processed).isEmpty();
+  }
+
+  @Test
+  public void synchronous_store_behind_the_ledger_is_caught_up_by_the_indexer() {
+    var store = new RecordingStore();
+    var indexer = indexer(store);
+    indexer.open(0L, List.of());
+    commit(indexer, 1, 2);
+    LongStream.rangeClosed(3, 4).forEach(v -> indexer.journal(null, v, mock(REProcessedTxn.class)));
+    indexer.close();
+
+    // The store has since been switched to synchronous updates
+    var reopened = indexer();
+    var lagging = reopened.open(4L, List.of(store));
+    reopened.close();
+
+    assertThat(lagging).containsExactly(store);
+    assertThat(store.processed).containsExactly(1L, 2L, 3L, 4L);
+  }
+
+  private BerkeleyAdditionalStoreIndexer indexer(BerkeleyAdditionalStore... stores) {
+    return new BerkeleyAdditionalStoreIndexer(
+        dbEnv,
+        systemCounters,
+        List.of(stores),
+        k -> Optional.empty(),
+        new BerkeleyAdditionalStoreIndexer.JournalCodec() {
+          @Override
+          public byte[] encode(REProcessedTxn txn) {
+            return new byte[] {0};
+          }
+
+          @Override
+          public REProcessedTxn decode(Txn txn, byte[] journalEntry) {
+            return mock(REProcessedTxn.class);
+          }
+        },
+        stateVersion -> Optional.of(Txn.create(Longs.toByteArray(stateVersion))));
+  }
+
+  /** Journals and hands over transactions as the ledger commit does. */
+  private static void commit(BerkeleyAdditionalStoreIndexer indexer, long from, long to) {
+    var txns =
+        LongStream.rangeClosed(from, to)
+            .mapToObj(v -> Pair.of(v, mock(REProcessedTxn.class)))
+            .toList();
+    txns.forEach(txn -> indexer.journal(null, txn.getFirst(), txn.getSecond()));
+    indexer.committed(txns);
+  }
+
+  private static class RecordingStore implements BerkeleyAdditionalStore {
+    final List<Long> processed = new ArrayList<>();
+
+    @Override
+    public void open(DatabaseEnvironment dbEnv) {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void process(
+        Transaction dbTxn,
+        REProcessedTxn txn,
+        long stateVersion,
+        Function<SystemMapKey, Optional<RawSubstateBytes>> mapper) {
+      processed.add(stateVersion);
+    }
+  }
+
+  private static final class FailingStore extends RecordingStore {
+    private final CountDownLatch allProcessed;
+    private int failures;
+
+    FailingStore(int failures, int txns) {
+      this.failures = failures;
+      this.allProcessed = new CountDownLatch(txns);
+    }
+
+    @Override
+    public void process(
+        Transaction dbTxn,
+        REProcessedTxn txn,
+        long stateVersion,
+        Function<SystemMapKey, Optional<RawSubstateBytes>> mapper) {
+      if (failures > 0) {
+        failures--;
+        throw new IllegalStateException("Unable to index " + stateVersion);
+      }
+      super.process(dbTxn, txn, stateVersion, mapper);
+      allProcessed.countDown();
+    }
+  }
+}
@@ -65,22 +65,34 @@
 package com.radixdlt.store.berkeley;
 
 import static com.radixdlt.statecomputer.forks.RERulesVersion.OLYMPIA_V1;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.hash.HashCode;
 import com.radixdlt.DefaultSerialization;
 import com.radixdlt.atom.CloseableCursor;
+import com.radixdlt.atom.SubstateId;
+import com.radixdlt.atom.SubstateTypeId;
 import com.radixdlt.atom.Txn;
 import com.radixdlt.constraintmachine.REProcessedTxn;
+import com.radixdlt.counters.SystemCounters.CounterType;
 import com.radixdlt.counters.SystemCountersImpl;
 import com.radixdlt.crypto.HashUtils;
 import com.radixdlt.engine.RadixEngineException;
 import com.radixdlt.hotstuff.LedgerHeader;
 import com.radixdlt.hotstuff.LedgerProof;
 import com.radixdlt.hotstuff.TimestampedECDSASignatures;
+import com.radixdlt.hotstuff.bft.BFTNode;
+import com.radixdlt.hotstuff.bft.BFTValidator;
+import com.radixdlt.hotstuff.bft.BFTValidatorSet;
 import com.radixdlt.hotstuff.bft.View;
 import com.radixdlt.identifiers.AID;
 import com.radixdlt.ledger.AccumulatorState;
@@ -91,16 +103,26 @@ import com.radixdlt.statecomputer.forks.ForkVotingResult;
 import com.radixdlt.statecomputer.forks.RERulesConfig;
 import com.radixdlt.store.DatabaseEnvironment;
 import com.radixdlt.store.StoreConfig;
+import com.radixdlt.sync.SyncTarget;
+import com.radixdlt.sync.snapshot.StagedStateSnapshot;
+import com.radixdlt.sync.snapshot.StateSnapshotChunks;
+import com.radixdlt.sync.snapshot.StateSnapshotManifest;
+import com.radixdlt.utils.UInt256;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 public final class BerkeleyLedgerEntryStoreTest {
+  @Rule public TemporaryFolder bulkLoadDir = new TemporaryFolder();
+  @Rule public TemporaryFolder snapshotDir = new TemporaryFolder();
 
   private TemporaryFolder dir;
   private BerkeleyLedgerEntryStore sut;
@@ -117,7 +139,11 @@ public final class BerkeleyLedgerEntryStoreTest {
                 dir.getRoot().getAbsolutePath(), (long) (Runtime.getRuntime().maxMemory() * 0.125)),
             new StoreConfig(1000),
             new SystemCountersImpl(0L),
-            Set.of());
+            new SyncTarget(),
+            Set.of(),
+            () -> {
+              throw new IllegalStateException("No additional stores are indexed asynchronously");
+            });
   }
 
   @Test
@@ -225,8 +251,155 @@ public final class BerkeleyLedgerEntryStoreTest {
     }
   }
 
+  @Test
+  public void commits_are_bulk_loaded_only_while_far_behind_sync_target()
+      throws RadixEngineException {
+    var counters = new SystemCountersImpl(0L);
+    var syncTarget = new SyncTarget();
+    var dbEnv =
+        new DatabaseEnvironment(
+            bulkLoadDir.getRoot().getAbsolutePath(),
+            (long) (Runtime.getRuntime().maxMemory() * 0.125));
+    var store =
+        new BerkeleyLedgerEntryStore(
+            DefaultSerialization.getInstance(),
+            dbEnv,
+            new StoreConfig(1000, false, 10L),
+            counters,
+            syncTarget,
+            Set.of(),
+            () -> {
+              throw new IllegalStateException("No additional stores are indexed asynchronously");
+            });
+    syncTarget.set(15L);
+
+    for (long stateVersion = 1; stateVersion <= 8; stateVersion++) {
+      storeMetadata(store, 1L, stateVersion, ImmutableSet.of());
+    }
+
+    // Versions 1 to 4 are more than 10 behind the target
+    assertEquals(4L, counters.get(CounterType.COUNT_BDB_LEDGER_BULK_LOAD_COMMITS));
+    assertEquals(8L, store.getLastProof().orElseThrow().getStateVersion());
+    store.close();
+    dbEnv.stop();
+  }
+
+  @Test
+  public void staged_state_snapshot_is_applied_when_the_store_is_opened()
+      throws RadixEngineException {
+    var substateId = SubstateId.ofSubstate(AID.from(HashUtils.random256().asBytes()), 0);
+    var substate = new byte[] {SubstateTypeId.VIRTUAL_PARENT.id(), 0};
+    var epochProof =
+        stageStateSnapshot(
+            snapshotDir.getRoot().toPath(),
+            new StateSnapshotChunks.Entry(0, substateId.asBytes(), substate));
+    var dbEnv =
+        new DatabaseEnvironment(
+            snapshotDir.getRoot().getAbsolutePath(),
+            (long) (Runtime.getRuntime().maxMemory() * 0.125));
+    var store =
+        new BerkeleyLedgerEntryStore(
+            DefaultSerialization.getInstance(),
+            dbEnv,
+            new StoreConfig(1000),
+            new SystemCountersImpl(0L),
+            new SyncTarget(),
+            Set.of(),
+            () -> {
+              throw new IllegalStateException("No additional stores are indexed asynchronously");
+            });
+
+    assertEquals(epochProof, store.getLastProof().orElseThrow());
+    assertEquals(epochProof, store.getEpochProof(epochProof.getEpoch()).orElseThrow());
+    assertArrayEquals(substate, store.get(substateId).orElseThrow().getData());
+    assertTrue(
+        StagedStateSnapshot.open(snapshotDir.getRoot().toPath(), DefaultSerialization.getInstance())
+            .isEmpty());
+
+    // The ledger carries on from the state version of the snapshot
+    var nextStateVersion = epochProof.getStateVersion() + 1;
+    storeMetadata(store, epochProof.getEpoch() + 1, nextStateVersion, ImmutableSet.of());
+    assertEquals(nextStateVersion, store.getLastProof().orElseThrow().getStateVersion());
+    store.close();
+    dbEnv.stop();
+  }
+
+  @Test
+  public void staged_state_snapshot_is_not_applied_with_a_store_which_cannot_be_rebuilt() {
+    var additionalStore = mock(BerkeleyAdditionalStore.class);
+    when(additionalStore.isSynchronous()).thenReturn(true);
+    when(additionalStore.supportsStateSnapshots()).thenReturn(false);
+    stageStateSnapshot(
+        snapshotDir.getRoot().toPath(),
+        new StateSnapshotChunks.Entry(0, new byte[] {1}, new byte[] {0, 0}));
+    var dbEnv =
+        new DatabaseEnvironment(
+            snapshotDir.getRoot().getAbsolutePath(),
+            (long) (Runtime.getRuntime().maxMemory() * 0.125));
+    var store =
+        new BerkeleyLedgerEntryStore(
+            DefaultSerialization.getInstance(),
+            dbEnv,
+            new StoreConfig(1000),
+            new SystemCountersImpl(0L),
+            new SyncTarget(),
+            Set.of(additionalStore),
+            () -> {
+              throw new IllegalStateException("No additional stores are indexed asynchronously");
+            });
+
+    verify(additionalStore, never()).clearForStateSnapshot(any());
+    assertTrue(store.getLastProof().isEmpty());
+    assertFalse(
+        StagedStateSnapshot.open(snapshotDir.getRoot().toPath(), DefaultSerialization.getInstance())
+            .isEmpty());
+    store.close();
+    dbEnv.stop();
+  }
+
+  private static LedgerProof stageStateSnapshot(
+      Path databaseHome, StateSnapshotChunks.Entry... entries) {
+    var chunks = new ArrayList<byte[]>();
+    var writer = new StateSnapshotChunks.Writer(chunks::add);
+    Stream.of(entries).forEach(writer::add);
+    var chunkCount = writer.finish();
+
+    var validatorSet =
+        BFTValidatorSet.from(Stream.of(BFTValidator.from(BFTNode.random(), UInt256.ONE)));
+    var epochHeader =
+        LedgerHeader.create(
+            3L, View.of(10L), new AccumulatorState(10L, HashUtils.random256()), 0L, validatorSet);
+    var epochProof =
+        new LedgerProof(
+            HashUtils.random256(), epochHeader, new TimestampedECDSASignatures(Map.of()));
+    var manifest =
+        new StateSnapshotManifest(
+            epochHeader,
+            chunkCount,
+            StateSnapshotChunks.root(chunks.stream().map(StateSnapshotChunks::hash).toList()));
+
+    var staged =
+        StagedStateSnapshot.create(
+            databaseHome, DefaultSerialization.getInstance(), manifest, epochProof);
+    for (int i = 0; i < chunkCount; i++) {
+      staged.writeChunk(i, chunks.get(i));
+    }
+    staged.markComplete();
+    return epochProof;
+  }
+
   private void storeMetadataWithForks(long epoch, ImmutableSet<ForkVotingResult> forkVotingResults)
       throws RadixEngineException {
+    // using same state version as epoch
+    storeMetadata(sut, epoch, epoch, forkVotingResults);
+  }
+
+  private void storeMetadata(
+      BerkeleyLedgerEntryStore store,
+      long epoch,
+      long stateVersion,
+      ImmutableSet<ForkVotingResult> forkVotingResults)
+      throws RadixEngineException {
     final var fakeTx = mock(REProcessedTxn.class);
     final var txn = mock(Txn.class);
     when(txn.getId()).thenReturn(AID.from(HashUtils.random256().asBytes()));
@@ -241,14 +414,12 @@ public final class BerkeleyLedgerEntryStoreTest {
                     LedgerHeader.create(
                         epoch,
                         View.of(0L),
-                        new AccumulatorState(
-                            epoch /* using same state version as epoch */,
-                            HashCode.fromInt(1) /* unused */),
+                        new AccumulatorState(stateVersion, HashCode.fromInt(1) /* unused */),
                         0L),
                     new TimestampedECDSASignatures(Map.of())))
             .withForksVotingResults(forkVotingResults);
 
-    sut.transaction(
+    store.transaction(
         tx -> {
           tx.storeTxn(fakeTx);
           tx.storeMetadata(proof1);
@@ -160,6 +160,7 @@ public class LocalSyncServiceTest {
             syncLedgerUpdateTimeoutDispatcher,
             syncConfig,
             systemCounters,
+            new SyncTarget(),
             peersView,
             accComparator,
             validatorSetVerifier,
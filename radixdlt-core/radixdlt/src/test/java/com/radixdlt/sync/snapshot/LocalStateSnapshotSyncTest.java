@@ -0,0 +1,302 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+package com.radixdlt.sync.snapshot;
+
+import static com.radixdlt.utils.TypedMocks.rmock;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.radixdlt.DefaultSerialization;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.counters.SystemCountersImpl;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.crypto.ECPublicKey;
+import com.radixdlt.crypto.HashUtils;
+import com.radixdlt.crypto.Hasher;
+import com.radixdlt.environment.RemoteEventDispatcher;
+import com.radixdlt.hotstuff.ConsensusHasher;
+import com.radixdlt.hotstuff.LedgerHeader;
+import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.hotstuff.Sha256Hasher;
+import com.radixdlt.hotstuff.TimestampedECDSASignature;
+import com.radixdlt.hotstuff.TimestampedECDSASignatures;
+import com.radixdlt.hotstuff.bft.BFTNode;
+import com.radixdlt.hotstuff.bft.BFTValidator;
+import com.radixdlt.hotstuff.bft.BFTValidatorSet;
+import com.radixdlt.hotstuff.bft.View;
+import com.radixdlt.ledger.AccumulatorState;
+import com.radixdlt.network.p2p.NodeId;
+import com.radixdlt.network.p2p.PeerControl;
+import com.radixdlt.network.p2p.PeersView;
+import com.radixdlt.network.p2p.PeersView.PeerInfo;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.store.DatabaseEnvironment;
+import com.radixdlt.sync.CommittedReader;
+import com.radixdlt.sync.snapshot.messages.EpochProofsRequest;
+import com.radixdlt.sync.snapshot.messages.EpochProofsResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotChunkRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestRequest;
+import com.radixdlt.sync.snapshot.messages.SnapshotManifestResponse;
+import com.radixdlt.sync.snapshot.messages.SnapshotSyncCheck;
+import com.radixdlt.utils.UInt256;
+import com.sleepycat.je.Environment;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+public class LocalStateSnapshotSyncTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Serialization serialization = DefaultSerialization.getInstance();
+  private final Hasher hasher = Sha256Hasher.withDefaultSerialization();
+  private final SystemCounters counters = new SystemCountersImpl(0L);
+  private final List<ECKeyPair> validatorKeys =
+      Stream.generate(ECKeyPair::generateNew).limit(4).toList();
+  private final BFTValidatorSet validatorSet =
+      BFTValidatorSet.from(
+          validatorKeys.stream().map(k -> BFTValidator.from(node(k), UInt256.ONE)));
+  private final LedgerHeader epochHeader =
+      LedgerHeader.create(
+          2L, View.of(5L), new AccumulatorState(20L, HashUtils.random256()), 0L, validatorSet);
+  private final StateSnapshotManifest manifest =
+      new StateSnapshotManifest(epochHeader, 2, HashUtils.random256());
+
+  private final CommittedReader committedReader = mock(CommittedReader.class);
+  private final PeersView peersView = mock(PeersView.class);
+  private final PeerControl peerControl = mock(PeerControl.class);
+  private final RemoteEventDispatcher<SnapshotManifestRequest> manifestRequestDispatcher =
+      rmock(RemoteEventDispatcher.class);
+  private final RemoteEventDispatcher<EpochProofsRequest> epochProofsRequestDispatcher =
+      rmock(RemoteEventDispatcher.class);
+  private final RemoteEventDispatcher<SnapshotChunkRequest> chunkRequestDispatcher =
+      rmock(RemoteEventDispatcher.class);
+  private long now = 1_000_000L;
+
+  private LocalStateSnapshotSync snapshotSync;
+
+  @Before
+  public void setup() {
+    var dbEnv = mock(DatabaseEnvironment.class);
+    var environment = mock(Environment.class);
+    when(dbEnv.getEnvironment()).thenReturn(environment);
+    when(environment.getHome()).thenReturn(folder.getRoot());
+
+    // The local ledger is at the end of epoch 1, so the manifest of epoch 2 is a step ahead
+    var localEpochHeader =
+        LedgerHeader.create(
+            1L, View.of(5L), new AccumulatorState(10L, HashUtils.random256()), 0L, validatorSet);
+    var localEpochProof =
+        new LedgerProof(
+            HashUtils.random256(), localEpochHeader, new TimestampedECDSASignatures());
+    when(committedReader.getLastProof()).thenReturn(Optional.of(localEpochProof));
+    when(peersView.peers())
+        .thenAnswer(
+            invocation ->
+                validatorKeys.stream()
+                    .map(LocalStateSnapshotSyncTest::node)
+                    .map(PeerInfo::fromBftNode));
+
+    snapshotSync =
+        new LocalStateSnapshotSync(
+            new StateSnapshotConfig(false, 1L, 1, true, 1L),
+            dbEnv,
+            serialization,
+            committedReader,
+            peersView,
+            peerControl,
+            hasher,
+            ECPublicKey::verify,
+            () -> now,
+            counters,
+            Set.of(),
+            manifestRequestDispatcher,
+            epochProofsRequestDispatcher,
+            chunkRequestDispatcher);
+  }
+
+  @Test
+  public void manifest_is_downloaded_once_signed_by_more_than_a_third_of_the_validators() {
+    syncCheck();
+    respondWithManifest(0);
+    respondWithEpochProofs(epochProof(3));
+
+    // A single signer holds exactly a quarter of the power
+    assertThat(isStaged()).isFalse();
+
+    respondWithManifest(1);
+    assertThat(isStaged()).isTrue();
+
+    syncCheck();
+    verify(chunkRequestDispatcher)
+        .dispatch(any(BFTNode.class), eq(new SnapshotChunkRequest(20L, 0)));
+    verify(chunkRequestDispatcher)
+        .dispatch(any(BFTNode.class), eq(new SnapshotChunkRequest(20L, 1)));
+  }
+
+  @Test
+  public void epoch_proof_without_a_quorum_is_rejected() {
+    syncCheck();
+    IntStream.range(0, validatorKeys.size()).forEach(this::respondWithManifest);
+    var peer = respondWithEpochProofs(epochProof(2));
+
+    assertThat(isStaged()).isFalse();
+    assertThat(counters.get(CounterType.SYNC_SNAPSHOT_INVALID_RESPONSES_RECEIVED)).isEqualTo(1);
+    verify(peerControl)
+        .banPeer(eq(NodeId.fromPublicKey(peer.getKey())), any(Duration.class), anyString());
+  }
+
+  @Test
+  public void unsolicited_manifest_responses_are_ignored() {
+    respondWithManifest(0);
+    respondWithManifest(1);
+    verify(epochProofsRequestDispatcher, never()).dispatch(any(BFTNode.class), any());
+
+    syncCheck();
+    respondWithManifest(0);
+    respondWithEpochProofs(epochProof(3));
+
+    // Only the response to the outstanding request counts
+    assertThat(isStaged()).isFalse();
+  }
+
+  @Test
+  public void manifest_signatures_expire() {
+    syncCheck();
+    respondWithManifest(0);
+    respondWithManifest(1);
+
+    now += 60_000L;
+    syncCheck();
+    respondWithManifest(2);
+    respondWithEpochProofs(epochProof(3));
+
+    // The earlier two signatures have expired, which leaves a single signer
+    assertThat(isStaged()).isFalse();
+  }
+
+  private void syncCheck() {
+    snapshotSync.syncCheckEventProcessor().process(new SnapshotSyncCheck());
+  }
+
+  private void respondWithManifest(int validator) {
+    var key = validatorKeys.get(validator);
+    var signature = key.sign(hasher.hash(manifest).asBytes());
+    snapshotSync
+        .manifestResponseEventProcessor()
+        .process(node(key), new SnapshotManifestResponse(manifest, signature));
+  }
+
+  /** Responds from the peer the epoch proofs were last requested from. */
+  private BFTNode respondWithEpochProofs(LedgerProof... proofs) {
+    var peer = ArgumentCaptor.forClass(BFTNode.class);
+    verify(epochProofsRequestDispatcher, atLeastOnce())
+        .dispatch(peer.capture(), eq(new EpochProofsRequest(2L)));
+    snapshotSync
+        .epochProofsResponseEventProcessor()
+        .process(peer.getValue(), new EpochProofsResponse(List.of(proofs)));
+    return peer.getValue();
+  }
+
+  /** An epoch proof of the manifest's epoch, signed by the first validators. */
+  private LedgerProof epochProof(int signers) {
+    var opaque = HashUtils.random256();
+    var signatures =
+        validatorKeys.stream()
+            .limit(signers)
+            .collect(
+                Collectors.toMap(
+                    LocalStateSnapshotSyncTest::node,
+                    key -> {
+                      var timestamp = 1L;
+                      var hash = ConsensusHasher.toHash(opaque, epochHeader, timestamp, hasher);
+                      return TimestampedECDSASignature.from(timestamp, key.sign(hash.asBytes()));
+                    }));
+    return new LedgerProof(opaque, epochHeader, new TimestampedECDSASignatures(signatures));
+  }
+
+  private boolean isStaged() {
+    return StagedStateSnapshot.open(folder.getRoot().toPath(), serialization).isPresent();
+  }
+
+  private static BFTNode node(ECKeyPair key) {
+    return BFTNode.create(key.getPublicKey());
+  }
+}
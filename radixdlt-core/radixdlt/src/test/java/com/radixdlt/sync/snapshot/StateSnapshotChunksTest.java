@@ -0,0 +1,167 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.sync.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.hash.HashCode;
+import com.radixdlt.crypto.HashUtils;
+import com.radixdlt.utils.Bytes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class StateSnapshotChunksTest {
+  private final Random random = new Random(1);
+
+  @Test
+  public void entries_round_trip_through_chunks() {
+    var entries = new ArrayList<StateSnapshotChunks.Entry>();
+    for (int i = 0; i < 5000; i++) {
+      entries.add(randomEntry(random.nextInt(5), 1000));
+    }
+    var chunks = new ArrayList<byte[]>();
+    var writer = new StateSnapshotChunks.Writer(chunks::add);
+    entries.forEach(writer::add);
+
+    assertThat(writer.finish()).isEqualTo(chunks.size()).isGreaterThan(1);
+    assertThat(chunks).allMatch(chunk -> chunk.length <= StateSnapshotChunks.MAX_CHUNK_BYTES);
+    var decoded = chunks.stream().flatMap(chunk -> StateSnapshotChunks.decode(chunk).stream());
+    assertThat(decoded.map(this::describe))
+        .containsExactlyElementsOf(entries.stream().map(this::describe).toList());
+  }
+
+  @Test
+  public void writer_without_entries_produces_one_empty_chunk() {
+    var chunks = new ArrayList<byte[]>();
+    var writer = new StateSnapshotChunks.Writer(chunks::add);
+
+    assertThat(writer.finish()).isEqualTo(1);
+    assertThat(StateSnapshotChunks.decode(chunks.get(0))).isEmpty();
+  }
+
+  @Test
+  public void truncated_chunk_is_rejected() {
+    var chunks = new ArrayList<byte[]>();
+    var writer = new StateSnapshotChunks.Writer(chunks::add);
+    writer.add(randomEntry(0, 100));
+    writer.finish();
+    var truncated = Arrays.copyOf(chunks.get(0), chunks.get(0).length - 1);
+
+    assertThatThrownBy(() -> StateSnapshotChunks.decode(truncated))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void proofs_of_every_chunk_verify_against_root() {
+    for (int count = 1; count <= 33; count++) {
+      var hashes = randomHashes(count);
+      var root = StateSnapshotChunks.root(hashes);
+      for (int index = 0; index < count; index++) {
+        var proof = StateSnapshotChunks.proof(hashes, index);
+        assertThat(StateSnapshotChunks.verify(root, count, index, hashes.get(index), proof))
+            .isTrue();
+      }
+    }
+  }
+
+  @Test
+  public void proof_does_not_verify_other_chunk_or_position() {
+    var hashes = randomHashes(10);
+    var root = StateSnapshotChunks.root(hashes);
+    var proof = StateSnapshotChunks.proof(hashes, 3);
+
+    assertThat(StateSnapshotChunks.verify(root, 10, 3, HashUtils.random256(), proof)).isFalse();
+    assertThat(StateSnapshotChunks.verify(root, 10, 2, hashes.get(3), proof)).isFalse();
+    assertThat(StateSnapshotChunks.verify(root, 11, 3, hashes.get(3), proof)).isFalse();
+    assertThat(StateSnapshotChunks.verify(root, 10, 10, hashes.get(3), proof)).isFalse();
+    assertThat(StateSnapshotChunks.verify(root, 10, 3, hashes.get(3), proof.subList(0, 2)))
+        .isFalse();
+  }
+
+  private StateSnapshotChunks.Entry randomEntry(int database, int maxValueBytes) {
+    var key = new byte[1 + random.nextInt(64)];
+    var value = new byte[random.nextInt(maxValueBytes)];
+    random.nextBytes(key);
+    random.nextBytes(value);
+    return new StateSnapshotChunks.Entry(database, key, value);
+  }
+
+  private String describe(StateSnapshotChunks.Entry entry) {
+    return entry.database()
+        + ":"
+        + Bytes.toHexString(entry.key())
+        + ":"
+        + Bytes.toHexString(entry.value());
+  }
+
+  private static List<HashCode> randomHashes(int count) {
+    return IntStream.range(0, count).mapToObj(i -> HashUtils.random256()).toList();
+  }
+}
@@ -0,0 +1,293 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+package com.radixdlt.sync.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.radixdlt.DefaultSerialization;
+import com.radixdlt.atom.SubstateId;
+import com.radixdlt.atom.SubstateTypeId;
+import com.radixdlt.atom.Txn;
+import com.radixdlt.constraintmachine.REProcessedTxn;
+import com.radixdlt.counters.SystemCounters;
+import com.radixdlt.counters.SystemCounters.CounterType;
+import com.radixdlt.counters.SystemCountersImpl;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.crypto.HashUtils;
+import com.radixdlt.crypto.Hasher;
+import com.radixdlt.engine.RadixEngineException;
+import com.radixdlt.hotstuff.LedgerHeader;
+import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.hotstuff.Sha256Hasher;
+import com.radixdlt.hotstuff.TimestampedECDSASignatures;
+import com.radixdlt.hotstuff.bft.BFTNode;
+import com.radixdlt.hotstuff.bft.BFTValidator;
+import com.radixdlt.hotstuff.bft.BFTValidatorSet;
+import com.radixdlt.hotstuff.bft.View;
+import com.radixdlt.identifiers.AID;
+import com.radixdlt.ledger.AccumulatorState;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.statecomputer.LedgerAndBFTProof;
+import com.radixdlt.store.DatabaseEnvironment;
+import com.radixdlt.store.StoreConfig;
+import com.radixdlt.store.berkeley.BerkeleyLedgerEntryStore;
+import com.radixdlt.sync.SyncTarget;
+import com.radixdlt.utils.UInt256;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StateSnapshotStoreTest {
+  private static final long SNAPSHOT_WAIT_MS = 30_000L;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Serialization serialization = DefaultSerialization.getInstance();
+  private final Hasher hasher = Sha256Hasher.withDefaultSerialization();
+  private final ECKeyPair nodeKey = ECKeyPair.generateNew();
+  private final SystemCounters counters = new SystemCountersImpl(0L);
+  private final StateSnapshotConfig config = new StateSnapshotConfig(true, 2L, 2, false, 10L);
+  private final BFTValidatorSet validatorSet =
+      BFTValidatorSet.from(Stream.of(BFTValidator.from(BFTNode.random(), UInt256.ONE)));
+
+  private DatabaseEnvironment dbEnv;
+  private BerkeleyLedgerEntryStore ledgerEntryStore;
+
+  @Before
+  public void setup() {
+    dbEnv =
+        new DatabaseEnvironment(
+            folder.getRoot().getAbsolutePath(), (long) (Runtime.getRuntime().maxMemory() * 0.125));
+    ledgerEntryStore = newLedgerEntryStore();
+  }
+
+  @After
+  public void teardown() {
+    ledgerEntryStore.close();
+    dbEnv.stop();
+  }
+
+  @Test
+  public void snapshot_of_the_ledger_state_is_taken_when_an_epoch_proof_is_committed()
+      throws Exception {
+    var substateId = SubstateId.ofSubstate(AID.from(HashUtils.random256().asBytes()), 0);
+    var substate = new byte[] {SubstateTypeId.VIRTUAL_PARENT.id(), 0};
+    // Seed the ledger state with a substate through a state snapshot
+    ledgerEntryStore.close();
+    stageStateSnapshot(
+        LedgerHeader.create(
+            1L, View.of(10L), new AccumulatorState(10L, HashUtils.random256()), 0L, validatorSet),
+        new StateSnapshotChunks.Entry(0, substateId.asBytes(), substate));
+    ledgerEntryStore = newLedgerEntryStore();
+    var snapshotStore = newSnapshotStore();
+
+    // Only snapshots of every other epoch are taken
+    commit(2L, 11L, false);
+    commit(2L, 12L, true);
+    var proof = commit(3L, 13L, true);
+
+    var snapshot = awaitSnapshot(snapshotStore, 13L);
+    var manifest = snapshot.manifest();
+    assertThat(manifest.getEpochHeader()).isEqualTo(proof.getRaw());
+    assertThat(manifest.getNextEpoch()).isEqualTo(4L);
+    assertThat(snapshotStore.get(12L)).isEmpty();
+    assertThat(nodeKey.getPublicKey().verify(hasher.hash(manifest), snapshot.signature()))
+        .isTrue();
+
+    var chunks =
+        IntStream.range(0, manifest.getChunkCount())
+            .mapToObj(i -> snapshotStore.readChunk(snapshot, i).orElseThrow())
+            .toList();
+    var chunkHashes = chunks.stream().map(StateSnapshotChunks::hash).toList();
+    assertThat(chunkHashes).isEqualTo(snapshot.chunkHashes());
+    assertThat(StateSnapshotChunks.root(chunkHashes)).isEqualTo(manifest.getChunksRoot());
+    assertThat(chunks.stream().flatMap(chunk -> StateSnapshotChunks.decode(chunk).stream()))
+        .anyMatch(
+            e ->
+                e.database() == 0
+                    && Arrays.equals(e.key(), substateId.asBytes())
+                    && Arrays.equals(e.value(), substate));
+    assertThat(counters.get(CounterType.SYNC_SNAPSHOTS_SKIPPED)).isZero();
+  }
+
+  @Test
+  public void snapshots_are_served_again_after_a_restart() throws Exception {
+    var snapshotStore = newSnapshotStore();
+    commit(1L, 1L, true);
+    var snapshot = awaitSnapshot(snapshotStore, 1L);
+
+    var restarted = newSnapshotStore();
+
+    var reloaded = restarted.get(1L).orElseThrow();
+    assertThat(reloaded.manifest()).isEqualTo(snapshot.manifest());
+    assertThat(reloaded.chunkHashes()).isEqualTo(snapshot.chunkHashes());
+    assertThat(restarted.latest().orElseThrow().manifest()).isEqualTo(snapshot.manifest());
+  }
+
+  @Test
+  public void only_the_most_recent_snapshots_are_retained() throws Exception {
+    var snapshotStore = newSnapshotStore();
+    // Epochs 1, 3 and 5 end at state versions 1, 2 and 3
+    for (long stateVersion = 1L; stateVersion <= 3L; stateVersion++) {
+      commit(2 * stateVersion - 1, stateVersion, true);
+      awaitSnapshot(snapshotStore, stateVersion);
+    }
+
+    // The oldest snapshot is pruned right after the latest one is added
+    await(() -> snapshotStore.get(1L).isEmpty());
+    assertThat(snapshotStore.get(2L)).isPresent();
+    assertThat(snapshotStore.get(3L)).isPresent();
+  }
+
+  private BerkeleyLedgerEntryStore newLedgerEntryStore() {
+    return new BerkeleyLedgerEntryStore(
+        serialization,
+        dbEnv,
+        new StoreConfig(1000),
+        counters,
+        new SyncTarget(),
+        Set.of(),
+        () -> {
+          throw new IllegalStateException("No additional stores are indexed asynchronously");
+        });
+  }
+
+  private StateSnapshotStore newSnapshotStore() {
+    return new StateSnapshotStore(
+        dbEnv, ledgerEntryStore, serialization, hasher, nodeKey::sign, config, counters);
+  }
+
+  private StateSnapshotStore.ServedSnapshot awaitSnapshot(
+      StateSnapshotStore snapshotStore, long stateVersion) throws InterruptedException {
+    await(() -> snapshotStore.get(stateVersion).isPresent());
+    return snapshotStore.get(stateVersion).orElseThrow();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    var deadline = System.currentTimeMillis() + SNAPSHOT_WAIT_MS;
+    while (!condition.getAsBoolean()) {
+      assertThat(System.currentTimeMillis()).isLessThan(deadline);
+      Thread.sleep(10L);
+    }
+  }
+
+  private LedgerProof commit(long epoch, long stateVersion, boolean endOfEpoch)
+      throws RadixEngineException {
+    var txn = mock(Txn.class);
+    when(txn.getId()).thenReturn(AID.from(HashUtils.random256().asBytes()));
+    when(txn.getPayload()).thenReturn(HashUtils.random256().asBytes());
+    var processedTxn = mock(REProcessedTxn.class);
+    when(processedTxn.getTxn()).thenReturn(txn);
+    when(processedTxn.getGroupedStateUpdates()).thenReturn(List.of());
+
+    var accumulatorState = new AccumulatorState(stateVersion, HashUtils.random256());
+    var header =
+        LedgerHeader.create(
+            epoch, View.of(stateVersion), accumulatorState, 0L, endOfEpoch ? validatorSet : null);
+    var proof =
+        new LedgerProof(HashUtils.random256(), header, new TimestampedECDSASignatures(Map.of()));
+    ledgerEntryStore.transaction(
+        tx -> {
+          tx.storeTxn(processedTxn);
+          tx.storeMetadata(LedgerAndBFTProof.create(proof));
+          return null;
+        });
+    return proof;
+  }
+
+  private void stageStateSnapshot(LedgerHeader epochHeader, StateSnapshotChunks.Entry entry) {
+    var chunks = new ArrayList<byte[]>();
+    var writer = new StateSnapshotChunks.Writer(chunks::add);
+    writer.add(entry);
+    var chunkCount = writer.finish();
+    var manifest =
+        new StateSnapshotManifest(
+            epochHeader,
+            chunkCount,
+            StateSnapshotChunks.root(chunks.stream().map(StateSnapshotChunks::hash).toList()));
+    var epochProof =
+        new LedgerProof(
+            HashUtils.random256(), epochHeader, new TimestampedECDSASignatures(Map.of()));
+
+    var staged =
+        StagedStateSnapshot.create(
+            folder.getRoot().toPath(), serialization, manifest, epochProof);
+    for (int i = 0; i < chunkCount; i++) {
+      staged.writeChunk(i, chunks.get(i));
+    }
+    staged.markComplete();
+  }
+}
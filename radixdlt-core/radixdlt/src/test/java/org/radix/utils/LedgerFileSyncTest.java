@@ -0,0 +1,246 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package org.radix.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.radixdlt.DefaultSerialization;
+import com.radixdlt.atom.Txn;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.crypto.ECPublicKey;
+import com.radixdlt.crypto.HashUtils;
+import com.radixdlt.crypto.Hasher;
+import com.radixdlt.hotstuff.ConsensusHasher;
+import com.radixdlt.hotstuff.LedgerHeader;
+import com.radixdlt.hotstuff.LedgerProof;
+import com.radixdlt.hotstuff.Sha256Hasher;
+import com.radixdlt.hotstuff.TimestampedECDSASignature;
+import com.radixdlt.hotstuff.TimestampedECDSASignatures;
+import com.radixdlt.hotstuff.bft.BFTNode;
+import com.radixdlt.hotstuff.bft.BFTValidator;
+import com.radixdlt.hotstuff.bft.BFTValidatorSet;
+import com.radixdlt.hotstuff.bft.View;
+import com.radixdlt.ledger.AccumulatorState;
+import com.radixdlt.ledger.DtoLedgerProof;
+import com.radixdlt.ledger.SimpleLedgerAccumulatorAndVerifier;
+import com.radixdlt.ledger.VerifiedTxnsAndProof;
+import com.radixdlt.serialization.Serialization;
+import com.radixdlt.sync.CommittedReader;
+import com.radixdlt.utils.UInt256;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LedgerFileSyncTest {
+  // Sizes of the file format, see LedgerFileSync
+  private static final int HEADER_SIZE = 8;
+  private static final int INDEX_ENTRY_SIZE = 24;
+  private static final int TRAILER_SIZE = 16;
+  private static final int NUM_CHUNKS = 3;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Serialization serialization = DefaultSerialization.getInstance();
+  private final Hasher hasher = Sha256Hasher.withDefaultSerialization();
+  private final SimpleLedgerAccumulatorAndVerifier accumulator =
+      new SimpleLedgerAccumulatorAndVerifier(hasher);
+  private final ECKeyPair validatorKey = ECKeyPair.generateNew();
+  private final List<VerifiedTxnsAndProof> chunks = new ArrayList<>();
+  private LedgerProof genesisProof;
+  private String fileName;
+
+  @Before
+  public void setup() throws IOException {
+    var validator = BFTValidator.from(BFTNode.create(validatorKey.getPublicKey()), UInt256.ONE);
+    var accumulatorState = new AccumulatorState(0, HashUtils.zero256());
+    this.genesisProof =
+        LedgerProof.genesis(accumulatorState, BFTValidatorSet.from(List.of(validator)), 1L);
+    for (int i = 1; i <= NUM_CHUNKS; i++) {
+      var txns =
+          List.of(Txn.create(new byte[] {(byte) i, 0}), Txn.create(new byte[] {(byte) i, 1}));
+      for (var txn : txns) {
+        accumulatorState = accumulator.accumulate(accumulatorState, txn.getId().asHashCode());
+      }
+      chunks.add(VerifiedTxnsAndProof.create(txns, signedProof(i, accumulatorState)));
+    }
+
+    this.fileName = folder.newFile().getPath();
+    LedgerFileSync.writeToFile(
+        fileName, serialization, reader(chunks.get(NUM_CHUNKS - 1).getProof()));
+  }
+
+  @Test
+  public void restoring_a_written_file_replays_all_chunks_in_order() throws IOException {
+    assertThat(restore(genesisProof)).containsExactlyElementsOf(chunks);
+  }
+
+  @Test
+  public void restoring_skips_chunks_which_are_already_committed() throws IOException {
+    assertThat(restore(chunks.get(0).getProof()))
+        .containsExactlyElementsOf(chunks.subList(1, NUM_CHUNKS));
+  }
+
+  @Test
+  public void restoring_fails_on_a_corrupt_index_entry() throws IOException {
+    try (var file = new RandomAccessFile(fileName, "rw")) {
+      var indexOffset = file.length() - TRAILER_SIZE - (long) NUM_CHUNKS * INDEX_ENTRY_SIZE;
+      // Offset of the second chunk
+      file.seek(indexOffset + INDEX_ENTRY_SIZE + Long.BYTES);
+      file.writeLong(HEADER_SIZE + 1);
+    }
+
+    assertThatThrownBy(() -> restore(genesisProof))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("index entry 1");
+  }
+
+  @Test
+  public void restoring_fails_on_a_truncated_trailer() throws IOException {
+    try (var file = new RandomAccessFile(fileName, "rw")) {
+      file.setLength(file.length() - 1);
+    }
+
+    assertThatThrownBy(() -> restore(genesisProof))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("index is corrupt or missing");
+  }
+
+  @Test
+  public void restoring_fails_on_a_chunk_checksum_mismatch() throws IOException {
+    try (var file = new RandomAccessFile(fileName, "rw")) {
+      // Second byte of the first chunk's data
+      var position = HEADER_SIZE + Integer.BYTES + 1;
+      file.seek(position);
+      var value = file.readByte();
+      file.seek(position);
+      file.writeByte(value ^ 0xff);
+    }
+
+    var restored = new ArrayList<VerifiedTxnsAndProof>();
+    assertThatThrownBy(() -> restore(genesisProof, restored))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("Checksum mismatch");
+    assertThat(restored).isEmpty();
+  }
+
+  private List<VerifiedTxnsAndProof> restore(LedgerProof lastProof) throws IOException {
+    var restored = new ArrayList<VerifiedTxnsAndProof>();
+    restore(lastProof, restored);
+    return restored;
+  }
+
+  private void restore(LedgerProof lastProof, List<VerifiedTxnsAndProof> restored)
+      throws IOException {
+    LedgerFileSync.restoreFromFile(
+        fileName,
+        serialization,
+        hasher,
+        ECPublicKey::verify,
+        accumulator,
+        reader(lastProof),
+        restored::add);
+  }
+
+  private CommittedReader reader(LedgerProof lastProof) {
+    var reader = mock(CommittedReader.class);
+    when(reader.getEpochProof(1L)).thenReturn(Optional.of(genesisProof));
+    when(reader.getLastProof()).thenReturn(Optional.of(lastProof));
+    when(reader.getNextCommittedTxns(any()))
+        .thenAnswer(
+            invocation -> {
+              DtoLedgerProof start = invocation.getArgument(0);
+              var version = start.getLedgerHeader().getAccumulatorState().getStateVersion();
+              return chunks.stream()
+                  .filter(c -> c.getProof().getStateVersion() > version)
+                  .findFirst()
+                  .orElse(null);
+            });
+    return reader;
+  }
+
+  private LedgerProof signedProof(long view, AccumulatorState accumulatorState) {
+    var header = LedgerHeader.create(1, View.of(view), accumulatorState, view);
+    var opaque = HashUtils.random256();
+    var timestamp = view;
+    var signature = validatorKey.sign(ConsensusHasher.toHash(opaque, header, timestamp, hasher));
+    var signatures =
+        new TimestampedECDSASignatures(
+            Map.of(
+                BFTNode.create(validatorKey.getPublicKey()),
+                TimestampedECDSASignature.from(timestamp, signature)));
+    return new LedgerProof(opaque, header, signatures);
+  }
+}
@@ -88,6 +88,8 @@ import com.radixdlt.constraintmachine.SubstateIndex;
 import com.radixdlt.crypto.ECPublicKey;
 import com.radixdlt.identifiers.REAddr;
 import com.radixdlt.utils.KeyComparator;
+import com.radixdlt.utils.MutableUInt256;
+import com.radixdlt.utils.Pair;
 import com.radixdlt.utils.UInt256;
 import java.nio.ByteBuffer;
 import java.util.*;
@@ -97,7 +99,7 @@ public record EpochConstructionState(
     TreeMap<ECPublicKey, ValidatorScratchPad> validatorsToUpdate,
     RoundData closedRound,
     EpochData closingEpoch,
-    TreeMap<ECPublicKey, TreeMap<REAddr, UInt256>> preparingStake,
+    TreeMap<ECPublicKey, TreeMap<REAddr, MutableUInt256>> preparingStake,
     NextEpochConstructorV3 constructor) {
   public static EpochConstructionState createState(
       NextEpochConstructorV3 constructor, TxBuilder txBuilder) {
@@ -144,21 +146,50 @@ public record EpochConstructionState(
     return SubstateIndex.create(unlockedStateIndex, ExitingStake.class);
   }
 
-  private static TreeSet<ExitingStake> collectExittingStake(Iterator<ExitingStake> iterator) {
-    var exit =
-        new TreeSet<>(
-            Comparator.comparing(ExitingStake::dataKey, UnsignedBytes.lexicographicalComparator()));
-    iterator.forEachRemaining(exit::add);
+  /**
+   * Exitting stake is read from the index in data key order already, so the sort is only a
+   * fallback for stores which return it in a different order. Data keys are computed once per
+   * substate rather than on every comparison.
+   */
+  static List<ExitingStake> collectExittingStake(Iterator<ExitingStake> iterator) {
+    var comparator = UnsignedBytes.lexicographicalComparator();
+    var keyed = new ArrayList<Pair<byte[], ExitingStake>>();
+    var sorted = true;
+    while (iterator.hasNext()) {
+      var stake = iterator.next();
+      var key = stake.dataKey();
+      if (sorted
+          && !keyed.isEmpty()
+          && comparator.compare(keyed.get(keyed.size() - 1).getFirst(), key) > 0) {
+        sorted = false;
+      }
+      keyed.add(Pair.of(key, stake));
+    }
+
+    if (!sorted) {
+      // Stable, so the first of any duplicate keys is kept as before
+      keyed.sort(Comparator.comparing(Pair::getFirst, comparator));
+    }
+
+    var exit = new ArrayList<ExitingStake>(keyed.size());
+    byte[] lastKey = null;
+    for (var entry : keyed) {
+      if (lastKey == null || comparator.compare(lastKey, entry.getFirst()) != 0) {
+        exit.add(entry.getSecond());
+        lastKey = entry.getFirst();
+      }
+    }
     return exit;
   }
 
   public void processEmission() {
     txBuilder
-        .shutdownAll(ValidatorBFTData.class, EpochConstructionState::collectToMap)
+        .shutdownAll(ValidatorBFTData.class, EpochConstructionState::collectByValidator)
         .forEach(this::calculateEmission);
   }
 
-  private void calculateEmission(ECPublicKey publicKey, ValidatorBFTData bftData) {
+  private void calculateEmission(ValidatorBFTData bftData) {
+    var publicKey = bftData.validatorKey();
     if (bftData.completedProposals() + bftData.missedProposals() == 0) {
       return;
     }
@@ -188,7 +219,7 @@ public record EpochConstructionState(
       var validatorOwner = validatorStakeData.getOwnerAddr();
 
       var initStake = createStakeMap();
-      initStake.put(validatorOwner, rake);
+      initStake.put(validatorOwner, MutableUInt256.from(rake));
 
       preparingStake.put(publicKey, initStake);
       rakedEmissions = nodeRewards.subtract(rake);
@@ -209,14 +240,15 @@ public record EpochConstructionState(
                   (owner, amount) -> {
                     var epochUnlocked =
                         closingEpoch().epoch() + 1 + constructor.unstakingEpochDelay();
-                    txBuilder().up(curValidator.unstakeOwnership(owner, amount, epochUnlocked));
+                    var ownership = amount.toUInt256();
+                    txBuilder().up(curValidator.unstakeOwnership(owner, ownership, epochUnlocked));
                   });
 
               validatorsToUpdate().put(publicKey, curValidator);
             });
   }
 
-  private static TreeMap<ECPublicKey, TreeMap<REAddr, UInt256>> collectUnstake(
+  private static TreeMap<ECPublicKey, TreeMap<REAddr, MutableUInt256>> collectUnstake(
       Iterator<PreparedUnstakeOwnership> iterator) {
     return collectStake(iterator, new TreeMap<>(KeyComparator.instance()));
   }
@@ -228,23 +260,39 @@ public record EpochConstructionState(
             (key, stakes) -> {
               var curValidator = stakeData(key);
 
-              stakes.forEach((owner, amount) -> txBuilder.up(curValidator.stake(owner, amount)));
+              stakes.forEach(
+                  (owner, amount) -> txBuilder.up(curValidator.stake(owner, amount.toUInt256())));
               validatorsToUpdate().put(key, curValidator);
             });
   }
 
-  private static TreeMap<ECPublicKey, TreeMap<REAddr, UInt256>> collectStake(
+  /**
+   * Unlike the validator indexes this is still collected into maps. Amounts of the same delegate
+   * and owner are summed, prepared stake is merged into the rake already staked from emissions,
+   * and substates up'd earlier in the txn are read first, out of order.
+   */
+  private static TreeMap<ECPublicKey, TreeMap<REAddr, MutableUInt256>> collectStake(
       Iterator<? extends DelegatedResourceInBucket> iterator,
-      TreeMap<ECPublicKey, TreeMap<REAddr, UInt256>> map) {
-    iterator.forEachRemaining(
-        preparedStake ->
-            map.computeIfAbsent(preparedStake.delegateKey(), __ -> createStakeMap())
-                .merge(preparedStake.owner(), preparedStake.amount(), UInt256::add));
+      TreeMap<ECPublicKey, TreeMap<REAddr, MutableUInt256>> map) {
+    // Substates are grouped by delegate in index order, so the delegate's map only needs to be
+    // looked up when the delegate changes. Amounts of an owner are summed in place.
+    ECPublicKey currentDelegate = null;
+    TreeMap<REAddr, MutableUInt256> currentStakes = null;
+    while (iterator.hasNext()) {
+      var preparedStake = iterator.next();
+      if (!preparedStake.delegateKey().equals(currentDelegate)) {
+        currentDelegate = preparedStake.delegateKey();
+        currentStakes = map.computeIfAbsent(currentDelegate, __ -> createStakeMap());
+      }
+      currentStakes
+          .computeIfAbsent(preparedStake.owner(), __ -> MutableUInt256.zero())
+          .add(preparedStake.amount());
+    }
 
     return map;
   }
 
-  private static TreeMap<REAddr, UInt256> createStakeMap() {
+  private static TreeMap<REAddr, MutableUInt256> createStakeMap() {
     return new TreeMap<>(
         Comparator.comparing(REAddr::getBytes, UnsignedBytes.lexicographicalComparator()));
   }
@@ -262,21 +310,55 @@ public record EpochConstructionState(
     return SubstateIndex.create(prefix, preparedClass);
   }
 
-  private static <T extends ValidatorData> TreeMap<ECPublicKey, T> collectToMap(
-      Iterator<T> iterator) {
-    var map = new TreeMap<ECPublicKey, T>(KeyComparator.instance());
-    iterator.forEachRemaining(update -> map.put(update.validatorKey(), update));
-    return map;
+  /**
+   * Collects substates in validator key order, keeping the last of any with the same key. Remote
+   * substates are read in key order already, so the sort is only a fallback for when substates up'd
+   * earlier in the txn, which are read first, are out of order.
+   */
+  static <T extends ValidatorData> List<T> collectByValidator(Iterator<T> iterator) {
+    var comparator = KeyComparator.instance();
+    var collected = new ArrayList<T>();
+    var sorted = true;
+    while (iterator.hasNext()) {
+      var next = iterator.next();
+      if (sorted
+          && !collected.isEmpty()
+          && comparator.compare(lastOf(collected).validatorKey(), next.validatorKey()) >= 0) {
+        sorted = false;
+      }
+      collected.add(next);
+    }
+
+    if (sorted) {
+      return collected;
+    }
+
+    // Stable, so the last of any duplicate keys is kept as it would have been by a map
+    collected.sort(Comparator.comparing(ValidatorData::validatorKey, comparator));
+    var result = new ArrayList<T>(collected.size());
+    for (var substate : collected) {
+      if (!result.isEmpty()
+          && comparator.compare(lastOf(result).validatorKey(), substate.validatorKey()) == 0) {
+        result.set(result.size() - 1, substate);
+      } else {
+        result.add(substate);
+      }
+    }
+    return result;
+  }
+
+  private static <T> T lastOf(List<T> list) {
+    return list.get(list.size() - 1);
   }
 
   public void processUpdateRake() {
     var index = prepareIndex(ValidatorFeeCopy.class, VALIDATOR_RAKE_COPY);
 
     txBuilder
-        .shutdownAll(index, EpochConstructionState::collectToMap)
+        .shutdownAll(index, EpochConstructionState::collectByValidator)
         .forEach(
-            (key, update) -> {
-              var curValidator = stakeData(key);
+            update -> {
+              var curValidator = stakeData(update.validatorKey());
               curValidator.setRakePercentage(update.curRakePercentage());
               this.txBuilder()
                   .up(
@@ -289,10 +371,10 @@ public record EpochConstructionState(
     var index = prepareIndex(ValidatorOwnerCopy.class, VALIDATOR_OWNER_COPY);
 
     txBuilder
-        .shutdownAll(index, EpochConstructionState::collectToMap)
+        .shutdownAll(index, EpochConstructionState::collectByValidator)
         .forEach(
-            (key, update) -> {
-              var curValidator = stakeData(key);
+            update -> {
+              var curValidator = stakeData(update.validatorKey());
               curValidator.setOwnerAddr(update.owner());
               this.txBuilder()
                   .up(
@@ -305,10 +387,10 @@ public record EpochConstructionState(
     var index = prepareIndex(ValidatorRegisteredCopy.class, VALIDATOR_REGISTERED_FLAG_COPY);
 
     txBuilder
-        .shutdownAll(index, EpochConstructionState::collectToMap)
+        .shutdownAll(index, EpochConstructionState::collectByValidator)
         .forEach(
-            (key, update) -> {
-              var curValidator = stakeData(key);
+            update -> {
+              var curValidator = stakeData(update.validatorKey());
               curValidator.setRegistered(update.isRegistered());
               this.txBuilder()
                   .up(
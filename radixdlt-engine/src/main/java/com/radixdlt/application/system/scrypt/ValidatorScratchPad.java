@@ -69,20 +69,23 @@ import com.radixdlt.application.system.state.ValidatorStakeData;
 import com.radixdlt.application.tokens.state.ExitingStake;
 import com.radixdlt.crypto.ECPublicKey;
 import com.radixdlt.identifiers.REAddr;
+import com.radixdlt.utils.MutableUInt384;
 import com.radixdlt.utils.UInt256;
 import com.radixdlt.utils.UInt384;
 
 public final class ValidatorScratchPad {
   private final ECPublicKey validatorKey;
-  private UInt384 totalStake;
-  private UInt384 totalOwnership;
+  // Updated in place as emissions, stakes and unstakes are applied over an epoch change
+  private final MutableUInt384 totalStake;
+  private final MutableUInt384 totalOwnership;
+  private final MutableUInt384 scratch = MutableUInt384.zero();
   private int rakePercentage;
   private REAddr ownerAddr;
   private boolean isRegistered;
 
   public ValidatorScratchPad(ValidatorStakeData validatorStakeData) {
-    this.totalStake = UInt384.from(validatorStakeData.totalStake());
-    this.totalOwnership = UInt384.from(validatorStakeData.totalOwnership());
+    this.totalStake = MutableUInt384.from(validatorStakeData.totalStake());
+    this.totalOwnership = MutableUInt384.from(validatorStakeData.totalOwnership());
     this.rakePercentage = validatorStakeData.rakePercentage();
     this.ownerAddr = validatorStakeData.ownerAddr();
     this.isRegistered = validatorStakeData.isRegistered();
@@ -114,44 +117,52 @@ public final class ValidatorScratchPad {
   }
 
   public void addEmission(UInt256 amount) {
-    this.totalStake = verifyNoOverflow(this.totalStake.add(amount));
+    verifyNoOverflow(this.totalStake.add(amount));
   }
 
-  private static UInt384 verifyNoOverflow(UInt384 i) {
-    if (!i.getHigh().isZero()) {
+  private static MutableUInt384 verifyNoOverflow(MutableUInt384 i) {
+    if (!i.fitsInUInt256()) {
       throw new IllegalStateException("Unexpected overflow occurred " + i);
     }
     return i;
   }
 
   private static UInt256 toSafeLow(UInt384 i) {
-    return verifyNoOverflow(i).getLow();
+    if (!i.getHigh().isZero()) {
+      throw new IllegalStateException("Unexpected overflow occurred " + i);
+    }
+    return i.getLow();
+  }
+
+  private UInt384 multiplyDivide(
+      MutableUInt384 value, UInt256 multiplicand, MutableUInt384 divisor) {
+    return scratch.set(value).multiply(multiplicand).toUInt384().divide(divisor.toUInt384());
   }
 
   public StakeOwnership stake(REAddr owner, UInt256 stake) {
     if (totalStake.isZero()) {
-      this.totalStake = UInt384.from(stake);
-      this.totalOwnership = this.totalStake;
-      return new StakeOwnership(validatorKey, owner, this.totalOwnership.getLow());
+      this.totalStake.set(stake);
+      this.totalOwnership.set(stake);
+      return new StakeOwnership(validatorKey, owner, stake);
     }
 
-    var ownership384 = totalOwnership.multiply(stake).divide(totalStake);
+    var ownership384 = multiplyDivide(totalOwnership, stake, totalStake);
     var ownershipAmt = toSafeLow(ownership384);
-    this.totalStake = verifyNoOverflow(this.totalStake.add(stake));
-    this.totalOwnership = verifyNoOverflow(this.totalOwnership.add(ownershipAmt));
+    verifyNoOverflow(this.totalStake.add(stake));
+    verifyNoOverflow(this.totalOwnership.add(ownershipAmt));
 
     return new StakeOwnership(validatorKey, owner, ownershipAmt);
   }
 
   public ExitingStake unstakeOwnership(REAddr owner, UInt256 unstakeOwnership, long epochUnlocked) {
-    if (totalOwnership.getLow().compareTo(unstakeOwnership) < 0) {
+    if (totalOwnership.compareTo(unstakeOwnership) < 0) {
       throw new IllegalStateException("Not enough ownership");
     }
 
-    var unstaked384 = totalStake.multiply(unstakeOwnership).divide(totalOwnership);
+    var unstaked384 = multiplyDivide(totalStake, unstakeOwnership, totalOwnership);
     var unstaked = toSafeLow(unstaked384);
-    this.totalStake = this.totalStake.subtract(unstaked);
-    this.totalOwnership = this.totalOwnership.subtract(unstakeOwnership);
+    this.totalStake.subtract(unstaked);
+    this.totalOwnership.subtract(unstakeOwnership);
     return new ExitingStake(epochUnlocked, validatorKey, owner, unstaked);
   }
 
@@ -72,13 +72,14 @@ import com.radixdlt.constraintmachine.exceptions.NotEnoughResourcesException;
 import com.radixdlt.constraintmachine.exceptions.ProcedureException;
 import com.radixdlt.crypto.ECPublicKey;
 import com.radixdlt.identifiers.REAddr;
+import com.radixdlt.utils.MutableUInt384;
 import com.radixdlt.utils.UInt256;
 import com.radixdlt.utils.UInt384;
 
 public final class StakeOwnershipHoldingBucket implements ReducerState {
   private final ECPublicKey delegate;
   private final REAddr accountAddr;
-  private UInt384 ownershipAmount;
+  private final MutableUInt384 ownershipAmount;
 
   public StakeOwnershipHoldingBucket(StakeOwnership stakeOwnership) {
     this(
@@ -90,15 +91,14 @@ public final class StakeOwnershipHoldingBucket implements ReducerState {
   public StakeOwnershipHoldingBucket(ECPublicKey delegate, REAddr accountAddr, UInt384 amount) {
     this.delegate = delegate;
     this.accountAddr = accountAddr;
-    this.ownershipAmount = amount;
+    this.ownershipAmount = MutableUInt384.from(amount);
   }
 
   public StakeOwnership withdrawOwnership(UInt256 amount) throws NotEnoughResourcesException {
-    var withdraw384 = UInt384.from(amount);
-    if (ownershipAmount.compareTo(withdraw384) < 0) {
+    if (ownershipAmount.compareTo(amount) < 0) {
       throw new NotEnoughResourcesException(amount, ownershipAmount.getLow());
     }
-    ownershipAmount = ownershipAmount.subtract(withdraw384);
+    ownershipAmount.subtract(amount);
     return new StakeOwnership(delegate, accountAddr, amount);
   }
 
@@ -109,16 +109,15 @@ public final class StakeOwnershipHoldingBucket implements ReducerState {
     if (!stakeOwnership.owner().equals(accountAddr)) {
       throw new MismatchException("Shares must be for same account");
     }
-    ownershipAmount = UInt384.from(stakeOwnership.amount()).add(ownershipAmount);
+    ownershipAmount.add(stakeOwnership.amount());
   }
 
   public PreparedUnstakeOwnership unstake(UInt256 amount)
       throws NotEnoughResourcesException, MismatchException {
-    var unstakeAmount = UInt384.from(amount);
-    if (ownershipAmount.compareTo(unstakeAmount) < 0) {
+    if (ownershipAmount.compareTo(amount) < 0) {
       throw new NotEnoughResourcesException(amount, ownershipAmount.getLow());
     }
-    ownershipAmount = ownershipAmount.subtract(unstakeAmount);
+    ownershipAmount.subtract(amount);
     return new PreparedUnstakeOwnership(delegate, accountAddr, amount);
   }
 
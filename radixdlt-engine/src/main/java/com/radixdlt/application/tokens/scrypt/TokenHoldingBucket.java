@@ -73,48 +73,57 @@ import com.radixdlt.constraintmachine.exceptions.NotEnoughResourcesException;
 import com.radixdlt.constraintmachine.exceptions.ProcedureException;
 import com.radixdlt.constraintmachine.exceptions.ResourceAllocationAndDestructionException;
 import com.radixdlt.identifiers.REAddr;
+import com.radixdlt.utils.MutableUInt384;
 import com.radixdlt.utils.UInt256;
 
 public final class TokenHoldingBucket implements ReducerState {
-  private Tokens tokens;
+  private final REAddr resourceAddr;
+  // Balance is updated in place on every deposit and withdrawal
+  private final MutableUInt384 amount;
 
   public TokenHoldingBucket(Tokens tokens) {
-    this.tokens = tokens;
+    this.resourceAddr = tokens.getResourceAddr();
+    this.amount = MutableUInt384.from(tokens.getAmount());
   }
 
   public boolean isEmpty() {
-    return tokens.isZero();
+    return amount.isZero();
   }
 
   public REAddr getResourceAddr() {
-    return tokens.getResourceAddr();
+    return resourceAddr;
   }
 
   public void deposit(Tokens tokens) throws InvalidResourceException {
-    this.tokens = this.tokens.merge(tokens);
+    if (!this.resourceAddr.equals(tokens.getResourceAddr())) {
+      throw new InvalidResourceException(this.resourceAddr, tokens.getResourceAddr());
+    }
+    this.amount.add(tokens.getAmount());
   }
 
   public Tokens withdraw(REAddr resourceAddr, UInt256 amountToWithdraw)
       throws InvalidResourceException, NotEnoughResourcesException {
-    if (!this.tokens.getResourceAddr().equals(resourceAddr)) {
-      throw new InvalidResourceException(resourceAddr, this.tokens.getResourceAddr());
+    if (!this.resourceAddr.equals(resourceAddr)) {
+      throw new InvalidResourceException(resourceAddr, this.resourceAddr);
     }
 
     if (amountToWithdraw.isZero()) {
       return Tokens.zero(resourceAddr);
     }
 
-    var p = this.tokens.split(amountToWithdraw);
-    this.tokens = p.getSecond();
-    return p.getFirst();
+    if (amount.compareTo(amountToWithdraw) < 0) {
+      throw new NotEnoughResourcesException(amountToWithdraw, amount.getLow());
+    }
+    amount.subtract(amountToWithdraw);
+    return Tokens.create(resourceAddr, amountToWithdraw);
   }
 
   public void destroy(ExecutionContext c, Resources r)
       throws ResourceAllocationAndDestructionException, NotAResourceException, ProcedureException {
-    if (!tokens.isZero()) {
+    if (!amount.isZero()) {
       c.verifyCanAllocAndDestroyResources();
 
-      var tokenResource = r.loadResource(tokens.getResourceAddr());
+      var tokenResource = r.loadResource(resourceAddr);
       if (!tokenResource.isMutable()) {
         throw new ProcedureException("Can only burn mutable tokens.");
       }
@@ -123,6 +132,7 @@ public final class TokenHoldingBucket implements ReducerState {
 
   @Override
   public String toString() {
-    return String.format("%s{tokens=%s}", this.getClass().getSimpleName(), tokens);
+    return String.format(
+        "%s{resource=%s amount=%s}", this.getClass().getSimpleName(), resourceAddr, amount);
   }
 }
@@ -64,10 +64,7 @@
 
 package com.radixdlt.application.tokens.scrypt;
 
-import com.radixdlt.constraintmachine.exceptions.InvalidResourceException;
-import com.radixdlt.constraintmachine.exceptions.NotEnoughResourcesException;
 import com.radixdlt.identifiers.REAddr;
-import com.radixdlt.utils.Pair;
 import com.radixdlt.utils.UInt256;
 import com.radixdlt.utils.UInt384;
 import java.util.Objects;
@@ -102,25 +99,6 @@ public final class Tokens {
     return resourceAddr;
   }
 
-  Pair<Tokens, Tokens> split(UInt256 first) throws NotEnoughResourcesException {
-    var first384 = UInt384.from(first);
-    if (amount.compareTo(first384) < 0) {
-      throw new NotEnoughResourcesException(first, amount.getLow());
-    }
-
-    var second384 = this.amount.subtract(first384);
-    return Pair.of(new Tokens(resourceAddr, first384), new Tokens(resourceAddr, second384));
-  }
-
-  Tokens merge(Tokens tokens) throws InvalidResourceException {
-    if (!this.resourceAddr.equals(tokens.resourceAddr)) {
-      throw new InvalidResourceException(this.resourceAddr, tokens.resourceAddr);
-    }
-
-    var amount = tokens.amount.add(this.amount);
-    return new Tokens(resourceAddr, amount);
-  }
-
   public boolean isZero() {
     return amount.isZero();
   }
@@ -100,6 +100,7 @@ import com.radixdlt.identifiers.REAddr;
 import com.radixdlt.serialization.DeserializeException;
 import com.radixdlt.store.EngineStore;
 import com.radixdlt.store.TransientEngineStore;
+import com.radixdlt.utils.MutableUInt384;
 import com.radixdlt.utils.UInt256;
 import com.radixdlt.utils.UInt384;
 import java.util.ArrayList;
@@ -282,6 +283,22 @@ public final class RadixEngine<M> {
       return engine.execute(txns, null, permissionLevel);
     }
 
+    /** Prechecks a txn for {@link #execute(PrecheckedTxn)}. Safe to call from any thread. */
+    public PrecheckedTxn precheck(Txn txn) {
+      return engine.precheck(txn, PermissionLevel.USER, false);
+    }
+
+    /** Executes a prechecked txn, with the same result as executing the txn itself. */
+    public RadixEngineResult<M> execute(PrecheckedTxn txn) throws RadixEngineException {
+      assertNotDeleted();
+      return engine.execute(
+          List.of(txn.txn),
+          List.of(txn),
+          Optional.empty(),
+          txn.permissionLevel,
+          txn.skipAuthorization);
+    }
+
     public TxBuilder construct(TxnConstructionRequest request) throws TxBuilderException {
       assertNotDeleted();
       return engine.construct(request);
@@ -313,9 +330,85 @@ public final class RadixEngine<M> {
     }
   }
 
-  private Optional<ECPublicKey> getSignedByKey(ParsedTxn parsedTxn, ExecutionContext context)
+  /**
+   * A txn which has been parsed and whose signature has been checked. Neither depends on the state
+   * the txn is executed against, so many txns can be prechecked in parallel and then executed in
+   * order. A txn which failed the checks fails when it is executed, exactly as it would have
+   * without being prechecked.
+   */
+  public static final class PrecheckedTxn {
+    private final Txn txn;
+    private final PermissionLevel permissionLevel;
+    private final boolean skipAuthorization;
+    private final ParsedTxn parsedTxn;
+    private final ECPublicKey signedByKey;
+    private final TxnParseException parseFailure;
+    private final AuthorizationException authorizationFailure;
+
+    private PrecheckedTxn(
+        Txn txn,
+        PermissionLevel permissionLevel,
+        boolean skipAuthorization,
+        ParsedTxn parsedTxn,
+        ECPublicKey signedByKey,
+        TxnParseException parseFailure,
+        AuthorizationException authorizationFailure) {
+      this.txn = txn;
+      this.permissionLevel = permissionLevel;
+      this.skipAuthorization = skipAuthorization;
+      this.parsedTxn = parsedTxn;
+      this.signedByKey = signedByKey;
+      this.parseFailure = parseFailure;
+      this.authorizationFailure = authorizationFailure;
+    }
+
+    public Txn txn() {
+      return txn;
+    }
+
+    private boolean matches(Txn txn, ExecutionContext context) {
+      return this.txn.equals(txn)
+          && this.permissionLevel == context.permissionLevel()
+          && this.skipAuthorization == context.skipAuthorization();
+    }
+
+    private ParsedTxn parsedTxn() throws TxnParseException {
+      if (parseFailure != null) {
+        throw parseFailure;
+      }
+      return parsedTxn;
+    }
+
+    private Optional<ECPublicKey> signedByKey() throws AuthorizationException {
+      if (authorizationFailure != null) {
+        throw authorizationFailure;
+      }
+      return Optional.ofNullable(signedByKey);
+    }
+  }
+
+  private PrecheckedTxn precheck(
+      Txn txn, PermissionLevel permissionLevel, boolean skipAuthorization) {
+    final ParsedTxn parsedTxn;
+    try {
+      parsedTxn = parser.parse(txn);
+    } catch (TxnParseException e) {
+      return new PrecheckedTxn(txn, permissionLevel, skipAuthorization, null, null, e, null);
+    }
+
+    try {
+      var signedByKey = getSignedByKey(parsedTxn, permissionLevel, skipAuthorization);
+      return new PrecheckedTxn(
+          txn, permissionLevel, skipAuthorization, parsedTxn, signedByKey.orElse(null), null, null);
+    } catch (AuthorizationException e) {
+      return new PrecheckedTxn(txn, permissionLevel, skipAuthorization, parsedTxn, null, null, e);
+    }
+  }
+
+  private Optional<ECPublicKey> getSignedByKey(
+      ParsedTxn parsedTxn, PermissionLevel permissionLevel, boolean skipAuthorization)
       throws AuthorizationException {
-    if (!context.skipAuthorization() && context.permissionLevel() != PermissionLevel.SYSTEM) {
+    if (!skipAuthorization && permissionLevel != PermissionLevel.SYSTEM) {
       var payloadHashAndSigMaybe = parsedTxn.getPayloadHashAndSig();
       if (payloadHashAndSigMaybe.isPresent()) {
         var payloadHashAndSig = payloadHashAndSigMaybe.get();
@@ -339,11 +432,20 @@ public final class RadixEngine<M> {
   private REProcessedTxn verify(
       EngineStore.EngineStoreInTransaction<M> engineStoreInTransaction,
       Txn txn,
+      PrecheckedTxn prechecked,
       ExecutionContext context)
       throws AuthorizationException, TxnParseException, ConstraintMachineException {
 
-    var parsedTxn = parser.parse(txn);
-    var signedByKey = getSignedByKey(parsedTxn, context);
+    final ParsedTxn parsedTxn;
+    final Optional<ECPublicKey> signedByKey;
+    if (prechecked != null && prechecked.matches(txn, context)) {
+      parsedTxn = prechecked.parsedTxn();
+      signedByKey = prechecked.signedByKey();
+    } else {
+      parsedTxn = parser.parse(txn);
+      signedByKey =
+          getSignedByKey(parsedTxn, context.permissionLevel(), context.skipAuthorization());
+    }
     signedByKey.ifPresent(context::setKey);
 
     context.setDisableResourceAllocAndDestroy(parsedTxn.disableResourceAllocAndDestroy());
@@ -375,6 +477,17 @@ public final class RadixEngine<M> {
   public RadixEngineResult<M> execute(
       List<Txn> txns, Optional<M> meta, PermissionLevel permissionLevel, boolean skipAuthorization)
       throws RadixEngineException {
+    return execute(txns, List.of(), meta, permissionLevel, skipAuthorization);
+  }
+
+  // Prechecked txns are either empty or correspond to the txns one by one
+  private RadixEngineResult<M> execute(
+      List<Txn> txns,
+      List<PrecheckedTxn> prechecked,
+      Optional<M> meta,
+      PermissionLevel permissionLevel,
+      boolean skipAuthorization)
+      throws RadixEngineException {
     if (isShutDown) {
       throw new RadixEngineException(
           0, txns.size(), txns.get(0), new RadixEngineIsShutdownException());
@@ -390,13 +503,15 @@ public final class RadixEngine<M> {
       }
 
       return engineStore.transaction(
-          store -> executeInternal(store, txns, meta, permissionLevel, skipAuthorization));
+          store ->
+              executeInternal(store, txns, prechecked, meta, permissionLevel, skipAuthorization));
     }
   }
 
   private RadixEngineResult<M> executeInternal(
       EngineStore.EngineStoreInTransaction<M> engineStoreInTransaction,
       List<Txn> txns,
+      List<PrecheckedTxn> prechecked,
       Optional<M> metaOpt,
       PermissionLevel permissionLevel,
       boolean skipAuthorization)
@@ -416,7 +531,12 @@ public final class RadixEngine<M> {
       var context = new ExecutionContext(txn, permissionLevel, skipAuthorization, sigsLeft);
       final REProcessedTxn processedTxn;
       try {
-        processedTxn = this.verify(engineStoreInTransaction, txn, context);
+        processedTxn =
+            this.verify(
+                engineStoreInTransaction,
+                txn,
+                prechecked.isEmpty() ? null : prechecked.get(i),
+                context);
       } catch (TxnParseException | AuthorizationException | ConstraintMachineException e) {
         throw new RadixEngineException(i, txns.size(), txn, e);
       }
@@ -650,27 +770,27 @@ public final class RadixEngine<M> {
             public <K, T extends ResourceInBucket> Map<K, UInt384> reduceResources(
                 Class<T> c, Function<T, K> keyMapper) {
               var deserialization = constraintMachine.getDeserialization();
-              return reduce(
-                  deserialization.index(c),
-                  new HashMap<>(),
-                  (m, t) -> {
-                    m.merge(keyMapper.apply(t), UInt384.from(t.amount()), UInt384::add);
-                    return m;
-                  });
+              return reduceResources(deserialization.index(c), keyMapper, t -> true);
             }
 
             @Override
             public <K, T extends ResourceInBucket> Map<K, UInt384> reduceResources(
                 SubstateIndex<T> index, Function<T, K> keyMapper, Predicate<T> predicate) {
-              return reduce(
-                  index,
-                  new HashMap<>(),
-                  (m, t) -> {
-                    if (predicate.test(t)) {
-                      m.merge(keyMapper.apply(t), UInt384.from(t.amount()), UInt384::add);
-                    }
-                    return m;
-                  });
+              // Accumulate in place, only materialising an immutable value once per key
+              var sums =
+                  reduce(
+                      index,
+                      new HashMap<K, MutableUInt384>(),
+                      (m, t) -> {
+                        if (predicate.test(t)) {
+                          m.computeIfAbsent(keyMapper.apply(t), k -> MutableUInt384.zero())
+                              .add(t.amount());
+                        }
+                        return m;
+                      });
+              var result = new HashMap<K, UInt384>();
+              sums.forEach((k, sum) -> result.put(k, sum.toUInt384()));
+              return result;
             }
 
             @SuppressWarnings("unchecked")
@@ -0,0 +1,169 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.application.system.construction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.primitives.UnsignedBytes;
+import com.radixdlt.application.tokens.state.ExitingStake;
+import com.radixdlt.application.validators.state.ValidatorRegisteredCopy;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.crypto.ECPublicKey;
+import com.radixdlt.identifiers.REAddr;
+import com.radixdlt.utils.KeyComparator;
+import com.radixdlt.utils.UInt256;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class EpochConstructionStateTest {
+  private final List<ECPublicKey> keys =
+      Stream.generate(() -> ECKeyPair.generateNew().getPublicKey())
+          .limit(3)
+          .sorted(KeyComparator.instance())
+          .toList();
+
+  @Test
+  public void validator_substates_read_in_order_are_kept_in_order() {
+    var first = registered(keys.get(0), true);
+    var second = registered(keys.get(1), false);
+    var third = registered(keys.get(2), true);
+
+    var collected =
+        EpochConstructionState.collectByValidator(List.of(first, second, third).iterator());
+
+    assertThat(collected).containsExactly(first, second, third);
+  }
+
+  @Test
+  public void validator_substates_read_out_of_order_are_sorted_keeping_the_last_duplicate() {
+    var local = registered(keys.get(2), true);
+    var remoteFirst = registered(keys.get(0), true);
+    var remoteDuplicate = registered(keys.get(2), false);
+    var remoteSecond = registered(keys.get(1), true);
+
+    var collected =
+        EpochConstructionState.collectByValidator(
+            List.of(local, remoteFirst, remoteDuplicate, remoteSecond).iterator());
+
+    assertThat(collected).containsExactly(remoteFirst, remoteSecond, remoteDuplicate);
+  }
+
+  @Test
+  public void adjacent_validator_substates_with_the_same_key_keep_the_last() {
+    var first = registered(keys.get(0), true);
+    var duplicate = registered(keys.get(0), false);
+    var second = registered(keys.get(1), true);
+
+    var collected =
+        EpochConstructionState.collectByValidator(List.of(first, duplicate, second).iterator());
+
+    assertThat(collected).containsExactly(duplicate, second);
+  }
+
+  @Test
+  public void exitting_stake_read_in_order_is_kept_in_order() {
+    var stakes = sortedByDataKey(exiting(0, 1), exiting(1, 2), exiting(2, 3));
+
+    var collected = EpochConstructionState.collectExittingStake(stakes.iterator());
+
+    assertThat(collected).containsExactlyElementsOf(stakes);
+  }
+
+  @Test
+  public void exitting_stake_read_out_of_order_is_sorted_keeping_the_first_duplicate() {
+    var stakes = sortedByDataKey(exiting(0, 1), exiting(1, 2), exiting(2, 3));
+    // Same data key as the first stake, which leaves out the amount
+    var duplicate =
+        new ExitingStake(
+            stakes.get(0).epochUnlocked(),
+            stakes.get(0).delegateKey(),
+            stakes.get(0).owner(),
+            UInt256.from(100));
+
+    var collected =
+        EpochConstructionState.collectExittingStake(
+            List.of(stakes.get(2), stakes.get(0), duplicate, stakes.get(1)).iterator());
+
+    assertThat(collected).containsExactlyElementsOf(stakes);
+  }
+
+  private static ValidatorRegisteredCopy registered(ECPublicKey key, boolean isRegistered) {
+    return new ValidatorRegisteredCopy(OptionalLong.empty(), key, isRegistered);
+  }
+
+  private ExitingStake exiting(int keyIndex, long amount) {
+    var key = keys.get(keyIndex);
+    return new ExitingStake(2L, key, REAddr.ofPubKeyAccount(key), UInt256.from(amount));
+  }
+
+  private static List<ExitingStake> sortedByDataKey(ExitingStake... stakes) {
+    var comparator =
+        Comparator.comparing(ExitingStake::dataKey, UnsignedBytes.lexicographicalComparator());
+    return Stream.of(stakes).sorted(comparator).toList();
+  }
+}
@@ -0,0 +1,151 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.primitives.Bytes;
+import com.radixdlt.application.system.construction.CreateSystemConstructorV2;
+import com.radixdlt.application.system.scrypt.SystemConstraintScrypt;
+import com.radixdlt.application.unique.scrypt.MutexConstraintScrypt;
+import com.radixdlt.atom.REConstructor;
+import com.radixdlt.atom.TxAction.CreateSystem;
+import com.radixdlt.atom.Txn;
+import com.radixdlt.atom.TxnConstructionRequest;
+import com.radixdlt.atomos.CMAtomOS;
+import com.radixdlt.constraintmachine.ConstraintMachine;
+import com.radixdlt.constraintmachine.PermissionLevel;
+import com.radixdlt.constraintmachine.REStateUpdate;
+import com.radixdlt.crypto.ECKeyPair;
+import com.radixdlt.engine.parser.REParser;
+import com.radixdlt.engine.parser.exceptions.TxnParseException;
+import com.radixdlt.store.InMemoryEngineStore;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RadixEnginePrecheckTest {
+  private final ECKeyPair keyPair = ECKeyPair.generateNew();
+  private RadixEngine<Void> sut;
+
+  @Before
+  public void setup() throws Exception {
+    var cmAtomOS = new CMAtomOS();
+    cmAtomOS.load(new MutexConstraintScrypt());
+    cmAtomOS.load(new SystemConstraintScrypt());
+    var cm =
+        new ConstraintMachine(
+            cmAtomOS.getProcedures(),
+            cmAtomOS.buildSubstateDeserialization(),
+            cmAtomOS.buildVirtualSubstateDeserialization());
+    this.sut =
+        new RadixEngine<>(
+            new REParser(cmAtomOS.buildSubstateDeserialization()),
+            cmAtomOS.buildSubstateSerialization(),
+            REConstructor.newBuilder()
+                .put(CreateSystem.class, new CreateSystemConstructorV2())
+                .build(),
+            cm,
+            new InMemoryEngineStore<>());
+    var genesis =
+        this.sut
+            .construct(TxnConstructionRequest.create().action(new CreateSystem(0)))
+            .buildWithoutSignature();
+    this.sut.execute(List.of(genesis), null, PermissionLevel.SYSTEM);
+  }
+
+  @Test
+  public void prechecked_txn_executes_as_the_txn_itself() throws Exception {
+    var txn =
+        this.sut.construct(b -> b.mutex(keyPair.getPublicKey(), "np")).signAndBuild(keyPair::sign);
+
+    var expected = this.sut.transientBranch().execute(List.of(txn)).getProcessedTxn();
+    this.sut.deleteBranches();
+    var branch = this.sut.transientBranch();
+    var prechecked = branch.precheck(txn);
+    var processed = branch.execute(prechecked).getProcessedTxn();
+
+    assertThat(prechecked.txn()).isEqualTo(txn);
+    assertThat(processed.getTxnId()).isEqualTo(expected.getTxnId());
+    assertThat(processed.getSignedBy()).contains(keyPair.getPublicKey());
+    assertThat(processed.stateUpdates().map(REStateUpdate::getId))
+        .containsExactlyElementsOf(expected.stateUpdates().map(REStateUpdate::getId).toList());
+  }
+
+  @Test
+  public void unparseable_txn_fails_when_prechecked_txn_is_executed() throws Exception {
+    var signed =
+        this.sut.construct(b -> b.mutex(keyPair.getPublicKey(), "np")).signAndBuild(keyPair::sign);
+    var txn = Txn.create(Bytes.concat(signed.getPayload(), signed.getPayload()));
+
+    var branch = this.sut.transientBranch();
+    var prechecked = branch.precheck(txn);
+
+    assertThatThrownBy(() -> branch.execute(prechecked))
+        .isInstanceOf(RadixEngineException.class)
+        .hasCauseInstanceOf(TxnParseException.class);
+  }
+}
@@ -0,0 +1,333 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.utils;
+
+import com.radixdlt.SecurityCritical;
+import com.radixdlt.SecurityCritical.SecurityKind;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A mutable 384-bit unsigned integer accumulator, backed by primitive {@code long} limbs. Use in
+ * place of {@link UInt384} where a value is repeatedly added to or subtracted from, as the
+ * arithmetic operations update {@code this} rather than allocating a new value.
+ *
+ * <p>Arithmetic wraps modulo 2<sup>384</sup>, in the same way as {@link UInt384}. Instances are not
+ * thread safe.
+ */
+@SecurityCritical(SecurityKind.NUMERIC)
+public final class MutableUInt384 implements Comparable<MutableUInt384> {
+  private static final int LIMBS = UInt384.SIZE / Long.SIZE;
+
+  private final long[] limbs = new long[LIMBS];
+  // Scratch space for operands and products, so that arithmetic does not allocate
+  private final long[] operand = new long[LIMBS];
+  private final long[] product = new long[LIMBS];
+
+  private MutableUInt384() {}
+
+  /**
+   * Creates a new accumulator with the value zero.
+   *
+   * @return A new {@link MutableUInt384} with the value zero.
+   */
+  public static MutableUInt384 zero() {
+    return new MutableUInt384();
+  }
+
+  /**
+   * Creates a new accumulator with the specified initial value.
+   *
+   * @param value The initial value.
+   * @return A new {@link MutableUInt384} with the value {@code value}.
+   */
+  public static MutableUInt384 from(UInt256 value) {
+    return new MutableUInt384().set(value);
+  }
+
+  /**
+   * Creates a new accumulator with the specified initial value.
+   *
+   * @param value The initial value.
+   * @return A new {@link MutableUInt384} with the value {@code value}.
+   */
+  public static MutableUInt384 from(UInt384 value) {
+    return new MutableUInt384().set(value);
+  }
+
+  /**
+   * Sets the value of {@code this} to {@code value}.
+   *
+   * @param value The new value.
+   * @return {@code this}.
+   */
+  public MutableUInt384 set(UInt256 value) {
+    UIntLimbs.load(Objects.requireNonNull(value), this.limbs);
+    return this;
+  }
+
+  /**
+   * Sets the value of {@code this} to {@code value}.
+   *
+   * @param value The new value.
+   * @return {@code this}.
+   */
+  public MutableUInt384 set(UInt384 value) {
+    UIntLimbs.load(Objects.requireNonNull(value), this.limbs);
+    return this;
+  }
+
+  /**
+   * Sets the value of {@code this} to the value of {@code other}.
+   *
+   * @param other The accumulator to copy the value from.
+   * @return {@code this}.
+   */
+  public MutableUInt384 set(MutableUInt384 other) {
+    System.arraycopy(other.limbs, 0, this.limbs, 0, LIMBS);
+    return this;
+  }
+
+  /**
+   * Adds {@code other} to {@code this} in place.
+   *
+   * @param other The addend.
+   * @return {@code this}, now with the value {@code this + other}.
+   */
+  public MutableUInt384 add(UInt256 other) {
+    UIntLimbs.load(other, this.operand);
+    UIntLimbs.add(this.limbs, this.operand);
+    return this;
+  }
+
+  /**
+   * Adds {@code other} to {@code this} in place.
+   *
+   * @param other The addend.
+   * @return {@code this}, now with the value {@code this + other}.
+   */
+  public MutableUInt384 add(UInt384 other) {
+    UIntLimbs.load(other, this.operand);
+    UIntLimbs.add(this.limbs, this.operand);
+    return this;
+  }
+
+  /**
+   * Adds {@code other} to {@code this} in place.
+   *
+   * @param other The addend.
+   * @return {@code this}, now with the value {@code this + other}.
+   */
+  public MutableUInt384 add(MutableUInt384 other) {
+    UIntLimbs.add(this.limbs, other.limbs);
+    return this;
+  }
+
+  /**
+   * Subtracts {@code other} from {@code this} in place.
+   *
+   * @param other The subtrahend.
+   * @return {@code this}, now with the value {@code this - other}.
+   */
+  public MutableUInt384 subtract(UInt256 other) {
+    UIntLimbs.load(other, this.operand);
+    UIntLimbs.subtract(this.limbs, this.operand);
+    return this;
+  }
+
+  /**
+   * Subtracts {@code other} from {@code this} in place.
+   *
+   * @param other The subtrahend.
+   * @return {@code this}, now with the value {@code this - other}.
+   */
+  public MutableUInt384 subtract(UInt384 other) {
+    UIntLimbs.load(other, this.operand);
+    UIntLimbs.subtract(this.limbs, this.operand);
+    return this;
+  }
+
+  /**
+   * Subtracts {@code other} from {@code this} in place.
+   *
+   * @param other The subtrahend.
+   * @return {@code this}, now with the value {@code this - other}.
+   */
+  public MutableUInt384 subtract(MutableUInt384 other) {
+    UIntLimbs.subtract(this.limbs, other.limbs);
+    return this;
+  }
+
+  /**
+   * Multiplies {@code this} by the specified multiplicand in place.
+   *
+   * @param multiplicand The multiplicand to multiply {@code this} by.
+   * @return {@code this}, now with the value {@code this * multiplicand}.
+   */
+  public MutableUInt384 multiply(UInt256 multiplicand) {
+    UIntLimbs.load(multiplicand, this.operand);
+    UIntLimbs.multiply(this.limbs, this.operand, this.product);
+    return this;
+  }
+
+  /**
+   * Multiplies {@code this} by the specified multiplicand in place.
+   *
+   * @param multiplicand The multiplicand to multiply {@code this} by.
+   * @return {@code this}, now with the value {@code this * multiplicand}.
+   */
+  public MutableUInt384 multiply(UInt384 multiplicand) {
+    UIntLimbs.load(multiplicand, this.operand);
+    UIntLimbs.multiply(this.limbs, this.operand, this.product);
+    return this;
+  }
+
+  /**
+   * Compares {@code this} with {@code other}.
+   *
+   * @param other The value to compare with.
+   * @return A negative integer, zero or a positive integer as {@code this} is less than, equal to,
+   *     or greater than {@code other}.
+   */
+  public int compareTo(UInt256 other) {
+    UIntLimbs.load(other, this.operand);
+    return UIntLimbs.compare(this.limbs, this.operand);
+  }
+
+  /**
+   * Compares {@code this} with {@code other}.
+   *
+   * @param other The value to compare with.
+   * @return A negative integer, zero or a positive integer as {@code this} is less than, equal to,
+   *     or greater than {@code other}.
+   */
+  public int compareTo(UInt384 other) {
+    UIntLimbs.load(other, this.operand);
+    return UIntLimbs.compare(this.limbs, this.operand);
+  }
+
+  @Override
+  public int compareTo(MutableUInt384 other) {
+    return UIntLimbs.compare(this.limbs, other.limbs);
+  }
+
+  /**
+   * Returns {@code true} if {@code this} is zero.
+   *
+   * @return {@code true} if {@code this} is zero.
+   */
+  public boolean isZero() {
+    return UIntLimbs.isZero(this.limbs, 0);
+  }
+
+  /**
+   * Returns {@code true} if the value of {@code this} can be represented as a {@link UInt256},
+   * i.e. the most significant 128 bits are all zero.
+   *
+   * @return {@code true} if {@code this} fits in a {@link UInt256}.
+   */
+  public boolean fitsInUInt256() {
+    return UIntLimbs.isZero(this.limbs, UInt256.SIZE / Long.SIZE);
+  }
+
+  /**
+   * Returns the least significant 256 bits of {@code this} as a {@link UInt256}.
+   *
+   * @return the least significant word.
+   */
+  public UInt256 getLow() {
+    return UIntLimbs.toUInt256(this.limbs);
+  }
+
+  /**
+   * Returns the current value of {@code this} as an immutable {@link UInt384}.
+   *
+   * @return the current value.
+   */
+  public UInt384 toUInt384() {
+    return UIntLimbs.toUInt384(this.limbs);
+  }
+
+  /**
+   * Compares the current values of {@code this} and {@code o}, consistently with {@link
+   * #compareTo(MutableUInt384)}. As the value is mutable, instances should not be used as keys in
+   * hashed collections while they may still be updated.
+   */
+  @Override
+  public boolean equals(Object o) {
+    return this == o
+        || (o instanceof MutableUInt384 other && Arrays.equals(this.limbs, other.limbs));
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.limbs);
+  }
+
+  @Override
+  public String toString() {
+    return toUInt384().toString();
+  }
+}
@@ -0,0 +1,183 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.utils;
+
+/**
+ * In-place arithmetic on unsigned integers held as arrays of 64-bit limbs, least significant limb
+ * first. All operations are modulo 2<sup>64 * length</sup> of the accumulator, consistent with the
+ * wrapping behaviour of {@link UInt256} and {@link UInt384}.
+ */
+final class UIntLimbs {
+  private UIntLimbs() {
+    throw new IllegalStateException("Cannot instantiate.");
+  }
+
+  static void load(UInt256 value, long[] dst) {
+    dst[0] = value.low.getLow();
+    dst[1] = value.low.getHigh();
+    dst[2] = value.high.getLow();
+    dst[3] = value.high.getHigh();
+    for (int i = 4; i < dst.length; i++) {
+      dst[i] = 0L;
+    }
+  }
+
+  static void load(UInt384 value, long[] dst) {
+    load(value.low, dst);
+    dst[4] = value.high.getLow();
+    dst[5] = value.high.getHigh();
+  }
+
+  static UInt256 toUInt256(long[] limbs) {
+    return UInt256.from(UInt128.from(limbs[3], limbs[2]), UInt128.from(limbs[1], limbs[0]));
+  }
+
+  static UInt384 toUInt384(long[] limbs) {
+    return UInt384.from(UInt128.from(limbs[5], limbs[4]), toUInt256(limbs));
+  }
+
+  static void add(long[] acc, long[] operand) {
+    long carry = 0L;
+    for (int i = 0; i < acc.length; i++) {
+      long a = acc[i];
+      long b = operand[i];
+      long sum = a + b + carry;
+      // Hacker's Delight section 2-13, carry out of the most significant bit
+      carry = ((a & b) | ((a | b) & ~sum)) >>> 63;
+      acc[i] = sum;
+    }
+  }
+
+  static void subtract(long[] acc, long[] operand) {
+    long borrow = 0L;
+    for (int i = 0; i < acc.length; i++) {
+      long a = acc[i];
+      long b = operand[i];
+      long diff = a - b - borrow;
+      // Hacker's Delight section 2-13, borrow into the most significant bit
+      borrow = ((~a & b) | (~(a ^ b) & diff)) >>> 63;
+      acc[i] = diff;
+    }
+  }
+
+  /**
+   * Multiplies {@code acc} by {@code operand} in place, truncating the result to the length of
+   * {@code acc}. {@code product} is used as scratch space and must be at least as long as {@code
+   * acc}.
+   */
+  static void multiply(long[] acc, long[] operand, long[] product) {
+    int n = acc.length;
+    for (int i = 0; i < n; i++) {
+      product[i] = 0L;
+    }
+    for (int i = 0; i < n; i++) {
+      long a = acc[i];
+      if (a == 0L) {
+        continue;
+      }
+      long carry = 0L;
+      for (int j = 0; i + j < n; j++) {
+        long b = operand[j];
+        long lo = a * b;
+        long hi = unsignedMultiplyHigh(a, b);
+        long t = product[i + j] + lo;
+        if (Long.compareUnsigned(t, lo) < 0) {
+          hi++;
+        }
+        long sum = t + carry;
+        if (Long.compareUnsigned(sum, t) < 0) {
+          hi++;
+        }
+        product[i + j] = sum;
+        carry = hi;
+      }
+    }
+    System.arraycopy(product, 0, acc, 0, n);
+  }
+
+  static int compare(long[] a, long[] b) {
+    for (int i = a.length - 1; i >= 0; i--) {
+      int cmp = Long.compareUnsigned(a[i], b[i]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  static boolean isZero(long[] limbs, int from) {
+    for (int i = from; i < limbs.length; i++) {
+      if (limbs[i] != 0L) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Math.unsignedMultiplyHigh is only available from Java 18
+  private static long unsignedMultiplyHigh(long x, long y) {
+    return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+  }
+}
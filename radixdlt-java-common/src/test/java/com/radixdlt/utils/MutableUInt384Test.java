@@ -0,0 +1,189 @@
+/* Copyright 2021 Radix Publishing Ltd incorporated in Jersey (Channel Islands).
+ *
+ * Licensed under the Radix License, Version 1.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * radixfoundation.org/licenses/LICENSE-v1
+ *
+ * The Licensor hereby grants permission for the Canonical version of the Work to be
+ * published, distributed and used under or by reference to the Licensor’s trademark
+ * Radix ® and use of any unregistered trade names, logos or get-up.
+ *
+ * The Licensor provides the Work (and each Contributor provides its Contributions) on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied,
+ * including, without limitation, any warranties or conditions of TITLE, NON-INFRINGEMENT,
+ * MERCHANTABILITY, or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Whilst the Work is capable of being deployed, used and adopted (instantiated) to create
+ * a distributed ledger it is your responsibility to test and validate the code, together
+ * with all logic and performance of that code under all foreseeable scenarios.
+ *
+ * The Licensor does not make or purport to make and hereby excludes liability for all
+ * and any representation, warranty or undertaking in any form whatsoever, whether express
+ * or implied, to any entity or person, including any representation, warranty or
+ * undertaking, as to the functionality security use, value or other characteristics of
+ * any distributed ledger nor in respect the functioning or value of any tokens which may
+ * be created stored or transferred using the Work. The Licensor does not warrant that the
+ * Work or any use of the Work complies with any law or regulation in any territory where
+ * it may be implemented or used or that it will be appropriate for any specific purpose.
+ *
+ * Neither the licensor nor any current or former employees, officers, directors, partners,
+ * trustees, representatives, agents, advisors, contractors, or volunteers of the Licensor
+ * shall be liable for any direct or indirect, special, incidental, consequential or other
+ * losses of any kind, in tort, contract or otherwise (including but not limited to loss
+ * of revenue, income or profits, or loss of use or data, or loss of reputation, or loss
+ * of any economic or other opportunity of whatsoever nature or howsoever arising), arising
+ * out of or in connection with (without limitation of any use, misuse, of any ledger system
+ * or use made or its functionality or any performance or operation of any code or protocol
+ * caused by bugs or programming or logic errors or otherwise);
+ *
+ * A. any offer, purchase, holding, use, sale, exchange or transmission of any
+ * cryptographic keys, tokens or assets created, exchanged, stored or arising from any
+ * interaction with the Work;
+ *
+ * B. any failure in a transmission or loss of any token or assets keys or other digital
+ * artefacts due to errors in transmission;
+ *
+ * C. bugs, hacks, logic errors or faults in the Work or any communication;
+ *
+ * D. system software or apparatus including but not limited to losses caused by errors
+ * in holding or transmitting tokens by any third-party;
+ *
+ * E. breaches or failure of security including hacker attacks, loss or disclosure of
+ * password, loss of private key, unauthorised use or misuse of such passwords or keys;
+ *
+ * F. any losses including loss of anticipated savings or other benefits resulting from
+ * use of the Work or any changes to the Work (however implemented).
+ *
+ * You are solely responsible for; testing, validating and evaluation of all operation
+ * logic, functionality, security and appropriateness of using the Work for any commercial
+ * or non-commercial purpose and for any reproduction or redistribution by You of the
+ * Work. You assume all risks associated with Your use of the Work and the exercise of
+ * permissions under this License.
+ */
+
+package com.radixdlt.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.Test;
+
+/** Checks {@link MutableUInt384} against {@link BigInteger} and {@link UInt384} arithmetic. */
+public class MutableUInt384Test {
+  private static final BigInteger MODULUS = BigInteger.ONE.shiftLeft(UInt384.SIZE);
+  private static final int ITERATIONS = 10_000;
+
+  @Test
+  public void when_adding_with_carry_across_limbs__result_is_correct() {
+    var value = MutableUInt384.from(UInt256.MAX_VALUE).add(UInt256.ONE);
+
+    assertThat(value.toUInt384()).isEqualTo(UInt384.from(UInt256.MAX_VALUE).add(UInt256.ONE));
+    assertThat(value.fitsInUInt256()).isFalse();
+  }
+
+  @Test
+  public void when_adding_to_max_value__result_wraps_like_uint384() {
+    var value = MutableUInt384.from(UInt384.MAX_VALUE).add(UInt384.ONE);
+
+    assertThat(value.isZero()).isTrue();
+    assertThat(value.toUInt384()).isEqualTo(UInt384.MAX_VALUE.add(UInt384.ONE));
+  }
+
+  @Test
+  public void when_subtracting_from_zero__result_wraps_like_uint384() {
+    var value = MutableUInt384.zero().subtract(UInt256.ONE);
+
+    assertThat(value.toUInt384()).isEqualTo(UInt384.MAX_VALUE);
+  }
+
+  @Test
+  public void when_performing_random_operations__results_match_big_integer() {
+    var random = new Random(42L);
+    for (int i = 0; i < ITERATIONS; i++) {
+      var a = randomBits(random, UInt384.SIZE);
+      var b = randomBits(random, UInt384.SIZE);
+      var c = randomBits(random, UInt256.SIZE);
+
+      var value = MutableUInt384.from(toUInt384(a));
+      var expected = a;
+      assertThat(toBigInt(value)).isEqualTo(expected);
+
+      value.add(toUInt384(b));
+      expected = expected.add(b).mod(MODULUS);
+      assertThat(toBigInt(value)).isEqualTo(expected);
+
+      value.subtract(toUInt256(c));
+      expected = expected.subtract(c).mod(MODULUS);
+      assertThat(toBigInt(value)).isEqualTo(expected);
+
+      value.multiply(toUInt256(c));
+      expected = expected.multiply(c).mod(MODULUS);
+      assertThat(toBigInt(value)).isEqualTo(expected);
+
+      value.multiply(toUInt384(b));
+      expected = expected.multiply(b).mod(MODULUS);
+      assertThat(toBigInt(value)).isEqualTo(expected);
+
+      value.add(toUInt256(c)).subtract(toUInt384(a));
+      expected = expected.add(c).subtract(a).mod(MODULUS);
+      assertThat(toBigInt(value)).isEqualTo(expected);
+
+      assertThat(Integer.signum(value.compareTo(toUInt384(b)))).isEqualTo(expected.compareTo(b));
+      assertThat(value.fitsInUInt256()).isEqualTo(expected.bitLength() <= UInt256.SIZE);
+    }
+  }
+
+  @Test
+  public void when_multiplying__result_matches_uint384() {
+    var random = new Random(7L);
+    for (int i = 0; i < ITERATIONS; i++) {
+      var a = toUInt384(randomBits(random, UInt384.SIZE));
+      var b = toUInt256(randomBits(random, UInt256.SIZE));
+
+      assertThat(MutableUInt384.from(a).multiply(b).toUInt384()).isEqualTo(a.multiply(b));
+    }
+  }
+
+  @Test
+  public void equality_and_hash_code_follow_the_current_value() {
+    var value = MutableUInt384.from(UInt256.TEN);
+    var same = MutableUInt384.zero().add(UInt256.FIVE).add(UInt256.FIVE);
+
+    assertThat(value).isEqualTo(same).hasSameHashCodeAs(same);
+    assertThat(value.compareTo(same)).isZero();
+
+    same.add(UInt256.ONE);
+    assertThat(value).isNotEqualTo(same);
+    assertThat(value).isNotEqualTo(UInt384.from(UInt256.TEN));
+  }
+
+  private static BigInteger randomBits(Random random, int maxBits) {
+    if (random.nextInt(8) == 0) {
+      // Exercise carries through all limbs
+      return BigInteger.ONE.shiftLeft(maxBits).subtract(BigInteger.valueOf(1L + random.nextInt(3)));
+    }
+    return new BigInteger(random.nextInt(maxBits + 1), random);
+  }
+
+  private static BigInteger toBigInt(MutableUInt384 value) {
+    return new BigInteger(1, value.toUInt384().toByteArray());
+  }
+
+  private static UInt384 toUInt384(BigInteger value) {
+    var bytes = new byte[UInt384.BYTES];
+    var raw = value.toByteArray();
+    var length = Math.min(raw.length, UInt384.BYTES);
+    System.arraycopy(raw, raw.length - length, bytes, UInt384.BYTES - length, length);
+    return UInt384.from(bytes);
+  }
+
+  private static UInt256 toUInt256(BigInteger value) {
+    var bytes = new byte[UInt256.BYTES];
+    var raw = value.toByteArray();
+    var length = Math.min(raw.length, UInt256.BYTES);
+    System.arraycopy(raw, raw.length - length, bytes, UInt256.BYTES - length, length);
+    return UInt256.from(bytes);
+  }
+}